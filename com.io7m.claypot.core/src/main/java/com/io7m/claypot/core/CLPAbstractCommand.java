@@ -18,12 +18,17 @@ package com.io7m.claypot.core;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
-import com.io7m.claypot.core.internal.CLPLogLevelConverter;
+import com.io7m.claypot.core.internal.CLPMappedArguments;
+import com.io7m.claypot.core.internal.CLPStreamedArguments;
 import org.osgi.annotation.versioning.ProviderType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.channels.Channels;
+import java.util.List;
 import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * An abstract command.
@@ -37,7 +42,6 @@ public abstract class CLPAbstractCommand implements CLPCommandType
 
   @Parameter(
     names = "--verbose",
-    converter = CLPLogLevelConverter.class,
     description = "Set the minimum logging verbosity level."
   )
   private CLPLogLevel verbose = CLPLogLevel.LOG_INFO;
@@ -80,6 +84,154 @@ public abstract class CLPAbstractCommand implements CLPCommandType
     return this.context().configuration();
   }
 
+  /**
+   * Format and log a message from the command's string resources, if the
+   * given level is enabled. If the level is disabled, no formatting work is
+   * performed.
+   *
+   * @param level The log level
+   * @param id    The string resource ID
+   *
+   * @see CLPStringsType#log(Logger, CLPLogLevel, String)
+   */
+
+  protected final void log(
+    final CLPLogLevel level,
+    final String id)
+  {
+    this.strings().log(this.logger(), level, id);
+  }
+
+  /**
+   * Format and log a message from the command's string resources, if the
+   * given level is enabled. If the level is disabled, no formatting work is
+   * performed.
+   *
+   * @param level The log level
+   * @param id    The string resource ID
+   * @param arg0  The first format argument
+   *
+   * @see CLPStringsType#log(Logger, CLPLogLevel, String, Object)
+   */
+
+  protected final void log(
+    final CLPLogLevel level,
+    final String id,
+    final Object arg0)
+  {
+    this.strings().log(this.logger(), level, id, arg0);
+  }
+
+  /**
+   * Format and log a message from the command's string resources, if the
+   * given level is enabled. If the level is disabled, no formatting work is
+   * performed.
+   *
+   * @param level The log level
+   * @param id    The string resource ID
+   * @param arg0  The first format argument
+   * @param arg1  The second format argument
+   *
+   * @see CLPStringsType#log(Logger, CLPLogLevel, String, Object, Object)
+   */
+
+  protected final void log(
+    final CLPLogLevel level,
+    final String id,
+    final Object arg0,
+    final Object arg1)
+  {
+    this.strings().log(this.logger(), level, id, arg0, arg1);
+  }
+
+  /**
+   * Format and log a message from the command's string resources, if the
+   * given level is enabled. If the level is disabled, no formatting work is
+   * performed.
+   *
+   * @param level The log level
+   * @param id    The string resource ID
+   * @param args  Any required string format arguments
+   *
+   * @see CLPStringsType#log(Logger, CLPLogLevel, String, Object...)
+   */
+
+  protected final void log(
+    final CLPLogLevel level,
+    final String id,
+    final Object... args)
+  {
+    this.strings().log(this.logger(), level, id, args);
+  }
+
+  /**
+   * Combine the given positional arguments with any arguments read from the
+   * file named by {@code --args-from}. The options are only accepted by
+   * commands that declare a {@link CLPArgumentStreamParameters} delegate;
+   * the delegate must be passed here. The file is memory-mapped and each
+   * argument is decoded only when the returned iterable reaches it, so
+   * commands that process their arguments one at a time can accept
+   * arbitrarily long argument lists in constant memory. If the file is
+   * {@code -}, arguments are read from standard input and each one is
+   * returned as soon as it has arrived; standard input can only be consumed
+   * once, so the returned iterable should only be iterated once. Iteration
+   * may throw {@link java.io.UncheckedIOException} if the input cannot be
+   * read or is not valid UTF-8.
+   *
+   * @param parameters The command's argument stream parameters
+   * @param positional The positional arguments given on the command line
+   *
+   * @return The positional arguments followed by any streamed arguments
+   */
+
+  protected final Iterable<String> arguments(
+    final CLPArgumentStreamParameters parameters,
+    final List<String> positional)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+    Objects.requireNonNull(positional, "positional");
+
+    final var fileOpt = parameters.argumentsFrom();
+    if (fileOpt.isEmpty()) {
+      return positional;
+    }
+
+    final var file = fileOpt.get();
+    final var delimiter =
+      parameters.argumentsNullSeparated() ? (byte) 0 : (byte) '\n';
+
+    final Iterable<String> streamed;
+    if ("-".equals(file.toString())) {
+      final var input =
+        this.configuration().standardInput().orElse(System.in);
+      streamed = () -> new CLPStreamedArguments(
+        Channels.newChannel(input),
+        delimiter,
+        CLPStreamedArguments.DEFAULT_BUFFER_SIZE
+      );
+    } else {
+      streamed = new CLPMappedArguments(
+        file, delimiter, CLPMappedArguments.DEFAULT_WINDOW_SIZE);
+    }
+
+    return () -> Stream.concat(
+      positional.stream(),
+      StreamSupport.stream(streamed.spliterator(), false)
+    ).iterator();
+  }
+
+  /**
+   * Restore the options declared by this class, such as {@code --verbose},
+   * to their default values. Commands that are parsed more than once must
+   * call this before each parse, because <tt>jcommander</tt> only assigns
+   * the options that appear on the command line.
+   */
+
+  protected final void resetCommonOptions()
+  {
+    this.verbose = CLPLogLevel.LOG_INFO;
+  }
+
   protected abstract Status executeActual()
     throws Exception;
 
@@ -20,7 +20,11 @@ import com.io7m.immutables.styles.ImmutablesStyleType;
 import org.immutables.value.Value;
 import org.slf4j.Logger;
 
+import java.io.InputStream;
+import java.io.Writer;
 import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -55,4 +59,75 @@ public interface CLPApplicationConfigurationType
    */
 
   List<CLPCommandConstructorType> commands();
+
+  /**
+   * @return The rate limit applied to repeated log messages, if any
+   */
+
+  Optional<CLPLogRateLimit> logRateLimit();
+
+  /**
+   * @return The flight recorder configuration, if the flight recorder is
+   * enabled
+   */
+
+  Optional<CLPFlightRecorderConfiguration> flightRecorder();
+
+  /**
+   * @return The resource accounting configuration, if resource accounting
+   * is enabled
+   */
+
+  Optional<CLPResourceAccountingConfiguration> resourceAccounting();
+
+  /**
+   * @return The writer to which usage text is written, if usage text should
+   * not be logged
+   */
+
+  Optional<Writer> usageWriter();
+
+  /**
+   * @return The stream from which commands read arguments given as
+   * {@code --args-from -}, if not the process's standard input
+   */
+
+  Optional<InputStream> standardInput();
+
+  /**
+   * @return The journal to which every invocation is appended, if any. The
+   * journal records the full command line of each invocation, and so should
+   * be protected accordingly.
+   *
+   * @see CLPJournalReplay
+   */
+
+  Optional<Path> journalFile();
+
+  /**
+   * @return The interval at which progress is rendered
+   *
+   * @see CLPCommandContextType#progress(String, long)
+   */
+
+  @Value.Default
+  default Duration progressInterval()
+  {
+    return Duration.ofSeconds(1L);
+  }
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    final var interval = this.progressInterval();
+    if (interval.isNegative() || interval.isZero()) {
+      throw new IllegalArgumentException(
+        String.format("Progress interval %s must be positive", interval)
+      );
+    }
+  }
 }
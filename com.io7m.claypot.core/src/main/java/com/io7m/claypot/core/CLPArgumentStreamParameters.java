@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+import com.beust.jcommander.Parameter;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * The {@code --args-from} and {@code --null} options. Commands that accept
+ * streamed positional arguments declare a field of this type annotated with
+ * {@link com.beust.jcommander.ParametersDelegate}, and pass it to
+ * {@link CLPAbstractCommand#arguments(CLPArgumentStreamParameters, java.util.List)}.
+ * Commands that do not declare the field do not accept the options.
+ */
+
+public final class CLPArgumentStreamParameters
+{
+  @Parameter(
+    names = "--args-from",
+    description = "Read additional positional arguments from the given file (or standard input if \"-\"), one per line."
+  )
+  private Path argumentsFrom;
+
+  @Parameter(
+    names = "--null",
+    description = "Arguments read with --args-from are separated by NUL characters."
+  )
+  private boolean argumentsNullSeparated;
+
+  /**
+   * Construct a set of parameters.
+   */
+
+  public CLPArgumentStreamParameters()
+  {
+
+  }
+
+  Optional<Path> argumentsFrom()
+  {
+    return Optional.ofNullable(this.argumentsFrom);
+  }
+
+  boolean argumentsNullSeparated()
+  {
+    return this.argumentsNullSeparated;
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPArgumentStreamParameters 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A size in bytes. Command parameters of this type accept an integer
+ * followed by an optional unit: {@code k}, {@code m}, {@code g}, and
+ * {@code t} (or {@code KiB}, {@code MiB}, {@code GiB}, and {@code TiB})
+ * denote powers of 1024, and {@code kB}, {@code MB}, {@code GB}, and
+ * {@code TB} denote powers of 1000.
+ *
+ * @param bytes The size in bytes
+ */
+
+public record CLPByteSize(long bytes)
+{
+  private static final Map<String, Long> UNITS =
+    Map.ofEntries(
+      Map.entry("", Long.valueOf(1L)),
+      Map.entry("b", Long.valueOf(1L)),
+      Map.entry("k", Long.valueOf(1L << 10)),
+      Map.entry("kib", Long.valueOf(1L << 10)),
+      Map.entry("m", Long.valueOf(1L << 20)),
+      Map.entry("mib", Long.valueOf(1L << 20)),
+      Map.entry("g", Long.valueOf(1L << 30)),
+      Map.entry("gib", Long.valueOf(1L << 30)),
+      Map.entry("t", Long.valueOf(1L << 40)),
+      Map.entry("tib", Long.valueOf(1L << 40)),
+      Map.entry("kb", Long.valueOf(1_000L)),
+      Map.entry("mb", Long.valueOf(1_000_000L)),
+      Map.entry("gb", Long.valueOf(1_000_000_000L)),
+      Map.entry("tb", Long.valueOf(1_000_000_000_000L))
+    );
+
+  /**
+   * A size in bytes.
+   *
+   * @param bytes The size in bytes
+   */
+
+  public CLPByteSize
+  {
+    if (bytes < 0L) {
+      throw new IllegalArgumentException(
+        String.format("Size %d must be non-negative", Long.valueOf(bytes)));
+    }
+  }
+
+  /**
+   * Parse a size such as {@code 512}, {@code 64k}, or {@code 10MB}.
+   *
+   * @param text The text
+   *
+   * @return The size, or nothing if the text is not a valid size
+   */
+
+  public static Optional<CLPByteSize> parse(
+    final String text)
+  {
+    final var trimmed = text.trim();
+    var end = 0;
+    while (end < trimmed.length() && Character.isDigit(trimmed.charAt(end))) {
+      end += 1;
+    }
+    if (end == 0) {
+      return Optional.empty();
+    }
+
+    final var unit =
+      UNITS.get(trimmed.substring(end).trim().toLowerCase(Locale.ROOT));
+    if (unit == null) {
+      return Optional.empty();
+    }
+
+    try {
+      final var count = Long.parseLong(trimmed.substring(0, end));
+      return Optional.of(
+        new CLPByteSize(Math.multiplyExact(count, unit.longValue())));
+    } catch (final NumberFormatException | ArithmeticException e) {
+      return Optional.empty();
+    }
+  }
+}
@@ -17,6 +17,8 @@
 package com.io7m.claypot.core;
 
 import com.beust.jcommander.JCommander;
+import com.io7m.claypot.core.internal.CLPProgress;
+import com.io7m.claypot.core.internal.CLPTraceNoopSpan;
 
 /**
  * A command context.
@@ -41,4 +43,49 @@ public interface CLPCommandContextType
    */
 
   JCommander commander();
+
+  /**
+   * @return The output format selected for the current execution
+   */
+
+  default CLPOutputFormat outputFormat()
+  {
+    return CLPOutputFormat.OUTPUT_TEXT;
+  }
+
+  /**
+   * Open a progress reporter. The reporter should be closed when the work
+   * is complete. The default implementation returns a reporter that counts
+   * items but never renders them.
+   *
+   * @param label The label shown alongside the progress
+   * @param total The total number of items, or a non-positive value if the
+   *              total is unknown
+   *
+   * @return A progress reporter
+   */
+
+  default CLPProgressType progress(
+    final String label,
+    final long total)
+  {
+    return CLPProgress.silent(label, total);
+  }
+
+  /**
+   * Open a span covering a phase of work. Spans are exported to a file in
+   * the Chrome trace event format when the hidden {@code --trace-file}
+   * option is specified. The default implementation returns a span that
+   * records nothing.
+   *
+   * @param name The span name
+   *
+   * @return An open span
+   */
+
+  default CLPSpanType span(
+    final String name)
+  {
+    return CLPTraceNoopSpan.NOOP;
+  }
 }
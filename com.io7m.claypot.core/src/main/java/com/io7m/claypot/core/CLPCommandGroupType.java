@@ -0,0 +1,45 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+import org.osgi.annotation.versioning.ProviderType;
+
+import java.util.SortedMap;
+
+/**
+ * A group of commands. The commands within a group are only instantiated and
+ * registered when the command line actually descends into the group, or
+ * when {@link #commands()} is first called.
+ *
+ * @see CLPCommandGroups
+ */
+
+@ProviderType
+public interface CLPCommandGroupType extends CLPCommandType
+{
+  /**
+   * @return The description of the group
+   */
+
+  String description();
+
+  /**
+   * @return The commands (and nested groups) within the group, by name
+   */
+
+  SortedMap<String, CLPCommandType> commands();
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+import com.io7m.claypot.core.internal.CLPCommandGroup;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Functions to declare command groups.
+ */
+
+public final class CLPCommandGroups
+{
+  private CLPCommandGroups()
+  {
+
+  }
+
+  /**
+   * Declare a group of commands. The returned constructor can be added to an
+   * application configuration, or to another group, in the same manner as
+   * any other command constructor. None of the given constructors are
+   * called until the command line descends into the group.
+   *
+   * @param name        The name of the group
+   * @param description The description of the group
+   * @param commands    The commands within the group
+   *
+   * @return A constructor that creates the group
+   */
+
+  public static CLPCommandConstructorType group(
+    final String name,
+    final String description,
+    final List<CLPCommandConstructorType> commands)
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(description, "description");
+
+    final var commandsCopy = List.copyOf(commands);
+    return context -> new CLPCommandGroup(
+      context,
+      name,
+      description,
+      commandsCopy
+    );
+  }
+}
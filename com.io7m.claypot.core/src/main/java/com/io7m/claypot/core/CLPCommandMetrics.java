@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+import java.util.Objects;
+import java.util.Map;
+
+/**
+ * The metrics of a single command.
+ *
+ * @param name                The full name of the command
+ * @param invocations         The number of times the command was executed
+ * @param failures            The number of executions that failed, either by
+ *                            raising an exception or by returning a failure
+ *                            status
+ * @param failuresByException The number of executions that raised an
+ *                            exception, by exception class name
+ * @param latency             The distribution of execution times
+ * @param resources           The total resources consumed by all
+ *                            executions, if resource accounting is enabled,
+ *                            or zero otherwise
+ */
+
+public record CLPCommandMetrics(
+  String name,
+  long invocations,
+  long failures,
+  Map<String, Long> failuresByException,
+  CLPLatencyHistogram latency,
+  CLPResourceUsage resources)
+{
+  /**
+   * The metrics of a single command.
+   */
+
+  public CLPCommandMetrics
+  {
+    Objects.requireNonNull(name, "name");
+    failuresByException = Map.copyOf(
+      Objects.requireNonNull(failuresByException, "failuresByException"));
+    Objects.requireNonNull(latency, "latency");
+    Objects.requireNonNull(resources, "resources");
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+import java.nio.file.Path;
+
+/**
+ * The configuration of the flight recorder. The flight recorder writes every
+ * log event, including those below the current logging verbosity level, into
+ * a fixed-size ring file. The file is kept if a command fails, and deleted
+ * otherwise.
+ *
+ * @see CLPFlightRecorderFile
+ */
+
+@ImmutablesStyleType
+@Value.Immutable
+public interface CLPFlightRecorderConfigurationType
+{
+  /**
+   * @return The ring file name; each execution writes a new file in the
+   * same directory whose name is derived from this one, such as
+   * {@code recorder-1234567890.bin} for {@code recorder.bin}
+   */
+
+  Path file();
+
+  /**
+   * @return The number of events that the ring file can hold
+   */
+
+  @Value.Default
+  default int eventCount()
+  {
+    return 4096;
+  }
+
+  /**
+   * @return The maximum size in bytes of a single event; longer events are
+   * truncated
+   */
+
+  @Value.Default
+  default int eventSize()
+  {
+    return 256;
+  }
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    final var count = this.eventCount();
+    if (count < 1) {
+      throw new IllegalArgumentException(
+        String.format("Event count %d must be positive", Integer.valueOf(count))
+      );
+    }
+
+    final var size = this.eventSize();
+    if (size < 64 || size > 65536) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Event size %d must be in the range [64, 65536]",
+          Integer.valueOf(size))
+      );
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * An event read from a flight recorder file.
+ *
+ * @param sequence   The sequence number of the event
+ * @param time       The time the event was logged
+ * @param level      The level of the event
+ * @param loggerName The name of the logger
+ * @param threadName The name of the thread that logged the event
+ * @param message    The formatted message
+ * @param truncated  {@code true} if the event was truncated
+ */
+
+public record CLPFlightRecorderEvent(
+  long sequence,
+  Instant time,
+  CLPLogLevel level,
+  String loggerName,
+  String threadName,
+  String message,
+  boolean truncated)
+{
+  /**
+   * An event read from a flight recorder file.
+   */
+
+  public CLPFlightRecorderEvent
+  {
+    Objects.requireNonNull(time, "time");
+    Objects.requireNonNull(level, "level");
+    Objects.requireNonNull(loggerName, "loggerName");
+    Objects.requireNonNull(threadName, "threadName");
+    Objects.requireNonNull(message, "message");
+  }
+}
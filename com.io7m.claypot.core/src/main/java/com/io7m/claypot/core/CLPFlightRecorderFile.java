@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+import com.io7m.claypot.core.internal.CLPFlightRecorder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Functions to read flight recorder files.
+ */
+
+public final class CLPFlightRecorderFile
+{
+  private CLPFlightRecorderFile()
+  {
+
+  }
+
+  /**
+   * Read all events from the given flight recorder file, oldest first.
+   *
+   * @param file The file
+   *
+   * @return The events
+   *
+   * @throws IOException On I/O errors, or if the file is not a flight
+   *                     recorder file
+   */
+
+  public static List<CLPFlightRecorderEvent> read(
+    final Path file)
+    throws IOException
+  {
+    return CLPFlightRecorder.read(file);
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+import com.io7m.claypot.core.internal.CLPHelpResourceFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Optional;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Functions to pre-render usage text at build time.
+ *
+ * Applications call {@link #write(CLPApplicationConfiguration, Path)} from
+ * a build step (such as the {@code exec-maven-plugin} {@code java} goal bound
+ * to the {@code process-classes} phase) with the build output directory.
+ * The resulting resource is picked up by {@link Claypot#create} from the
+ * class path. If the resource is missing, or was rendered from different
+ * commands, parameters, descriptions, or a different version of Claypot,
+ * usage text is rendered at run time as usual.
+ */
+
+public final class CLPHelpResources
+{
+  private CLPHelpResources()
+  {
+
+  }
+
+  /**
+   * Render all usage text for the application with the given configuration
+   * and write it to the resource directory {@code outputDirectory}.
+   *
+   * @param configuration   The application configuration
+   * @param outputDirectory The resource output directory
+   *
+   * @return The file that was written
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static Path write(
+    final CLPApplicationConfiguration configuration,
+    final Path outputDirectory)
+    throws IOException
+  {
+    Objects.requireNonNull(configuration, "configuration");
+    Objects.requireNonNull(outputDirectory, "outputDirectory");
+
+    final var rendered =
+      Claypot.createWith(configuration, Optional::empty)
+        .usageCache()
+        .renderAll();
+
+    final var file =
+      outputDirectory.resolve(
+        CLPHelpResourceFile.resourceName(configuration.programName()))
+        .toAbsolutePath();
+    final var fileTemp =
+      file.resolveSibling(file.getFileName() + ".tmp");
+
+    final var directory = file.getParent();
+    if (directory != null) {
+      Files.createDirectories(directory);
+    }
+    try (var output = Files.newOutputStream(fileTemp)) {
+      rendered.write(output);
+    }
+    Files.move(fileTemp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+    return file;
+  }
+}
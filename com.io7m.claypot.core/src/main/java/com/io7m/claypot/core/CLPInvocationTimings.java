@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+/**
+ * The timings of a single invocation, measured in the same way as the
+ * timings recorded in a journal. The total time covers parsing and
+ * execution, but not the writing of metrics, traces, or journal entries
+ * that follows.
+ *
+ * @param parseNanos   The time spent parsing arguments, in nanoseconds
+ * @param executeNanos The time spent executing the command, in nanoseconds
+ * @param totalNanos   The total time of the invocation, in nanoseconds
+ *
+ * @see CLPJournalEntry
+ * @see ClaypotType#timings()
+ */
+
+public record CLPInvocationTimings(
+  long parseNanos,
+  long executeNanos,
+  long totalNanos)
+{
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A single invocation recorded in a journal.
+ *
+ * @param time           The time the invocation started
+ * @param command        The name of the executed command, or the empty
+ *                       string if no command was executed
+ * @param arguments      The command-line arguments
+ * @param exitCode       The exit code
+ * @param exceptionClass The class of the exception that caused the
+ *                       invocation to fail, if any
+ * @param parseNanos     The time spent parsing arguments, in nanoseconds
+ * @param executeNanos   The time spent executing the command, in nanoseconds
+ * @param totalNanos     The total time of the invocation, in nanoseconds
+ *
+ * @see CLPApplicationConfigurationType#journalFile()
+ * @see CLPJournalReplay
+ */
+
+public record CLPJournalEntry(
+  Instant time,
+  String command,
+  List<String> arguments,
+  int exitCode,
+  Optional<String> exceptionClass,
+  long parseNanos,
+  long executeNanos,
+  long totalNanos)
+{
+  /**
+   * A single invocation recorded in a journal.
+   *
+   * @param time           The time the invocation started
+   * @param command        The name of the executed command, or the empty
+   *                       string if no command was executed
+   * @param arguments      The command-line arguments
+   * @param exitCode       The exit code
+   * @param exceptionClass The class of the exception that caused the
+   *                       invocation to fail, if any
+   * @param parseNanos     The time spent parsing arguments, in nanoseconds
+   * @param executeNanos   The time spent executing the command, in
+   *                       nanoseconds
+   * @param totalNanos     The total time of the invocation, in nanoseconds
+   */
+
+  public CLPJournalEntry
+  {
+    Objects.requireNonNull(time, "time");
+    Objects.requireNonNull(command, "command");
+    Objects.requireNonNull(exceptionClass, "exceptionClass");
+    arguments = List.copyOf(arguments);
+  }
+}
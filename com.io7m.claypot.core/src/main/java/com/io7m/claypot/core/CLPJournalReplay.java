@@ -0,0 +1,221 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+import com.io7m.claypot.core.internal.CLPJournalFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Functions to read journals and replay them against a {@link ClaypotType}
+ * instance, comparing the recorded invocation times against the replayed
+ * ones. Replaying is intended for comparing the performance of two versions
+ * of an application against the same traffic; commands are really executed,
+ * so a journal should only be replayed where its commands are safe to run
+ * again.
+ *
+ * @see CLPApplicationConfigurationType#journalFile()
+ */
+
+public final class CLPJournalReplay
+{
+  private CLPJournalReplay()
+  {
+
+  }
+
+  /**
+   * Read a journal.
+   *
+   * @param file The journal file
+   *
+   * @return The entries in the journal
+   *
+   * @throws IOException On I/O errors, or if the file is not a journal
+   */
+
+  public static List<CLPJournalEntry> read(
+    final Path file)
+    throws IOException
+  {
+    Objects.requireNonNull(file, "file");
+    return CLPJournalFormat.decode(ByteBuffer.wrap(Files.readAllBytes(file)));
+  }
+
+  /**
+   * Execute every journal entry, in order, and compare the timings per
+   * command. Each entry is executed against a fresh instance obtained from
+   * the given supplier so that no state from one entry can influence the
+   * next. The parse, execute, and total timings reported by each instance
+   * (see {@link ClaypotType#timings()}) are compared against the same
+   * phases of the recorded entry, so work done by an instance outside of
+   * those phases, such as creating it or writing metrics, is never counted.
+   * Instances that do not report timings are measured by wall-clock time,
+   * and contribute only to the total phase.
+   *
+   * @param entries The journal entries
+   * @param claypots A supplier of instances
+   *
+   * @return The comparison
+   */
+
+  public static CLPReplayReport replay(
+    final List<CLPJournalEntry> entries,
+    final Supplier<ClaypotType> claypots)
+  {
+    Objects.requireNonNull(entries, "entries");
+    Objects.requireNonNull(claypots, "claypots");
+
+    final var samples = new TreeMap<String, CommandSamples>();
+    for (final var entry : entries) {
+      final var claypot = claypots.get();
+      final var timeThen = System.nanoTime();
+      claypot.execute(entry.arguments().toArray(new String[0]));
+      final var elapsed = System.nanoTime() - timeThen;
+
+      final var command =
+        samples.computeIfAbsent(entry.command(), k -> new CommandSamples());
+      command.add(entry, claypot, elapsed);
+    }
+
+    final var comparisons = new ArrayList<CLPReplayComparison>();
+    for (final var entry : samples.entrySet()) {
+      final var command = entry.getValue();
+      comparisons.add(new CLPReplayComparison(
+        entry.getKey(),
+        command.invocations,
+        command.mismatches,
+        command.parse.compare(),
+        command.execute.compare(),
+        command.total.compare()
+      ));
+    }
+    return new CLPReplayReport(comparisons);
+  }
+
+  private static long[] sorted(
+    final List<Long> values)
+  {
+    final var array = new long[values.size()];
+    for (int index = 0; index < array.length; ++index) {
+      array[index] = values.get(index).longValue();
+    }
+    Arrays.sort(array);
+    return array;
+  }
+
+  private static long median(
+    final long[] values)
+  {
+    final var middle = values.length / 2;
+    if (values.length % 2 == 0) {
+      return (values[middle - 1] + values[middle]) / 2L;
+    }
+    return values[middle];
+  }
+
+  private static long mean(
+    final long[] values)
+  {
+    long sum = 0L;
+    for (final var value : values) {
+      sum += value;
+    }
+    return sum / values.length;
+  }
+
+  private static final class CommandSamples
+  {
+    private final PhaseSamples parse = new PhaseSamples();
+    private final PhaseSamples execute = new PhaseSamples();
+    private final PhaseSamples total = new PhaseSamples();
+    private long invocations;
+    private long mismatches;
+
+    CommandSamples()
+    {
+
+    }
+
+    void add(
+      final CLPJournalEntry entry,
+      final ClaypotType claypot,
+      final long elapsed)
+    {
+      ++this.invocations;
+      if (claypot.exitCode() != entry.exitCode()) {
+        ++this.mismatches;
+      }
+
+      final var timings = claypot.timings();
+      if (timings.isPresent()) {
+        final var replayed = timings.get();
+        this.parse.add(entry.parseNanos(), replayed.parseNanos());
+        this.execute.add(entry.executeNanos(), replayed.executeNanos());
+        this.total.add(entry.totalNanos(), replayed.totalNanos());
+      } else {
+        this.total.add(entry.totalNanos(), elapsed);
+      }
+    }
+  }
+
+  private static final class PhaseSamples
+  {
+    private final List<Long> recorded = new ArrayList<>();
+    private final List<Long> replayed = new ArrayList<>();
+
+    PhaseSamples()
+    {
+
+    }
+
+    void add(
+      final long recordedNanos,
+      final long replayedNanos)
+    {
+      this.recorded.add(Long.valueOf(recordedNanos));
+      this.replayed.add(Long.valueOf(replayedNanos));
+    }
+
+    CLPReplayPhase compare()
+    {
+      if (this.recorded.isEmpty()) {
+        return new CLPReplayPhase(
+          Duration.ZERO, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+      }
+
+      final var before = sorted(this.recorded);
+      final var after = sorted(this.replayed);
+      return new CLPReplayPhase(
+        Duration.ofNanos(median(before)),
+        Duration.ofNanos(median(after)),
+        Duration.ofNanos(mean(before)),
+        Duration.ofNanos(mean(after))
+      );
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A snapshot of a latency histogram. Values are placed into logarithmic
+ * buckets, each power of two being divided into sixteen linear sub-buckets,
+ * so every recorded value is known to within 6.25%.
+ *
+ * @param count        The number of recorded values
+ * @param minimumNanos The smallest recorded value, in nanoseconds
+ * @param maximumNanos The largest recorded value, in nanoseconds
+ * @param buckets      The non-empty buckets, in ascending order
+ */
+
+public record CLPLatencyHistogram(
+  long count,
+  long minimumNanos,
+  long maximumNanos,
+  List<Bucket> buckets)
+{
+  /**
+   * A snapshot of a latency histogram.
+   */
+
+  public CLPLatencyHistogram
+  {
+    buckets = List.copyOf(Objects.requireNonNull(buckets, "buckets"));
+  }
+
+  /**
+   * Estimate the value below which the given percentage of the recorded
+   * values fall. The estimate is the upper bound of the bucket containing
+   * the value, clamped to the recorded maximum.
+   *
+   * @param percentile The percentile, in the range {@code [0, 100]}
+   *
+   * @return The estimated value, or zero if nothing was recorded
+   */
+
+  public Duration percentile(
+    final double percentile)
+  {
+    if (percentile < 0.0 || percentile > 100.0) {
+      throw new IllegalArgumentException(
+        String.format("Percentile %f must be in [0, 100]", percentile));
+    }
+    if (this.count == 0L) {
+      return Duration.ZERO;
+    }
+
+    final var target =
+      Math.max(1L, (long) Math.ceil(this.count * (percentile / 100.0)));
+
+    var seen = 0L;
+    for (final var bucket : this.buckets) {
+      seen += bucket.count();
+      if (seen >= target) {
+        return Duration.ofNanos(
+          Math.min(bucket.upperNanos() - 1L, this.maximumNanos));
+      }
+    }
+    return Duration.ofNanos(this.maximumNanos);
+  }
+
+  /**
+   * A histogram bucket.
+   *
+   * @param lowerNanos The inclusive lower bound, in nanoseconds
+   * @param upperNanos The exclusive upper bound, in nanoseconds
+   * @param count      The number of values in the bucket
+   */
+
+  public record Bucket(
+    long lowerNanos,
+    long upperNanos,
+    long count)
+  {
+
+  }
+}
@@ -100,4 +100,26 @@ public enum CLPLogLevel
 
     throw new IllegalStateException();
   }
+
+  /**
+   * @return The level as an SLF4J level
+   */
+
+  public org.slf4j.event.Level toSLF4JLevel()
+  {
+    switch (this) {
+      case LOG_TRACE:
+        return org.slf4j.event.Level.TRACE;
+      case LOG_DEBUG:
+        return org.slf4j.event.Level.DEBUG;
+      case LOG_INFO:
+        return org.slf4j.event.Level.INFO;
+      case LOG_WARN:
+        return org.slf4j.event.Level.WARN;
+      case LOG_ERROR:
+        return org.slf4j.event.Level.ERROR;
+    }
+
+    throw new IllegalStateException();
+  }
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+import java.time.Duration;
+
+/**
+ * A rate limit applied to repeated log messages. Messages are considered to
+ * be identical if they were logged using the same message template.
+ */
+
+@ImmutablesStyleType
+@Value.Immutable
+public interface CLPLogRateLimitType
+{
+  /**
+   * @return The length of the time window over which messages are counted
+   */
+
+  @Value.Default
+  default Duration window()
+  {
+    return Duration.ofSeconds(1L);
+  }
+
+  /**
+   * @return The maximum number of identical messages logged per window
+   */
+
+  @Value.Default
+  default int maximumPerWindow()
+  {
+    return 10;
+  }
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    final var window = this.window();
+    if (window.isNegative() || window.isZero()) {
+      throw new IllegalArgumentException(
+        String.format("Window %s must be positive", window)
+      );
+    }
+    final var maximum = this.maximumPerWindow();
+    if (maximum < 1) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Maximum per window %d must be positive",
+          Integer.valueOf(maximum))
+      );
+    }
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+import java.util.SortedMap;
+
+/**
+ * The metrics collected for the commands executed by an application.
+ * Metrics are collected without locking and accumulate over every
+ * {@link ClaypotType#execute(String[])} call. The hidden global option
+ * {@code --metrics-file} additionally writes the metrics to a file when
+ * execution completes.
+ */
+
+public interface CLPMetricsType
+{
+  /**
+   * @return A snapshot of the metrics of every command that has been
+   * executed at least once, by full command name
+   */
+
+  SortedMap<String, CLPCommandMetrics> snapshot();
+}
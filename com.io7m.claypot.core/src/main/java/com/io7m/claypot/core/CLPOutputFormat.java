@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+import java.util.Objects;
+
+/**
+ * The format of the output produced by an application.
+ */
+
+public enum CLPOutputFormat
+{
+  /**
+   * Human-readable text, written by the application's configured logging
+   * appenders.
+   */
+
+  OUTPUT_TEXT("text"),
+
+  /**
+   * JSON Lines: log events, usage text, exception reports, and the exit
+   * status are written to the standard output as one JSON object per line.
+   */
+
+  OUTPUT_JSONL("jsonl");
+
+  private final String name;
+
+  CLPOutputFormat(final String inName)
+  {
+    this.name = Objects.requireNonNull(inName, "name");
+  }
+
+  @Override
+  public String toString()
+  {
+    return this.name;
+  }
+
+  /**
+   * @return The short name of the format
+   */
+
+  public String getName()
+  {
+    return this.name;
+  }
+}
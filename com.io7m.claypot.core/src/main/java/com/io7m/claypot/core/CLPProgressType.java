@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+/**
+ * A progress reporter. Commands increment the reporter from any thread;
+ * incrementing never blocks and never allocates. A single background thread
+ * renders the progress of all open reporters at a fixed interval, either as
+ * a live line on the terminal or as periodic log messages, so commands do not
+ * need to decide how often to report progress themselves.
+ *
+ * @see CLPCommandContextType#progress(String, long)
+ */
+
+public interface CLPProgressType extends AutoCloseable
+{
+  /**
+   * Add the given number of completed items.
+   *
+   * @param amount The number of items
+   */
+
+  void add(long amount);
+
+  /**
+   * Add a single completed item.
+   */
+
+  default void increment()
+  {
+    this.add(1L);
+  }
+
+  /**
+   * @return The number of completed items
+   */
+
+  long count();
+
+  /**
+   * Stop reporting progress, rendering a final summary.
+   */
+
+  @Override
+  void close();
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+import java.util.Objects;
+
+/**
+ * A comparison of the recorded and replayed timings of a single command.
+ * Each phase is compared against the same phase of the recorded
+ * invocations.
+ *
+ * @param command            The command name, or the empty string for
+ *                           invocations that executed no command
+ * @param invocations        The number of invocations
+ * @param exitCodeMismatches The number of replayed invocations whose exit
+ *                           code differed from the recorded exit code
+ * @param parse              The time spent parsing arguments
+ * @param execute            The time spent executing the command
+ * @param total              The total time of each invocation
+ *
+ * @see CLPInvocationTimings
+ */
+
+public record CLPReplayComparison(
+  String command,
+  long invocations,
+  long exitCodeMismatches,
+  CLPReplayPhase parse,
+  CLPReplayPhase execute,
+  CLPReplayPhase total)
+{
+  /**
+   * A comparison of the recorded and replayed timings of a single command.
+   *
+   * @param command            The command name, or the empty string for
+   *                           invocations that executed no command
+   * @param invocations        The number of invocations
+   * @param exitCodeMismatches The number of replayed invocations whose exit
+   *                           code differed from the recorded exit code
+   * @param parse              The time spent parsing arguments
+   * @param execute            The time spent executing the command
+   * @param total              The total time of each invocation
+   */
+
+  public CLPReplayComparison
+  {
+    Objects.requireNonNull(command, "command");
+    Objects.requireNonNull(parse, "parse");
+    Objects.requireNonNull(execute, "execute");
+    Objects.requireNonNull(total, "total");
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * A comparison of the recorded and replayed timings of one phase of a
+ * single command.
+ *
+ * @param recordedMedian The median recorded time
+ * @param replayedMedian The median replayed time
+ * @param recordedMean   The mean recorded time
+ * @param replayedMean   The mean replayed time
+ *
+ * @see CLPReplayComparison
+ */
+
+public record CLPReplayPhase(
+  Duration recordedMedian,
+  Duration replayedMedian,
+  Duration recordedMean,
+  Duration replayedMean)
+{
+  /**
+   * A comparison of the recorded and replayed timings of one phase of a
+   * single command.
+   *
+   * @param recordedMedian The median recorded time
+   * @param replayedMedian The median replayed time
+   * @param recordedMean   The mean recorded time
+   * @param replayedMean   The mean replayed time
+   */
+
+  public CLPReplayPhase
+  {
+    Objects.requireNonNull(recordedMedian, "recordedMedian");
+    Objects.requireNonNull(replayedMedian, "replayedMedian");
+    Objects.requireNonNull(recordedMean, "recordedMean");
+    Objects.requireNonNull(replayedMean, "replayedMean");
+  }
+
+  /**
+   * @return The change in median time from the recording to the replay, as
+   * a percentage of the recorded median
+   */
+
+  public double medianDeltaPercent()
+  {
+    final var recorded = (double) this.recordedMedian.toNanos();
+    if (recorded == 0.0) {
+      return 0.0;
+    }
+    return ((double) this.replayedMedian.toNanos() - recorded) * 100.0 / recorded;
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * The result of replaying a journal.
+ *
+ * @param commands The per-command comparisons, sorted by command name
+ *
+ * @see CLPJournalReplay
+ */
+
+public record CLPReplayReport(
+  List<CLPReplayComparison> commands)
+{
+  /**
+   * The result of replaying a journal.
+   *
+   * @param commands The per-command comparisons, sorted by command name
+   */
+
+  public CLPReplayReport
+  {
+    commands = List.copyOf(commands);
+  }
+
+  /**
+   * Write the report as a plain text table. The recorded and replayed
+   * columns show median execution times; the deltas compare the median
+   * times of the execution, parsing, and total phases respectively.
+   *
+   * @param writer The output writer
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void writeTo(
+    final Writer writer)
+    throws IOException
+  {
+    Objects.requireNonNull(writer, "writer");
+
+    writer.write(String.format(
+      Locale.ROOT,
+      "%-24s %8s %12s %12s %9s %9s %9s %10s%n",
+      "Command",
+      "Count",
+      "Recorded",
+      "Replayed",
+      "Delta",
+      "Parse",
+      "Total",
+      "Mismatches"
+    ));
+
+    for (final var command : this.commands) {
+      writer.write(String.format(
+        Locale.ROOT,
+        "%-24s %8d %12s %12s %+8.1f%% %+8.1f%% %+8.1f%% %10d%n",
+        command.command().isEmpty() ? "(none)" : command.command(),
+        Long.valueOf(command.invocations()),
+        millis(command.execute().recordedMedian()),
+        millis(command.execute().replayedMedian()),
+        Double.valueOf(command.execute().medianDeltaPercent()),
+        Double.valueOf(command.parse().medianDeltaPercent()),
+        Double.valueOf(command.total().medianDeltaPercent()),
+        Long.valueOf(command.exitCodeMismatches())
+      ));
+    }
+    writer.flush();
+  }
+
+  private static String millis(
+    final Duration duration)
+  {
+    return String.format(
+      Locale.ROOT,
+      "%.3fms",
+      Double.valueOf((double) duration.toNanos() / 1.0e6));
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+/**
+ * The resources consumed by command executions. CPU time and allocated
+ * memory are measured for the thread that executed the command; garbage
+ * collection counts and times are process-wide, and so include collections
+ * caused by any other threads that were running at the same time. A value
+ * of {@code -1} indicates that the JVM does not support the measurement.
+ *
+ * @param cpuNanos       The CPU time consumed, in nanoseconds
+ * @param allocatedBytes The number of bytes allocated
+ * @param gcCount        The number of garbage collections
+ * @param gcNanos        The time spent in garbage collection, in nanoseconds
+ */
+
+public record CLPResourceUsage(
+  long cpuNanos,
+  long allocatedBytes,
+  long gcCount,
+  long gcNanos)
+{
+  /**
+   * No resource usage.
+   */
+
+  public static final CLPResourceUsage ZERO =
+    new CLPResourceUsage(0L, 0L, 0L, 0L);
+
+  /**
+   * Add the given usage to this usage. Unsupported measurements remain
+   * unsupported.
+   *
+   * @param other The other usage
+   *
+   * @return The sum of both usages
+   */
+
+  public CLPResourceUsage plus(
+    final CLPResourceUsage other)
+  {
+    return new CLPResourceUsage(
+      add(this.cpuNanos, other.cpuNanos),
+      add(this.allocatedBytes, other.allocatedBytes),
+      add(this.gcCount, other.gcCount),
+      add(this.gcNanos, other.gcNanos)
+    );
+  }
+
+  private static long add(
+    final long x,
+    final long y)
+  {
+    if (x < 0L || y < 0L) {
+      return -1L;
+    }
+    return x + y;
+  }
+}
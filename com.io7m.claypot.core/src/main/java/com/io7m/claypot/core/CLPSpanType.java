@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core;
+
+/**
+ * A span covering a phase of work within a command. Spans opened while
+ * another span is open on the same thread are nested within it. Spans are
+ * recorded only if tracing was requested on the command line, and are
+ * otherwise discarded without cost.
+ *
+ * A span must be closed on the thread that opened it. Span objects are
+ * reused to avoid allocation, but a span that has been closed ignores any
+ * further calls, even if it is later reused for a new span.
+ *
+ * @see CLPCommandContextType#span(String)
+ */
+
+public interface CLPSpanType extends AutoCloseable
+{
+  /**
+   * Attach an attribute to the span. Attributes beyond a small fixed number
+   * per span are ignored.
+   *
+   * @param name  The attribute name
+   * @param value The attribute value
+   *
+   * @return this
+   */
+
+  CLPSpanType attribute(
+    String name,
+    String value);
+
+  /**
+   * Attach an attribute to the span. Attributes beyond a small fixed number
+   * per span are ignored.
+   *
+   * @param name  The attribute name
+   * @param value The attribute value
+   *
+   * @return this
+   */
+
+  CLPSpanType attribute(
+    String name,
+    long value);
+
+  /**
+   * Close the span.
+   */
+
+  @Override
+  void close();
+}
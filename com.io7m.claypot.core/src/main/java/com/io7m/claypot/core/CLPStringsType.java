@@ -16,6 +16,8 @@
 
 package com.io7m.claypot.core;
 
+import org.slf4j.Logger;
+
 import java.text.MessageFormat;
 import java.util.Objects;
 import java.util.ResourceBundle;
@@ -51,4 +53,102 @@ public interface CLPStringsType
     Objects.requireNonNull(args, "args");
     return MessageFormat.format(this.resources().getString(id), args);
   }
+
+  /**
+   * Format and log a message, if the given level is enabled for the logger.
+   * If the level is disabled, no formatting work is performed.
+   *
+   * @param logger The logger
+   * @param level  The log level
+   * @param id     The string resource ID
+   */
+
+  default void log(
+    final Logger logger,
+    final CLPLogLevel level,
+    final String id)
+  {
+    if (logger.isEnabledForLevel(level.toSLF4JLevel())) {
+      logFormatted(logger, level, this.format(id));
+    }
+  }
+
+  /**
+   * Format and log a message, if the given level is enabled for the logger.
+   * If the level is disabled, no formatting work is performed.
+   *
+   * @param logger The logger
+   * @param level  The log level
+   * @param id     The string resource ID
+   * @param arg0   The first format argument
+   */
+
+  default void log(
+    final Logger logger,
+    final CLPLogLevel level,
+    final String id,
+    final Object arg0)
+  {
+    if (logger.isEnabledForLevel(level.toSLF4JLevel())) {
+      logFormatted(logger, level, this.format(id, arg0));
+    }
+  }
+
+  /**
+   * Format and log a message, if the given level is enabled for the logger.
+   * If the level is disabled, no formatting work is performed.
+   *
+   * @param logger The logger
+   * @param level  The log level
+   * @param id     The string resource ID
+   * @param arg0   The first format argument
+   * @param arg1   The second format argument
+   */
+
+  default void log(
+    final Logger logger,
+    final CLPLogLevel level,
+    final String id,
+    final Object arg0,
+    final Object arg1)
+  {
+    if (logger.isEnabledForLevel(level.toSLF4JLevel())) {
+      logFormatted(logger, level, this.format(id, arg0, arg1));
+    }
+  }
+
+  /**
+   * Format and log a message, if the given level is enabled for the logger.
+   * If the level is disabled, no formatting work is performed.
+   *
+   * @param logger The logger
+   * @param level  The log level
+   * @param id     The string resource ID
+   * @param args   Any required string format arguments
+   */
+
+  default void log(
+    final Logger logger,
+    final CLPLogLevel level,
+    final String id,
+    final Object... args)
+  {
+    if (logger.isEnabledForLevel(level.toSLF4JLevel())) {
+      logFormatted(logger, level, this.format(id, args));
+    }
+  }
+
+  private static void logFormatted(
+    final Logger logger,
+    final CLPLogLevel level,
+    final String message)
+  {
+    switch (level) {
+      case LOG_TRACE -> logger.trace("{}", message);
+      case LOG_DEBUG -> logger.debug("{}", message);
+      case LOG_INFO -> logger.info("{}", message);
+      case LOG_WARN -> logger.warn("{}", message);
+      case LOG_ERROR -> logger.error("{}", message);
+    }
+  }
 }
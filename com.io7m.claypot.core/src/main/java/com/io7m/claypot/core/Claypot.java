@@ -16,18 +16,65 @@
 
 package com.io7m.claypot.core;
 
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.ParameterException;
-import com.io7m.claypot.core.internal.CLPBriefUsageFormatter;
+import com.io7m.claypot.core.internal.CLPCommandBench;
+import com.io7m.claypot.core.internal.CLPCommandGroup;
 import com.io7m.claypot.core.internal.CLPCommandHelp;
+import com.io7m.claypot.core.internal.CLPCommandResolver;
+import com.io7m.claypot.core.internal.CLPCompletion;
+import com.io7m.claypot.core.internal.CLPConverterRegistry;
+import com.io7m.claypot.core.internal.CLPCreateEvent;
 import com.io7m.claypot.core.internal.CLPCommandRoot;
+import com.io7m.claypot.core.internal.CLPExceptionRenderer;
+import com.io7m.claypot.core.internal.CLPExceptionReportEvent;
+import com.io7m.claypot.core.internal.CLPExceptionReportJSONSink;
+import com.io7m.claypot.core.internal.CLPExceptionReportLoggerSink;
+import com.io7m.claypot.core.internal.CLPExceptionReportSinkType;
+import com.io7m.claypot.core.internal.CLPExecuteEvent;
+import com.io7m.claypot.core.internal.CLPFlightRecorder;
+import com.io7m.claypot.core.internal.CLPHelpResourceFile;
+import com.io7m.claypot.core.internal.CLPIntrospection;
+import com.io7m.claypot.core.internal.CLPIntrospectionServer;
+import com.io7m.claypot.core.internal.CLPJSONEncoder;
+import com.io7m.claypot.core.internal.CLPJournalWriter;
+import com.io7m.claypot.core.internal.CLPJSONLinesAppender;
+import com.io7m.claypot.core.internal.CLPJSONLinesOutput;
+import com.io7m.claypot.core.internal.CLPLogRateLimitFilter;
+import com.io7m.claypot.core.internal.CLPMetrics;
+import com.io7m.claypot.core.internal.CLPOutputFormatScan;
+import com.io7m.claypot.core.internal.CLPParseEvent;
+import com.io7m.claypot.core.internal.CLPProgressOutput;
+import com.io7m.claypot.core.internal.CLPProgressTicker;
+import com.io7m.claypot.core.internal.CLPResourceMeter;
+import com.io7m.claypot.core.internal.CLPSampler;
+import com.io7m.claypot.core.internal.CLPTracer;
+import com.io7m.claypot.core.internal.CLPUsageCache;
+import com.io7m.claypot.core.internal.CLPUsageOutput;
+import com.io7m.claypot.core.internal.CLPUsageSinkType;
+import com.io7m.claypot.core.internal.CLPUsageWriterSink;
 import org.slf4j.Logger;
-
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * The main wrapper over {@link JCommander}.
@@ -39,14 +86,29 @@ public final class Claypot implements ClaypotType
   private final JCommander commander;
   private final TreeMap<String, CLPCommandType> commandMap;
   private final CLPStringsType strings;
+  private final Context context;
+  private final CLPUsageCache usageCache;
+  private final CLPUsageOutput usageOutput;
+  private final CLPCommandResolver resolver;
+  private final CLPMetrics metrics;
+  private final Optional<CLPJournalWriter> journal;
   private int exitCode;
   private Exception exitCause;
+  private CLPResourceUsage resourceUsage;
+  private CLPJSONLinesOutput jsonOutput;
+  private String executedCommand;
+  private long parseNanos;
+  private long executeNanos;
+  private CLPInvocationTimings timings;
 
   private Claypot(
     final CLPApplicationConfiguration inConfiguration,
     final JCommander inCommander,
     final TreeMap<String, CLPCommandType> inCommandMap,
-    final CLPStringsType inStrings)
+    final CLPStringsType inStrings,
+    final Context inContext,
+    final CLPUsageCache inUsageCache,
+    final CLPUsageOutput inUsageOutput)
   {
     this.configuration =
       Objects.requireNonNull(inConfiguration, "inConfiguration");
@@ -56,6 +118,18 @@ public final class Claypot implements ClaypotType
       Objects.requireNonNull(inCommandMap, "commandMap");
     this.strings =
       Objects.requireNonNull(inStrings, "inStrings");
+    this.context =
+      Objects.requireNonNull(inContext, "inContext");
+    this.usageCache =
+      Objects.requireNonNull(inUsageCache, "inUsageCache");
+    this.usageOutput =
+      Objects.requireNonNull(inUsageOutput, "inUsageOutput");
+    this.resolver =
+      new CLPCommandResolver(inStrings);
+    this.metrics =
+      new CLPMetrics();
+    this.journal =
+      inConfiguration.journalFile().map(CLPJournalWriter::new);
   }
 
   /**
@@ -68,12 +142,66 @@ public final class Claypot implements ClaypotType
 
   public static ClaypotType create(
     final CLPApplicationConfiguration configuration)
+  {
+    final var programName = configuration.programName();
+    return createWith(
+      configuration,
+      () -> CLPHelpResourceFile.find(programName)
+    );
+  }
+
+  /**
+   * Create a wrapper based on the given configuration, execute it for the
+   * given command-line arguments, and return the resulting exit code.
+   * Shell completion candidates are answered from the pre-rendered help
+   * resource if one is present and was rendered from the same commands,
+   * and from an index built from the registered commands otherwise.
+   * Completion script requests do not instantiate any commands.
+   *
+   * @param configuration The application configuration
+   * @param args          The command-line arguments
+   *
+   * @return The exit code
+   *
+   * @see CLPHelpResources
+   */
+
+  public static int run(
+    final CLPApplicationConfiguration configuration,
+    final String[] args)
+  {
+    Objects.requireNonNull(configuration, "configuration");
+    Objects.requireNonNull(args, "args");
+
+    if (CLPCompletion.isRequest(args)) {
+      final var programName = configuration.programName();
+      return CLPCompletion.execute(
+        configuration,
+        CLPStrings.create(),
+        () -> createWith(
+          configuration,
+          () -> CLPHelpResourceFile.find(programName))
+          .usageCache()
+          .completionIndex(),
+        args
+      );
+    }
+
+    final var claypot = create(configuration);
+    claypot.execute(args);
+    return claypot.exitCode();
+  }
+
+  static Claypot createWith(
+    final CLPApplicationConfiguration configuration,
+    final Supplier<Optional<CLPHelpResourceFile>> preRendered)
   {
     final var strings = CLPStrings.create();
     final var commander = new JCommander();
     final var context = new Context(commander, strings, configuration);
 
     commander.setProgramName(configuration.programName());
+    commander.addConverterInstanceFactory(CLPConverterRegistry.shared());
     commander.addObject(new CLPCommandRoot(context));
 
     final var constructors =
@@ -81,25 +209,51 @@ public final class Claypot implements ClaypotType
     final var commandMap =
       new TreeMap<String, CLPCommandType>();
 
-    final var help = new CLPCommandHelp(context);
+    final var usageCache =
+      new CLPUsageCache(configuration, commander, preRendered);
+    final var usageOutput =
+      new CLPUsageOutput(usageLoggerSink(configuration.logger()));
+    final var help =
+      new CLPCommandHelp(context, usageCache, usageOutput);
     commandMap.put(help.name(), help);
+    final var bench =
+      new CLPCommandBench(context, constructors);
+    commandMap.put(bench.name(), bench);
 
-    for (final var constructor : constructors) {
-      final var command = constructor.create(context);
-      final var name = command.name();
-      if (commandMap.containsKey(name)) {
-        throw new IllegalStateException(
-          strings.format("com.io7m.claypot.commandConflict", name)
-        );
-      }
-      commandMap.put(name, command);
-    }
+    final var event = new CLPCreateEvent();
+    event.begin();
+
+    CLPCommandGroup.instantiate(context, constructors, commandMap);
 
     for (final var entry : commandMap.entrySet()) {
       commander.addCommand(entry.getKey(), entry.getValue());
     }
 
-    return new Claypot(configuration, commander, commandMap, strings);
+    if (event.shouldCommit()) {
+      event.setCommandCount(commandMap.size());
+      event.commit();
+    }
+
+    return new Claypot(
+      configuration,
+      commander,
+      commandMap,
+      strings,
+      context,
+      usageCache,
+      usageOutput
+    );
+  }
+
+  CLPUsageCache usageCache()
+  {
+    return this.usageCache;
+  }
+
+  private static CLPUsageSinkType usageLoggerSink(
+    final Logger logger)
+  {
+    return text -> logger.info("{}", text.toString());
   }
 
   @Override
@@ -114,106 +268,611 @@ public final class Claypot implements ClaypotType
     return Optional.ofNullable(this.exitCause);
   }
 
+  @Override
+  public Optional<CLPResourceUsage> resourceUsage()
+  {
+    return Optional.ofNullable(this.resourceUsage);
+  }
+
+  @Override
+  public Optional<CLPInvocationTimings> timings()
+  {
+    return Optional.ofNullable(this.timings);
+  }
+
   @Override
   public void execute(
     final String[] args)
   {
     Objects.requireNonNull(args, "args");
 
+    this.timings = null;
+    if (CLPCompletion.isRequest(args)) {
+      this.exitCause = null;
+      this.resourceUsage = null;
+      this.exitCode = CLPCompletion.execute(
+        this.configuration,
+        this.strings,
+        this.usageCache::completionIndex,
+        args
+      );
+      return;
+    }
+
+    final var time = Instant.now();
+    final var timeThen = System.nanoTime();
+    final var root =
+      (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(
+        Logger.ROOT_LOGGER_NAME);
+    final var loggerContext =
+      root.getLoggerContext();
+    final var scan =
+      CLPOutputFormatScan.scan(args, this.commandMap.keySet());
+    final var savedAppenders =
+      new ArrayList<Appender<ILoggingEvent>>();
+
+    final var outputFormat = scan.format();
+    this.context.outputFormat = outputFormat;
+    if (outputFormat == CLPOutputFormat.OUTPUT_JSONL) {
+      this.startJSONLines(root, savedAppenders);
+    }
+    this.usageOutput.setSink(this.usageSink());
+
+    final var recorder =
+      this.startFlightRecorder(loggerContext);
+    final var rateLimiter =
+      this.startRateLimiter(loggerContext);
+
+    try {
+      this.executeWithLogging(scan.arguments().toArray(new String[0]));
+      this.timings = new CLPInvocationTimings(
+        this.parseNanos,
+        this.executeNanos,
+        System.nanoTime() - timeThen
+      );
+      this.writeMetrics();
+      this.writeTrace();
+      this.writeJournal(args, time, this.timings);
+    } finally {
+      rateLimiter.ifPresent(filter -> {
+        loggerContext.getTurboFilterList().remove(filter);
+        filter.stop();
+        this.logSuppressed(filter);
+      });
+      recorder.ifPresent(filter -> {
+        loggerContext.getTurboFilterList().remove(filter);
+        filter.stop();
+        this.closeFlightRecorder(filter);
+      });
+      if (this.jsonOutput != null) {
+        this.stopJSONLines(root, savedAppenders);
+      }
+      this.context.outputFormat = CLPOutputFormat.OUTPUT_TEXT;
+    }
+  }
+
+  private void startJSONLines(
+    final ch.qos.logback.classic.Logger root,
+    final List<Appender<ILoggingEvent>> savedAppenders)
+  {
+    this.jsonOutput =
+      new CLPJSONLinesOutput(
+        new BufferedWriter(new OutputStreamWriter(System.out, UTF_8)));
+
+    final var appender = new CLPJSONLinesAppender(this.jsonOutput);
+    appender.setContext(root.getLoggerContext());
+    appender.start();
+
+    /*
+     * The existing appenders are detached rather than stopped, so that
+     * they can be restored unchanged when execution completes.
+     */
+
+    root.iteratorForAppenders().forEachRemaining(savedAppenders::add);
+    for (final var saved : savedAppenders) {
+      root.detachAppender(saved);
+    }
+    root.addAppender(appender);
+  }
+
+  private void stopJSONLines(
+    final ch.qos.logback.classic.Logger root,
+    final List<Appender<ILoggingEvent>> savedAppenders)
+  {
+    this.jsonOutput.writeExit(
+      new CLPJSONEncoder(),
+      this.exitCode,
+      this.exitCause != null
+    );
+
+    final var appender = root.getAppender("CLAYPOT_JSONL");
+    root.detachAppender(appender);
+    appender.stop();
+    for (final var saved : savedAppenders) {
+      root.addAppender(saved);
+    }
+    this.jsonOutput = null;
+  }
+
+  private Optional<CLPLogRateLimitFilter> startRateLimiter(
+    final LoggerContext loggerContext)
+  {
+    return this.configuration.logRateLimit()
+      .map(rateLimit -> {
+        final var filter = new CLPLogRateLimitFilter(rateLimit);
+        filter.setContext(loggerContext);
+        filter.start();
+        loggerContext.addTurboFilter(filter);
+        return filter;
+      });
+  }
+
+  private Optional<CLPFlightRecorder> startFlightRecorder(
+    final LoggerContext loggerContext)
+  {
+    final var recorderConfiguration = this.configuration.flightRecorder();
+    if (recorderConfiguration.isEmpty()) {
+      return Optional.empty();
+    }
+
+    try {
+      final var recorder = CLPFlightRecorder.open(recorderConfiguration.get());
+      recorder.setContext(loggerContext);
+      recorder.start();
+
+      /*
+       * The recorder must see events before any other filter has the
+       * chance to deny them.
+       */
+
+      loggerContext.getTurboFilterList().add(0, recorder);
+      return Optional.of(recorder);
+    } catch (final IOException e) {
+      this.configuration.logger()
+        .warn(
+          "{}",
+          this.strings.format(
+            "com.io7m.claypot.flightRecorderFailed",
+            e.getMessage()));
+      return Optional.empty();
+    }
+  }
+
+  private void closeFlightRecorder(
+    final CLPFlightRecorder recorder)
+  {
     final var logger = this.configuration.logger();
+    final var failed = this.exitCode != 0 || this.exitCause != null;
 
     try {
-      this.exitCode = 0;
-      this.commander.parse(args);
-
-      final String cmd = this.commander.getParsedCommand();
-      if (cmd == null) {
-        CLPBriefUsageFormatter.showBriefUsage(
-          logger,
-          this.configuration,
-          this.commander
+      recorder.close(failed);
+    } catch (final IOException e) {
+      logger.warn(
+        "{}",
+        this.strings.format(
+          "com.io7m.claypot.flightRecorderFailed",
+          e.getMessage()));
+      return;
+    }
+
+    if (failed) {
+      logger.info(
+        "{}",
+        this.strings.format(
+          "com.io7m.claypot.flightRecorderKept",
+          recorder.file()));
+    }
+  }
+
+  private void logSuppressed(
+    final CLPLogRateLimitFilter filter)
+  {
+    final var logger = this.configuration.logger();
+    for (final var suppressed : filter.suppressed()) {
+      final var level =
+        Level.intToLevel(
+          ch.qos.logback.classic.Level.toLocationAwareLoggerInteger(
+            suppressed.level()));
+
+      logger.atLevel(level)
+        .log(
+          "{}",
+          this.strings.format(
+            "com.io7m.claypot.logRepeated",
+            suppressed.format(),
+            Long.valueOf(suppressed.count()))
         );
+    }
+  }
+
+  private void executeWithLogging(
+    final String[] args)
+  {
+    final var logger = this.configuration.logger();
+    final var path = new ArrayList<String>();
+
+    try {
+      this.exitCode = 0;
+      this.exitCause = null;
+      this.resourceUsage = null;
+      this.executedCommand = "";
+      this.parseNanos = 0L;
+      this.executeNanos = 0L;
+
+      final var parseThen = System.nanoTime();
+      try {
+        this.root().reset();
+        this.parse(args, path);
+      } finally {
+        this.parseNanos = System.nanoTime() - parseThen;
+      }
+
+      if (path.isEmpty()) {
+        this.usageOutput.write(this.usageCache.briefUsage());
         this.exitCode = 1;
         return;
       }
 
-      final CLPCommandType command = this.commandMap.get(cmd);
-      final CLPCommandType.Status status = command.execute();
-      this.exitCode = status.exitCode();
+      final var command = this.commandAt(path);
+      if (command instanceof CLPCommandGroupType) {
+        this.usageOutput.write(
+          this.usageCache.briefUsage(path).orElseThrow());
+        this.exitCode = 1;
+        return;
+      }
+
+      if (this.root().traceFile().isPresent()) {
+        this.context.tracer.enable();
+      }
+      final var name = String.join(" ", path);
+      this.executedCommand = name;
+      final var introspection = this.startIntrospection(name);
+      final var sampler = this.startSampler();
+      try {
+        this.executeCommand(command, name);
+      } finally {
+        sampler.ifPresent(this::stopSampler);
+        introspection.ifPresent(this::stopIntrospection);
+      }
     } catch (final ParameterException e) {
       logger.error("{}", e.getMessage());
       this.exitCode = 1;
       this.exitCause = e;
     } catch (final Exception e) {
-      this.logExceptionFriendly(logger, false, e);
       this.exitCode = 1;
       this.exitCause = e;
+      this.reportException(logger, path, e);
     }
   }
 
-  @Override
-  public SortedMap<String, CLPCommandType> commands()
+  private void executeCommand(
+    final CLPCommandType command,
+    final String name)
+    throws Exception
   {
-    return Collections.unmodifiableSortedMap(this.commandMap);
+    final var accounting =
+      this.configuration.resourceAccounting();
+    final var resourcesThen =
+      accounting.map(ignored -> CLPResourceMeter.now());
+    final var event = new CLPExecuteEvent();
+    final var timeThen = System.nanoTime();
+    String exception = null;
+
+    event.begin();
+    try (var span = this.context.tracer.span(name)) {
+      final CLPCommandType.Status status = command.execute();
+      this.exitCode = status.exitCode();
+      span.attribute("exitCode", (long) this.exitCode);
+    } catch (final Exception e) {
+      this.exitCode = 1;
+      exception = e.getClass().getName();
+      throw e;
+    } finally {
+      event.end();
+      final var elapsed = System.nanoTime() - timeThen;
+      this.executeNanos = elapsed;
+      final var resources =
+        resourcesThen.map(CLPResourceMeter::since)
+          .orElse(CLPResourceUsage.ZERO);
+
+      this.metrics.record(
+        name,
+        elapsed,
+        this.exitCode != 0,
+        exception,
+        resources
+      );
+      if (event.shouldCommit()) {
+        event.setCommandName(name);
+        event.setExitCode(this.exitCode);
+        event.commit();
+      }
+      if (accounting.isPresent()) {
+        this.resourceUsage = resources;
+        if (accounting.get().summary()) {
+          this.logResourceSummary(name, resources);
+        }
+      }
+    }
   }
 
-  private void logExceptionFriendly(
-    final Logger logger,
-    final boolean isCause,
-    final Throwable e)
+  private void logResourceSummary(
+    final String name,
+    final CLPResourceUsage resources)
   {
-    if (e == null) {
-      return;
+    this.configuration.logger()
+      .info(
+        "{}",
+        this.strings.format(
+          "com.io7m.claypot.resourceSummary",
+          name,
+          millis(resources.cpuNanos()),
+          Long.valueOf(resources.allocatedBytes()),
+          Long.valueOf(resources.gcCount()),
+          millis(resources.gcNanos()))
+      );
+  }
+
+  private static String millis(
+    final long nanos)
+  {
+    if (nanos < 0L) {
+      return "?";
     }
+    return String.format(Locale.ROOT, "%.3f", Double.valueOf(nanos / 1.0e6));
+  }
 
-    logger.error(
-      "{}{}: {}",
-      isCause ? this.strings.format("com.io7m.claypot.causedBy") : "",
-      e.getClass().getCanonicalName(),
-      e.getMessage());
-
-    if (logger.isDebugEnabled()) {
-      final var trace = new StringBuilder(256);
-      final String lineSeparator = System.lineSeparator();
-      trace.append(lineSeparator);
-      final var elements = e.getStackTrace();
-      for (final var element : elements) {
-        trace.append("  at ");
-
-        final var moduleName = element.getModuleName();
-        if (moduleName != null) {
-          trace.append(moduleName);
-          trace.append('/');
-        } else {
-          trace.append("<unnamed>/");
-        }
+  private Optional<CLPIntrospectionServer> startIntrospection(
+    final String name)
+  {
+    final var socket = this.root().introspectionSocket();
+    if (socket.isEmpty()) {
+      return Optional.empty();
+    }
+
+    final var introspection =
+      new CLPIntrospection(name, System.nanoTime(), this.context.progress);
+
+    try {
+      return Optional.of(
+        CLPIntrospectionServer.start(socket.get(), introspection::snapshot));
+    } catch (final IOException e) {
+      this.configuration.logger()
+        .warn(
+          "{}",
+          this.strings.format(
+            "com.io7m.claypot.introspectionFailed",
+            socket.get(),
+            e.getMessage()));
+      return Optional.empty();
+    }
+  }
+
+  private void stopIntrospection(
+    final CLPIntrospectionServer server)
+  {
+    try {
+      server.close();
+    } catch (final IOException e) {
+      this.configuration.logger()
+        .warn("{}", e.getMessage());
+    }
+  }
+
+  private Optional<CLPSampler> startSampler()
+  {
+    final var root = this.root();
+    if (root.profileFile().isEmpty()) {
+      return Optional.empty();
+    }
+
+    final var sampler =
+      new CLPSampler(Thread.currentThread(), root.profileInterval());
+    sampler.start();
+    return Optional.of(sampler);
+  }
 
-        trace.append(element.getClassName());
-        trace.append('.');
-        trace.append(element.getMethodName());
-        trace.append('(');
-        trace.append(element.getFileName());
-        trace.append(':');
-        trace.append(element.getLineNumber());
-        trace.append(')');
-        trace.append(lineSeparator);
+  private void stopSampler(
+    final CLPSampler sampler)
+  {
+    final var logger = this.configuration.logger();
+    final var file = this.root().profileFile().orElseThrow();
+
+    try {
+      if (!sampler.stop()) {
+        logger.warn(
+          "{}",
+          this.strings.format("com.io7m.claypot.profileNotStopped", file));
+        return;
       }
-      logger.debug(
+      sampler.writeTo(file);
+      this.strings.log(
+        logger,
+        CLPLogLevel.LOG_DEBUG,
+        "com.io7m.claypot.profileWritten",
+        Long.valueOf(sampler.samples()),
+        file,
+        sampler.interval()
+      );
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (final IOException e) {
+      logger.warn(
         "{}",
         this.strings.format(
-          "com.io7m.claypot.stackTraceOf",
-          e.getClass().getCanonicalName(),
-          trace
-        ));
+          "com.io7m.claypot.profileFailed",
+          e.getMessage()));
+    }
+  }
+
+  private void writeJournal(
+    final String[] args,
+    final Instant time,
+    final CLPInvocationTimings invocationTimings)
+  {
+    if (this.journal.isEmpty()) {
+      return;
+    }
+
+    final var entry =
+      new CLPJournalEntry(
+        time,
+        this.executedCommand,
+        List.of(args),
+        this.exitCode,
+        this.exitCause().map(e -> e.getClass().getName()),
+        invocationTimings.parseNanos(),
+        invocationTimings.executeNanos(),
+        invocationTimings.totalNanos()
+      );
+
+    try {
+      this.journal.get().append(entry);
+    } catch (final IOException e) {
+      this.configuration.logger()
+        .warn(
+          "{}",
+          this.strings.format(
+            "com.io7m.claypot.journalFailed",
+            e.getMessage()));
+    }
+  }
+
+  private CLPCommandRoot root()
+  {
+    return (CLPCommandRoot) this.commander.getObjects().get(0);
+  }
+
+  private void writeTrace()
+  {
+    final var tracer = this.context.tracer;
+    final var file = this.root().traceFile();
+    if (file.isEmpty()) {
+      return;
     }
 
-    final var causes = e.getSuppressed();
-    if (causes.length > 0) {
-      for (final var cause : causes) {
-        this.logExceptionFriendly(logger, true, cause);
+    tracer.disable();
+    try {
+      tracer.writeTo(file.get());
+    } catch (final IOException e) {
+      this.configuration.logger()
+        .warn(
+          "{}",
+          this.strings.format(
+            "com.io7m.claypot.traceFailed",
+            e.getMessage()));
+    }
+  }
+
+  private void writeMetrics()
+  {
+    final var file = this.root().metricsFile();
+    if (file.isEmpty()) {
+      return;
+    }
+
+    try {
+      this.metrics.writeTo(file.get());
+    } catch (final IOException e) {
+      this.configuration.logger()
+        .warn(
+          "{}",
+          this.strings.format(
+            "com.io7m.claypot.metricsFailed",
+            e.getMessage()));
+    }
+  }
+
+  private void parse(
+    final String[] args,
+    final List<String> path)
+  {
+    final var event = new CLPParseEvent();
+    event.begin();
+
+    try {
+      final var resolved =
+        this.resolver.resolve(this.commander, List.of(args));
+      this.commander.parse(resolved.toArray(new String[0]));
+
+      var current = this.commander;
+      for (var cmd = current.getParsedCommand();
+           cmd != null;
+           cmd = current.getParsedCommand()) {
+        path.add(cmd);
+        current = current.findCommandByAlias(cmd);
       }
+    } finally {
+      if (event.shouldCommit()) {
+        event.setCommandName(String.join(" ", path));
+        event.setArgumentCount(args.length);
+        event.commit();
+      }
+    }
+  }
+
+  private CLPCommandType commandAt(
+    final List<String> path)
+  {
+    var current = this.commander;
+    for (final var name : path) {
+      current = current.findCommandByAlias(name);
+    }
+    return (CLPCommandType) current.getObjects().get(0);
+  }
+
+  private void reportException(
+    final Logger logger,
+    final List<String> path,
+    final Exception e)
+  {
+    final var event = new CLPExceptionReportEvent();
+    event.begin();
+
+    new CLPExceptionRenderer()
+      .render(e, this.exceptionReportSink(logger));
+
+    if (event.shouldCommit()) {
+      event.setCommandName(String.join(" ", path));
+      event.setExceptionClass(e.getClass().getName());
+      event.setExitCode(this.exitCode);
+      event.commit();
+    }
+  }
+
+  private CLPUsageSinkType usageSink()
+  {
+    final var output = this.jsonOutput;
+    if (output != null) {
+      final var encoder = new CLPJSONEncoder();
+      return text -> output.writeUsage(encoder, text);
+    }
+
+    return this.configuration.usageWriter()
+      .<CLPUsageSinkType>map(CLPUsageWriterSink::new)
+      .orElseGet(() -> usageLoggerSink(this.configuration.logger()));
+  }
+
+  private CLPExceptionReportSinkType exceptionReportSink(
+    final Logger logger)
+  {
+    if (this.jsonOutput != null) {
+      return new CLPExceptionReportJSONSink(
+        this.jsonOutput, logger.isDebugEnabled());
     }
-    this.logExceptionFriendly(logger, true, e.getCause());
+    return new CLPExceptionReportLoggerSink(logger, this.strings);
+  }
+
+  @Override
+  public CLPMetricsType metrics()
+  {
+    return this.metrics::snapshot;
+  }
+
+  @Override
+  public SortedMap<String, CLPCommandType> commands()
+  {
+    return Collections.unmodifiableSortedMap(this.commandMap);
   }
 
   @Override
@@ -230,6 +889,9 @@ public final class Claypot implements ClaypotType
     private final JCommander commander;
     private final CLPStringsType strings;
     private final CLPApplicationConfiguration configuration;
+    private final CLPProgressTicker progress;
+    private final CLPTracer tracer;
+    private volatile CLPOutputFormat outputFormat;
 
     private Context(
       final JCommander inCommander,
@@ -242,6 +904,47 @@ public final class Claypot implements ClaypotType
         Objects.requireNonNull(inStrings, "inStrings");
       this.configuration =
         Objects.requireNonNull(inConfiguration, "inConfiguration");
+      this.outputFormat =
+        CLPOutputFormat.OUTPUT_TEXT;
+      this.progress =
+        new CLPProgressTicker(
+          inStrings,
+          inConfiguration.progressInterval(),
+          new CLPProgressOutput(
+            inConfiguration.logger(),
+            System.out,
+            this::isInteractive),
+          System::nanoTime
+        );
+      this.tracer =
+        new CLPTracer(CLPTracer.DEFAULT_CAPACITY);
+    }
+
+    private boolean isInteractive()
+    {
+      return this.outputFormat == CLPOutputFormat.OUTPUT_TEXT
+        && System.console() != null;
+    }
+
+    @Override
+    public CLPProgressType progress(
+      final String label,
+      final long total)
+    {
+      return this.progress.open(label, total);
+    }
+
+    @Override
+    public CLPSpanType span(
+      final String name)
+    {
+      return this.tracer.span(name);
+    }
+
+    @Override
+    public CLPOutputFormat outputFormat()
+    {
+      return this.outputFormat;
     }
 
     @Override
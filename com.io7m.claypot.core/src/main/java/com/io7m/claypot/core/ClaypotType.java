@@ -18,6 +18,7 @@ package com.io7m.claypot.core;
 
 import com.beust.jcommander.JCommander;
 
+import java.util.Collections;
 import java.util.Optional;
 import java.util.SortedMap;
 
@@ -39,6 +40,29 @@ public interface ClaypotType
 
   Optional<Exception> exitCause();
 
+  /**
+   * @return The resources consumed by the command executed by the most
+   * recent {@link #execute(String[])}, if resource accounting is enabled and
+   * a command was executed
+   *
+   * @see CLPApplicationConfigurationType#resourceAccounting()
+   */
+
+  default Optional<CLPResourceUsage> resourceUsage()
+  {
+    return Optional.empty();
+  }
+
+  /**
+   * @return The timings of the most recent {@link #execute(String[])}, if
+   * the implementation measures them
+   */
+
+  default Optional<CLPInvocationTimings> timings()
+  {
+    return Optional.empty();
+  }
+
   /**
    * Execute the wrapper for the given command-line arguments.
    *
@@ -48,8 +72,19 @@ public interface ClaypotType
   void execute(String[] args);
 
   /**
-   * @return The available commands, by name
+   * @return The available top-level commands, by name. Command groups
+   * appear as values of type {@link CLPCommandGroupType}.
    */
 
   SortedMap<String, CLPCommandType> commands();
+
+  /**
+   * @return The metrics of the commands executed so far, which are empty
+   * if the implementation does not collect metrics
+   */
+
+  default CLPMetricsType metrics()
+  {
+    return Collections::emptySortedMap;
+  }
 }
@@ -27,6 +27,7 @@ import org.slf4j.Logger;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -38,17 +39,40 @@ public final class CLPBriefUsageFormatter extends DefaultUsageFormatter
   private final CLPApplicationConfiguration configuration;
   private final JCommander commander;
   private final CLPStringsType strings;
+  private final CLPUsageSinkType sink;
+  private final List<String> path;
 
   /**
    * A brief usage formatter.
    *
    * @param inConfiguration The application configuration
    * @param inCommander     The <tt>jcommander</tt> instance
+   * @param inSink          The sink to which completed text is passed
    */
 
   public CLPBriefUsageFormatter(
     final CLPApplicationConfiguration inConfiguration,
-    final JCommander inCommander)
+    final JCommander inCommander,
+    final CLPUsageSinkType inSink)
+  {
+    this(inConfiguration, inCommander, inSink, List.of());
+  }
+
+  /**
+   * A brief usage formatter for a command group.
+   *
+   * @param inConfiguration The application configuration
+   * @param inCommander     The <tt>jcommander</tt> instance for the group
+   * @param inSink          The sink to which completed text is passed
+   * @param inPath          The path of the group, such as
+   *                        {@code [storage, compact]}
+   */
+
+  public CLPBriefUsageFormatter(
+    final CLPApplicationConfiguration inConfiguration,
+    final JCommander inCommander,
+    final CLPUsageSinkType inSink,
+    final List<String> inPath)
   {
     super(inCommander);
 
@@ -56,8 +80,12 @@ public final class CLPBriefUsageFormatter extends DefaultUsageFormatter
       Objects.requireNonNull(inConfiguration, "configuration");
     this.commander =
       Objects.requireNonNull(inCommander, "commander");
+    this.sink =
+      Objects.requireNonNull(inSink, "sink");
     this.strings =
       CLPStrings.create();
+    this.path =
+      List.copyOf(inPath);
   }
 
   /**
@@ -74,14 +102,50 @@ public final class CLPBriefUsageFormatter extends DefaultUsageFormatter
     final JCommander commander)
   {
     Objects.requireNonNull(logger, "logger");
+    for (final var chunk : briefUsage(inConfiguration, commander)) {
+      logger.info("{}", chunk);
+    }
+  }
+
+  /**
+   * Format a brief usage message.
+   *
+   * @param inConfiguration The application configuration
+   * @param commander       The <tt>jcommander</tt> instance
+   *
+   * @return The usage text, in chunks of bounded size
+   */
+
+  public static List<String> briefUsage(
+    final CLPApplicationConfiguration inConfiguration,
+    final JCommander commander)
+  {
+    return briefUsage(inConfiguration, commander, List.of());
+  }
+
+  /**
+   * Format a brief usage message for a command group.
+   *
+   * @param inConfiguration The application configuration
+   * @param commander       The <tt>jcommander</tt> instance for the group
+   * @param path            The path of the group
+   *
+   * @return The usage text, in chunks of bounded size
+   */
+
+  public static List<String> briefUsage(
+    final CLPApplicationConfiguration inConfiguration,
+    final JCommander commander,
+    final List<String> path)
+  {
     Objects.requireNonNull(commander, "commander");
 
-    final var console = new CLPStringBuilderConsole();
+    final var chunks = new CLPUsageChunks();
     commander.setUsageFormatter(
-      new CLPBriefUsageFormatter(inConfiguration, commander));
-    commander.setConsole(console);
+      new CLPBriefUsageFormatter(inConfiguration, commander, chunks, path));
+    commander.setConsole(new CLPUsageConsole(chunks));
     commander.usage();
-    logger.info("{}", console.builder().toString());
+    return chunks.finish();
   }
 
   @Override
@@ -92,7 +156,31 @@ public final class CLPBriefUsageFormatter extends DefaultUsageFormatter
     final int indentCount,
     final String indent)
   {
-    super.appendMainLine(out, hasOptions, hasCommands, indentCount, indent);
+    final var line = new StringBuilder(128);
+    super.appendMainLine(line, hasOptions, hasCommands, indentCount, indent);
+
+    /*
+     * The display name of a nested command is only the last element of its
+     * path, so the rest of the path is inserted here.
+     */
+
+    if (!this.path.isEmpty()) {
+      final var usage = "Usage: ";
+      final var at =
+        line.indexOf(usage + this.commander.getProgramDisplayName());
+      if (at >= 0) {
+        final var parents = new StringBuilder(64);
+        parents.append(this.configuration.programName());
+        parents.append(' ');
+        for (final var element : this.path.subList(0, this.path.size() - 1)) {
+          parents.append(element);
+          parents.append(' ');
+        }
+        line.insert(at + usage.length(), parents);
+      }
+    }
+
+    out.append(line);
     out.append('\n');
   }
 
@@ -131,14 +219,15 @@ public final class CLPBriefUsageFormatter extends DefaultUsageFormatter
     }
     longest += 4;
 
+    final String lineFormat =
+      String.format("    %%-%ds %%s", Integer.valueOf(longest));
+
     for (final var commandName : commandNames) {
       final var commands = rawCommands.get(commandName);
       final Object arg = commands.getObjects().get(0);
       final Parameters p = arg.getClass().getAnnotation(Parameters.class);
 
       if (p == null || !p.hidden()) {
-        final String lineFormat =
-          String.format("    %%-%ds %%s", Integer.valueOf(longest));
         final String description =
           String.format(
             lineFormat,
@@ -148,6 +237,7 @@ public final class CLPBriefUsageFormatter extends DefaultUsageFormatter
 
         out.append(description);
         out.append('\n');
+        CLPUsageChunks.flushIfFull(out, this.sink);
       }
     }
 
@@ -168,7 +258,7 @@ public final class CLPBriefUsageFormatter extends DefaultUsageFormatter
   private void showBasicHelp(
     final StringBuilder out)
   {
-    final var programName = this.commander.getProgramName();
+    final var programName = this.configuration.programName();
     this.strings.format("com.io7m.claypot.help", programName)
       .trim()
       .lines()
@@ -178,6 +268,14 @@ public final class CLPBriefUsageFormatter extends DefaultUsageFormatter
       });
   }
 
+  @Override
+  public String getCommandDescription(
+    final String commandName)
+  {
+    return CLPCommandGroup.groupDescription(this.commander, commandName)
+      .orElseGet(() -> super.getCommandDescription(commandName));
+  }
+
   @Override
   public String toString()
   {
@@ -0,0 +1,391 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.Parameters;
+import com.io7m.claypot.core.CLPAbstractCommand;
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.CLPCommandConstructorType;
+import com.io7m.claypot.core.CLPCommandContextType;
+import com.io7m.claypot.core.CLPCommandGroupType;
+import com.io7m.claypot.core.CLPCommandType;
+import com.io7m.claypot.core.CLPLogLevel;
+import com.io7m.claypot.core.CLPOutputFormat;
+import com.io7m.claypot.core.CLPProgressType;
+import com.io7m.claypot.core.CLPSpanType;
+import com.io7m.claypot.core.CLPStringsType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+
+import static com.io7m.claypot.core.CLPCommandType.Status.FAILURE;
+import static com.io7m.claypot.core.CLPCommandType.Status.SUCCESS;
+
+/**
+ * The "bench" command. The command under test is executed in-process; for
+ * every iteration, all commands are instantiated afresh with a context whose
+ * <tt>jcommander</tt> instance is that of the iteration, and the arguments
+ * are resolved and parsed again exactly as they are for the top-level
+ * command line, so no parameter values leak from one iteration into the
+ * next. Only the execution of the command is measured.
+ */
+
+@Parameters(commandDescription = "Benchmark a command in-process.")
+public final class CLPCommandBench extends CLPAbstractCommand
+{
+  @Parameter(description = "<command> [arguments ...]")
+  private List<String> target = new ArrayList<>();
+
+  @Parameter(
+    names = "--warmup-iterations",
+    description = "The number of unmeasured iterations run first."
+  )
+  private int warmupIterations = 5;
+
+  @Parameter(
+    names = "--iterations",
+    description = "The number of measured iterations."
+  )
+  private int iterations = 20;
+
+  private final List<CLPCommandConstructorType> constructors;
+
+  /**
+   * Construct a command.
+   *
+   * @param inContext      The command context
+   * @param inConstructors The constructors of the commands that can be
+   *                       benchmarked
+   */
+
+  public CLPCommandBench(
+    final CLPCommandContextType inContext,
+    final List<CLPCommandConstructorType> inConstructors)
+  {
+    super(inContext);
+    this.constructors =
+      List.copyOf(Objects.requireNonNull(inConstructors, "constructors"));
+  }
+
+  @Override
+  public String extendedHelp()
+  {
+    return this.strings()
+      .format(
+        "com.io7m.claypot.benchExtended",
+        this.commander().getProgramName()
+      );
+  }
+
+  @Override
+  protected Status executeActual()
+    throws Exception
+  {
+    final var logger = this.logger();
+    if (this.iterations <= 0 || this.warmupIterations < 0) {
+      logger.error(
+        "{}",
+        this.strings().format(
+          "com.io7m.claypot.benchIterationsInvalid",
+          Integer.valueOf(this.warmupIterations),
+          Integer.valueOf(this.iterations)));
+      return FAILURE;
+    }
+
+    final var arguments = List.copyOf(this.target);
+    final var first = this.prepareFirst(arguments);
+    if (first.isEmpty()) {
+      return FAILURE;
+    }
+
+    final var name = String.join(" ", first.get().path());
+    final var latencies = new long[this.iterations];
+    final var allocated =
+      this.measure(arguments, first.get(), name, latencies);
+    if (allocated.isEmpty()) {
+      return FAILURE;
+    }
+
+    this.report(name, latencies, allocated.getAsLong());
+    return SUCCESS;
+  }
+
+  private Optional<Target> prepareFirst(
+    final List<String> arguments)
+  {
+    final Optional<Target> first;
+    try {
+      first = this.prepare(arguments);
+    } catch (final ParameterException e) {
+      this.logger().error("{}", e.getMessage());
+      return Optional.empty();
+    }
+    if (first.isEmpty()) {
+      this.logger().error(
+        "{}",
+        this.strings().format(
+          "com.io7m.claypot.commandUnknown",
+          String.join(" ", arguments)));
+    }
+    return first;
+  }
+
+  /**
+   * Run the warm-up and measured iterations, recording the latency of each
+   * measured iteration.
+   *
+   * @return The total bytes allocated by the measured iterations (negative
+   * if unknown), or nothing if an iteration failed
+   */
+
+  private OptionalLong measure(
+    final List<String> arguments,
+    final Target first,
+    final String name,
+    final long[] latencies)
+    throws Exception
+  {
+    var allocated = 0L;
+    var command = first.command();
+
+    final var total = this.warmupIterations + this.iterations;
+    for (int index = 0; index < total; ++index) {
+      if (index > 0) {
+        command = this.prepare(arguments).orElseThrow().command();
+      }
+
+      final var resourcesThen = CLPResourceMeter.now();
+      final var timeThen = System.nanoTime();
+      final var status = command.execute();
+      final var elapsed = System.nanoTime() - timeThen;
+      final var resources = CLPResourceMeter.since(resourcesThen);
+
+      if (status != SUCCESS) {
+        this.logger().error(
+          "{}",
+          this.strings().format(
+            "com.io7m.claypot.benchFailed",
+            name,
+            Integer.valueOf(index)));
+        return OptionalLong.empty();
+      }
+
+      final var measured = index - this.warmupIterations;
+      if (measured >= 0) {
+        latencies[measured] = elapsed;
+        allocated = allocation(allocated, resources.allocatedBytes());
+      }
+    }
+    return OptionalLong.of(allocated);
+  }
+
+  private static long allocation(
+    final long sum,
+    final long bytes)
+  {
+    if (sum < 0L || bytes < 0L) {
+      return -1L;
+    }
+    return sum + bytes;
+  }
+
+  private void report(
+    final String name,
+    final long[] latencies,
+    final long allocated)
+  {
+    Arrays.sort(latencies);
+
+    long sum = 0L;
+    for (final var latency : latencies) {
+      sum += latency;
+    }
+
+    final var count = latencies.length;
+    this.strings().log(
+      this.logger(),
+      CLPLogLevel.LOG_INFO,
+      "com.io7m.claypot.benchResult",
+      name,
+      Integer.valueOf(count),
+      millis(sum / count),
+      millis(percentile(latencies, 50.0)),
+      millis(percentile(latencies, 99.0)),
+      millis(latencies[count - 1]),
+      allocated < 0L ? "?" : Long.toString(allocated / count)
+    );
+  }
+
+  private static long percentile(
+    final long[] sorted,
+    final double percentile)
+  {
+    final var rank =
+      (int) Math.ceil(percentile / 100.0 * (double) sorted.length);
+    return sorted[Math.max(0, rank - 1)];
+  }
+
+  private static String millis(
+    final long nanos)
+  {
+    return String.format(Locale.ROOT, "%.3f", Double.valueOf(nanos / 1.0e6));
+  }
+
+  /**
+   * Instantiate all commands, resolve and parse the arguments, and return
+   * the parsed command along with its full command path.
+   */
+
+  private Optional<Target> prepare(
+    final List<String> arguments)
+  {
+    if (arguments.isEmpty()) {
+      return Optional.empty();
+    }
+
+    final var commander = new JCommander();
+    commander.setProgramName(this.commander().getProgramName());
+    commander.addConverterInstanceFactory(CLPConverterRegistry.shared());
+
+    final var commands = new TreeMap<String, CLPCommandType>();
+    CLPCommandGroup.instantiate(
+      new IterationContext(this.context(), commander),
+      this.constructors,
+      commands
+    );
+    for (final var entry : commands.entrySet()) {
+      commander.addCommand(entry.getKey(), entry.getValue());
+    }
+
+    final var resolved =
+      new CLPCommandResolver(this.strings()).resolve(commander, arguments);
+    commander.parse(resolved.toArray(new String[0]));
+
+    final var path = new ArrayList<String>();
+    var current = commander;
+    for (var name = current.getParsedCommand();
+         name != null;
+         name = current.getParsedCommand()) {
+      path.add(name);
+      current = current.findCommandByAlias(name);
+    }
+    if (current == commander) {
+      return Optional.empty();
+    }
+
+    final var command = (CLPCommandType) current.getObjects().get(0);
+    if (command instanceof CLPCommandGroupType) {
+      return Optional.empty();
+    }
+    return Optional.of(new Target(path, command));
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPCommandBench 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+
+  @Override
+  public String name()
+  {
+    return "bench";
+  }
+
+  private record Target(
+    List<String> path,
+    CLPCommandType command)
+  {
+    Target
+    {
+      path = List.copyOf(path);
+      Objects.requireNonNull(command, "command");
+    }
+  }
+
+  /**
+   * The context of a single iteration. Everything other than the
+   * <tt>jcommander</tt> instance is shared with the bench command.
+   */
+
+  private static final class IterationContext implements CLPCommandContextType
+  {
+    private final CLPCommandContextType outer;
+    private final JCommander commander;
+
+    IterationContext(
+      final CLPCommandContextType inOuter,
+      final JCommander inCommander)
+    {
+      this.outer =
+        Objects.requireNonNull(inOuter, "outer");
+      this.commander =
+        Objects.requireNonNull(inCommander, "commander");
+    }
+
+    @Override
+    public CLPStringsType strings()
+    {
+      return this.outer.strings();
+    }
+
+    @Override
+    public CLPApplicationConfiguration configuration()
+    {
+      return this.outer.configuration();
+    }
+
+    @Override
+    public JCommander commander()
+    {
+      return this.commander;
+    }
+
+    @Override
+    public CLPOutputFormat outputFormat()
+    {
+      return this.outer.outputFormat();
+    }
+
+    @Override
+    public CLPProgressType progress(
+      final String label,
+      final long total)
+    {
+      return this.outer.progress(label, total);
+    }
+
+    @Override
+    public CLPSpanType span(
+      final String name)
+    {
+      return this.outer.span(name);
+    }
+  }
+}
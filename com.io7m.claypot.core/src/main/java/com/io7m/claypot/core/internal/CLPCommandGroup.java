@@ -0,0 +1,243 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.beust.jcommander.JCommander;
+import com.io7m.claypot.core.CLPCommandConstructorType;
+import com.io7m.claypot.core.CLPCommandContextType;
+import com.io7m.claypot.core.CLPCommandGroupType;
+import com.io7m.claypot.core.CLPCommandType;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static com.io7m.claypot.core.CLPCommandType.Status.FAILURE;
+
+/**
+ * A group of commands that are instantiated on first use.
+ */
+
+public final class CLPCommandGroup implements CLPCommandGroupType
+{
+  private final CLPCommandContextType context;
+  private final String name;
+  private final String description;
+  private final List<CLPCommandConstructorType> constructors;
+  private TreeMap<String, CLPCommandType> commands;
+
+  /**
+   * A group of commands that are instantiated on first use.
+   *
+   * @param inContext      The command context
+   * @param inName         The group name
+   * @param inDescription  The group description
+   * @param inConstructors The constructors of the commands within the group
+   */
+
+  public CLPCommandGroup(
+    final CLPCommandContextType inContext,
+    final String inName,
+    final String inDescription,
+    final List<CLPCommandConstructorType> inConstructors)
+  {
+    this.context =
+      Objects.requireNonNull(inContext, "context");
+    this.name =
+      Objects.requireNonNull(inName, "name");
+    this.description =
+      Objects.requireNonNull(inDescription, "description");
+    this.constructors =
+      Objects.requireNonNull(inConstructors, "constructors");
+  }
+
+  /**
+   * Instantiate all the given commands.
+   *
+   * @param context      The command context
+   * @param constructors The command constructors
+   * @param commands     The map to which commands are added, by name
+   *
+   * @throws IllegalStateException If two commands have the same name
+   */
+
+  public static void instantiate(
+    final CLPCommandContextType context,
+    final List<CLPCommandConstructorType> constructors,
+    final SortedMap<String, CLPCommandType> commands)
+  {
+    for (final var constructor : constructors) {
+      final var command = constructor.create(context);
+      final var commandName = command.name();
+      if (commands.containsKey(commandName)) {
+        throw new IllegalStateException(
+          context.strings()
+            .format("com.io7m.claypot.commandConflict", commandName)
+        );
+      }
+      commands.put(commandName, command);
+    }
+  }
+
+  /**
+   * Resolve a command path such as {@code [storage, compact]}, registering
+   * the commands of any groups along the way.
+   *
+   * @param commander The root <tt>jcommander</tt> instance
+   * @param path      The command path
+   *
+   * @return The <tt>jcommander</tt> instance for the command, if it exists
+   */
+
+  public static Optional<JCommander> resolve(
+    final JCommander commander,
+    final List<String> path)
+  {
+    Objects.requireNonNull(commander, "commander");
+    Objects.requireNonNull(path, "path");
+
+    var current = commander;
+    for (final var element : path) {
+      registerIfGroup(current);
+      current = current.findCommandByAlias(element);
+      if (current == null) {
+        return Optional.empty();
+      }
+    }
+    registerIfGroup(current);
+    return Optional.of(current);
+  }
+
+  /**
+   * @param commander The <tt>jcommander</tt> instance for a command
+   *
+   * @return {@code true} if the command is a group
+   */
+
+  public static boolean isGroup(
+    final JCommander commander)
+  {
+    return commander.getObjects().get(0) instanceof CLPCommandGroup;
+  }
+
+  /**
+   * Find the description of a group. Groups do not carry a
+   * {@code Parameters} annotation, so usage formatters must ask for the
+   * description here.
+   *
+   * @param commander The <tt>jcommander</tt> instance
+   * @param name      The command name
+   *
+   * @return The description of the named command, if it is a group
+   */
+
+  public static Optional<String> groupDescription(
+    final JCommander commander,
+    final String name)
+  {
+    final var command = commander.findCommandByAlias(name);
+    if (command != null
+      && command.getObjects().get(0) instanceof final CLPCommandGroup group) {
+      return Optional.of(group.description());
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Register the commands of a group with the group's own <tt>jcommander</tt>
+   * instance, if the given instance belongs to a group and the commands are
+   * not already registered.
+   *
+   * @param commander The <tt>jcommander</tt> instance for a command
+   *
+   * @return {@code true} if the command is a group
+   */
+
+  public static boolean registerIfGroup(
+    final JCommander commander)
+  {
+    if (commander.getObjects().get(0) instanceof final CLPCommandGroup group) {
+      group.register(commander);
+      return true;
+    }
+    return false;
+  }
+
+  private synchronized void register(
+    final JCommander commander)
+  {
+    if (commander.getRawCommands().isEmpty()) {
+      for (final var entry : this.commandMap().entrySet()) {
+        commander.addCommand(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  private synchronized TreeMap<String, CLPCommandType> commandMap()
+  {
+    if (this.commands == null) {
+      final var created = new TreeMap<String, CLPCommandType>();
+      instantiate(this.context, this.constructors, created);
+      this.commands = created;
+    }
+    return this.commands;
+  }
+
+  @Override
+  public String description()
+  {
+    return this.description;
+  }
+
+  @Override
+  public SortedMap<String, CLPCommandType> commands()
+  {
+    return Collections.unmodifiableSortedMap(this.commandMap());
+  }
+
+  @Override
+  public String name()
+  {
+    return this.name;
+  }
+
+  /**
+   * A group cannot be executed; the caller is expected to show usage
+   * information for the group instead.
+   *
+   * @return {@link Status#FAILURE}
+   */
+
+  @Override
+  public Status execute()
+  {
+    return FAILURE;
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPCommandGroup %s 0x%s]",
+      this.name,
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
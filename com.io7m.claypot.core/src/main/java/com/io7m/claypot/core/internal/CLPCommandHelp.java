@@ -20,14 +20,14 @@ import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
 import com.io7m.claypot.core.CLPAbstractCommand;
 import com.io7m.claypot.core.CLPCommandContextType;
-import com.io7m.claypot.core.CLPCommandType;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 
 import static com.io7m.claypot.core.CLPCommandType.Status.FAILURE;
 import static com.io7m.claypot.core.CLPCommandType.Status.SUCCESS;
-import static com.io7m.claypot.core.internal.CLPBriefUsageFormatter.showBriefUsage;
 
 /**
  * The "help" command.
@@ -39,16 +39,45 @@ public final class CLPCommandHelp extends CLPAbstractCommand
   @Parameter(description = "command")
   private List<String> commandNames = new ArrayList<>();
 
+  private Optional<String> searchQuery = Optional.empty();
+
+  private final CLPUsageCache usageCache;
+  private final CLPUsageOutput usageOutput;
+
   /**
    * Construct a command.
    *
-   * @param inContext The command context
+   * @param inContext     The command context
+   * @param inUsageCache  The usage cache
+   * @param inUsageOutput The usage output
    */
 
   public CLPCommandHelp(
-    final CLPCommandContextType inContext)
+    final CLPCommandContextType inContext,
+    final CLPUsageCache inUsageCache,
+    final CLPUsageOutput inUsageOutput)
   {
     super(inContext);
+    this.usageCache =
+      Objects.requireNonNull(inUsageCache, "usageCache");
+    this.usageOutput =
+      Objects.requireNonNull(inUsageOutput, "usageOutput");
+  }
+
+  /*
+   * The option is assigned through a setter so that the field can hold an
+   * Optional. The field is deliberately not named after the setter, as
+   * jcommander would otherwise display its value as the option's default.
+   */
+
+  @Parameter(
+    names = "--search",
+    description = "Search for commands matching the given terms."
+  )
+  private void setSearch(
+    final String query)
+  {
+    this.searchQuery = Optional.of(query);
   }
 
   @Override
@@ -63,57 +92,77 @@ public final class CLPCommandHelp extends CLPAbstractCommand
 
   @Override
   protected Status executeActual()
+  {
+    /*
+     * JCommander only assigns the options that appear on the command line,
+     * so the options are cleared here to prevent them from applying to the
+     * next invocation.
+     */
+
+    try {
+      return this.executeHelp();
+    } finally {
+      this.searchQuery = Optional.empty();
+      this.commandNames.clear();
+    }
+  }
+
+  private Status executeHelp()
   {
     final var logger = this.logger();
 
-    if (this.commandNames.isEmpty()) {
-      final var console = new CLPStringBuilderConsole();
-      final var commander = this.commander();
-      commander.setUsageFormatter(new CLPLongUsageFormatter(commander));
-      commander.setConsole(console);
-      commander.usage();
-      logger.info("{}", console.builder().toString());
+    if (this.searchQuery.isPresent()) {
+      final var results = this.searchResults(this.searchQuery.get());
+      this.usageOutput.write(List.of(results));
       return SUCCESS;
     }
 
-    final var commandName = this.commandNames.get(0);
-    final var commander = this.commander();
-    final var commands = commander.getCommands();
-    final var subCommander = commands.get(commandName);
-    if (subCommander == null) {
-      logger.error("Unknown command: {}", commandName);
-      showBriefUsage(logger, this.context().configuration(), this.commander());
-      return FAILURE;
+    if (this.commandNames.isEmpty()) {
+      this.usageOutput.write(this.usageCache.longUsage());
+      return SUCCESS;
     }
 
-    final var console = new CLPStringBuilderConsole();
-    subCommander.setUsageFormatter(new CLPLongUsageFormatter(subCommander));
-    subCommander.setConsole(console);
-    subCommander.usage();
-
-    final var commandObject = (CLPCommandType) subCommander.getObjects().get(0);
-    final var help = commandObject.extendedHelp().trim();
-    final var builder = console.builder();
-    if (!help.isBlank()) {
-      help.lines()
-        .map(CLPCommandHelp::indentLine)
-        .forEach(line -> {
-          builder.append(line);
-          builder.append('\n');
-        });
+    final var usage = this.usageCache.commandUsage(this.commandNames);
+    if (usage.isEmpty()) {
+      logger.error("Unknown command: {}", String.join(" ", this.commandNames));
+      this.usageOutput.write(this.usageCache.briefUsage());
+      return FAILURE;
     }
 
-    logger.info("{}", builder);
+    this.usageOutput.write(usage.get());
     return SUCCESS;
   }
 
-  private static String indentLine(
-    final String text)
+  private String searchResults(
+    final String query)
   {
-    if (text.trim().isEmpty()) {
-      return "";
+    final var results = this.usageCache.searchIndex().search(query);
+    final var text = new StringBuilder(256);
+    if (results.isEmpty()) {
+      text.append(
+        this.strings().format("com.io7m.claypot.helpSearchNone", query));
+      text.append('\n');
+      return text.toString();
+    }
+
+    text.append(
+      this.strings().format("com.io7m.claypot.helpSearchResults", query));
+    text.append('\n');
+
+    var longest = 0;
+    for (final var result : results) {
+      longest = Math.max(longest, result.command().name().length());
+    }
+
+    final var lineFormat =
+      String.format("    %%-%ds %%s", Integer.valueOf(longest + 4));
+    for (final var result : results) {
+      final var command = result.command();
+      text.append(
+        String.format(lineFormat, command.name(), command.description()));
+      text.append('\n');
     }
-    return "  " + text;
+    return text.toString();
   }
 
   @Override
@@ -0,0 +1,296 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * An index over the names of the commands at one level of the command tree,
+ * used to resolve unambiguous prefixes and to suggest corrections for
+ * misspelled names. Prefix queries are answered from a sorted set; corrections
+ * are answered from a BK-tree over the edit distance, so only a small part of
+ * the tree is visited for each query.
+ */
+
+public final class CLPCommandNameIndex
+{
+  /**
+   * The maximum number of suggestions returned.
+   */
+
+  public static final int MAXIMUM_SUGGESTIONS = 5;
+
+  private final TreeSet<String> names;
+  private final Node root;
+
+  private CLPCommandNameIndex(
+    final TreeSet<String> inNames,
+    final Node inRoot)
+  {
+    this.names = Objects.requireNonNull(inNames, "names");
+    this.root = inRoot;
+  }
+
+  /**
+   * Build an index over the given names.
+   *
+   * @param names The command names
+   *
+   * @return An index
+   */
+
+  public static CLPCommandNameIndex of(
+    final Collection<String> names)
+  {
+    final var sorted = new TreeSet<>(names);
+
+    Node root = null;
+    for (final var name : sorted) {
+      if (root == null) {
+        root = new Node(name);
+      } else {
+        root.insert(name);
+      }
+    }
+    return new CLPCommandNameIndex(sorted, root);
+  }
+
+  /**
+   * Compute the edit distance between two strings, counting insertions,
+   * deletions, substitutions, and transpositions of adjacent characters
+   * (the "optimal string alignment" distance).
+   *
+   * @param a The first string
+   * @param b The second string
+   *
+   * @return The distance
+   */
+
+  public static int distance(
+    final String a,
+    final String b)
+  {
+    final var lengthA = a.length();
+    final var lengthB = b.length();
+    var before = new int[lengthB + 1];
+    var previous = new int[lengthB + 1];
+    var current = new int[lengthB + 1];
+    for (int j = 0; j <= lengthB; j += 1) {
+      previous[j] = j;
+    }
+
+    for (int i = 1; i <= lengthA; i += 1) {
+      current[0] = i;
+      final var ca = a.charAt(i - 1);
+      for (int j = 1; j <= lengthB; j += 1) {
+        final var cb = b.charAt(j - 1);
+        final var cost = ca == cb ? 0 : 1;
+        var value = Math.min(
+          Math.min(current[j - 1] + 1, previous[j] + 1),
+          previous[j - 1] + cost
+        );
+        if (i > 1 && j > 1
+          && ca == b.charAt(j - 2)
+          && a.charAt(i - 2) == cb) {
+          value = Math.min(value, before[j - 2] + 1);
+        }
+        current[j] = value;
+      }
+      final var swap = before;
+      before = previous;
+      previous = current;
+      current = swap;
+    }
+
+    return previous[lengthB];
+  }
+
+  private static int limitFor(
+    final String query)
+  {
+    return Math.max(1, Math.min(3, query.length() / 3));
+  }
+
+  /**
+   * @return The number of names in the index
+   */
+
+  public int size()
+  {
+    return this.names.size();
+  }
+
+  /**
+   * @param prefix The prefix
+   *
+   * @return All names starting with the given prefix, in order
+   */
+
+  public List<String> withPrefix(
+    final String prefix)
+  {
+    Objects.requireNonNull(prefix, "prefix");
+
+    final var results = new ArrayList<String>();
+    for (final var name : this.names.tailSet(prefix, true)) {
+      if (!name.startsWith(prefix)) {
+        break;
+      }
+      results.add(name);
+    }
+    return results;
+  }
+
+  /**
+   * @param prefix The prefix
+   *
+   * @return The only name starting with the given prefix, if there is
+   * exactly one
+   */
+
+  public Optional<String> uniquePrefix(
+    final String prefix)
+  {
+    Objects.requireNonNull(prefix, "prefix");
+
+    final var first = this.names.ceiling(prefix);
+    if (first == null || !first.startsWith(prefix)) {
+      return Optional.empty();
+    }
+    final var second = this.names.higher(first);
+    if (second != null && second.startsWith(prefix)) {
+      return Optional.empty();
+    }
+    return Optional.of(first);
+  }
+
+  /**
+   * @param query The misspelled name
+   *
+   * @return Names close to the given name, closest first
+   */
+
+  public List<String> suggestions(
+    final String query)
+  {
+    Objects.requireNonNull(query, "query");
+
+    if (this.root == null) {
+      return List.of();
+    }
+
+    final var limit = limitFor(query);
+    final var found = new ArrayList<Suggestion>();
+    final var pending = new ArrayDeque<Node>();
+    pending.push(this.root);
+
+    while (!pending.isEmpty()) {
+      final var node = pending.pop();
+      final var d = distance(query, node.name);
+      if (d <= limit) {
+        found.add(new Suggestion(node.name, d));
+      }
+
+      /*
+       * By the triangle inequality, only children whose distance from this
+       * node lies within the limit of the query's distance can match. The
+       * distance used here only approximately obeys the inequality where
+       * transpositions overlap, so a very rare near miss may be omitted;
+       * that is acceptable for suggestions.
+       */
+
+      if (node.children != null) {
+        final var low = d - limit;
+        final var high = d + limit;
+        for (final var entry : node.children.entrySet()) {
+          final var key = entry.getKey().intValue();
+          if (key >= low && key <= high) {
+            pending.push(entry.getValue());
+          }
+        }
+      }
+    }
+
+    found.sort(
+      Comparator.comparingInt(Suggestion::distance)
+        .thenComparing(Suggestion::name));
+
+    final var results = new ArrayList<String>(MAXIMUM_SUGGESTIONS);
+    for (final var suggestion : found) {
+      if (results.size() == MAXIMUM_SUGGESTIONS) {
+        break;
+      }
+      results.add(suggestion.name());
+    }
+    return results;
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPCommandNameIndex 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+
+  private record Suggestion(
+    String name,
+    int distance)
+  {
+
+  }
+
+  private static final class Node
+  {
+    private final String name;
+    private Map<Integer, Node> children;
+
+    Node(
+      final String inName)
+    {
+      this.name = Objects.requireNonNull(inName, "name");
+    }
+
+    void insert(
+      final String newName)
+    {
+      var node = this;
+      while (true) {
+        final var d = Integer.valueOf(distance(newName, node.name));
+        if (node.children == null) {
+          node.children = new HashMap<>();
+        }
+        final var next = node.children.get(d);
+        if (next == null) {
+          node.children.put(d, new Node(newName));
+          return;
+        }
+        node = next;
+      }
+    }
+  }
+}
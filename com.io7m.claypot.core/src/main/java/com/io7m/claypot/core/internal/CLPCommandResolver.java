@@ -0,0 +1,283 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterDescription;
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.Parameters;
+import com.io7m.claypot.core.CLPStringsType;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A resolver of command names on the command line. Command names may be
+ * abbreviated to any unambiguous prefix; unknown names are reported along
+ * with suggestions. The commands of groups on the path taken by the
+ * arguments are registered as a side effect.
+ */
+
+public final class CLPCommandResolver
+{
+  private final CLPStringsType strings;
+  private final IdentityHashMap<JCommander, Level> indexes;
+
+  /**
+   * A resolver of command names on the command line.
+   *
+   * @param inStrings The string resources
+   */
+
+  public CLPCommandResolver(
+    final CLPStringsType inStrings)
+  {
+    this.strings =
+      Objects.requireNonNull(inStrings, "strings");
+    this.indexes =
+      new IdentityHashMap<>();
+  }
+
+  /*
+   * Arguments of the form "@file" are expanded in the same manner as
+   * jcommander expands them, so that command names within files are seen.
+   * Arguments naming unreadable files are left for jcommander to report.
+   *
+   * Files are read a line at a time, but jcommander parses an array, so the
+   * expanded arguments are necessarily held in memory in their entirety.
+   * Commands that accept very long argument lists should declare the
+   * --args-from option instead (see CLPArgumentStreamParameters), which
+   * never materializes the list.
+   */
+
+  private static List<String> expandFiles(
+    final List<String> args)
+  {
+    final var expanded = new ArrayList<String>(args.size());
+    for (final var arg : args) {
+      if (arg.startsWith("@")) {
+        expandFile(expanded, arg);
+      } else {
+        expanded.add(arg);
+      }
+    }
+    return expanded;
+  }
+
+  private static void expandFile(
+    final List<String> expanded,
+    final String arg)
+  {
+    final var start = expanded.size();
+    try (var reader = Files.newBufferedReader(
+      Paths.get(arg.substring(1)), Charset.defaultCharset())) {
+      while (true) {
+        final var line = reader.readLine();
+        if (line == null) {
+          break;
+        }
+        final var trimmed = line.trim();
+        if (!line.isEmpty() && !trimmed.startsWith("#")) {
+          expanded.add(trimmed);
+        }
+      }
+    } catch (final IOException e) {
+      expanded.subList(start, expanded.size()).clear();
+      expanded.add(arg);
+    }
+  }
+
+  /**
+   * @param parameter The parameter
+   *
+   * @return The number of values consumed by the parameter, following the
+   * same rules as jcommander
+   */
+
+  static int arityOf(
+    final ParameterDescription parameter)
+  {
+    final var arity = parameter.getParameter().arity();
+    if (arity != -1) {
+      return arity;
+    }
+    final var type = parameter.getParameterized().getType();
+    return type == boolean.class || type == Boolean.class ? 0 : 1;
+  }
+
+  /*
+   * The number of values consumed by the named option. Unknown options
+   * consume nothing; jcommander reports them during parsing.
+   */
+
+  private static int valuesOf(
+    final JCommander commander,
+    final String option)
+  {
+    if (commander.getDescriptions() == null) {
+      commander.createDescriptions();
+    }
+
+    for (final var parameter : commander.getParameters()) {
+      for (final var name : parameter.getParameter().names()) {
+        if (name.equals(option)) {
+          return arityOf(parameter);
+        }
+      }
+    }
+    return 0;
+  }
+
+  private static boolean isHidden(
+    final JCommander command)
+  {
+    final Object arg = command.getObjects().get(0);
+    final Parameters p = arg.getClass().getAnnotation(Parameters.class);
+    return p != null && p.hidden();
+  }
+
+  /**
+   * Resolve the command names in the given arguments.
+   *
+   * @param commander The root <tt>jcommander</tt> instance
+   * @param args      The command-line arguments
+   *
+   * @return The arguments with any abbreviated command names expanded
+   *
+   * @throws ParameterException If a command name is unknown or ambiguous
+   */
+
+  public synchronized List<String> resolve(
+    final JCommander commander,
+    final List<String> args)
+  {
+    Objects.requireNonNull(commander, "commander");
+    Objects.requireNonNull(args, "args");
+
+    final var tokens = expandFiles(args);
+    var current = commander;
+    for (int index = 0; index < tokens.size(); index += 1) {
+      final var token = tokens.get(index);
+      if ("--".equals(token)) {
+        break;
+      }
+      if (token.startsWith("-")) {
+        index += valuesOf(current, token);
+        continue;
+      }
+
+      var next = current.findCommandByAlias(token);
+      if (next == null) {
+        if (current.getMainParameter() != null) {
+          continue;
+        }
+        final var name = this.resolveName(current, token);
+        tokens.set(index, name);
+        next = current.findCommandByAlias(name);
+      }
+
+      if (!CLPCommandGroup.registerIfGroup(next)) {
+        break;
+      }
+      current = next;
+    }
+    return tokens;
+  }
+
+  private String resolveName(
+    final JCommander commander,
+    final String token)
+  {
+    final var index = this.indexFor(commander);
+    final var unique = index.uniquePrefix(token);
+    if (unique.isPresent()) {
+      return unique.get();
+    }
+
+    final var candidates = index.withPrefix(token);
+    if (!candidates.isEmpty()) {
+      throw new ParameterException(
+        this.strings.format(
+          "com.io7m.claypot.commandAmbiguous",
+          token,
+          String.join(", ", candidates))
+      );
+    }
+
+    final var message = new StringBuilder(128);
+    message.append(
+      this.strings.format("com.io7m.claypot.commandUnknown", token));
+
+    final var suggestions = index.suggestions(token);
+    if (!suggestions.isEmpty()) {
+      message.append(' ');
+      message.append(
+        this.strings.format(
+          "com.io7m.claypot.commandSuggestions",
+          String.join(", ", suggestions)));
+    }
+    throw new ParameterException(message.toString());
+  }
+
+  /*
+   * Indexes are built only when a name is not found directly, and are
+   * rebuilt if the set of commands at a level has since changed.
+   */
+
+  private CLPCommandNameIndex indexFor(
+    final JCommander commander)
+  {
+    final var commands = commander.getRawCommands();
+    final var existing = this.indexes.get(commander);
+    if (existing != null && existing.registered() == commands.size()) {
+      return existing.index();
+    }
+
+    final var names = new ArrayList<String>(commands.size());
+    for (final var entry : commands.entrySet()) {
+      if (!isHidden(entry.getValue())) {
+        names.add(entry.getKey().getName());
+      }
+    }
+
+    final var index = CLPCommandNameIndex.of(names);
+    this.indexes.put(commander, new Level(index, commands.size()));
+    return index;
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPCommandResolver 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+
+  private record Level(
+    CLPCommandNameIndex index,
+    int registered)
+  {
+
+  }
+}
@@ -16,8 +16,14 @@
 
 package com.io7m.claypot.core.internal;
 
+import com.beust.jcommander.Parameter;
 import com.io7m.claypot.core.CLPAbstractCommand;
 import com.io7m.claypot.core.CLPCommandContextType;
+import com.io7m.claypot.core.CLPOutputFormat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
 
 import static com.io7m.claypot.core.CLPCommandType.Status.SUCCESS;
 
@@ -27,6 +33,76 @@ import static com.io7m.claypot.core.CLPCommandType.Status.SUCCESS;
 
 public final class CLPCommandRoot extends CLPAbstractCommand
 {
+  @Parameter(
+    names = CLPOutputFormatScan.OPTION,
+    description = "Set the output format (text, jsonl)."
+  )
+  private CLPOutputFormat outputFormat = CLPOutputFormat.OUTPUT_TEXT;
+
+  private Optional<Path> metricsFile = Optional.empty();
+
+  private Optional<Path> traceFile = Optional.empty();
+
+  private Optional<Path> introspectionSocket = Optional.empty();
+
+  private Optional<Path> profileFile = Optional.empty();
+
+  @Parameter(
+    names = "--profile-interval",
+    hidden = true,
+    description = "The initial interval between profiling samples."
+  )
+  private Duration profileInterval = CLPSampler.DEFAULT_INTERVAL;
+
+  /*
+   * Options that have no default value are assigned through setters, so
+   * that the fields can hold an Optional rather than null.
+   */
+
+  @Parameter(
+    names = "--metrics-file",
+    hidden = true,
+    description = "Write command metrics to the given file on exit."
+  )
+  private void setMetricsFile(
+    final Path file)
+  {
+    this.metricsFile = Optional.of(file);
+  }
+
+  @Parameter(
+    names = "--trace-file",
+    hidden = true,
+    description = "Write command trace spans to the given file on exit."
+  )
+  private void setTraceFile(
+    final Path file)
+  {
+    this.traceFile = Optional.of(file);
+  }
+
+  @Parameter(
+    names = "--introspection-socket",
+    hidden = true,
+    description = "Serve snapshots of the running command on the given UNIX domain socket."
+  )
+  private void setIntrospectionSocket(
+    final Path file)
+  {
+    this.introspectionSocket = Optional.of(file);
+  }
+
+  @Parameter(
+    names = "--profile-file",
+    hidden = true,
+    description = "Sample the command thread and write collapsed stacks to the given file on exit."
+  )
+  private void setProfileFile(
+    final Path file)
+  {
+    this.profileFile = Optional.of(file);
+  }
+
   /**
    * The root command.
    *
@@ -39,6 +115,80 @@ public final class CLPCommandRoot extends CLPAbstractCommand
     super(inContext);
   }
 
+  /**
+   * Restore every option to its default value. JCommander only assigns
+   * the options that appear on the command line, so this must be called
+   * before each parse to prevent options given to one invocation from
+   * applying to the next.
+   */
+
+  public void reset()
+  {
+    this.resetCommonOptions();
+    this.outputFormat = CLPOutputFormat.OUTPUT_TEXT;
+    this.metricsFile = Optional.empty();
+    this.traceFile = Optional.empty();
+    this.introspectionSocket = Optional.empty();
+    this.profileFile = Optional.empty();
+    this.profileInterval = CLPSampler.DEFAULT_INTERVAL;
+  }
+
+  /**
+   * @return The output format specified on the command line
+   */
+
+  public CLPOutputFormat outputFormat()
+  {
+    return this.outputFormat;
+  }
+
+  /**
+   * @return The file to which metrics should be written, if any
+   */
+
+  public Optional<Path> metricsFile()
+  {
+    return this.metricsFile;
+  }
+
+  /**
+   * @return The file to which trace spans should be written, if any
+   */
+
+  public Optional<Path> traceFile()
+  {
+    return this.traceFile;
+  }
+
+  /**
+   * @return The socket on which introspection snapshots should be served,
+   * if any
+   */
+
+  public Optional<Path> introspectionSocket()
+  {
+    return this.introspectionSocket;
+  }
+
+  /**
+   * @return The file to which collapsed profiling stacks should be written,
+   * if any
+   */
+
+  public Optional<Path> profileFile()
+  {
+    return this.profileFile;
+  }
+
+  /**
+   * @return The initial interval between profiling samples
+   */
+
+  public Duration profileInterval()
+  {
+    return this.profileInterval;
+  }
+
   @Override
   protected Status executeActual()
   {
@@ -0,0 +1,210 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.CLPStringsType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The hidden shell completion entry points. These are recognized before any
+ * other argument processing, and do not appear in usage text.
+ */
+
+public final class CLPCompletion
+{
+  /**
+   * The argument that requests completion candidates for the remaining
+   * arguments.
+   */
+
+  public static final String COMPLETE = "__complete";
+
+  /**
+   * The argument that requests a completion script for the named shell.
+   */
+
+  public static final String SCRIPT = "__completion-script";
+
+  private CLPCompletion()
+  {
+
+  }
+
+  /**
+   * @param args The command-line arguments
+   *
+   * @return {@code true} if the arguments are a completion request
+   */
+
+  public static boolean isRequest(
+    final String[] args)
+  {
+    return args.length > 0
+      && (COMPLETE.equals(args[0]) || SCRIPT.equals(args[0]));
+  }
+
+  /**
+   * Answer a completion request. The index is only requested if completion
+   * candidates are required.
+   *
+   * @param configuration The application configuration
+   * @param strings       The string resources
+   * @param index         A supplier of the completion index
+   * @param args          The command-line arguments
+   *
+   * @return The exit code
+   */
+
+  public static int execute(
+    final CLPApplicationConfiguration configuration,
+    final CLPStringsType strings,
+    final Supplier<CLPCompletionIndex> index,
+    final String[] args)
+  {
+    Objects.requireNonNull(configuration, "configuration");
+    Objects.requireNonNull(strings, "strings");
+    Objects.requireNonNull(index, "index");
+    Objects.requireNonNull(args, "args");
+
+    final var logger = configuration.logger();
+    final var rest = Arrays.asList(args).subList(1, args.length);
+
+    final String text;
+    if (COMPLETE.equals(args[0])) {
+      final var lines = new StringBuilder(256);
+      for (final var candidate : index.get().complete(rest)) {
+        lines.append(candidate);
+        lines.append('\n');
+      }
+      text = lines.toString();
+    } else {
+      final var shell = rest.isEmpty() ? "" : rest.get(0);
+      final var script = script(shell, configuration.programName());
+      if (script.isEmpty()) {
+        logger.error(
+          "{}",
+          strings.format(
+            "com.io7m.claypot.completionShellUnrecognized", shell));
+        return 1;
+      }
+      text = script.get();
+    }
+
+    try {
+      write(configuration, text);
+    } catch (final IOException e) {
+      logger.error("{}", e.getMessage());
+      return 1;
+    }
+    return 0;
+  }
+
+  private static void write(
+    final CLPApplicationConfiguration configuration,
+    final String text)
+    throws IOException
+  {
+    final var usageWriter = configuration.usageWriter();
+    if (usageWriter.isPresent()) {
+      final var writer = usageWriter.get();
+      writer.write(text);
+      writer.flush();
+      return;
+    }
+
+    /*
+     * The standard output stream is not closed, as it is shared with the
+     * rest of the application.
+     */
+
+    final Writer writer =
+      new BufferedWriter(new OutputStreamWriter(System.out, UTF_8));
+    writer.write(text);
+    writer.flush();
+  }
+
+  private static Optional<String> script(
+    final String shell,
+    final String program)
+  {
+    return switch (shell) {
+      case "bash" -> Optional.of(bashScript(program));
+      case "zsh" -> Optional.of(zshScript(program));
+      default -> Optional.empty();
+    };
+  }
+
+  private static String functionName(
+    final String program)
+  {
+    return "_" + program.replaceAll("[^A-Za-z0-9_]", "_") + "_complete";
+  }
+
+  private static String bashScript(
+    final String program)
+  {
+    final var function = functionName(program);
+    return String.join(
+      "\n",
+      List.of(
+        "# bash completion for " + program,
+        function + "()",
+        "{",
+        "  local IFS=$'\\n'",
+        "  COMPREPLY=($(\"" + program + "\" " + COMPLETE
+          + " \"${COMP_WORDS[@]:1:COMP_CWORD}\" 2>/dev/null))",
+        "}",
+        "complete -o default -F " + function + " \"" + program + "\"",
+        ""
+      )
+    );
+  }
+
+  private static String zshScript(
+    final String program)
+  {
+    final var function = functionName(program);
+    return String.join(
+      "\n",
+      List.of(
+        "#compdef " + program,
+        "# zsh completion for " + program,
+        function + "()",
+        "{",
+        "  local -a candidates",
+        "  candidates=(${(f)\"$(\"" + program + "\" " + COMPLETE
+          + " \"${(@)words[2,CURRENT]}\" 2>/dev/null)\"})",
+        "  compadd -a candidates",
+        "}",
+        "compdef " + function + " \"" + program + "\"",
+        ""
+      )
+    );
+  }
+}
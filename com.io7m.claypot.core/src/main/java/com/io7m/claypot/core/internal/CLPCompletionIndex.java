@@ -0,0 +1,342 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameters;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * An index of the command tree for shell completion: the commands at each
+ * level, the options each command accepts, and the permitted values of
+ * options with enumerated types. Answering a completion request requires
+ * only this index, so no command objects need be instantiated when the
+ * index has been generated ahead of time.
+ */
+
+public final class CLPCompletionIndex
+{
+  private final Node root;
+
+  private CLPCompletionIndex(
+    final Node inRoot)
+  {
+    this.root = Objects.requireNonNull(inRoot, "root");
+  }
+
+  /**
+   * Build an index over the command tree rooted at the given
+   * <tt>jcommander</tt> instance. The commands of all groups are registered
+   * in order to index them. Hidden commands and hidden parameters are not
+   * indexed.
+   *
+   * @param commander The root <tt>jcommander</tt> instance
+   *
+   * @return An index
+   */
+
+  public static CLPCompletionIndex build(
+    final JCommander commander)
+  {
+    Objects.requireNonNull(commander, "commander");
+    return new CLPCompletionIndex(buildNode(commander));
+  }
+
+  private static Node buildNode(
+    final JCommander commander)
+  {
+    if (commander.getDescriptions() == null) {
+      commander.createDescriptions();
+    }
+
+    final var options = new TreeMap<String, Option>();
+    for (final var parameter : commander.getParameters()) {
+      final var wrapped = parameter.getParameter();
+      if (wrapped.hidden()) {
+        continue;
+      }
+
+      final var arity = CLPCommandResolver.arityOf(parameter);
+      final var values =
+        valuesOf(parameter.getParameterized().getType());
+      for (final var name : wrapped.names()) {
+        options.put(name, new Option(arity, values));
+      }
+    }
+
+    final var commands = new TreeMap<String, Node>();
+    for (final var entry : commander.getRawCommands().entrySet()) {
+      final var subCommander = entry.getValue();
+      if (isHidden(subCommander)) {
+        continue;
+      }
+      CLPCommandGroup.registerIfGroup(subCommander);
+      commands.put(entry.getKey().getName(), buildNode(subCommander));
+    }
+    return new Node(options, commands);
+  }
+
+  /*
+   * Enumerated values are offered in their string forms. This matches the
+   * default jcommander conversion for enums that do not override toString(),
+   * and the converters of enums such as CLPLogLevel that do.
+   */
+
+  private static List<String> valuesOf(
+    final Class<?> type)
+  {
+    final var constants = type.getEnumConstants();
+    if (constants == null) {
+      return List.of();
+    }
+
+    final var values = new ArrayList<String>(constants.length);
+    for (final var constant : constants) {
+      values.add(constant.toString());
+    }
+    return List.copyOf(values);
+  }
+
+  private static boolean isHidden(
+    final JCommander command)
+  {
+    final Object arg = command.getObjects().get(0);
+    final Parameters p = arg.getClass().getAnnotation(Parameters.class);
+    return p != null && p.hidden();
+  }
+
+  private static void withPrefix(
+    final SortedMap<String, ?> map,
+    final String prefix,
+    final List<String> results)
+  {
+    for (final var name : map.tailMap(prefix).keySet()) {
+      if (!name.startsWith(prefix)) {
+        break;
+      }
+      results.add(name);
+    }
+  }
+
+  /**
+   * Complete the last of the given words. The words are the command-line
+   * arguments typed so far, not including the program name; the last word
+   * is the (possibly empty) word being completed.
+   *
+   * @param words The words
+   *
+   * @return The candidate completions of the last word, in order
+   */
+
+  public List<String> complete(
+    final List<String> words)
+  {
+    Objects.requireNonNull(words, "words");
+
+    if (words.isEmpty()) {
+      return List.copyOf(this.root.commands().keySet());
+    }
+
+    final var position = this.walk(words.subList(0, words.size() - 1));
+    final var current = words.get(words.size() - 1);
+    final var results = new ArrayList<String>();
+
+    final var option = position.pendingOption();
+    if (option != null) {
+      for (final var value : option.values()) {
+        if (value.startsWith(current)) {
+          results.add(value);
+        }
+      }
+      return results;
+    }
+
+    final var node = position.node();
+    if (current.startsWith("-")) {
+      withPrefix(node.options(), current, results);
+    } else {
+      withPrefix(node.commands(), current, results);
+    }
+    return results;
+  }
+
+  /*
+   * Follow the completed words down the command tree, skipping the values
+   * of any options. If the last completed word is an option that still
+   * requires a value, that option is returned.
+   */
+
+  private Position walk(
+    final List<String> completed)
+  {
+    var node = this.root;
+    var pending = 0;
+    Option option = null;
+    for (final var word : completed) {
+      if (pending > 0) {
+        pending -= 1;
+      } else if (word.startsWith("-")) {
+        option = node.options().get(word);
+        pending = option == null ? 0 : option.arity();
+      } else {
+        node = node.commands().getOrDefault(word, node);
+      }
+    }
+    return new Position(node, pending > 0 ? option : null);
+  }
+
+  /**
+   * Read an index.
+   *
+   * @param input The input
+   *
+   * @return An index
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static CLPCompletionIndex read(
+    final DataInput input)
+    throws IOException
+  {
+    return new CLPCompletionIndex(readNode(input));
+  }
+
+  private static Node readNode(
+    final DataInput input)
+    throws IOException
+  {
+    final var optionCount = input.readInt();
+    final var options = new TreeMap<String, Option>();
+    for (int index = 0; index < optionCount; ++index) {
+      final var name = input.readUTF();
+      final var arity = input.readInt();
+      final var valueCount = input.readInt();
+      final var values = new ArrayList<String>(valueCount);
+      for (int v = 0; v < valueCount; ++v) {
+        values.add(input.readUTF());
+      }
+      options.put(name, new Option(arity, List.copyOf(values)));
+    }
+
+    final var commandCount = input.readInt();
+    final var commands = new TreeMap<String, Node>();
+    for (int index = 0; index < commandCount; ++index) {
+      final var name = input.readUTF();
+      commands.put(name, readNode(input));
+    }
+    return new Node(options, commands);
+  }
+
+  /**
+   * Write this index.
+   *
+   * @param output The output
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void write(
+    final DataOutput output)
+    throws IOException
+  {
+    writeNode(output, this.root);
+  }
+
+  private static void writeNode(
+    final DataOutput output,
+    final Node node)
+    throws IOException
+  {
+    final var options = node.options();
+    output.writeInt(options.size());
+    for (final var entry : options.entrySet()) {
+      final var option = entry.getValue();
+      final var values = option.values();
+      output.writeUTF(entry.getKey());
+      output.writeInt(option.arity());
+      output.writeInt(values.size());
+      for (final var value : values) {
+        output.writeUTF(value);
+      }
+    }
+
+    final var commands = node.commands();
+    output.writeInt(commands.size());
+    for (final var entry : commands.entrySet()) {
+      output.writeUTF(entry.getKey());
+      writeNode(output, entry.getValue());
+    }
+  }
+
+  @Override
+  public boolean equals(
+    final Object other)
+  {
+    if (this == other) {
+      return true;
+    }
+    if (other == null || !Objects.equals(this.getClass(), other.getClass())) {
+      return false;
+    }
+    return this.root.equals(((CLPCompletionIndex) other).root);
+  }
+
+  @Override
+  public int hashCode()
+  {
+    return this.root.hashCode();
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPCompletionIndex 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+
+  private record Option(
+    int arity,
+    List<String> values)
+  {
+
+  }
+
+  private record Position(
+    Node node,
+    Option pendingOption)
+  {
+
+  }
+
+  private record Node(
+    TreeMap<String, Option> options,
+    TreeMap<String, Node> commands)
+  {
+
+  }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.beust.jcommander.IStringConverter;
+import com.beust.jcommander.IStringConverterInstanceFactory;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.io7m.claypot.core.CLPByteSize;
+import com.io7m.claypot.core.CLPLogLevel;
+import com.io7m.claypot.core.CLPOutputFormat;
+import com.io7m.claypot.core.CLPStrings;
+import com.io7m.claypot.core.CLPStringsType;
+
+import java.net.URI;
+import java.nio.file.FileSystems;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The registry of converters used by all commands. Converters are created
+ * once, are stateless, and are shared between all parameters, commands, and
+ * threads; jcommander would otherwise instantiate a converter reflectively
+ * each time a value is converted. Converters are chosen by the type of the
+ * parameter, so parameters of the supported types should not name a
+ * converter class explicitly. Converters whose error messages name the
+ * option are created once per option.
+ */
+
+public final class CLPConverterRegistry
+  implements IStringConverterInstanceFactory
+{
+  private static final CLPConverterRegistry SHARED =
+    new CLPConverterRegistry(CLPStrings.create());
+
+  private static final Map<String, ChronoUnit> DURATION_UNITS =
+    Map.of(
+      "ns", ChronoUnit.NANOS,
+      "us", ChronoUnit.MICROS,
+      "ms", ChronoUnit.MILLIS,
+      "s", ChronoUnit.SECONDS,
+      "m", ChronoUnit.MINUTES,
+      "h", ChronoUnit.HOURS,
+      "d", ChronoUnit.DAYS
+    );
+
+  private final CLPStringsType strings;
+  private final Map<Class<?>, IStringConverter<?>> converters;
+  private final Map<Class<?>, OptionConverterType<?>> optionConverters;
+  private final ConcurrentHashMap<Bound, IStringConverter<?>> bound;
+  private final ClassValue<IStringConverter<?>> enums;
+
+  /*
+   * A converter that names the option in its error messages.
+   */
+
+  private interface OptionConverterType<T>
+  {
+    T convert(
+      String optionName,
+      String value);
+  }
+
+  private record Bound(
+    Class<?> type,
+    String optionName)
+  {
+
+  }
+
+  private CLPConverterRegistry(
+    final CLPStringsType inStrings)
+  {
+    this.strings =
+      Objects.requireNonNull(inStrings, "strings");
+
+    this.converters = Map.of(
+      CLPLogLevel.class,
+      new CLPLogLevelConverter(this.strings),
+      CLPOutputFormat.class,
+      new CLPOutputFormatConverter(this.strings)
+    );
+
+    this.optionConverters = Map.of(
+      Path.class,
+      (OptionConverterType<Path>) this::convertPath,
+      URI.class,
+      (OptionConverterType<URI>) this::convertURI,
+      Duration.class,
+      (OptionConverterType<Duration>) this::convertDuration,
+      CLPByteSize.class,
+      (OptionConverterType<CLPByteSize>) this::convertByteSize,
+      PathMatcher.class,
+      (OptionConverterType<PathMatcher>) this::convertPathMatcher
+    );
+
+    this.bound = new ConcurrentHashMap<>();
+
+    this.enums = new ClassValue<>()
+    {
+      @Override
+      protected IStringConverter<?> computeValue(
+        final Class<?> type)
+      {
+        return enumConverter(inStrings, type);
+      }
+    };
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static IStringConverter<?> enumConverter(
+    final CLPStringsType strings,
+    final Class<?> type)
+  {
+    return new CLPEnumConverter(strings, type);
+  }
+
+  /**
+   * @return The shared registry
+   */
+
+  public static CLPConverterRegistry shared()
+  {
+    return SHARED;
+  }
+
+  /**
+   * @return The string resources shared by the converters
+   */
+
+  public CLPStringsType strings()
+  {
+    return this.strings;
+  }
+
+  private Optional<IStringConverter<?>> converterFor(
+    final Class<?> type,
+    final String optionName)
+  {
+    final var converter = this.converters.get(type);
+    if (converter != null) {
+      return Optional.of(converter);
+    }
+    if (type.isEnum()) {
+      return Optional.of(this.enums.get(type));
+    }
+
+    final var optionConverter = this.optionConverters.get(type);
+    if (optionConverter != null) {
+      return Optional.of(
+        this.bound.computeIfAbsent(
+          new Bound(type, optionName),
+          k -> value -> optionConverter.convert(k.optionName(), value))
+      );
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Find the converter for the given type.
+   *
+   * @param parameter  The parameter annotation, ignored
+   * @param forType    The type
+   * @param optionName The option name, used in error messages
+   *
+   * @return The converter, or {@code null} if the type is not supported
+   */
+
+  @Override
+  public IStringConverter<?> getConverterInstance(
+    final Parameter parameter,
+    final Class<?> forType,
+    final String optionName)
+  {
+    return this.converterFor(
+      forType,
+      Objects.requireNonNullElse(optionName, "")
+    ).orElse(null);
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPConverterRegistry 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+
+  private String invalidMessage(
+    final String optionName,
+    final String type,
+    final String value)
+  {
+    if (optionName.isEmpty()) {
+      return this.strings.format("com.io7m.claypot.valueInvalid", type, value);
+    }
+    return this.strings.format(
+      "com.io7m.claypot.optionValueInvalid", optionName, type, value);
+  }
+
+  private ParameterException invalid(
+    final String optionName,
+    final String type,
+    final String value)
+  {
+    return new ParameterException(
+      this.invalidMessage(optionName, type, value)
+    );
+  }
+
+  private ParameterException invalid(
+    final String optionName,
+    final String type,
+    final String value,
+    final Exception cause)
+  {
+    return new ParameterException(
+      this.invalidMessage(optionName, type, value),
+      cause
+    );
+  }
+
+  private Path convertPath(
+    final String optionName,
+    final String value)
+  {
+    try {
+      return Path.of(value);
+    } catch (final InvalidPathException e) {
+      throw this.invalid(optionName, "path", value, e);
+    }
+  }
+
+  private URI convertURI(
+    final String optionName,
+    final String value)
+  {
+    try {
+      return URI.create(value);
+    } catch (final IllegalArgumentException e) {
+      throw this.invalid(optionName, "URI", value, e);
+    }
+  }
+
+  private CLPByteSize convertByteSize(
+    final String optionName,
+    final String value)
+  {
+    return CLPByteSize.parse(value)
+      .orElseThrow(() -> this.invalid(optionName, "size", value));
+  }
+
+  private PathMatcher convertPathMatcher(
+    final String optionName,
+    final String value)
+  {
+    final var syntax =
+      value.startsWith("glob:") || value.startsWith("regex:")
+        ? value
+        : "glob:" + value;
+
+    try {
+      return FileSystems.getDefault().getPathMatcher(syntax);
+    } catch (final PatternSyntaxException e) {
+      throw this.invalid(optionName, "pattern", value, e);
+    }
+  }
+
+  private Duration convertDuration(
+    final String optionName,
+    final String value)
+  {
+    return parseDuration(value)
+      .orElseThrow(() -> this.invalid(optionName, "duration", value));
+  }
+
+  private static Optional<Duration> parseISODuration(
+    final String text)
+  {
+    try {
+      return Optional.of(Duration.parse(text));
+    } catch (final DateTimeParseException e) {
+      return Optional.empty();
+    }
+  }
+
+  /*
+   * Durations are either in ISO-8601 form such as PT1M30S, or an integer
+   * followed by one of the units ns, us, ms, s, m, h, or d.
+   */
+
+  private static Optional<Duration> parseDuration(
+    final String text)
+  {
+    final var trimmed = text.trim();
+    if (trimmed.startsWith("P") || trimmed.startsWith("p")) {
+      return parseISODuration(trimmed);
+    }
+
+    var end = 0;
+    while (end < trimmed.length() && Character.isDigit(trimmed.charAt(end))) {
+      end += 1;
+    }
+    if (end == 0) {
+      return Optional.empty();
+    }
+
+    final var unit =
+      DURATION_UNITS.get(trimmed.substring(end).toLowerCase(Locale.ROOT));
+    if (unit == null) {
+      return Optional.empty();
+    }
+
+    try {
+      return Optional.of(
+        Duration.of(Long.parseLong(trimmed.substring(0, end)), unit));
+    } catch (final NumberFormatException | ArithmeticException e) {
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Commands were constructed and registered.
+ */
+
+@Name("com.io7m.claypot.Create")
+@Label("Create Commands")
+@Description("Commands were constructed and registered.")
+public final class CLPCreateEvent extends CLPAbstractEvent
+{
+  /**
+   * The number of registered top-level commands.
+   */
+
+  @Label("Command Count")
+  private int commandCount;
+
+  /**
+   * Construct an event.
+   */
+
+  public CLPCreateEvent()
+  {
+
+  }
+
+  /**
+   * Set the number of registered top-level commands.
+   *
+   * @param value The value
+   */
+
+  public void setCommandCount(
+    final int value)
+  {
+    this.commandCount = value;
+  }
+}
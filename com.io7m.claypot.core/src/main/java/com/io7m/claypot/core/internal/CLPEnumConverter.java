@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.beust.jcommander.IStringConverter;
+import com.beust.jcommander.ParameterException;
+import com.io7m.claypot.core.CLPStringsType;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * A converter for the constants of an enum type. The names and string forms
+ * of the constants are placed into a lookup map when the converter is
+ * created, so each conversion is a single map lookup. Instances are
+ * immutable and may be shared between threads.
+ *
+ * @param <E> The type of enum
+ */
+
+public final class CLPEnumConverter<E extends Enum<E>>
+  implements IStringConverter<E>
+{
+  private final CLPStringsType strings;
+  private final Map<String, E> values;
+  private final E[] constants;
+
+  /**
+   * Construct a converter.
+   *
+   * @param inStrings The string resources used for error messages
+   * @param inType    The enum type
+   */
+
+  public CLPEnumConverter(
+    final CLPStringsType inStrings,
+    final Class<E> inType)
+  {
+    this.strings =
+      Objects.requireNonNull(inStrings, "strings");
+
+    this.constants = inType.getEnumConstants();
+
+    final var lookup = new HashMap<String, E>(this.constants.length * 4);
+    for (final var constant : this.constants) {
+      lookup.putIfAbsent(constant.name(), constant);
+    }
+    for (final var constant : this.constants) {
+      lookup.putIfAbsent(constant.toString(), constant);
+    }
+    this.values = Map.copyOf(lookup);
+  }
+
+  @Override
+  public E convert(
+    final String value)
+  {
+    final var direct = this.values.get(value);
+    if (direct != null) {
+      return direct;
+    }
+
+    final var upper = this.values.get(value.toUpperCase(Locale.ROOT));
+    if (upper != null) {
+      return upper;
+    }
+
+    final var names = new StringJoiner(", ");
+    for (final var constant : this.constants) {
+      names.add(constant.toString());
+    }
+
+    throw new ParameterException(
+      this.strings.format(
+        "com.io7m.claypot.valueUnrecognized", value, names)
+    );
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPEnumConverter 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.io7m.claypot.core.internal.CLPExceptionReportSinkType.Relation;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A renderer of exception reports. The renderer walks the graph of causes and
+ * suppressed exceptions iteratively, detects cycles, collapses stack frames
+ * that are shared with the enclosing exception, and stops once the report
+ * exceeds a maximum depth or size. The report is streamed to a sink rather
+ * than accumulated.
+ */
+
+public final class CLPExceptionRenderer
+{
+  /**
+   * The default maximum depth of a report.
+   */
+
+  public static final int DEFAULT_MAXIMUM_DEPTH = 32;
+
+  /**
+   * The default maximum (approximate) size of a report, in characters.
+   */
+
+  public static final long DEFAULT_MAXIMUM_SIZE = 65536L;
+
+  private static final StackTraceElement[] NO_FRAMES =
+    new StackTraceElement[0];
+
+  private final int maximumDepth;
+  private final long maximumSize;
+
+  /**
+   * A renderer of exception reports.
+   *
+   * @param inMaximumDepth The maximum depth of causes and suppressed
+   *                       exceptions
+   * @param inMaximumSize  The maximum (approximate) size of the report in
+   *                       characters
+   */
+
+  public CLPExceptionRenderer(
+    final int inMaximumDepth,
+    final long inMaximumSize)
+  {
+    this.maximumDepth = inMaximumDepth;
+    this.maximumSize = inMaximumSize;
+  }
+
+  /**
+   * A renderer of exception reports using the default limits.
+   */
+
+  public CLPExceptionRenderer()
+  {
+    this(DEFAULT_MAXIMUM_DEPTH, DEFAULT_MAXIMUM_SIZE);
+  }
+
+  private static long sizeOf(
+    final String text)
+  {
+    return text == null ? 4L : (long) text.length();
+  }
+
+  private static long sizeOf(
+    final StackTraceElement element)
+  {
+    return 16L
+      + sizeOf(element.getModuleName())
+      + sizeOf(element.getClassName())
+      + sizeOf(element.getMethodName())
+      + sizeOf(element.getFileName());
+  }
+
+  private static int framesInCommon(
+    final StackTraceElement[] frames,
+    final StackTraceElement[] enclosing)
+  {
+    var m = frames.length - 1;
+    var n = enclosing.length - 1;
+    while (m >= 0 && n >= 0 && frames[m].equals(enclosing[n])) {
+      --m;
+      --n;
+    }
+    return frames.length - 1 - m;
+  }
+
+  /**
+   * Format a stack frame in the same manner as the JDK.
+   *
+   * @param out     The output
+   * @param element The stack frame
+   */
+
+  public static void formatFrame(
+    final StringBuilder out,
+    final StackTraceElement element)
+  {
+    final var moduleName = element.getModuleName();
+    if (moduleName != null) {
+      out.append(moduleName);
+      out.append('/');
+    } else {
+      out.append("<unnamed>/");
+    }
+
+    out.append(element.getClassName());
+    out.append('.');
+    out.append(element.getMethodName());
+    out.append('(');
+    out.append(element.getFileName());
+    out.append(':');
+    out.append(element.getLineNumber());
+    out.append(')');
+  }
+
+  /**
+   * Render a report for the given exception.
+   *
+   * @param exception The exception
+   * @param sink      The sink
+   */
+
+  public void render(
+    final Throwable exception,
+    final CLPExceptionReportSinkType sink)
+  {
+    Objects.requireNonNull(exception, "exception");
+    Objects.requireNonNull(sink, "sink");
+
+    final Set<Throwable> seen =
+      Collections.newSetFromMap(new IdentityHashMap<>());
+    final var pending =
+      new ArrayDeque<Item>();
+    final var traces =
+      sink.wantsStackTraces();
+
+    pending.push(new Item(exception, Relation.ROOT, 0, NO_FRAMES));
+
+    var size = 0L;
+    while (!pending.isEmpty()) {
+      final var item = pending.pop();
+      final var current = item.exception;
+
+      if (!seen.add(current)) {
+        sink.onCircularReference(current, item.relation);
+        continue;
+      }
+
+      size += sizeOf(current.getClass().getName());
+      size += sizeOf(current.getMessage());
+      if (item.depth > this.maximumDepth || size > this.maximumSize) {
+        sink.onTruncated();
+        sink.onReportFinished();
+        return;
+      }
+
+      sink.onException(current, item.relation, item.depth);
+
+      var frames = NO_FRAMES;
+      if (traces) {
+        frames = current.getStackTrace();
+        size = this.renderFrames(sink, current, frames, item.enclosing, size);
+        if (size > this.maximumSize) {
+          sink.onTruncated();
+          sink.onReportFinished();
+          return;
+        }
+      }
+
+      final var depth = item.depth + 1;
+      final var cause = current.getCause();
+      if (cause != null) {
+        pending.push(new Item(cause, Relation.CAUSE, depth, frames));
+      }
+
+      final var suppressed = current.getSuppressed();
+      for (int index = suppressed.length - 1; index >= 0; --index) {
+        pending.push(
+          new Item(suppressed[index], Relation.SUPPRESSED, depth, frames));
+      }
+    }
+    sink.onReportFinished();
+  }
+
+  private long renderFrames(
+    final CLPExceptionReportSinkType sink,
+    final Throwable exception,
+    final StackTraceElement[] frames,
+    final StackTraceElement[] enclosing,
+    final long sizeBefore)
+  {
+    sink.onStackTraceStart(exception);
+
+    final var common = framesInCommon(frames, enclosing);
+    final var unique = frames.length - common;
+
+    var size = sizeBefore;
+    for (int index = 0; index < unique; ++index) {
+      final var frame = frames[index];
+      size += sizeOf(frame);
+      if (size > this.maximumSize) {
+        return size;
+      }
+      sink.onStackFrame(frame);
+    }
+
+    if (common > 0) {
+      sink.onStackFramesInCommon(common);
+    }
+    return size;
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPExceptionRenderer 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+
+  private record Item(
+    Throwable exception,
+    Relation relation,
+    int depth,
+    StackTraceElement[] enclosing)
+  {
+
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An exception report was rendered.
+ */
+
+@Name("com.io7m.claypot.ExceptionReport")
+@Label("Report Exception")
+@Description("An exception report was rendered.")
+public final class CLPExceptionReportEvent extends CLPAbstractEvent
+{
+  /**
+   * The full name of the command that raised the exception.
+   */
+
+  @Label("Command Name")
+  private String commandName;
+
+  /**
+   * The class of the exception.
+   */
+
+  @Label("Exception Class")
+  private String exceptionClass;
+
+  /**
+   * The exit code.
+   */
+
+  @Label("Exit Code")
+  private int exitCode;
+
+  /**
+   * Construct an event.
+   */
+
+  public CLPExceptionReportEvent()
+  {
+
+  }
+
+  /**
+   * Set the full name of the command that raised the exception.
+   *
+   * @param value The value
+   */
+
+  public void setCommandName(
+    final String value)
+  {
+    this.commandName = value;
+  }
+
+  /**
+   * Set the class of the exception.
+   *
+   * @param value The value
+   */
+
+  public void setExceptionClass(
+    final String value)
+  {
+    this.exceptionClass = value;
+  }
+
+  /**
+   * Set the exit code.
+   *
+   * @param value The value
+   */
+
+  public void setExitCode(
+    final int value)
+  {
+    this.exitCode = value;
+  }
+}
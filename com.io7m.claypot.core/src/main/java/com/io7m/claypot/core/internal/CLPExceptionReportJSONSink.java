@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import java.util.Objects;
+
+/**
+ * An exception report sink that writes to a JSON Lines output. Each
+ * exception in the report is written as a single object on its own line.
+ */
+
+public final class CLPExceptionReportJSONSink
+  implements CLPExceptionReportSinkType
+{
+  private final CLPJSONLinesOutput output;
+  private final boolean stackTraces;
+  private final CLPJSONEncoder encoder;
+  private final StringBuilder frameText;
+  private boolean open;
+  private boolean framesOpen;
+
+  /**
+   * An exception report sink that writes to a JSON Lines output.
+   *
+   * @param inOutput      The output
+   * @param inStackTraces {@code true} if stack traces should be included
+   */
+
+  public CLPExceptionReportJSONSink(
+    final CLPJSONLinesOutput inOutput,
+    final boolean inStackTraces)
+  {
+    this.output =
+      Objects.requireNonNull(inOutput, "output");
+    this.stackTraces =
+      inStackTraces;
+    this.encoder =
+      new CLPJSONEncoder();
+    this.frameText =
+      new StringBuilder(128);
+  }
+
+  private void finishException()
+  {
+    if (this.open) {
+      if (this.framesOpen) {
+        this.encoder.endArray();
+        this.framesOpen = false;
+      }
+      this.encoder.endObject();
+      this.output.writeLine(this.encoder);
+      this.open = false;
+    }
+  }
+
+  private void beginException(
+    final Throwable exception,
+    final Relation relation)
+  {
+    this.finishException();
+    this.encoder.reset()
+      .beginObject()
+      .name("type").string("exception")
+      .name("relation").string(relation.name())
+      .name("class").string(exception.getClass().getCanonicalName());
+    this.open = true;
+  }
+
+  @Override
+  public boolean wantsStackTraces()
+  {
+    return this.stackTraces;
+  }
+
+  @Override
+  public void onException(
+    final Throwable exception,
+    final Relation relation,
+    final int depth)
+  {
+    this.beginException(exception, relation);
+    this.encoder
+      .name("message").string(exception.getMessage())
+      .name("depth").number(depth);
+  }
+
+  @Override
+  public void onStackTraceStart(
+    final Throwable exception)
+  {
+    this.encoder.name("stack").beginArray();
+    this.framesOpen = true;
+  }
+
+  @Override
+  public void onStackFrame(
+    final StackTraceElement element)
+  {
+    this.frameText.setLength(0);
+    CLPExceptionRenderer.formatFrame(this.frameText, element);
+    this.encoder.string(this.frameText);
+  }
+
+  @Override
+  public void onStackFramesInCommon(
+    final int count)
+  {
+    this.encoder.endArray();
+    this.framesOpen = false;
+    this.encoder.name("framesInCommon").number(count);
+  }
+
+  @Override
+  public void onCircularReference(
+    final Throwable exception,
+    final Relation relation)
+  {
+    this.beginException(exception, relation);
+    this.encoder.name("circular").bool(true);
+    this.finishException();
+  }
+
+  @Override
+  public void onTruncated()
+  {
+    this.finishException();
+    this.encoder.reset()
+      .beginObject()
+      .name("type").string("exceptionTruncated")
+      .endObject();
+    this.output.writeLine(this.encoder);
+  }
+
+  @Override
+  public void onReportFinished()
+  {
+    this.finishException();
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPExceptionReportJSONSink 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.io7m.claypot.core.CLPStringsType;
+import org.slf4j.Logger;
+
+import java.util.Objects;
+
+import static com.io7m.claypot.core.internal.CLPLogRateLimitFilter.UNLIMITED;
+
+/**
+ * An exception report sink that writes to a logger. Exceptions are logged at
+ * error level, and stack traces are logged one frame per line at debug
+ * level, and only if debug logging is enabled. Stack traces are logged with
+ * the {@link CLPLogRateLimitFilter#UNLIMITED} marker so that rate limiting
+ * never truncates them.
+ */
+
+public final class CLPExceptionReportLoggerSink
+  implements CLPExceptionReportSinkType
+{
+  private final Logger logger;
+  private final CLPStringsType strings;
+  private final StringBuilder frameText;
+
+  /**
+   * An exception report sink that writes to a logger.
+   *
+   * @param inLogger  The logger
+   * @param inStrings The string resources
+   */
+
+  public CLPExceptionReportLoggerSink(
+    final Logger inLogger,
+    final CLPStringsType inStrings)
+  {
+    this.logger =
+      Objects.requireNonNull(inLogger, "logger");
+    this.strings =
+      Objects.requireNonNull(inStrings, "strings");
+    this.frameText =
+      new StringBuilder(128);
+  }
+
+  private String prefixOf(
+    final Relation relation)
+  {
+    return switch (relation) {
+      case ROOT -> "";
+      case CAUSE -> this.strings.format("com.io7m.claypot.causedBy");
+      case SUPPRESSED -> this.strings.format("com.io7m.claypot.suppressed");
+    };
+  }
+
+  @Override
+  public boolean wantsStackTraces()
+  {
+    return this.logger.isDebugEnabled();
+  }
+
+  @Override
+  public void onException(
+    final Throwable exception,
+    final Relation relation,
+    final int depth)
+  {
+    this.logger.error(
+      "{}{}: {}",
+      this.prefixOf(relation),
+      exception.getClass().getCanonicalName(),
+      exception.getMessage()
+    );
+  }
+
+  @Override
+  public void onStackTraceStart(
+    final Throwable exception)
+  {
+    this.logger.debug(
+      UNLIMITED,
+      "{}",
+      this.strings.format(
+        "com.io7m.claypot.stackTraceOf",
+        exception.getClass().getCanonicalName())
+    );
+  }
+
+  @Override
+  public void onStackFrame(
+    final StackTraceElement element)
+  {
+    final var text = this.frameText;
+    text.setLength(0);
+    CLPExceptionRenderer.formatFrame(text, element);
+    this.logger.debug(UNLIMITED, "  at {}", text.toString());
+  }
+
+  @Override
+  public void onStackFramesInCommon(
+    final int count)
+  {
+    this.logger.debug(
+      UNLIMITED, "  ... {} more", Integer.valueOf(count));
+  }
+
+  @Override
+  public void onCircularReference(
+    final Throwable exception,
+    final Relation relation)
+  {
+    this.logger.error(
+      "{}{}",
+      this.prefixOf(relation),
+      this.strings.format(
+        "com.io7m.claypot.circularReference",
+        exception.getClass().getCanonicalName())
+    );
+  }
+
+  @Override
+  public void onTruncated()
+  {
+    this.logger.error(
+      "{}", this.strings.format("com.io7m.claypot.reportTruncated"));
+  }
+
+  @Override
+  public void onReportFinished()
+  {
+
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPExceptionReportLoggerSink 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
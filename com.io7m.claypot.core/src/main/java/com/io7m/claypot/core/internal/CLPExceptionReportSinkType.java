@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+/**
+ * A sink that receives the parts of an exception report as they are
+ * rendered.
+ *
+ * @see CLPExceptionRenderer
+ */
+
+public interface CLPExceptionReportSinkType
+{
+  /**
+   * @return {@code true} if the sink wants stack frames
+   */
+
+  boolean wantsStackTraces();
+
+  /**
+   * An exception is starting.
+   *
+   * @param exception The exception
+   * @param relation  The relation of the exception to the enclosing exception
+   * @param depth     The depth of the exception in the report
+   */
+
+  void onException(
+    Throwable exception,
+    Relation relation,
+    int depth);
+
+  /**
+   * The stack trace of the most recent exception is starting.
+   *
+   * @param exception The exception
+   */
+
+  void onStackTraceStart(Throwable exception);
+
+  /**
+   * A stack frame of the most recent exception.
+   *
+   * @param element The stack frame
+   */
+
+  void onStackFrame(StackTraceElement element);
+
+  /**
+   * The remaining frames of the most recent exception are shared with the
+   * enclosing exception, and are omitted.
+   *
+   * @param count The number of omitted frames
+   */
+
+  void onStackFramesInCommon(int count);
+
+  /**
+   * An exception that has already been reported was encountered again.
+   *
+   * @param exception The exception
+   * @param relation  The relation of the exception to the enclosing exception
+   */
+
+  void onCircularReference(
+    Throwable exception,
+    Relation relation);
+
+  /**
+   * The report exceeded its size or depth limits, and the rest of the report
+   * is omitted.
+   */
+
+  void onTruncated();
+
+  /**
+   * The report is finished.
+   */
+
+  void onReportFinished();
+
+  /**
+   * The relation of an exception to the exception that encloses it.
+   */
+
+  enum Relation
+  {
+    /**
+     * The exception is the root of the report.
+     */
+
+    ROOT,
+
+    /**
+     * The exception is the cause of the enclosing exception.
+     */
+
+    CAUSE,
+
+    /**
+     * The exception was suppressed by the enclosing exception.
+     */
+
+    SUPPRESSED
+  }
+}
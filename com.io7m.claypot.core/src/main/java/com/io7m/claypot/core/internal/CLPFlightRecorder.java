@@ -0,0 +1,478 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import com.io7m.claypot.core.CLPFlightRecorderConfiguration;
+import com.io7m.claypot.core.CLPFlightRecorderEvent;
+import com.io7m.claypot.core.CLPLogLevel;
+import org.slf4j.Marker;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A flight recorder that writes every log event into a memory-mapped ring
+ * file. The file consists of a header followed by a fixed number of
+ * fixed-size slots. Each slot holds one event:
+ *
+ * <pre>
+ *   u64 sequence (0 if the slot is empty)
+ *   u64 time (milliseconds since the epoch)
+ *   u8  level
+ *   u8  flags
+ *   u16 payload size
+ *   u8  argument count
+ *   str logger name
+ *   str thread name
+ *   str message template
+ *   str argument (repeated)
+ * </pre>
+ *
+ * <p>Strings are stored as they would be by
+ * {@link java.io.DataOutput#writeUTF(String)}. Each event, including its
+ * arguments converted to strings, is written to the file as it is
+ * recorded, so the file describes each argument as it was when it was
+ * logged and survives a crash of the process. Messages are not formatted
+ * until the file is read. Arguments that do not fit into the slot are not
+ * converted at all.</p>
+ */
+
+public final class CLPFlightRecorder extends TurboFilter
+{
+  private static final int MAGIC = 0x434C5046;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 16;
+  private static final int SLOT_HEADER_SIZE = 21;
+  private static final int FLAG_TRUNCATED = 0x1;
+  private static final int MAXIMUM_ARGUMENTS = 0xff;
+
+  private final Path file;
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final int slotSize;
+  private final int slotCount;
+  private final AtomicLong sequence;
+  private final AtomicInteger writers;
+  private volatile boolean closed;
+
+  private CLPFlightRecorder(
+    final Path inFile,
+    final FileChannel inChannel,
+    final MappedByteBuffer inBuffer,
+    final int inSlotSize,
+    final int inSlotCount)
+  {
+    this.file =
+      Objects.requireNonNull(inFile, "file");
+    this.channel =
+      Objects.requireNonNull(inChannel, "channel");
+    this.buffer =
+      Objects.requireNonNull(inBuffer, "buffer");
+    this.slotSize = inSlotSize;
+    this.slotCount = inSlotCount;
+    this.sequence = new AtomicLong();
+    this.writers = new AtomicInteger();
+  }
+
+  /**
+   * Create a flight recorder. A new file with a unique name derived from the
+   * configured file name is created in the same directory, so that a file
+   * kept by one execution is never overwritten by another.
+   *
+   * @param configuration The configuration
+   *
+   * @return A flight recorder
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static CLPFlightRecorder open(
+    final CLPFlightRecorderConfiguration configuration)
+    throws IOException
+  {
+    Objects.requireNonNull(configuration, "configuration");
+
+    final var file =
+      uniqueFile(configuration.file().toAbsolutePath());
+    final var slotSize =
+      configuration.eventSize();
+    final var slotCount =
+      configuration.eventCount();
+    final var size =
+      HEADER_SIZE + ((long) slotSize * (long) slotCount);
+
+    final FileChannel channel;
+    try {
+      channel = FileChannel.open(file, READ, WRITE);
+    } catch (final IOException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    }
+
+    try {
+      final var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0L, size);
+      buffer.putInt(0, MAGIC);
+      buffer.putInt(4, VERSION);
+      buffer.putInt(8, slotSize);
+      buffer.putInt(12, slotCount);
+      return new CLPFlightRecorder(file, channel, buffer, slotSize, slotCount);
+    } catch (final IOException e) {
+      channel.close();
+      Files.deleteIfExists(file);
+      throw e;
+    }
+  }
+
+  private static Path uniqueFile(
+    final Path file)
+    throws IOException
+  {
+    final var directory = file.getParent();
+    final var fileName = file.getFileName();
+    if (directory == null || fileName == null) {
+      throw new IOException(
+        String.format("%s does not name a file", file));
+    }
+    Files.createDirectories(directory);
+
+    final var name = fileName.toString();
+    final var dot = name.lastIndexOf('.');
+    final var prefix = dot > 0 ? name.substring(0, dot) : name;
+    final var suffix = dot > 0 ? name.substring(dot) : "";
+    return Files.createTempFile(directory, prefix + "-", suffix);
+  }
+
+  /**
+   * Read all events from the given flight recorder file, oldest first.
+   *
+   * @param file The file
+   *
+   * @return The events
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static List<CLPFlightRecorderEvent> read(
+    final Path file)
+    throws IOException
+  {
+    Objects.requireNonNull(file, "file");
+
+    final var data = ByteBuffer.wrap(Files.readAllBytes(file));
+    if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+      throw new IOException(
+        String.format("%s is not a flight recorder file", file));
+    }
+    if (data.getInt(4) != VERSION) {
+      throw new IOException(
+        String.format(
+          "Unsupported flight recorder file version %d",
+          Integer.valueOf(data.getInt(4))));
+    }
+
+    final var slotSize = data.getInt(8);
+    final var slotCount = data.getInt(12);
+    if (HEADER_SIZE + ((long) slotSize * (long) slotCount) > data.capacity()) {
+      throw new IOException(
+        String.format("Flight recorder file %s is truncated", file));
+    }
+
+    final var events = new ArrayList<CLPFlightRecorderEvent>(slotCount);
+    for (int slot = 0; slot < slotCount; ++slot) {
+      final var base = HEADER_SIZE + (slot * slotSize);
+      final var sequence = data.getLong(base);
+      if (sequence != 0L) {
+        events.add(readEvent(data, base, sequence));
+      }
+    }
+
+    events.sort(Comparator.comparingLong(CLPFlightRecorderEvent::sequence));
+    return events;
+  }
+
+  private static CLPFlightRecorderEvent readEvent(
+    final ByteBuffer data,
+    final int base,
+    final long sequence)
+    throws IOException
+  {
+    final var time = data.getLong(base + 8);
+    final var level = data.get(base + 16) & 0xff;
+    final var flags = data.get(base + 17) & 0xff;
+    final var size = data.getShort(base + 18) & 0xffff;
+    final var argumentCount = data.get(base + 20) & 0xff;
+    final var levels = CLPLogLevel.values();
+    if (level >= levels.length) {
+      throw new IOException(
+        String.format("Unrecognized level %d", Integer.valueOf(level)));
+    }
+
+    var truncated = (flags & FLAG_TRUNCATED) != 0;
+    final var strings = new ArrayList<String>(3 + argumentCount);
+    try (var stream = new DataInputStream(
+      new ByteArrayInputStream(
+        data.array(), base + SLOT_HEADER_SIZE, size))) {
+      while (stream.available() > 0) {
+        strings.add(stream.readUTF());
+      }
+    }
+
+    while (strings.size() < 3) {
+      strings.add("");
+      truncated = true;
+    }
+
+    final var arguments =
+      strings.subList(3, strings.size()).toArray();
+    final var message =
+      MessageFormatter.arrayFormat(strings.get(2), arguments).getMessage();
+
+    return new CLPFlightRecorderEvent(
+      sequence,
+      Instant.ofEpochMilli(time),
+      levels[level],
+      strings.get(0),
+      strings.get(1),
+      message,
+      truncated
+    );
+  }
+
+  private static CLPLogLevel levelOf(
+    final Level level)
+  {
+    return switch (level.toInt()) {
+      case Level.TRACE_INT -> CLPLogLevel.LOG_TRACE;
+      case Level.DEBUG_INT -> CLPLogLevel.LOG_DEBUG;
+      case Level.INFO_INT -> CLPLogLevel.LOG_INFO;
+      case Level.WARN_INT -> CLPLogLevel.LOG_WARN;
+      default -> CLPLogLevel.LOG_ERROR;
+    };
+  }
+
+  /**
+   * @return The ring file
+   */
+
+  public Path file()
+  {
+    return this.file;
+  }
+
+  @Override
+  public FilterReply decide(
+    final Marker marker,
+    final Logger logger,
+    final Level level,
+    final String format,
+    final Object[] params,
+    final Throwable t)
+  {
+    if (format != null && level != null) {
+      this.record(logger, level, format, params, t);
+    }
+    return FilterReply.NEUTRAL;
+  }
+
+  private void record(
+    final Logger logger,
+    final Level level,
+    final String format,
+    final Object[] params,
+    final Throwable t)
+  {
+    /*
+     * The writer count allows close() to wait for any events that are being
+     * written before the file is flushed and closed.
+     */
+
+    this.writers.incrementAndGet();
+    try {
+      if (!this.closed) {
+        this.recordOpen(logger, level, format, params, t);
+      }
+    } finally {
+      this.writers.decrementAndGet();
+    }
+  }
+
+  private void recordOpen(
+    final Logger logger,
+    final Level level,
+    final String format,
+    final Object[] params,
+    final Throwable t)
+  {
+    final var index = this.sequence.incrementAndGet();
+    final var slot = (int) ((index - 1L) % this.slotCount);
+    final var base = HEADER_SIZE + slot * this.slotSize;
+    final var limit = base + this.slotSize;
+
+    final var output = this.buffer;
+    output.putLong(base, 0L);
+    output.putLong(base + 8, System.currentTimeMillis());
+    output.put(base + 16, (byte) levelOf(level).ordinal());
+
+    var position = base + SLOT_HEADER_SIZE;
+    position = writeString(output, position, limit, logger.getName());
+    position = writeString(
+      output, position, limit, Thread.currentThread().getName());
+    position = writeString(output, position, limit, format);
+
+    final var paramCount = params == null ? 0 : params.length;
+    final var argumentCount =
+      Math.min(MAXIMUM_ARGUMENTS, paramCount + (t == null ? 0 : 1));
+
+    var written = 0;
+    while (written < argumentCount && position >= 0) {
+      final var argument = written < paramCount ? params[written] : t;
+      position = writeString(output, position, limit, String.valueOf(argument));
+      if (position >= 0) {
+        ++written;
+      }
+    }
+
+    finishSlot(output, base, position, written);
+    output.putLong(base, index);
+  }
+
+  private static void finishSlot(
+    final ByteBuffer output,
+    final int base,
+    final int position,
+    final int argumentCount)
+  {
+    final var truncated = position < 0;
+    final var end = truncated ? -position : position;
+    output.put(base + 17, (byte) (truncated ? FLAG_TRUNCATED : 0));
+    output.putShort(base + 18, (short) (end - (base + SLOT_HEADER_SIZE)));
+    output.put(base + 20, (byte) argumentCount);
+  }
+
+  /**
+   * Write a string in modified UTF-8 form. Returns the position after the
+   * string, or the negated position of the end of the previous string if the
+   * string did not fit.
+   */
+
+  private static int writeString(
+    final ByteBuffer output,
+    final int start,
+    final int limit,
+    final CharSequence text)
+  {
+    if (start < 0) {
+      return start;
+    }
+    if (start + 2 > limit) {
+      return -start;
+    }
+
+    var position = start + 2;
+    final var length = text.length();
+    for (int index = 0; index < length; ++index) {
+      final var c = text.charAt(index);
+      if (c >= 0x1 && c <= 0x7f) {
+        if (position + 1 > limit) {
+          return -start;
+        }
+        output.put(position, (byte) c);
+        position += 1;
+      } else if (c <= 0x7ff) {
+        if (position + 2 > limit) {
+          return -start;
+        }
+        output.put(position, (byte) (0xc0 | (c >> 6)));
+        output.put(position + 1, (byte) (0x80 | (c & 0x3f)));
+        position += 2;
+      } else {
+        if (position + 3 > limit) {
+          return -start;
+        }
+        output.put(position, (byte) (0xe0 | (c >> 12)));
+        output.put(position + 1, (byte) (0x80 | ((c >> 6) & 0x3f)));
+        output.put(position + 2, (byte) (0x80 | (c & 0x3f)));
+        position += 3;
+      }
+    }
+
+    output.putShort(start, (short) (position - (start + 2)));
+    return position;
+  }
+
+  /**
+   * Close the recorder. Events recorded after the recorder is closed are
+   * ignored.
+   *
+   * @param keep {@code true} if the file should be kept, {@code false} if it
+   *             should be deleted
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void close(
+    final boolean keep)
+    throws IOException
+  {
+    this.closed = true;
+    while (this.writers.get() != 0) {
+      Thread.onSpinWait();
+    }
+
+    try {
+      if (keep) {
+        this.buffer.force();
+      }
+    } finally {
+      this.channel.close();
+    }
+
+    if (!keep) {
+      Files.deleteIfExists(this.file);
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPFlightRecorder 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
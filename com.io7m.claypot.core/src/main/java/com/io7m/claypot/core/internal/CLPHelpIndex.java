@@ -0,0 +1,420 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.beust.jcommander.DefaultUsageFormatter;
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import com.io7m.claypot.core.CLPAbstractCommand;
+import com.io7m.claypot.core.CLPCommandType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An inverted index over command names, command descriptions, parameter
+ * names and descriptions, and extended help. Each token maps to a postings
+ * list of (command, weight) pairs. Queries are answered by looking up each
+ * query term (and every token for which the term is a prefix) and summing
+ * weights; nothing is rendered.
+ */
+
+public final class CLPHelpIndex
+{
+  private static final int WEIGHT_NAME = 8;
+  private static final int WEIGHT_DESCRIPTION = 4;
+  private static final int WEIGHT_PARAMETER = 2;
+  private static final int WEIGHT_EXTENDED = 1;
+  private static final int MINIMUM_TOKEN = 2;
+  private static final Set<String> COMMON_OPTIONS = commonOptions();
+
+  private final List<Command> commands;
+  private final TreeMap<String, int[]> postings;
+
+  private CLPHelpIndex(
+    final List<Command> inCommands,
+    final TreeMap<String, int[]> inPostings)
+  {
+    this.commands = List.copyOf(inCommands);
+    this.postings = inPostings;
+  }
+
+  /**
+   * A command in the index.
+   *
+   * @param name        The command name
+   * @param description The command description
+   */
+
+  public record Command(
+    String name,
+    String description)
+  {
+    /**
+     * A command in the index.
+     */
+
+    public Command
+    {
+      Objects.requireNonNull(name, "name");
+      Objects.requireNonNull(description, "description");
+    }
+  }
+
+  /**
+   * A search result.
+   *
+   * @param command      The command
+   * @param termsMatched The number of query terms that matched
+   * @param score        The score
+   */
+
+  public record Result(
+    Command command,
+    int termsMatched,
+    int score)
+  {
+    /**
+     * A search result.
+     */
+
+    public Result
+    {
+      Objects.requireNonNull(command, "command");
+    }
+  }
+
+  /**
+   * Split the given text into lowercase tokens.
+   *
+   * @param text The text
+   *
+   * @return The distinct tokens in order of first appearance
+   */
+
+  public static List<String> tokenize(
+    final String text)
+  {
+    final var tokens = new LinkedHashSet<String>();
+    final var length = text.length();
+    var start = -1;
+    for (int index = 0; index <= length; ++index) {
+      final var wordChar =
+        index < length && Character.isLetterOrDigit(text.charAt(index));
+
+      if (wordChar && start < 0) {
+        start = index;
+      } else if (!wordChar && start >= 0) {
+        if (index - start >= MINIMUM_TOKEN) {
+          tokens.add(text.substring(start, index).toLowerCase(Locale.ROOT));
+        }
+        start = -1;
+      }
+    }
+    return List.copyOf(tokens);
+  }
+
+  private static void index(
+    final Map<String, Map<Integer, Integer>> building,
+    final int command,
+    final String text,
+    final int weight)
+  {
+    if (text == null) {
+      return;
+    }
+    for (final var token : tokenize(text)) {
+      building.computeIfAbsent(token, k -> new HashMap<>())
+        .merge(Integer.valueOf(command), Integer.valueOf(weight), Integer::sum);
+    }
+  }
+
+  /*
+   * The options declared by CLPAbstractCommand are shared by every command,
+   * and so would match every command equally.
+   */
+
+  private static Set<String> commonOptions()
+  {
+    final var names = new HashSet<String>();
+    for (final var field : CLPAbstractCommand.class.getDeclaredFields()) {
+      final var parameter = field.getAnnotation(Parameter.class);
+      if (parameter != null) {
+        names.addAll(Arrays.asList(parameter.names()));
+      }
+    }
+    return Set.copyOf(names);
+  }
+
+  private static boolean isCommon(
+    final String[] names)
+  {
+    return names.length > 0
+      && COMMON_OPTIONS.containsAll(Arrays.asList(names));
+  }
+
+  private static boolean isHidden(
+    final JCommander command)
+  {
+    final Object arg = command.getObjects().get(0);
+    final Parameters p = arg.getClass().getAnnotation(Parameters.class);
+    return p != null && p.hidden();
+  }
+
+  /**
+   * Build an index over the commands registered with the given
+   * <tt>jcommander</tt> instance. Hidden commands, hidden parameters, and
+   * the options common to every command are not indexed.
+   *
+   * @param commander The <tt>jcommander</tt> instance
+   *
+   * @return An index
+   */
+
+  public static CLPHelpIndex build(
+    final JCommander commander)
+  {
+    Objects.requireNonNull(commander, "commander");
+
+    final var formatter = new DefaultUsageFormatter(commander);
+    final var commands = new ArrayList<Command>();
+    final var building = new HashMap<String, Map<Integer, Integer>>();
+
+    for (final var entry : new TreeMap<>(commander.getCommands()).entrySet()) {
+      final var subCommander = entry.getValue();
+      if (isHidden(subCommander)) {
+        continue;
+      }
+
+      final var name = entry.getKey();
+      final var description =
+        CLPCommandGroup.groupDescription(commander, name)
+          .orElseGet(() -> Objects.requireNonNullElse(
+            formatter.getCommandDescription(name), ""));
+      final var index = commands.size();
+      commands.add(new Command(name, description));
+
+      index(building, index, name, WEIGHT_NAME);
+      index(building, index, description, WEIGHT_DESCRIPTION);
+      indexParameters(building, index, subCommander);
+
+      final var commandObject =
+        (CLPCommandType) subCommander.getObjects().get(0);
+      index(building, index, commandObject.extendedHelp(), WEIGHT_EXTENDED);
+    }
+
+    final var postings = new TreeMap<String, int[]>();
+    for (final var entry : building.entrySet()) {
+      postings.put(entry.getKey(), pack(entry.getValue()));
+    }
+    return new CLPHelpIndex(commands, postings);
+  }
+
+  private static void indexParameters(
+    final Map<String, Map<Integer, Integer>> building,
+    final int index,
+    final JCommander subCommander)
+  {
+    if (subCommander.getDescriptions() == null) {
+      subCommander.createDescriptions();
+    }
+
+    for (final var parameter : subCommander.getParameters()) {
+      final var wrapped = parameter.getParameter();
+      if (wrapped.hidden() || isCommon(wrapped.names())) {
+        continue;
+      }
+      index(building, index, parameter.getNames(), WEIGHT_PARAMETER);
+      index(building, index, parameter.getDescription(), WEIGHT_PARAMETER);
+    }
+  }
+
+  /*
+   * Postings are packed as (command, weight) pairs ordered by command.
+   */
+
+  private static int[] pack(
+    final Map<Integer, Integer> weights)
+  {
+    final var keys =
+      weights.keySet()
+        .stream()
+        .mapToInt(Integer::intValue)
+        .sorted()
+        .toArray();
+
+    final var packed = new int[keys.length * 2];
+    for (int index = 0; index < keys.length; ++index) {
+      packed[index * 2] = keys[index];
+      packed[index * 2 + 1] = weights.get(Integer.valueOf(keys[index])).intValue();
+    }
+    return packed;
+  }
+
+  /**
+   * Read an index.
+   *
+   * @param input The input
+   *
+   * @return An index
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static CLPHelpIndex read(
+    final DataInput input)
+    throws IOException
+  {
+    final var commandCount = input.readInt();
+    final var commands = new ArrayList<Command>(commandCount);
+    for (int index = 0; index < commandCount; ++index) {
+      commands.add(new Command(input.readUTF(), input.readUTF()));
+    }
+
+    final var tokenCount = input.readInt();
+    final var postings = new TreeMap<String, int[]>();
+    for (int index = 0; index < tokenCount; ++index) {
+      final var token = input.readUTF();
+      final var packed = new int[input.readInt()];
+      for (int p = 0; p < packed.length; ++p) {
+        packed[p] = input.readInt();
+      }
+      postings.put(token, packed);
+    }
+    return new CLPHelpIndex(commands, postings);
+  }
+
+  /**
+   * Write this index.
+   *
+   * @param output The output
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void write(
+    final DataOutput output)
+    throws IOException
+  {
+    output.writeInt(this.commands.size());
+    for (final var command : this.commands) {
+      output.writeUTF(command.name());
+      output.writeUTF(command.description());
+    }
+
+    output.writeInt(this.postings.size());
+    for (final var entry : this.postings.entrySet()) {
+      output.writeUTF(entry.getKey());
+      final var packed = entry.getValue();
+      output.writeInt(packed.length);
+      for (final var value : packed) {
+        output.writeInt(value);
+      }
+    }
+  }
+
+  /**
+   * @return The indexed commands
+   */
+
+  public List<Command> commands()
+  {
+    return this.commands;
+  }
+
+  /**
+   * Search for commands matching the given query. A query term matches a
+   * token exactly, or as a prefix of the token at half weight. Results are
+   * ordered by the number of query terms matched, then by score, then by
+   * name.
+   *
+   * @param query The query
+   *
+   * @return The matching commands
+   */
+
+  public List<Result> search(
+    final String query)
+  {
+    Objects.requireNonNull(query, "query");
+
+    final var count = this.commands.size();
+    final var scores = new int[count];
+    final var matched = new int[count];
+    final var lastTerm = new int[count];
+    Arrays.fill(lastTerm, -1);
+
+    final var terms = tokenize(query);
+    for (int term = 0; term < terms.size(); ++term) {
+      final var text = terms.get(term);
+      final var range =
+        this.postings.subMap(text, true, text + Character.MAX_VALUE, true);
+
+      for (final var entry : range.entrySet()) {
+        final var multiplier = entry.getKey().equals(text) ? 2 : 1;
+        final var packed = entry.getValue();
+        for (int p = 0; p < packed.length; p += 2) {
+          final var command = packed[p];
+          scores[command] += packed[p + 1] * multiplier;
+          if (lastTerm[command] != term) {
+            lastTerm[command] = term;
+            matched[command] += 1;
+          }
+        }
+      }
+    }
+
+    final var results = new ArrayList<Result>();
+    for (int index = 0; index < count; ++index) {
+      if (matched[index] > 0) {
+        results.add(
+          new Result(this.commands.get(index), matched[index], scores[index]));
+      }
+    }
+
+    results.sort(
+      Comparator.comparingInt(Result::termsMatched)
+        .thenComparingInt(Result::score)
+        .reversed()
+        .thenComparing(r -> r.command().name())
+    );
+    return results;
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPHelpIndex 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
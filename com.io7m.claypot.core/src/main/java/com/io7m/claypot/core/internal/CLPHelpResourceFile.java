@@ -0,0 +1,258 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A file of pre-rendered usage text, produced at build time.
+ *
+ * @param fingerprint         The fingerprint of the command set that was rendered
+ * @param commandFingerprints The fingerprint of each command that was rendered
+ * @param briefUsage          The brief usage text
+ * @param longUsage           The long usage text
+ * @param commandUsages       The usage text for each command
+ * @param searchIndex         The search index
+ * @param completionIndex     The completion index
+ */
+
+public record CLPHelpResourceFile(
+  String fingerprint,
+  Map<String, String> commandFingerprints,
+  List<String> briefUsage,
+  List<String> longUsage,
+  Map<String, List<String>> commandUsages,
+  CLPHelpIndex searchIndex,
+  CLPCompletionIndex completionIndex)
+{
+  private static final int MAGIC = 0x434C5048;
+  private static final int VERSION = 4;
+
+  /*
+   * Chunks are normally close to CLPUsageChunks.CHUNK_SIZE; the limit only
+   * exists to reject corrupt resources before allocating for them.
+   */
+
+  private static final int MAXIMUM_CHUNK_SIZE = 16 * 1024 * 1024;
+
+  /**
+   * A file of pre-rendered usage text.
+   *
+   * @param fingerprint         The fingerprint of the command set that was rendered
+   * @param commandFingerprints The fingerprint of each command that was rendered
+   * @param briefUsage          The brief usage text
+   * @param longUsage           The long usage text
+   * @param commandUsages       The usage text for each command
+   * @param searchIndex         The search index
+   * @param completionIndex     The completion index
+   */
+
+  public CLPHelpResourceFile
+  {
+    Objects.requireNonNull(fingerprint, "fingerprint");
+    Objects.requireNonNull(searchIndex, "searchIndex");
+    Objects.requireNonNull(completionIndex, "completionIndex");
+    commandFingerprints = Map.copyOf(commandFingerprints);
+    briefUsage = List.copyOf(briefUsage);
+    longUsage = List.copyOf(longUsage);
+    commandUsages = Map.copyOf(commandUsages);
+  }
+
+  /**
+   * The name of the resource that holds the pre-rendered usage text for the
+   * given program.
+   *
+   * @param programName The program name
+   *
+   * @return The resource name
+   */
+
+  public static String resourceName(
+    final String programName)
+  {
+    return "META-INF/claypot/" + programName + "/help.bin";
+  }
+
+  /**
+   * Find the pre-rendered usage text for the given program on the class
+   * path. Missing, unreadable, or incompatible resources are ignored.
+   *
+   * @param programName The program name
+   *
+   * @return The pre-rendered usage text, if any
+   */
+
+  public static Optional<CLPHelpResourceFile> find(
+    final String programName)
+  {
+    var loader = Thread.currentThread().getContextClassLoader();
+    if (loader == null) {
+      loader = CLPHelpResourceFile.class.getClassLoader();
+    }
+
+    final var stream = loader.getResourceAsStream(resourceName(programName));
+    if (stream == null) {
+      return Optional.empty();
+    }
+
+    try (stream) {
+      return read(stream);
+    } catch (final IOException e) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Read pre-rendered usage text from the given stream.
+   *
+   * @param stream The stream
+   *
+   * @return The pre-rendered usage text, or nothing if the stream is not in
+   * a supported format
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static Optional<CLPHelpResourceFile> read(
+    final InputStream stream)
+    throws IOException
+  {
+    final var input =
+      new DataInputStream(new BufferedInputStream(stream));
+
+    if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+      return Optional.empty();
+    }
+
+    final var fingerprint = input.readUTF();
+    final var fingerprintCount = input.readInt();
+    final var fingerprints = new TreeMap<String, String>();
+    for (int index = 0; index < fingerprintCount; ++index) {
+      final var name = input.readUTF();
+      fingerprints.put(name, input.readUTF());
+    }
+
+    final var brief = readChunks(input);
+    final var full = readChunks(input);
+    final var count = input.readInt();
+    final var commands = new TreeMap<String, List<String>>();
+    for (int index = 0; index < count; ++index) {
+      final var name = input.readUTF();
+      commands.put(name, readChunks(input));
+    }
+
+    final var index = CLPHelpIndex.read(input);
+    final var completion = CLPCompletionIndex.read(input);
+    return Optional.of(
+      new CLPHelpResourceFile(
+        fingerprint, fingerprints, brief, full, commands, index, completion)
+    );
+  }
+
+  private static List<String> readChunks(
+    final DataInput input)
+    throws IOException
+  {
+    final var count = input.readInt();
+    if (count < 0) {
+      throw new IOException("Chunk count out of range: " + count);
+    }
+
+    final var chunks = new ArrayList<String>(Math.min(count, 16));
+    for (int index = 0; index < count; ++index) {
+      final var size = input.readInt();
+      if (size < 0 || size > MAXIMUM_CHUNK_SIZE) {
+        throw new IOException("Chunk size out of range: " + size);
+      }
+      final var bytes = new byte[size];
+      input.readFully(bytes);
+      chunks.add(UTF_8.decode(ByteBuffer.wrap(bytes)).toString());
+    }
+    return chunks;
+  }
+
+  private static void writeChunks(
+    final DataOutput output,
+    final List<String> chunks)
+    throws IOException
+  {
+    output.writeInt(chunks.size());
+    for (final var chunk : chunks) {
+      final var bytes = chunk.getBytes(UTF_8);
+      output.writeInt(bytes.length);
+      output.write(bytes);
+    }
+  }
+
+  /**
+   * Write this file to the given stream.
+   *
+   * @param stream The stream
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void write(
+    final OutputStream stream)
+    throws IOException
+  {
+    final var output =
+      new DataOutputStream(new BufferedOutputStream(stream));
+
+    output.writeInt(MAGIC);
+    output.writeInt(VERSION);
+    output.writeUTF(this.fingerprint);
+
+    final var fingerprints = new TreeMap<>(this.commandFingerprints);
+    output.writeInt(fingerprints.size());
+    for (final var entry : fingerprints.entrySet()) {
+      output.writeUTF(entry.getKey());
+      output.writeUTF(entry.getValue());
+    }
+
+    writeChunks(output, this.briefUsage);
+    writeChunks(output, this.longUsage);
+
+    final var commands = new TreeMap<>(this.commandUsages);
+    output.writeInt(commands.size());
+    for (final var entry : commands.entrySet()) {
+      output.writeUTF(entry.getKey());
+      writeChunks(output, entry.getValue());
+    }
+
+    this.searchIndex.write(output);
+    this.completionIndex.write(output);
+    output.flush();
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.io7m.claypot.core.CLPLatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values. Each power of two is
+ * divided into {@link #SUB_BUCKETS} linear sub-buckets, in the style of
+ * HdrHistogram, so the histogram has a fixed size and a bounded relative
+ * error over the whole range of {@code long}.
+ */
+
+public final class CLPHistogram
+{
+  private static final int SUB_BUCKET_BITS = 4;
+
+  /**
+   * The number of sub-buckets in each power of two.
+   */
+
+  public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * The total number of buckets.
+   */
+
+  public static final int BUCKETS =
+    (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts;
+  private final LongAdder count;
+  private final LongAccumulator minimum;
+  private final LongAccumulator maximum;
+
+  /**
+   * Construct an empty histogram.
+   */
+
+  public CLPHistogram()
+  {
+    this.counts = new AtomicLongArray(BUCKETS);
+    this.count = new LongAdder();
+    this.minimum = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    this.maximum = new LongAccumulator(Math::max, 0L);
+  }
+
+  /**
+   * @param value A non-negative value
+   *
+   * @return The index of the bucket that holds the value
+   */
+
+  private static int indexOf(
+    final long value)
+  {
+    if (value < SUB_BUCKETS) {
+      return (int) Math.max(0L, value);
+    }
+
+    final var exponent = 63 - Long.numberOfLeadingZeros(value);
+    final var group = exponent - SUB_BUCKET_BITS + 1;
+    final var sub =
+      (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return group * SUB_BUCKETS + sub;
+  }
+
+  /**
+   * @param index A bucket index
+   *
+   * @return The inclusive lower bound of the bucket
+   */
+
+  private static long lowerBoundOf(
+    final int index)
+  {
+    final var group = index / SUB_BUCKETS;
+    final var sub = index % SUB_BUCKETS;
+    if (group == 0) {
+      return sub;
+    }
+    return (long) (SUB_BUCKETS + sub) << (group - 1);
+  }
+
+  /**
+   * @param index A bucket index
+   *
+   * @return The exclusive upper bound of the bucket
+   */
+
+  private static long upperBoundOf(
+    final int index)
+  {
+    final var group = index / SUB_BUCKETS;
+    if (group == 0) {
+      return lowerBoundOf(index) + 1L;
+    }
+    final var upper = lowerBoundOf(index) + (1L << (group - 1));
+    return upper < 0L ? Long.MAX_VALUE : upper;
+  }
+
+  /**
+   * Record a value. Negative values are recorded as zero.
+   *
+   * @param value The value
+   */
+
+  public void record(
+    final long value)
+  {
+    final var clamped = Math.max(0L, value);
+    this.counts.incrementAndGet(indexOf(clamped));
+    this.count.increment();
+    this.minimum.accumulate(clamped);
+    this.maximum.accumulate(clamped);
+  }
+
+  /**
+   * Take a snapshot of the histogram. Values recorded concurrently with the
+   * snapshot may or may not be included.
+   *
+   * @return A snapshot
+   */
+
+  public CLPLatencyHistogram snapshot()
+  {
+    final var buckets = new ArrayList<CLPLatencyHistogram.Bucket>();
+    var total = 0L;
+    for (int index = 0; index < BUCKETS; ++index) {
+      final var bucketCount = this.counts.get(index);
+      if (bucketCount != 0L) {
+        total += bucketCount;
+        buckets.add(new CLPLatencyHistogram.Bucket(
+          lowerBoundOf(index),
+          upperBoundOf(index),
+          bucketCount
+        ));
+      }
+    }
+
+    if (total == 0L) {
+      return new CLPLatencyHistogram(0L, 0L, 0L, buckets);
+    }
+    return new CLPLatencyHistogram(
+      total,
+      this.minimum.get(),
+      this.maximum.get(),
+      buckets
+    );
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPHistogram 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Objects;
+
+/**
+ * Snapshots of the state of a running command. Taking a snapshot reads only
+ * atomic counters, thread states, and heap usage; it never takes a lock that
+ * the command's own threads could be waiting on, and never stops the world
+ * to walk thread stacks.
+ */
+
+public final class CLPIntrospection
+{
+  private final String commandName;
+  private final long timeStart;
+  private final CLPProgressTicker progress;
+
+  /**
+   * Construct an introspection source.
+   *
+   * @param inCommandName The running command
+   * @param inTimeStart   The time the command started, in nanoseconds
+   * @param inProgress    The progress ticker
+   */
+
+  public CLPIntrospection(
+    final String inCommandName,
+    final long inTimeStart,
+    final CLPProgressTicker inProgress)
+  {
+    this.commandName =
+      Objects.requireNonNull(inCommandName, "commandName");
+    this.timeStart =
+      inTimeStart;
+    this.progress =
+      Objects.requireNonNull(inProgress, "progress");
+  }
+
+  /**
+   * @return A snapshot of the current state as a single line of JSON
+   */
+
+  public String snapshot()
+  {
+    final var encoder = new CLPJSONEncoder();
+    encoder.beginObject();
+    encoder.name("command").string(this.commandName);
+    encoder.name("elapsedNanos").number(System.nanoTime() - this.timeStart);
+    this.writeProgress(encoder);
+    writeThreads(encoder);
+    writeHeap(encoder);
+    encoder.endObject();
+    return encoder.text() + "\n";
+  }
+
+  private void writeProgress(
+    final CLPJSONEncoder encoder)
+  {
+    encoder.name("progress");
+    encoder.beginArray();
+    for (final var reporter : this.progress.reporters()) {
+      encoder.beginObject();
+      encoder.name("label").string(reporter.label());
+      encoder.name("count").number(reporter.count());
+      encoder.name("total").number(reporter.total());
+      encoder.endObject();
+    }
+    encoder.endArray();
+  }
+
+  private static void writeThreads(
+    final CLPJSONEncoder encoder)
+  {
+    var group = Thread.currentThread().getThreadGroup();
+    for (var parent = group.getParent();
+         parent != null;
+         parent = parent.getParent()) {
+      group = parent;
+    }
+
+    var threads = new Thread[group.activeCount() + 8];
+    var count = group.enumerate(threads, true);
+    while (count == threads.length) {
+      threads = new Thread[threads.length * 2];
+      count = group.enumerate(threads, true);
+    }
+
+    final var states = new EnumMap<Thread.State, Integer>(Thread.State.class);
+    encoder.name("threads");
+    encoder.beginArray();
+    for (int index = 0; index < count; ++index) {
+      final var thread = threads[index];
+      final var state = thread.getState();
+      states.merge(state, Integer.valueOf(1), Integer::sum);
+      encoder.beginObject();
+      encoder.name("name").string(thread.getName());
+      encoder.name("state").string(state.name());
+      encoder.name("daemon").bool(thread.isDaemon());
+      encoder.endObject();
+    }
+    encoder.endArray();
+
+    encoder.name("threadStates");
+    encoder.beginObject();
+    for (final var entry : states.entrySet()) {
+      encoder.name(entry.getKey().name()).number(entry.getValue().longValue());
+    }
+    encoder.endObject();
+  }
+
+  private static void writeHeap(
+    final CLPJSONEncoder encoder)
+  {
+    final var heap =
+      ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+
+    encoder.name("heap");
+    encoder.beginObject();
+    encoder.name("used").number(heap.getUsed());
+    encoder.name("committed").number(heap.getCommitted());
+    encoder.name("max").number(heap.getMax());
+    encoder.endObject();
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPIntrospection 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A local introspection endpoint. The server listens on a UNIX domain
+ * socket and, for each connection, writes a single snapshot and closes the
+ * connection. Connections are served on a dedicated daemon thread, so a slow
+ * or stuck client can only delay other clients, never the command itself.
+ */
+
+public final class CLPIntrospectionServer implements Closeable
+{
+  private final Path path;
+  private final ServerSocketChannel channel;
+  private final Supplier<String> snapshots;
+  private final Thread thread;
+
+  private CLPIntrospectionServer(
+    final Path inPath,
+    final ServerSocketChannel inChannel,
+    final Supplier<String> inSnapshots)
+  {
+    this.path =
+      Objects.requireNonNull(inPath, "path");
+    this.channel =
+      Objects.requireNonNull(inChannel, "channel");
+    this.snapshots =
+      Objects.requireNonNull(inSnapshots, "snapshots");
+    this.thread =
+      new Thread(this::run, "com.io7m.claypot.introspection");
+    this.thread.setDaemon(true);
+  }
+
+  /**
+   * Start a server on the given socket path. A stale socket left at the
+   * path by a previous process is replaced; a socket on which another
+   * process is still listening, or any other kind of file, is left
+   * untouched and causes the server to fail to start. On filesystems that
+   * support POSIX permissions, the socket is bound inside a private
+   * directory and given owner-only permissions before it is linked to the
+   * given path, so that it is never accessible to other users. The link is
+   * never made over an existing file: if a file appears at the path after
+   * a stale socket was removed, the server fails to start.
+   *
+   * @param path      The socket path
+   * @param snapshots A supplier of snapshots
+   *
+   * @return A running server
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static CLPIntrospectionServer start(
+    final Path path,
+    final Supplier<String> snapshots)
+    throws IOException
+  {
+    Objects.requireNonNull(path, "path");
+    Objects.requireNonNull(snapshots, "snapshots");
+
+    removeStaleSocket(path);
+
+    final var parent = path.toAbsolutePath().getParent();
+    final var channel =
+      ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+    try {
+      if (parent != null && supportsPosix(parent)) {
+        bindPrivately(channel, path, parent);
+      } else {
+        channel.bind(UnixDomainSocketAddress.of(path));
+      }
+    } catch (final IOException e) {
+      channel.close();
+      throw e;
+    }
+
+    final var server = new CLPIntrospectionServer(path, channel, snapshots);
+    server.thread.start();
+    return server;
+  }
+
+  private static void removeStaleSocket(
+    final Path path)
+    throws IOException
+  {
+    if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+      return;
+    }
+
+    final var attributes =
+      Files.readAttributes(
+        path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+    if (!attributes.isOther()) {
+      throw new FileAlreadyExistsException(path.toString());
+    }
+
+    if (isListening(path)) {
+      throw new FileAlreadyExistsException(
+        path.toString(), null, "The socket is in use by another process");
+    }
+    Files.delete(path);
+  }
+
+  /*
+   * A socket that accepts a connection belongs to a running process.
+   * Only a socket that refuses connections is stale.
+   */
+
+  private static boolean isListening(
+    final Path path)
+    throws IOException
+  {
+    try (var client = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+      return client.connect(UnixDomainSocketAddress.of(path));
+    } catch (final ConnectException e) {
+      return false;
+    }
+  }
+
+  private static boolean supportsPosix(
+    final Path directory)
+  {
+    return Files.getFileAttributeView(directory, PosixFileAttributeView.class)
+      != null;
+  }
+
+  /*
+   * Hard links, unlike renames, never replace an existing file, so a file
+   * created at the path by another process is never clobbered.
+   */
+
+  private static void bindPrivately(
+    final ServerSocketChannel channel,
+    final Path path,
+    final Path parent)
+    throws IOException
+  {
+    final var directory =
+      Files.createTempDirectory(
+        parent,
+        ".claypot-",
+        PosixFilePermissions.asFileAttribute(
+          EnumSet.of(
+            PosixFilePermission.OWNER_READ,
+            PosixFilePermission.OWNER_WRITE,
+            PosixFilePermission.OWNER_EXECUTE))
+      );
+
+    final var bound = directory.resolve("socket");
+    IOException failure = null;
+    var linked = false;
+    try {
+      channel.bind(UnixDomainSocketAddress.of(bound));
+      Files.setPosixFilePermissions(
+        bound,
+        EnumSet.of(
+          PosixFilePermission.OWNER_READ,
+          PosixFilePermission.OWNER_WRITE)
+      );
+      Files.createLink(path, bound);
+      linked = true;
+    } catch (final IOException e) {
+      failure = e;
+    }
+
+    failure = deleteCollecting(bound, failure);
+    failure = deleteCollecting(directory, failure);
+    if (failure != null) {
+      if (linked) {
+        failure = deleteCollecting(path, failure);
+      }
+      throw failure;
+    }
+  }
+
+  /*
+   * Delete a file, without letting a failure to do so replace an earlier
+   * failure.
+   */
+
+  private static IOException deleteCollecting(
+    final Path file,
+    final IOException failure)
+  {
+    try {
+      Files.deleteIfExists(file);
+      return failure;
+    } catch (final IOException e) {
+      if (failure == null) {
+        return e;
+      }
+      failure.addSuppressed(e);
+      return failure;
+    }
+  }
+
+  private void run()
+  {
+    while (this.channel.isOpen()) {
+      try (var client = this.channel.accept()) {
+        this.serve(client);
+      } catch (final ClosedChannelException e) {
+        return;
+      } catch (final IOException e) {
+        // The client went away; keep serving others.
+      }
+    }
+  }
+
+  private void serve(
+    final SocketChannel client)
+    throws IOException
+  {
+    final var buffer =
+      ByteBuffer.wrap(this.snapshots.get().getBytes(UTF_8));
+    while (buffer.hasRemaining()) {
+      client.write(buffer);
+    }
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    try {
+      this.channel.close();
+    } finally {
+      Files.deleteIfExists(this.path);
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPIntrospectionServer 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
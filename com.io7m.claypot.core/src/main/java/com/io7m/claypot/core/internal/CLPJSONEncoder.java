@@ -0,0 +1,269 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+/**
+ * A minimal streaming JSON encoder. Tokens are appended to an internal,
+ * reusable buffer; the encoder performs no reflection and allocates nothing
+ * per token. The encoder does not validate the structure of the document
+ * it produces: callers are expected to balance objects and arrays, and to
+ * name every member of an object.
+ *
+ * Instances are not thread-safe.
+ */
+
+public final class CLPJSONEncoder
+{
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final StringBuilder buffer;
+  private boolean needsComma;
+
+  /**
+   * A minimal streaming JSON encoder.
+   */
+
+  public CLPJSONEncoder()
+  {
+    this.buffer = new StringBuilder(256);
+  }
+
+  /**
+   * Discard everything encoded so far.
+   *
+   * @return this
+   */
+
+  public CLPJSONEncoder reset()
+  {
+    this.buffer.setLength(0);
+    this.needsComma = false;
+    return this;
+  }
+
+  /**
+   * @return The text encoded so far
+   */
+
+  public CharSequence text()
+  {
+    return this.buffer;
+  }
+
+  private void separate()
+  {
+    if (this.needsComma) {
+      this.buffer.append(',');
+    }
+  }
+
+  /**
+   * Begin an object.
+   *
+   * @return this
+   */
+
+  public CLPJSONEncoder beginObject()
+  {
+    this.separate();
+    this.buffer.append('{');
+    this.needsComma = false;
+    return this;
+  }
+
+  /**
+   * End an object.
+   *
+   * @return this
+   */
+
+  public CLPJSONEncoder endObject()
+  {
+    this.buffer.append('}');
+    this.needsComma = true;
+    return this;
+  }
+
+  /**
+   * Begin an array.
+   *
+   * @return this
+   */
+
+  public CLPJSONEncoder beginArray()
+  {
+    this.separate();
+    this.buffer.append('[');
+    this.needsComma = false;
+    return this;
+  }
+
+  /**
+   * End an array.
+   *
+   * @return this
+   */
+
+  public CLPJSONEncoder endArray()
+  {
+    this.buffer.append(']');
+    this.needsComma = true;
+    return this;
+  }
+
+  /**
+   * Name the next member of the current object.
+   *
+   * @param name The name
+   *
+   * @return this
+   */
+
+  public CLPJSONEncoder name(
+    final String name)
+  {
+    this.separate();
+    this.appendQuoted(name);
+    this.buffer.append(':');
+    this.needsComma = false;
+    return this;
+  }
+
+  /**
+   * Append a string value, or {@code null} if the value is {@code null}.
+   *
+   * @param value The value
+   *
+   * @return this
+   */
+
+  public CLPJSONEncoder string(
+    final CharSequence value)
+  {
+    this.separate();
+    if (value == null) {
+      this.buffer.append("null");
+    } else {
+      this.appendQuoted(value);
+    }
+    this.needsComma = true;
+    return this;
+  }
+
+  /**
+   * Append a numeric value.
+   *
+   * @param value The value
+   *
+   * @return this
+   */
+
+  public CLPJSONEncoder number(
+    final long value)
+  {
+    this.separate();
+    this.buffer.append(value);
+    this.needsComma = true;
+    return this;
+  }
+
+  /**
+   * Append a boolean value.
+   *
+   * @param value The value
+   *
+   * @return this
+   */
+
+  public CLPJSONEncoder bool(
+    final boolean value)
+  {
+    this.separate();
+    this.buffer.append(value);
+    this.needsComma = true;
+    return this;
+  }
+
+  private void appendQuoted(
+    final CharSequence value)
+  {
+    final var out = this.buffer;
+    final var length = value.length();
+
+    out.append('"');
+
+    /*
+     * Copy runs of characters that need no escaping in one operation.
+     */
+
+    var start = 0;
+    for (int index = 0; index < length; ++index) {
+      final var c = value.charAt(index);
+      if (needsEscape(c)) {
+        out.append(value, start, index);
+        appendEscaped(out, c);
+        start = index + 1;
+      }
+    }
+
+    out.append(value, start, length);
+    out.append('"');
+  }
+
+  private static boolean needsEscape(
+    final char c)
+  {
+    if (c < 0x20) {
+      return true;
+    }
+    return switch (c) {
+      case '"', '\\', '\u2028', '\u2029' -> true;
+      default -> false;
+    };
+  }
+
+  private static void appendEscaped(
+    final StringBuilder out,
+    final char c)
+  {
+    switch (c) {
+      case '"' -> out.append("\\\"");
+      case '\\' -> out.append("\\\\");
+      case '\n' -> out.append("\\n");
+      case '\r' -> out.append("\\r");
+      case '\t' -> out.append("\\t");
+      case '\b' -> out.append("\\b");
+      case '\f' -> out.append("\\f");
+      default -> {
+        out.append("\\u");
+        out.append(HEX[(c >> 12) & 0xf]);
+        out.append(HEX[(c >> 8) & 0xf]);
+        out.append(HEX[(c >> 4) & 0xf]);
+        out.append(HEX[c & 0xf]);
+      }
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPJSONEncoder 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+
+import java.util.Objects;
+
+/**
+ * An appender that writes log events to a JSON Lines output.
+ */
+
+public final class CLPJSONLinesAppender extends AppenderBase<ILoggingEvent>
+{
+  private final CLPJSONLinesOutput output;
+  private final CLPJSONEncoder encoder;
+
+  /**
+   * An appender that writes log events to a JSON Lines output.
+   *
+   * @param inOutput The output
+   */
+
+  public CLPJSONLinesAppender(
+    final CLPJSONLinesOutput inOutput)
+  {
+    this.output = Objects.requireNonNull(inOutput, "output");
+    this.encoder = new CLPJSONEncoder();
+    this.setName("CLAYPOT_JSONL");
+  }
+
+  @Override
+  protected void append(
+    final ILoggingEvent event)
+  {
+    /*
+     * AppenderBase serializes calls to append(), so the encoder can be
+     * reused safely.
+     */
+
+    final var e = this.encoder.reset();
+    e.beginObject();
+    e.name("type").string("log");
+    e.name("time").number(event.getTimeStamp());
+    e.name("level").string(event.getLevel().toString());
+    e.name("logger").string(event.getLoggerName());
+    e.name("thread").string(event.getThreadName());
+    e.name("message").string(event.getFormattedMessage());
+
+    final var thrown = event.getThrowableProxy();
+    if (thrown != null) {
+      e.name("exception");
+      e.beginObject();
+      e.name("class").string(thrown.getClassName());
+      e.name("message").string(thrown.getMessage());
+      e.endObject();
+    }
+
+    e.endObject();
+    this.output.writeLine(e);
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPJSONLinesAppender 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
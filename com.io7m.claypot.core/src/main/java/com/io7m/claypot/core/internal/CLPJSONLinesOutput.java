@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Objects;
+
+/**
+ * A JSON Lines output. Each line is written and flushed atomically, so that
+ * lines produced by different threads are never interleaved.
+ */
+
+public final class CLPJSONLinesOutput
+{
+  private final Writer writer;
+
+  /**
+   * A JSON Lines output.
+   *
+   * @param inWriter The underlying writer
+   */
+
+  public CLPJSONLinesOutput(
+    final Writer inWriter)
+  {
+    this.writer = Objects.requireNonNull(inWriter, "writer");
+  }
+
+  /**
+   * Write the text produced by the given encoder as a single line.
+   *
+   * @param encoder The encoder
+   */
+
+  public void writeLine(
+    final CLPJSONEncoder encoder)
+  {
+    final var text = encoder.text();
+    synchronized (this.writer) {
+      try {
+        this.writer.append(text);
+        this.writer.append('\n');
+        this.writer.flush();
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * Write the given usage text.
+   *
+   * @param encoder The encoder
+   * @param text    The usage text
+   */
+
+  public void writeUsage(
+    final CLPJSONEncoder encoder,
+    final CharSequence text)
+  {
+    encoder.reset()
+      .beginObject()
+      .name("type").string("usage")
+      .name("text").string(text)
+      .endObject();
+    this.writeLine(encoder);
+  }
+
+  /**
+   * Write the given exit status.
+   *
+   * @param encoder  The encoder
+   * @param exitCode The exit code
+   * @param failed   {@code true} if the application failed with an exception
+   */
+
+  public void writeExit(
+    final CLPJSONEncoder encoder,
+    final int exitCode,
+    final boolean failed)
+  {
+    encoder.reset()
+      .beginObject()
+      .name("type").string("exit")
+      .name("code").number(exitCode)
+      .name("failed").bool(failed)
+      .endObject();
+    this.writeLine(encoder);
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPJSONLinesOutput 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.io7m.claypot.core.CLPJournalEntry;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The binary journal format. A journal is a five byte header (the ASCII
+ * characters {@code CLPJ} followed by a version byte) followed by any number
+ * of records. Each record is an unsigned LEB128 length followed by that many
+ * bytes of record data. All integers in the record data are LEB128
+ * encoded (the exit code is zigzag encoded), and all strings are a length
+ * followed by UTF-8 bytes. A truncated final record, as left behind by a
+ * process that died during an append, is ignored when reading.
+ */
+
+public final class CLPJournalFormat
+{
+  static final byte[] HEADER = {'C', 'L', 'P', 'J', 1};
+
+  private CLPJournalFormat()
+  {
+
+  }
+
+  /**
+   * Encode a record, preceded by its length.
+   *
+   * @param entry The entry
+   *
+   * @return The encoded record
+   */
+
+  public static byte[] encode(
+    final CLPJournalEntry entry)
+  {
+    final var body = new Output(64);
+    body.varint(entry.time().toEpochMilli());
+    body.string(entry.command());
+    final var arguments = entry.arguments();
+    body.varint(arguments.size());
+    for (final var argument : arguments) {
+      body.string(argument);
+    }
+    body.varint(zigzag(entry.exitCode()));
+    body.string(entry.exceptionClass().orElse(""));
+    body.varint(entry.parseNanos());
+    body.varint(entry.executeNanos());
+    body.varint(entry.totalNanos());
+
+    final var record = new Output(body.size + 10);
+    record.varint(body.size);
+    record.bytes(body.data, body.size);
+    return record.toByteArray();
+  }
+
+  /**
+   * Decode a journal.
+   *
+   * @param data The journal data, including the header
+   *
+   * @return The decoded entries
+   *
+   * @throws IOException If the header is not a journal header
+   */
+
+  public static List<CLPJournalEntry> decode(
+    final ByteBuffer data)
+    throws IOException
+  {
+    checkHeader(data);
+
+    final var entries = new ArrayList<CLPJournalEntry>();
+    while (data.hasRemaining()) {
+      final var start = data.position();
+      try {
+        final var length = Math.toIntExact(varint(data));
+        if (length > data.remaining()) {
+          break;
+        }
+        final var body = data.slice(data.position(), length);
+        data.position(data.position() + length);
+        entries.add(decodeBody(body));
+      } catch (final BufferUnderflowException | ArithmeticException e) {
+        data.position(start);
+        break;
+      }
+    }
+    return entries;
+  }
+
+  private static void checkHeader(
+    final ByteBuffer data)
+    throws IOException
+  {
+    if (data.remaining() < HEADER.length) {
+      throw new IOException(
+        String.format(
+          "Journal is missing its header (%d bytes available)",
+          Integer.valueOf(data.remaining())));
+    }
+    for (final byte expected : HEADER) {
+      final var received = data.get();
+      if (received != expected) {
+        throw new IOException(
+          String.format(
+            "Journal header is invalid (expected %d, received %d)",
+            Byte.valueOf(expected),
+            Byte.valueOf(received)));
+      }
+    }
+  }
+
+  private static CLPJournalEntry decodeBody(
+    final ByteBuffer body)
+  {
+    final var time = Instant.ofEpochMilli(varint(body));
+    final var command = string(body);
+    final var count = Math.toIntExact(varint(body));
+    final var arguments = new ArrayList<String>(Math.min(count, 256));
+    for (int index = 0; index < count; ++index) {
+      arguments.add(string(body));
+    }
+    final var exitCode = unzigzag(varint(body));
+    final var exception = string(body);
+    final var parse = varint(body);
+    final var execute = varint(body);
+    final var total = varint(body);
+
+    return new CLPJournalEntry(
+      time,
+      command,
+      arguments,
+      exitCode,
+      exception.isEmpty() ? Optional.empty() : Optional.of(exception),
+      parse,
+      execute,
+      total
+    );
+  }
+
+  private static long zigzag(
+    final int value)
+  {
+    return Integer.toUnsignedLong((value << 1) ^ (value >> 31));
+  }
+
+  private static int unzigzag(
+    final long value)
+  {
+    final var bits = (int) value;
+    return (bits >>> 1) ^ -(bits & 1);
+  }
+
+  private static long varint(
+    final ByteBuffer data)
+  {
+    long value = 0L;
+    for (int shift = 0; shift < 64; shift += 7) {
+      final var b = data.get();
+      value |= (long) (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new BufferUnderflowException();
+  }
+
+  private static String string(
+    final ByteBuffer data)
+  {
+    final var length = Math.toIntExact(varint(data));
+    if (length > data.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    final var bytes = data.slice(data.position(), length);
+    data.position(data.position() + length);
+    return UTF_8.decode(bytes).toString();
+  }
+
+  private static final class Output
+  {
+    private byte[] data;
+    private int size;
+
+    Output(
+      final int capacity)
+    {
+      this.data = new byte[capacity];
+    }
+
+    void varint(
+      final long value)
+    {
+      var remaining = value;
+      while ((remaining & ~0x7fL) != 0L) {
+        this.put((byte) ((remaining & 0x7fL) | 0x80L));
+        remaining >>>= 7;
+      }
+      this.put((byte) remaining);
+    }
+
+    void string(
+      final String text)
+    {
+      final var bytes = text.getBytes(UTF_8);
+      this.varint(bytes.length);
+      this.bytes(bytes, bytes.length);
+    }
+
+    void bytes(
+      final byte[] bytes,
+      final int length)
+    {
+      this.reserve(length);
+      System.arraycopy(bytes, 0, this.data, this.size, length);
+      this.size += length;
+    }
+
+    private void put(
+      final byte b)
+    {
+      this.reserve(1);
+      this.data[this.size] = b;
+      ++this.size;
+    }
+
+    private void reserve(
+      final int length)
+    {
+      if (this.size + length > this.data.length) {
+        final var capacity = Math.max(this.data.length * 2, this.size + length);
+        final var resized = new byte[capacity];
+        System.arraycopy(this.data, 0, resized, 0, this.size);
+        this.data = resized;
+      }
+    }
+
+    byte[] toByteArray()
+    {
+      final var result = new byte[this.size];
+      System.arraycopy(this.data, 0, result, 0, this.size);
+      return result;
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.io7m.claypot.core.CLPJournalEntry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Objects;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A journal writer. Each entry is appended with a single write to a file
+ * opened in append mode, so concurrent processes appending to the same
+ * journal do not interleave records, and a process that dies mid-append
+ * leaves at most one truncated record at the end of the file.
+ */
+
+public final class CLPJournalWriter
+{
+  private final Path file;
+
+  /**
+   * Construct a writer.
+   *
+   * @param inFile The journal file
+   */
+
+  public CLPJournalWriter(
+    final Path inFile)
+  {
+    this.file = Objects.requireNonNull(inFile, "file");
+  }
+
+  /**
+   * Append an entry to the journal, creating the journal if necessary.
+   *
+   * @param entry The entry
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public synchronized void append(
+    final CLPJournalEntry entry)
+    throws IOException
+  {
+    Objects.requireNonNull(entry, "entry");
+
+    final var record = CLPJournalFormat.encode(entry);
+    try (var channel = FileChannel.open(this.file, CREATE, WRITE, APPEND)) {
+      final ByteBuffer buffer;
+      if (channel.size() == 0L) {
+        final var header = CLPJournalFormat.HEADER;
+        buffer = ByteBuffer.allocate(header.length + record.length);
+        buffer.put(header);
+        buffer.put(record);
+        buffer.flip();
+      } else {
+        buffer = ByteBuffer.wrap(record);
+      }
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPJournalWriter 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
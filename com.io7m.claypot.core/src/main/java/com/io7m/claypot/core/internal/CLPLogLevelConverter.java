@@ -21,6 +21,12 @@ import com.io7m.claypot.core.CLPLogLevel;
 import com.io7m.claypot.core.CLPStrings;
 import com.io7m.claypot.core.CLPStringsType;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 /**
  * A converter for {@link CLPLogLevel} values.
  */
@@ -28,24 +34,43 @@ import com.io7m.claypot.core.CLPStringsType;
 public final class CLPLogLevelConverter
   implements IStringConverter<CLPLogLevel>
 {
+  private static final Map<String, CLPLogLevel> LEVELS =
+    Arrays.stream(CLPLogLevel.values())
+      .collect(Collectors.toUnmodifiableMap(
+        CLPLogLevel::getName,
+        Function.identity()));
+
   private final CLPStringsType strings;
 
   /**
-   * Construct a new converter.
+   * Construct a new converter using the default string resources. This
+   * constructor is used when the converter is named explicitly in a
+   * {@link com.beust.jcommander.Parameter} annotation.
    */
 
   public CLPLogLevelConverter()
   {
-    this.strings = CLPStrings.create();
+    this(CLPStrings.create());
+  }
+
+  /**
+   * Construct a new converter.
+   *
+   * @param inStrings The string resources used for error messages
+   */
+
+  public CLPLogLevelConverter(
+    final CLPStringsType inStrings)
+  {
+    this.strings = Objects.requireNonNull(inStrings, "strings");
   }
 
   @Override
   public CLPLogLevel convert(final String value)
   {
-    for (final CLPLogLevel v : CLPLogLevel.values()) {
-      if (value.equals(v.getName())) {
-        return v;
-      }
+    final var level = LEVELS.get(value);
+    if (level != null) {
+      return level;
     }
 
     throw new CLPLogLevelUnrecognized(
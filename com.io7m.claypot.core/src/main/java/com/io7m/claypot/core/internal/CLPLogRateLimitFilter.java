@@ -0,0 +1,285 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import com.io7m.claypot.core.CLPLogRateLimit;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * A filter that rate-limits log messages that share the same message
+ * template. Templates that contain nothing other than placeholders (such as
+ * {@code "{}"}) carry no identifying information, so messages logged with
+ * them are instead limited by their first argument, if it is a string of
+ * no more than {@link #MAXIMUM_ARGUMENT_LENGTH} characters. Messages logged
+ * with the {@link #UNLIMITED} marker are never limited.
+ */
+
+public final class CLPLogRateLimitFilter extends TurboFilter
+{
+  /**
+   * The maximum length of a first argument used to identify a message.
+   */
+
+  public static final int MAXIMUM_ARGUMENT_LENGTH = 1024;
+
+  /**
+   * The marker for messages that must never be limited, such as the lines
+   * of an exception report.
+   */
+
+  public static final Marker UNLIMITED =
+    MarkerFactory.getMarker("com.io7m.claypot.unlimited");
+
+  private static final int MAXIMUM_TEMPLATES = 1024;
+
+  private final ConcurrentHashMap<String, Entry> entries;
+  private final ConcurrentHashMap<String, Entry> arguments;
+  private final LongSupplier clock;
+  private final long windowNanos;
+  private final int maximumPerWindow;
+
+  /**
+   * A filter that rate-limits log messages.
+   *
+   * @param rateLimit The rate limit
+   * @param inClock   A clock that returns monotonic time values in nanoseconds
+   */
+
+  public CLPLogRateLimitFilter(
+    final CLPLogRateLimit rateLimit,
+    final LongSupplier inClock)
+  {
+    Objects.requireNonNull(rateLimit, "rateLimit");
+
+    this.clock =
+      Objects.requireNonNull(inClock, "clock");
+    this.windowNanos =
+      rateLimit.window().toNanos();
+    this.maximumPerWindow =
+      rateLimit.maximumPerWindow();
+    this.entries =
+      new ConcurrentHashMap<>();
+    this.arguments =
+      new ConcurrentHashMap<>();
+  }
+
+  /**
+   * A filter that rate-limits log messages using the system clock.
+   *
+   * @param rateLimit The rate limit
+   */
+
+  public CLPLogRateLimitFilter(
+    final CLPLogRateLimit rateLimit)
+  {
+    this(rateLimit, System::nanoTime);
+  }
+
+  private static boolean isPlaceholdersOnly(
+    final String format)
+  {
+    final var length = format.length();
+    var index = 0;
+    while (index < length) {
+      final var c = format.charAt(index);
+      if (c == '{' && index + 1 < length && format.charAt(index + 1) == '}') {
+        index += 2;
+        continue;
+      }
+      if (!Character.isWhitespace(c)) {
+        return false;
+      }
+      ++index;
+    }
+    return true;
+  }
+
+  private static boolean isUnlimited(
+    final Marker marker)
+  {
+    return marker != null
+      && (marker == UNLIMITED || marker.contains(UNLIMITED));
+  }
+
+  @Override
+  public FilterReply decide(
+    final Marker marker,
+    final Logger logger,
+    final Level level,
+    final String format,
+    final Object[] params,
+    final Throwable t)
+  {
+    if (format == null || level == null || isUnlimited(marker)) {
+      return FilterReply.NEUTRAL;
+    }
+    if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+      return FilterReply.NEUTRAL;
+    }
+    if (isPlaceholdersOnly(format)) {
+      return this.decideByArgument(level, params);
+    }
+    return this.decideByKey(this.entries, format, level);
+  }
+
+  /*
+   * Only string arguments are used as keys: they are what the
+   * logger.x("{}", strings.format(...)) idiom passes, and they can be used
+   * without formatting anything. Other arguments are not limited.
+   */
+
+  private FilterReply decideByArgument(
+    final Level level,
+    final Object[] params)
+  {
+    if (params == null || params.length == 0) {
+      return FilterReply.NEUTRAL;
+    }
+    if (params[0] instanceof String text
+      && text.length() <= MAXIMUM_ARGUMENT_LENGTH) {
+      return this.decideByKey(this.arguments, text, level);
+    }
+    return FilterReply.NEUTRAL;
+  }
+
+  private FilterReply decideByKey(
+    final ConcurrentHashMap<String, Entry> map,
+    final String key,
+    final Level level)
+  {
+    final var time = this.clock.getAsLong();
+    var entry = map.get(key);
+    if (entry == null) {
+      if (this.entries.size() + this.arguments.size() >= MAXIMUM_TEMPLATES) {
+        return FilterReply.NEUTRAL;
+      }
+      entry = map.computeIfAbsent(key, k -> new Entry(k, level, time));
+    }
+
+    if (entry.tryLog(time, this.windowNanos, this.maximumPerWindow)) {
+      return FilterReply.NEUTRAL;
+    }
+    return FilterReply.DENY;
+  }
+
+  /**
+   * @return The messages that were suppressed, in descending order of the
+   * number of suppressions
+   */
+
+  public List<Suppressed> suppressed()
+  {
+    final var results = new ArrayList<Suppressed>();
+    for (final var map : List.of(this.entries, this.arguments)) {
+      for (final var entry : map.values()) {
+        final var suppressed = entry.suppressed();
+        if (suppressed.count() > 0L) {
+          results.add(suppressed);
+        }
+      }
+    }
+    results.sort(Comparator.comparingLong(Suppressed::count).reversed());
+    return results;
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPLogRateLimitFilter 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+
+  /**
+   * A summary of a suppressed message.
+   *
+   * @param format The message template, or the first argument for
+   *               templates that consist only of placeholders
+   * @param level  The level at which the message was first logged
+   * @param count  The number of times the message was suppressed
+   */
+
+  public record Suppressed(
+    String format,
+    Level level,
+    long count)
+  {
+    /**
+     * A summary of a suppressed message.
+     */
+
+    public Suppressed
+    {
+      Objects.requireNonNull(format, "format");
+      Objects.requireNonNull(level, "level");
+    }
+  }
+
+  private static final class Entry
+  {
+    private final String format;
+    private final Level level;
+    private long windowStart;
+    private int count;
+    private long suppressed;
+
+    Entry(
+      final String inFormat,
+      final Level inLevel,
+      final long inWindowStart)
+    {
+      this.format = Objects.requireNonNull(inFormat, "format");
+      this.level = Objects.requireNonNull(inLevel, "level");
+      this.windowStart = inWindowStart;
+    }
+
+    synchronized boolean tryLog(
+      final long time,
+      final long windowNanos,
+      final int maximumPerWindow)
+    {
+      if (time - this.windowStart >= windowNanos) {
+        this.windowStart = time;
+        this.count = 0;
+      }
+      if (this.count < maximumPerWindow) {
+        ++this.count;
+        return true;
+      }
+      ++this.suppressed;
+      return false;
+    }
+
+    synchronized Suppressed suppressed()
+    {
+      return new Suppressed(this.format, this.level, this.suppressed);
+    }
+  }
+}
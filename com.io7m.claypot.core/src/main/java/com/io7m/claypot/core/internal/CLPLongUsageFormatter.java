@@ -18,6 +18,9 @@ package com.io7m.claypot.core.internal;
 
 import com.beust.jcommander.DefaultUsageFormatter;
 import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameters;
+
+import java.util.Objects;
 
 /**
  * A long usage formatter.
@@ -25,16 +28,34 @@ import com.beust.jcommander.JCommander;
 
 public final class CLPLongUsageFormatter extends DefaultUsageFormatter
 {
+  private final JCommander commander;
+  private final CLPUsageSinkType sink;
+
   /**
    * A long usage formatter.
    *
-   * @param commander The <tt>jcommander</tt> instance
+   * @param inCommander The <tt>jcommander</tt> instance
+   * @param inSink      The sink to which completed text is passed
    */
 
   public CLPLongUsageFormatter(
-    final JCommander commander)
+    final JCommander inCommander,
+    final CLPUsageSinkType inSink)
+  {
+    super(inCommander);
+
+    this.commander =
+      Objects.requireNonNull(inCommander, "commander");
+    this.sink =
+      Objects.requireNonNull(inSink, "sink");
+  }
+
+  private static boolean isHidden(
+    final JCommander command)
   {
-    super(commander);
+    final Object arg = command.getObjects().get(0);
+    final Parameters p = arg.getClass().getAnnotation(Parameters.class);
+    return p != null && p.hidden();
   }
 
   @Override
@@ -57,6 +78,67 @@ public final class CLPLongUsageFormatter extends DefaultUsageFormatter
     final String indent)
   {
     out.append('\n');
-    super.appendCommands(out, indentCount, descriptionIndent, indent);
+
+    /*
+     * This is equivalent to the inherited implementation, except that the
+     * text produced so far is passed to the sink after each command.
+     */
+
+    final var rawCommands = this.commander.getRawCommands();
+    final var visible =
+      rawCommands.values()
+        .stream()
+        .anyMatch(command -> !isHidden(command));
+
+    if (!visible) {
+      return;
+    }
+
+    out.append(indent);
+    out.append("  Commands:\n");
+
+    final var commandIndent = indent + s(6);
+    for (final var entry : rawCommands.entrySet()) {
+      final var command = entry.getValue();
+      if (isHidden(command)) {
+        continue;
+      }
+
+      final var programName = entry.getKey();
+      final String description =
+        indent + s(4) + programName.getDisplayName() + s(6)
+          + this.getCommandDescription(programName.getName());
+
+      this.wrapDescription(out, indentCount + descriptionIndent, description);
+      out.append('\n');
+
+      /*
+       * The contents of groups are not shown, so that showing usage does
+       * not require instantiating every command in every group.
+       */
+
+      if (!CLPCommandGroup.isGroup(command)) {
+        new DefaultUsageFormatter(command).usage(out, commandIndent);
+      }
+      out.append('\n');
+      CLPUsageChunks.flushIfFull(out, this.sink);
+    }
+  }
+
+  @Override
+  public String getCommandDescription(
+    final String commandName)
+  {
+    return CLPCommandGroup.groupDescription(this.commander, commandName)
+      .orElseGet(() -> super.getCommandDescription(commandName));
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPLongUsageFormatter 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
   }
 }
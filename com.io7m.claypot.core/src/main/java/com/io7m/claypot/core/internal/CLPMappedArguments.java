@@ -0,0 +1,274 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * A sequence of arguments decoded lazily from a memory-mapped file. The file
+ * is mapped one window at a time, and each argument is decoded only when it
+ * is requested, so memory use does not depend on the number of arguments.
+ * Arguments are separated by a delimiter byte; with the newline delimiter,
+ * a trailing carriage return is removed from each argument. Empty arguments
+ * are skipped.
+ */
+
+public final class CLPMappedArguments implements Iterable<String>
+{
+  /**
+   * The default size of the mapped window.
+   */
+
+  public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+  private final Path file;
+  private final byte delimiter;
+  private final int windowSize;
+
+  /**
+   * A sequence of arguments decoded lazily from a memory-mapped file.
+   *
+   * @param inFile       The file
+   * @param inDelimiter  The delimiter byte
+   * @param inWindowSize The size of the mapped window; arguments longer than
+   *                     this are rejected
+   */
+
+  public CLPMappedArguments(
+    final Path inFile,
+    final byte inDelimiter,
+    final int inWindowSize)
+  {
+    this.file =
+      Objects.requireNonNull(inFile, "file");
+    this.delimiter =
+      inDelimiter;
+
+    if (inWindowSize <= 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Window size %d must be positive",
+          Integer.valueOf(inWindowSize))
+      );
+    }
+    this.windowSize =
+      inWindowSize;
+  }
+
+  @Override
+  public Iterator<String> iterator()
+  {
+    return new MappedIterator(this.file, this.delimiter, this.windowSize);
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPMappedArguments %s 0x%s]",
+      this.file,
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+
+  /**
+   * Decode an argument, removing a trailing carriage return if the
+   * delimiter is a newline.
+   *
+   * @param decoder   The decoder
+   * @param bytes     The encoded argument
+   * @param delimiter The delimiter
+   *
+   * @return The decoded argument
+   *
+   * @throws CharacterCodingException If the argument is not valid UTF-8
+   */
+
+  static String decode(
+    final CharsetDecoder decoder,
+    final ByteBuffer bytes,
+    final byte delimiter)
+    throws CharacterCodingException
+  {
+    final CharBuffer chars = decoder.reset().decode(bytes);
+    final var length = chars.length();
+    if (delimiter == '\n' && length > 0 && chars.charAt(length - 1) == '\r') {
+      return chars.subSequence(0, length - 1).toString();
+    }
+    return chars.toString();
+  }
+
+  /**
+   * @return A decoder that reports malformed input
+   */
+
+  static CharsetDecoder decoder()
+  {
+    return UTF_8.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPORT)
+      .onUnmappableCharacter(CodingErrorAction.REPORT);
+  }
+
+  private static final class MappedIterator implements Iterator<String>
+  {
+    private final Path file;
+    private final byte delimiter;
+    private final int windowSize;
+    private final CharsetDecoder decoder;
+    private long fileSize;
+    private long base;
+    private int position;
+    private MappedByteBuffer window;
+    private String next;
+
+    MappedIterator(
+      final Path inFile,
+      final byte inDelimiter,
+      final int inWindowSize)
+    {
+      this.file = inFile;
+      this.delimiter = inDelimiter;
+      this.windowSize = inWindowSize;
+      this.decoder = decoder();
+      this.fileSize = -1L;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+      if (this.next == null) {
+        try {
+          this.next = this.readNext().orElse(null);
+        } catch (final IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      return this.next != null;
+    }
+
+    @Override
+    public String next()
+    {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final var result = this.next;
+      this.next = null;
+      return result;
+    }
+
+    private void map(
+      final long offset)
+      throws IOException
+    {
+      try (var channel = FileChannel.open(this.file, READ)) {
+        if (this.fileSize < 0L) {
+          this.fileSize = channel.size();
+        }
+        final var size =
+          (int) Math.min(this.windowSize, this.fileSize - offset);
+        this.window = channel.map(READ_ONLY, offset, size);
+        this.base = offset;
+        this.position = 0;
+      }
+    }
+
+    private boolean ensureMapped()
+      throws IOException
+    {
+      if (this.window == null) {
+        this.map(0L);
+      }
+      if (this.base + this.position >= this.fileSize) {
+        return false;
+      }
+      if (this.position >= this.window.limit()) {
+        this.map(this.base + this.position);
+      }
+      return true;
+    }
+
+    private int scan()
+    {
+      final var limit = this.window.limit();
+      var end = this.position;
+      while (end < limit && this.window.get(end) != this.delimiter) {
+        end += 1;
+      }
+      return end;
+    }
+
+    private void remapFromArgumentStart()
+      throws IOException
+    {
+      if (this.position == 0) {
+        throw new IOException(
+          String.format(
+            "An argument in %s at offset %d exceeds %d bytes",
+            this.file,
+            Long.valueOf(this.base),
+            Integer.valueOf(this.windowSize))
+        );
+      }
+      this.map(this.base + this.position);
+    }
+
+    private Optional<String> readNext()
+      throws IOException
+    {
+      while (this.ensureMapped()) {
+        final var limit = this.window.limit();
+        final var end = this.scan();
+        if (end == limit && this.base + limit < this.fileSize) {
+          this.remapFromArgumentStart();
+          continue;
+        }
+
+        final var start = this.position;
+        this.position = Math.min(end + 1, limit);
+        if (end > start) {
+          final var text =
+            decode(
+              this.decoder,
+              this.window.slice(start, end - start),
+              this.delimiter);
+          if (!text.isEmpty()) {
+            return Optional.of(text);
+          }
+        }
+      }
+      return Optional.empty();
+    }
+  }
+}
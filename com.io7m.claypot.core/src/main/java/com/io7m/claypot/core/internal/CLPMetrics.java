@@ -0,0 +1,251 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.io7m.claypot.core.CLPCommandMetrics;
+import com.io7m.claypot.core.CLPLatencyHistogram;
+import com.io7m.claypot.core.CLPMetricsType;
+import com.io7m.claypot.core.CLPResourceUsage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The lock-free metrics registry.
+ */
+
+public final class CLPMetrics implements CLPMetricsType
+{
+  private final ConcurrentHashMap<String, Counters> commands;
+
+  /**
+   * Construct an empty registry.
+   */
+
+  public CLPMetrics()
+  {
+    this.commands = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Record a command execution.
+   *
+   * @param command   The full name of the command
+   * @param nanos     The execution time in nanoseconds
+   * @param failed    {@code true} if the execution failed
+   * @param exception The class name of the exception raised, or
+   *                  {@code null} if no exception was raised
+   * @param resources The resources consumed by the execution
+   */
+
+  public void record(
+    final String command,
+    final long nanos,
+    final boolean failed,
+    final String exception,
+    final CLPResourceUsage resources)
+  {
+    Objects.requireNonNull(command, "command");
+    Objects.requireNonNull(resources, "resources");
+
+    this.commands.computeIfAbsent(command, Counters::new)
+      .record(nanos, failed, exception, resources);
+  }
+
+  @Override
+  public SortedMap<String, CLPCommandMetrics> snapshot()
+  {
+    final var results = new TreeMap<String, CLPCommandMetrics>();
+    for (final var counters : this.commands.values()) {
+      final var metrics = counters.snapshot();
+      results.put(metrics.name(), metrics);
+    }
+    return Collections.unmodifiableSortedMap(results);
+  }
+
+  /**
+   * Write a snapshot of the metrics to the given file as a JSON object.
+   *
+   * @param file The file
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void writeTo(
+    final Path file)
+    throws IOException
+  {
+    final var encoder = new CLPJSONEncoder();
+    encoder.beginObject();
+    encoder.name("commands");
+    encoder.beginArray();
+    for (final var metrics : this.snapshot().values()) {
+      writeCommand(encoder, metrics);
+    }
+    encoder.endArray();
+    encoder.endObject();
+
+    Files.writeString(file, encoder.text() + "\n", UTF_8);
+  }
+
+  private static void writeCommand(
+    final CLPJSONEncoder encoder,
+    final CLPCommandMetrics metrics)
+  {
+    encoder.beginObject();
+    encoder.name("name").string(metrics.name());
+    encoder.name("invocations").number(metrics.invocations());
+    encoder.name("failures").number(metrics.failures());
+    encoder.name("failuresByException");
+    encoder.beginObject();
+    final var exceptions = new TreeMap<>(metrics.failuresByException());
+    for (final var entry : exceptions.entrySet()) {
+      encoder.name(entry.getKey()).number(entry.getValue().longValue());
+    }
+    encoder.endObject();
+    encoder.name("latency");
+    writeLatency(encoder, metrics.latency());
+    encoder.name("resources");
+    writeResources(encoder, metrics.resources());
+    encoder.endObject();
+  }
+
+  private static void writeResources(
+    final CLPJSONEncoder encoder,
+    final CLPResourceUsage resources)
+  {
+    encoder.beginObject();
+    encoder.name("cpuNanos").number(resources.cpuNanos());
+    encoder.name("allocatedBytes").number(resources.allocatedBytes());
+    encoder.name("gcCount").number(resources.gcCount());
+    encoder.name("gcNanos").number(resources.gcNanos());
+    encoder.endObject();
+  }
+
+  private static void writeLatency(
+    final CLPJSONEncoder encoder,
+    final CLPLatencyHistogram latency)
+  {
+    encoder.beginObject();
+    encoder.name("count").number(latency.count());
+    encoder.name("minimumNanos").number(latency.minimumNanos());
+    encoder.name("maximumNanos").number(latency.maximumNanos());
+    encoder.name("p50Nanos").number(latency.percentile(50.0).toNanos());
+    encoder.name("p90Nanos").number(latency.percentile(90.0).toNanos());
+    encoder.name("p99Nanos").number(latency.percentile(99.0).toNanos());
+    encoder.name("buckets");
+    encoder.beginArray();
+    for (final var bucket : latency.buckets()) {
+      encoder.beginArray();
+      encoder.number(bucket.lowerNanos());
+      encoder.number(bucket.upperNanos());
+      encoder.number(bucket.count());
+      encoder.endArray();
+    }
+    encoder.endArray();
+    encoder.endObject();
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPMetrics 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+
+  private static final class Counters
+  {
+    private final String name;
+    private final LongAdder invocations;
+    private final LongAdder failures;
+    private final ConcurrentHashMap<String, LongAdder> failuresByException;
+    private final CLPHistogram latency;
+    private final LongAdder cpuNanos;
+    private final LongAdder allocatedBytes;
+    private final LongAdder gcCount;
+    private final LongAdder gcNanos;
+
+    Counters(
+      final String inName)
+    {
+      this.name = inName;
+      this.invocations = new LongAdder();
+      this.failures = new LongAdder();
+      this.failuresByException = new ConcurrentHashMap<>();
+      this.latency = new CLPHistogram();
+      this.cpuNanos = new LongAdder();
+      this.allocatedBytes = new LongAdder();
+      this.gcCount = new LongAdder();
+      this.gcNanos = new LongAdder();
+    }
+
+    void record(
+      final long nanos,
+      final boolean failed,
+      final String exception,
+      final CLPResourceUsage resources)
+    {
+      this.invocations.increment();
+      this.latency.record(nanos);
+      this.cpuNanos.add(Math.max(0L, resources.cpuNanos()));
+      this.allocatedBytes.add(Math.max(0L, resources.allocatedBytes()));
+      this.gcCount.add(Math.max(0L, resources.gcCount()));
+      this.gcNanos.add(Math.max(0L, resources.gcNanos()));
+      if (failed || exception != null) {
+        this.failures.increment();
+      }
+      if (exception != null) {
+        this.failuresByException
+          .computeIfAbsent(exception, k -> new LongAdder())
+          .increment();
+      }
+    }
+
+    CLPCommandMetrics snapshot()
+    {
+      final var exceptions = new HashMap<String, Long>();
+      this.failuresByException.forEach((exception, count) -> {
+        exceptions.put(exception, Long.valueOf(count.sum()));
+      });
+
+      return new CLPCommandMetrics(
+        this.name,
+        this.invocations.sum(),
+        this.failures.sum(),
+        exceptions,
+        this.latency.snapshot(),
+        new CLPResourceUsage(
+          this.cpuNanos.sum(),
+          this.allocatedBytes.sum(),
+          this.gcCount.sum(),
+          this.gcNanos.sum())
+      );
+    }
+  }
+}
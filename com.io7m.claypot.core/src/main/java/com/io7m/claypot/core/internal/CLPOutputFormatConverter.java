@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.beust.jcommander.IStringConverter;
+import com.beust.jcommander.ParameterException;
+import com.io7m.claypot.core.CLPOutputFormat;
+import com.io7m.claypot.core.CLPStrings;
+import com.io7m.claypot.core.CLPStringsType;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A converter for {@link CLPOutputFormat} values.
+ */
+
+public final class CLPOutputFormatConverter
+  implements IStringConverter<CLPOutputFormat>
+{
+  private static final Map<String, CLPOutputFormat> FORMATS =
+    Arrays.stream(CLPOutputFormat.values())
+      .collect(Collectors.toUnmodifiableMap(
+        CLPOutputFormat::getName,
+        Function.identity()));
+
+  private final CLPStringsType strings;
+
+  /**
+   * Construct a new converter using the default string resources. This
+   * constructor is used when the converter is named explicitly in a
+   * {@link com.beust.jcommander.Parameter} annotation.
+   */
+
+  public CLPOutputFormatConverter()
+  {
+    this(CLPStrings.create());
+  }
+
+  /**
+   * Construct a new converter.
+   *
+   * @param inStrings The string resources used for error messages
+   */
+
+  public CLPOutputFormatConverter(
+    final CLPStringsType inStrings)
+  {
+    this.strings = Objects.requireNonNull(inStrings, "strings");
+  }
+
+  /**
+   * Find the output format with the given name.
+   *
+   * @param value The name
+   *
+   * @return The output format, if any
+   */
+
+  public static Optional<CLPOutputFormat> find(
+    final String value)
+  {
+    return Optional.ofNullable(FORMATS.get(value));
+  }
+
+  @Override
+  public CLPOutputFormat convert(final String value)
+  {
+    return find(value).orElseThrow(() -> {
+      return new ParameterException(
+        this.strings.format(
+          "com.io7m.claypot.outputFormatUnrecognized", value)
+      );
+    });
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPOutputFormatConverter 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
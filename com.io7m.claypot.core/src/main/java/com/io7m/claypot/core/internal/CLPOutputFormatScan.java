@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.io7m.claypot.core.CLPOutputFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The result of scanning the global options of a command line for an output
+ * format. The output format must be known before the command line is parsed,
+ * so that errors produced during parsing are written in the requested
+ * format.
+ */
+
+public final class CLPOutputFormatScan
+{
+  /**
+   * The name of the output format option.
+   */
+
+  public static final String OPTION = "--output-format";
+
+  private static final String OPTION_EQUALS = OPTION + "=";
+
+  private final CLPOutputFormat format;
+  private final List<String> arguments;
+
+  private CLPOutputFormatScan(
+    final CLPOutputFormat inFormat,
+    final List<String> inArguments)
+  {
+    this.format =
+      Objects.requireNonNull(inFormat, "format");
+    this.arguments =
+      List.copyOf(inArguments);
+  }
+
+  /**
+   * @return The output format
+   */
+
+  public CLPOutputFormat format()
+  {
+    return this.format;
+  }
+
+  /**
+   * @return The command line, with any {@code --output-format=x} option
+   * split into two arguments
+   */
+
+  public List<String> arguments()
+  {
+    return this.arguments;
+  }
+
+  /**
+   * Scan the global options of the given command line. Scanning stops at the
+   * first command name.
+   *
+   * @param arguments The command line
+   * @param commands  The names of the available commands
+   *
+   * @return The scan result
+   */
+
+  public static CLPOutputFormatScan scan(
+    final String[] arguments,
+    final Set<String> commands)
+  {
+    Objects.requireNonNull(arguments, "arguments");
+    Objects.requireNonNull(commands, "commands");
+
+    var format = CLPOutputFormat.OUTPUT_TEXT;
+    final var results = new ArrayList<String>(arguments.length + 1);
+
+    var index = 0;
+    while (index < arguments.length) {
+      final var argument = arguments[index];
+      if ("--".equals(argument) || commands.contains(argument)) {
+        break;
+      }
+
+      if (argument.startsWith(OPTION_EQUALS)) {
+        final var value = argument.substring(OPTION_EQUALS.length());
+        format = CLPOutputFormatConverter.find(value).orElse(format);
+        results.add(OPTION);
+        results.add(value);
+      } else {
+        if (index + 1 < arguments.length && OPTION.equals(argument)) {
+          format = CLPOutputFormatConverter.find(arguments[index + 1])
+            .orElse(format);
+        }
+        results.add(argument);
+      }
+      ++index;
+    }
+
+    while (index < arguments.length) {
+      results.add(arguments[index]);
+      ++index;
+    }
+
+    return new CLPOutputFormatScan(format, results);
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPOutputFormatScan 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Command-line arguments were parsed.
+ */
+
+@Name("com.io7m.claypot.Parse")
+@Label("Parse Arguments")
+@Description("Command-line arguments were parsed.")
+public final class CLPParseEvent extends CLPAbstractEvent
+{
+  /**
+   * The full name of the parsed command, if any.
+   */
+
+  @Label("Command Name")
+  private String commandName;
+
+  /**
+   * The number of arguments.
+   */
+
+  @Label("Argument Count")
+  private int argumentCount;
+
+  /**
+   * Construct an event.
+   */
+
+  public CLPParseEvent()
+  {
+
+  }
+
+  /**
+   * Set the full name of the parsed command, if any.
+   *
+   * @param value The value
+   */
+
+  public void setCommandName(
+    final String value)
+  {
+    this.commandName = value;
+  }
+
+  /**
+   * Set the number of arguments.
+   *
+   * @param value The value
+   */
+
+  public void setArgumentCount(
+    final int value)
+  {
+    this.argumentCount = value;
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.io7m.claypot.core.CLPProgressType;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A progress reporter. The count is a single atomic counter; the remaining
+ * state is only accessed by the ticker while holding its lock.
+ */
+
+public final class CLPProgress implements CLPProgressType
+{
+  private final Consumer<CLPProgress> onClose;
+  private final String label;
+  private final long total;
+  private final long timeStart;
+  private final AtomicLong count;
+  private long lastCount;
+  private long lastTime;
+  private double rate;
+  private boolean closed;
+
+  CLPProgress(
+    final Consumer<CLPProgress> inOnClose,
+    final String inLabel,
+    final long inTotal,
+    final long inTimeStart)
+  {
+    this.onClose =
+      Objects.requireNonNull(inOnClose, "onClose");
+    this.label =
+      Objects.requireNonNull(inLabel, "label");
+    this.total =
+      Math.max(0L, inTotal);
+    this.timeStart =
+      inTimeStart;
+    this.lastTime =
+      inTimeStart;
+    this.count =
+      new AtomicLong();
+  }
+
+  /**
+   * Create a reporter that counts items but is never rendered.
+   *
+   * @param label The label
+   * @param total The total number of items
+   *
+   * @return A reporter
+   */
+
+  public static CLPProgress silent(
+    final String label,
+    final long total)
+  {
+    return new CLPProgress(p -> p.setClosed(), label, total, 0L);
+  }
+
+  @Override
+  public void add(
+    final long amount)
+  {
+    this.count.getAndAdd(amount);
+  }
+
+  @Override
+  public long count()
+  {
+    return this.count.get();
+  }
+
+  @Override
+  public void close()
+  {
+    this.onClose.accept(this);
+  }
+
+  String label()
+  {
+    return this.label;
+  }
+
+  long total()
+  {
+    return this.total;
+  }
+
+  long timeStart()
+  {
+    return this.timeStart;
+  }
+
+  boolean isClosed()
+  {
+    return this.closed;
+  }
+
+  void setClosed()
+  {
+    this.closed = true;
+  }
+
+  /**
+   * Update the smoothed rate with the items completed since the last
+   * sample.
+   *
+   * @param current The current count
+   * @param time    The current time in nanoseconds
+   *
+   * @return The smoothed rate in items per second
+   */
+
+  double sample(
+    final long current,
+    final long time)
+  {
+    final var elapsed = time - this.lastTime;
+    if (elapsed > 0L) {
+      final var instant =
+        (double) (current - this.lastCount) * 1.0e9 / (double) elapsed;
+      if (this.lastCount == 0L && this.rate == 0.0) {
+        this.rate = instant;
+      } else {
+        this.rate = 0.3 * instant + 0.7 * this.rate;
+      }
+      this.lastCount = current;
+      this.lastTime = time;
+    }
+    return this.rate;
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPProgress 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
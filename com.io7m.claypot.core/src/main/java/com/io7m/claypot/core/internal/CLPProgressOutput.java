@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import org.slf4j.Logger;
+
+import java.io.PrintStream;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The progress sink used by applications. If the terminal predicate holds,
+ * progress is drawn as a single line that is redrawn in place on the given
+ * stream; otherwise, progress is logged.
+ */
+
+public final class CLPProgressOutput implements CLPProgressSinkType
+{
+  private final Logger logger;
+  private final PrintStream terminal;
+  private final BooleanSupplier isTerminal;
+  private boolean drawn;
+
+  /**
+   * The progress sink used by applications.
+   *
+   * @param inLogger     The logger
+   * @param inTerminal   The terminal stream
+   * @param inIsTerminal A predicate that holds if the terminal should be used
+   */
+
+  public CLPProgressOutput(
+    final Logger inLogger,
+    final PrintStream inTerminal,
+    final BooleanSupplier inIsTerminal)
+  {
+    this.logger =
+      Objects.requireNonNull(inLogger, "logger");
+    this.terminal =
+      Objects.requireNonNull(inTerminal, "terminal");
+    this.isTerminal =
+      Objects.requireNonNull(inIsTerminal, "isTerminal");
+  }
+
+  @Override
+  public void update(
+    final String text)
+  {
+    if (this.isTerminal.getAsBoolean()) {
+      this.terminal.print("\r\u001b[K");
+      this.terminal.print(text);
+      this.terminal.flush();
+      this.drawn = true;
+    } else {
+      this.logger.info("{}", text);
+    }
+  }
+
+  @Override
+  public void finish(
+    final String text)
+  {
+    if (this.isTerminal.getAsBoolean()) {
+      if (this.drawn) {
+        this.terminal.print("\r\u001b[K");
+      }
+      this.terminal.println(text);
+      this.terminal.flush();
+      this.drawn = false;
+    } else {
+      this.logger.info("{}", text);
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPProgressOutput 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
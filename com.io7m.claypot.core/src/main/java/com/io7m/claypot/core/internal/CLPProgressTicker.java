@@ -0,0 +1,228 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.io7m.claypot.core.CLPStringsType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * The single background ticker that renders the progress of all open
+ * reporters. The ticker thread is started when the first reporter is opened,
+ * and stopped when the last reporter is closed.
+ */
+
+public final class CLPProgressTicker
+{
+  private final CLPStringsType strings;
+  private final Duration interval;
+  private final CLPProgressSinkType sink;
+  private final LongSupplier clock;
+  private final List<CLPProgress> reporters;
+  private ScheduledExecutorService executor;
+
+  /**
+   * Construct a ticker.
+   *
+   * @param inStrings  The string resources
+   * @param inInterval The interval at which progress is rendered
+   * @param inSink     The sink for rendered progress
+   * @param inClock    A clock that returns the time in nanoseconds
+   */
+
+  public CLPProgressTicker(
+    final CLPStringsType inStrings,
+    final Duration inInterval,
+    final CLPProgressSinkType inSink,
+    final LongSupplier inClock)
+  {
+    this.strings =
+      Objects.requireNonNull(inStrings, "strings");
+    this.interval =
+      Objects.requireNonNull(inInterval, "interval");
+    this.sink =
+      Objects.requireNonNull(inSink, "sink");
+    this.clock =
+      Objects.requireNonNull(inClock, "clock");
+    this.reporters =
+      new CopyOnWriteArrayList<>();
+  }
+
+  /**
+   * Obtain the open reporters without taking the ticker lock, so that
+   * observers never delay threads opening or closing reporters.
+   *
+   * @return The currently open reporters
+   */
+
+  public List<CLPProgress> reporters()
+  {
+    return List.copyOf(this.reporters);
+  }
+
+  /**
+   * Open a progress reporter.
+   *
+   * @param label The label
+   * @param total The total number of items, if known
+   *
+   * @return The reporter
+   */
+
+  public synchronized CLPProgress open(
+    final String label,
+    final long total)
+  {
+    final var progress =
+      new CLPProgress(this::finish, label, total, this.clock.getAsLong());
+    this.reporters.add(progress);
+
+    if (this.executor == null) {
+      this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        final var thread = new Thread(r, "com.io7m.claypot.progress");
+        thread.setDaemon(true);
+        return thread;
+      });
+      final var nanos = this.interval.toNanos();
+      this.executor.scheduleAtFixedRate(
+        this::tick, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+    return progress;
+  }
+
+  /**
+   * Render the progress of all open reporters.
+   */
+
+  public synchronized void tick()
+  {
+    final var time = this.clock.getAsLong();
+    for (final var progress : this.reporters) {
+      this.sink.update(this.render(progress, time));
+    }
+  }
+
+  synchronized void finish(
+    final CLPProgress progress)
+  {
+    if (progress.isClosed()) {
+      return;
+    }
+
+    progress.setClosed();
+    this.reporters.remove(progress);
+    this.sink.finish(this.renderFinal(progress, this.clock.getAsLong()));
+
+    if (this.executor != null && this.reporters.isEmpty()) {
+      this.executor.shutdownNow();
+      this.executor = null;
+    }
+  }
+
+  private String render(
+    final CLPProgress progress,
+    final long time)
+  {
+    final var count = progress.count();
+    final var rate = progress.sample(count, time);
+    final var total = progress.total();
+
+    if (total == 0L) {
+      return this.strings.format(
+        "com.io7m.claypot.progressUnknownTotal",
+        progress.label(),
+        Long.valueOf(count),
+        decimal(rate)
+      );
+    }
+
+    final var remaining = Math.max(0L, total - count);
+    return this.strings.format(
+      "com.io7m.claypot.progress",
+      progress.label(),
+      Long.valueOf(count),
+      Long.valueOf(total),
+      decimal(100.0 * (double) count / (double) total),
+      decimal(rate),
+      eta(remaining, rate)
+    );
+  }
+
+  private String renderFinal(
+    final CLPProgress progress,
+    final long time)
+  {
+    final var count = progress.count();
+    final var elapsed = Math.max(1L, time - progress.timeStart());
+    return this.strings.format(
+      "com.io7m.claypot.progressFinished",
+      progress.label(),
+      Long.valueOf(count),
+      duration(elapsed),
+      decimal((double) count * 1.0e9 / (double) elapsed)
+    );
+  }
+
+  private static String decimal(
+    final double value)
+  {
+    return String.format(Locale.ROOT, "%.1f", Double.valueOf(value));
+  }
+
+  private static String eta(
+    final long remaining,
+    final double rate)
+  {
+    if (remaining == 0L) {
+      return duration(0L);
+    }
+    if (rate <= 0.0) {
+      return "?";
+    }
+    return duration((long) ((double) remaining / rate * 1.0e9));
+  }
+
+  private static String duration(
+    final long nanos)
+  {
+    final var seconds = TimeUnit.NANOSECONDS.toSeconds(nanos);
+    return String.format(
+      Locale.ROOT,
+      "%d:%02d:%02d",
+      Long.valueOf(seconds / 3600L),
+      Long.valueOf((seconds / 60L) % 60L),
+      Long.valueOf(seconds % 60L)
+    );
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPProgressTicker 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
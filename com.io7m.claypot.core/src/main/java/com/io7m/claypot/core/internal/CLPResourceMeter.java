@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.io7m.claypot.core.CLPResourceUsage;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Functions to measure the resources consumed by the current thread and by
+ * the garbage collectors. The management beans are looked up once; a
+ * measurement is a handful of calls that read counters maintained by the
+ * JVM.
+ */
+
+public final class CLPResourceMeter
+{
+  private static final ThreadMXBean THREADS =
+    ManagementFactory.getThreadMXBean();
+  private static final List<GarbageCollectorMXBean> COLLECTORS =
+    ManagementFactory.getGarbageCollectorMXBeans();
+
+  private CLPResourceMeter()
+  {
+
+  }
+
+  /**
+   * Measure the resources consumed so far. The result is a set of absolute
+   * counter values, and is only meaningful when compared with a later
+   * measurement taken on the same thread.
+   *
+   * @return The current counter values
+   *
+   * @see #since(CLPResourceUsage)
+   */
+
+  public static CLPResourceUsage now()
+  {
+    var gcCount = 0L;
+    var gcMillis = 0L;
+    for (final var collector : COLLECTORS) {
+      gcCount += Math.max(0L, collector.getCollectionCount());
+      gcMillis += Math.max(0L, collector.getCollectionTime());
+    }
+
+    return new CLPResourceUsage(
+      cpuTime(),
+      allocatedBytes(),
+      gcCount,
+      TimeUnit.MILLISECONDS.toNanos(gcMillis)
+    );
+  }
+
+  /**
+   * @param then An earlier measurement taken on the current thread
+   *
+   * @return The resources consumed since the earlier measurement
+   */
+
+  public static CLPResourceUsage since(
+    final CLPResourceUsage then)
+  {
+    final var current = now();
+    return new CLPResourceUsage(
+      difference(current.cpuNanos(), then.cpuNanos()),
+      difference(current.allocatedBytes(), then.allocatedBytes()),
+      difference(current.gcCount(), then.gcCount()),
+      difference(current.gcNanos(), then.gcNanos())
+    );
+  }
+
+  private static long difference(
+    final long now,
+    final long then)
+  {
+    if (now < 0L || then < 0L) {
+      return -1L;
+    }
+    return Math.max(0L, now - then);
+  }
+
+  private static long cpuTime()
+  {
+    if (THREADS.isCurrentThreadCpuTimeSupported()) {
+      return THREADS.getCurrentThreadCpuTime();
+    }
+    return -1L;
+  }
+
+  private static long allocatedBytes()
+  {
+    if (THREADS instanceof com.sun.management.ThreadMXBean) {
+      final var threads = (com.sun.management.ThreadMXBean) THREADS;
+      if (threads.isThreadAllocatedMemorySupported()
+        && threads.isThreadAllocatedMemoryEnabled()) {
+        return threads.getCurrentThreadAllocatedBytes();
+      }
+    }
+    return -1L;
+  }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A low-frequency sampling profiler for a single thread. A daemon thread
+ * periodically captures the stack of the sampled thread and counts each
+ * distinct stack, producing collapsed stacks suitable for flame graph tools.
+ *
+ * Memory is bounded: each distinct frame name is stored once and stacks are
+ * stored as arrays of frame numbers, stacks are truncated to
+ * {@link #MAXIMUM_DEPTH} frames, and once {@link #MAXIMUM_STACKS} distinct
+ * stacks (or {@link #MAXIMUM_FRAMES} distinct frames) have been seen, further
+ * new stacks (or frames) are counted under a single {@code [truncated]}
+ * entry. Overhead
+ * is bounded: if capturing a sample takes more than
+ * {@link #MAXIMUM_OVERHEAD} of the sampling interval, the interval is
+ * doubled.
+ */
+
+public final class CLPSampler
+{
+  /**
+   * The default sampling interval.
+   */
+
+  public static final Duration DEFAULT_INTERVAL = Duration.ofMillis(20L);
+
+  static final int MAXIMUM_DEPTH = 128;
+  static final int MAXIMUM_STACKS = 10_000;
+  static final int MAXIMUM_FRAMES = 65_536;
+  static final double MAXIMUM_OVERHEAD = 0.02;
+  static final long MAXIMUM_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1L);
+
+  private static final long STOP_TIMEOUT_MILLIS = 10_000L;
+  private static final String TRUNCATED = "[truncated]";
+
+  private final ThreadMXBean threads;
+  private final Thread sampled;
+  private final HashMap<Stack, Long> stacks;
+  private final HashMap<String, Integer> frameIds;
+  private final ArrayList<String> frameNames;
+  private final Stack truncated;
+  private final Thread thread;
+  private volatile boolean running;
+  private long intervalNanos;
+  private long samples;
+
+  /**
+   * Construct a sampler. The sampler does not start until {@link #start()}
+   * is called.
+   *
+   * @param inSampled  The thread to be sampled
+   * @param inInterval The initial sampling interval
+   */
+
+  public CLPSampler(
+    final Thread inSampled,
+    final Duration inInterval)
+  {
+    this.sampled =
+      Objects.requireNonNull(inSampled, "sampled");
+    Objects.requireNonNull(inInterval, "interval");
+
+    if (inInterval.isNegative() || inInterval.isZero()) {
+      throw new IllegalArgumentException(
+        String.format("Interval %s must be positive", inInterval));
+    }
+
+    this.intervalNanos =
+      Math.min(inInterval.toNanos(), MAXIMUM_INTERVAL_NANOS);
+    this.threads =
+      ManagementFactory.getThreadMXBean();
+    this.stacks =
+      new HashMap<>();
+    this.frameIds =
+      new HashMap<>();
+    this.frameNames =
+      new ArrayList<>();
+    this.truncated =
+      new Stack(new int[]{this.frameId(TRUNCATED)});
+    this.thread =
+      new Thread(this::run, "com.io7m.claypot.sampler");
+    this.thread.setDaemon(true);
+  }
+
+  /**
+   * Start sampling.
+   */
+
+  public void start()
+  {
+    this.running = true;
+    this.thread.start();
+  }
+
+  /**
+   * Stop sampling, and wait for the sampler thread to finish.
+   *
+   * @return {@code false} if the sampler thread did not finish in time, in
+   * which case the samples must not be read
+   *
+   * @throws InterruptedException If interrupted whilst waiting
+   */
+
+  public boolean stop()
+    throws InterruptedException
+  {
+    this.running = false;
+    LockSupport.unpark(this.thread);
+    this.thread.join(STOP_TIMEOUT_MILLIS);
+    return !this.thread.isAlive();
+  }
+
+  private void run()
+  {
+    while (this.running) {
+      LockSupport.parkNanos(this.intervalNanos);
+      if (!this.running) {
+        return;
+      }
+
+      final var timeThen = System.nanoTime();
+      this.sample();
+      final var cost = System.nanoTime() - timeThen;
+      if ((double) cost > (double) this.intervalNanos * MAXIMUM_OVERHEAD) {
+        this.intervalNanos =
+          Math.min(this.intervalNanos * 2L, MAXIMUM_INTERVAL_NANOS);
+      }
+    }
+  }
+
+  private void sample()
+  {
+    final var info =
+      this.threads.getThreadInfo(this.sampled.threadId(), MAXIMUM_DEPTH);
+    if (info == null) {
+      return;
+    }
+
+    final var frames = info.getStackTrace();
+    if (frames.length == 0) {
+      return;
+    }
+
+    final var prefix = frames.length == MAXIMUM_DEPTH ? 1 : 0;
+    final var ids = new int[frames.length + prefix];
+    if (prefix == 1) {
+      ids[0] = this.truncated.frames[0];
+    }
+    for (int index = 0; index < frames.length; ++index) {
+      final var frame = frames[frames.length - 1 - index];
+      ids[index + prefix] =
+        this.frameId(frame.getClassName() + '.' + frame.getMethodName());
+    }
+
+    var key = new Stack(ids);
+    if (this.stacks.size() >= MAXIMUM_STACKS && !this.stacks.containsKey(key)) {
+      key = this.truncated;
+    }
+    this.stacks.merge(key, Long.valueOf(1L), Long::sum);
+    ++this.samples;
+  }
+
+  private int frameId(
+    final String name)
+  {
+    final var existing = this.frameIds.get(name);
+    if (existing != null) {
+      return existing.intValue();
+    }
+    if (this.frameNames.size() >= MAXIMUM_FRAMES) {
+      return this.truncated.frames[0];
+    }
+
+    final var id = this.frameNames.size();
+    this.frameNames.add(name);
+    this.frameIds.put(name, Integer.valueOf(id));
+    return id;
+  }
+
+  private String render(
+    final Stack stack)
+  {
+    final var text = new StringBuilder(stack.frames.length * 32);
+    for (int index = 0; index < stack.frames.length; ++index) {
+      if (index > 0) {
+        text.append(';');
+      }
+      text.append(this.frameNames.get(stack.frames[index]));
+    }
+    return text.toString();
+  }
+
+  /**
+   * @return The number of samples taken
+   */
+
+  public long samples()
+  {
+    return this.samples;
+  }
+
+  /**
+   * @return The sampling interval in effect when sampling stopped
+   */
+
+  public Duration interval()
+  {
+    return Duration.ofNanos(this.intervalNanos);
+  }
+
+  /**
+   * @return The collapsed stacks and their sample counts
+   */
+
+  public Map<String, Long> stacks()
+  {
+    final var results = new HashMap<String, Long>(this.stacks.size());
+    for (final var entry : this.stacks.entrySet()) {
+      results.merge(this.render(entry.getKey()), entry.getValue(), Long::sum);
+    }
+    return Map.copyOf(results);
+  }
+
+  /**
+   * Write the collapsed stacks to the given file, one stack per line in
+   * the form {@code frame;frame;frame count}. Stacks are written in no
+   * particular order, and each line is rendered only as it is written. The
+   * sampler must have been stopped.
+   *
+   * @param file The output file
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void writeTo(
+    final Path file)
+    throws IOException
+  {
+    Objects.requireNonNull(file, "file");
+
+    try (BufferedWriter writer = Files.newBufferedWriter(file, UTF_8)) {
+      for (final var entry : this.stacks.entrySet()) {
+        writer.write(this.render(entry.getKey()));
+        writer.write(' ');
+        writer.write(Long.toString(entry.getValue().longValue()));
+        writer.newLine();
+      }
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPSampler 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+
+  /**
+   * A stack of frame numbers, outermost frame first.
+   */
+
+  private static final class Stack
+  {
+    private final int[] frames;
+    private final int hash;
+
+    Stack(
+      final int[] inFrames)
+    {
+      this.frames = inFrames;
+      this.hash = Arrays.hashCode(inFrames);
+    }
+
+    @Override
+    public boolean equals(
+      final Object other)
+    {
+      if (this == other) {
+        return true;
+      }
+      if (other instanceof Stack stack) {
+        return Arrays.equals(this.frames, stack.frames);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return this.hash;
+    }
+  }
+}
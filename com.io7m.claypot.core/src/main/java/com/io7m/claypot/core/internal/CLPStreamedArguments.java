@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A sequence of arguments decoded incrementally from a channel such as
+ * standard input. Bytes are read into a fixed-size direct buffer and decoded
+ * as they arrive, and each argument is returned as soon as its delimiter has
+ * been read, so a command can begin work before the input has ended. Only
+ * the argument currently being decoded is held in memory. Empty arguments
+ * are skipped.
+ */
+
+public final class CLPStreamedArguments implements Iterator<String>
+{
+  /**
+   * The default size of the input buffer.
+   */
+
+  public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+  private final ReadableByteChannel channel;
+  private final byte delimiter;
+  private final ByteBuffer bytes;
+  private final CharBuffer chars;
+  private final CharsetDecoder decoder;
+  private final StringBuilder text;
+  private boolean ended;
+  private String next;
+
+  /**
+   * A sequence of arguments decoded incrementally from a channel.
+   *
+   * @param inChannel    The channel
+   * @param inDelimiter  The delimiter byte
+   * @param inBufferSize The size of the input buffer
+   */
+
+  public CLPStreamedArguments(
+    final ReadableByteChannel inChannel,
+    final byte inDelimiter,
+    final int inBufferSize)
+  {
+    this.channel =
+      Objects.requireNonNull(inChannel, "channel");
+    this.delimiter =
+      inDelimiter;
+
+    if (inBufferSize < 4) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Buffer size %d must be at least 4",
+          Integer.valueOf(inBufferSize))
+      );
+    }
+
+    this.bytes = ByteBuffer.allocateDirect(inBufferSize);
+    this.bytes.flip();
+    this.chars = CharBuffer.allocate(inBufferSize);
+    this.decoder = CLPMappedArguments.decoder();
+    this.text = new StringBuilder(64);
+  }
+
+  @Override
+  public boolean hasNext()
+  {
+    if (this.next == null) {
+      try {
+        this.next = this.readNext().orElse(null);
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return this.next != null;
+  }
+
+  @Override
+  public String next()
+  {
+    if (!this.hasNext()) {
+      throw new NoSuchElementException();
+    }
+    final var result = this.next;
+    this.next = null;
+    return result;
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPStreamedArguments 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+
+  private int scan()
+  {
+    final var limit = this.bytes.limit();
+    for (int index = this.bytes.position(); index < limit; ++index) {
+      if (this.bytes.get(index) == this.delimiter) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  private Optional<String> readNext()
+    throws IOException
+  {
+    while (true) {
+      final var index = this.scan();
+      if (index >= 0) {
+        final var start = this.bytes.position();
+        this.decode(this.bytes.slice(start, index - start), true);
+        this.bytes.position(index + 1);
+        final var argument = this.finish();
+        if (argument.isPresent()) {
+          return argument;
+        }
+        continue;
+      }
+
+      if (this.ended) {
+        this.decode(this.bytes, true);
+        return this.finish();
+      }
+
+      this.decode(this.bytes, false);
+      this.bytes.compact();
+      final var read = this.channel.read(this.bytes);
+      this.bytes.flip();
+      this.ended = read < 0;
+    }
+  }
+
+  private void decode(
+    final ByteBuffer input,
+    final boolean endOfInput)
+    throws IOException
+  {
+    while (true) {
+      final var result = this.decoder.decode(input, this.chars, endOfInput);
+      this.drain();
+      if (result.isError()) {
+        result.throwException();
+      }
+      if (result.isUnderflow()) {
+        break;
+      }
+    }
+
+    if (endOfInput) {
+      this.decoder.flush(this.chars);
+      this.drain();
+      this.decoder.reset();
+    }
+  }
+
+  private void drain()
+  {
+    this.chars.flip();
+    this.text.append(this.chars);
+    this.chars.clear();
+  }
+
+  private Optional<String> finish()
+  {
+    var length = this.text.length();
+    if (this.delimiter == '\n'
+      && length > 0
+      && this.text.charAt(length - 1) == '\r') {
+      length -= 1;
+    }
+
+    final var argument = this.text.substring(0, length);
+    this.text.setLength(0);
+    if (argument.isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.of(argument);
+  }
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.io7m.claypot.core.CLPSpanType;
+
+import java.util.Objects;
+
+/**
+ * A per-thread buffer of span records. All storage is allocated when the
+ * buffer is created; opening and closing spans writes into preallocated
+ * arrays and never allocates. When the buffer is full, or spans are nested
+ * too deeply, further spans are counted as dropped.
+ *
+ * Only the owning thread writes to the buffer. The record count is published
+ * with a volatile write so that the buffer can be exported from another
+ * thread once the command has completed.
+ */
+
+final class CLPTraceBuffer
+{
+  static final int ATTRIBUTES_PER_SPAN = 4;
+  static final int MAXIMUM_DEPTH = 64;
+
+  private final long threadId;
+  private final String threadName;
+  private final String[] names;
+  private final long[] starts;
+  private final long[] ends;
+  private final int[] attributeCounts;
+  private final String[] attributeNames;
+  private final String[] attributeStrings;
+  private final long[] attributeNumbers;
+  private final Span[] spans;
+  private final int[] stack;
+  private final int capacity;
+  private int depth;
+  private long dropped;
+  private long generation;
+  private volatile int count;
+
+  CLPTraceBuffer(
+    final Thread thread,
+    final int inCapacity,
+    final long inGeneration)
+  {
+    this.threadId = thread.threadId();
+    this.threadName = thread.getName();
+    this.capacity = inCapacity;
+    this.generation = inGeneration;
+    this.names = new String[inCapacity];
+    this.starts = new long[inCapacity];
+    this.ends = new long[inCapacity];
+    this.attributeCounts = new int[inCapacity];
+    this.attributeNames = new String[inCapacity * ATTRIBUTES_PER_SPAN];
+    this.attributeStrings = new String[inCapacity * ATTRIBUTES_PER_SPAN];
+    this.attributeNumbers = new long[inCapacity * ATTRIBUTES_PER_SPAN];
+    this.stack = new int[MAXIMUM_DEPTH];
+    this.spans = new Span[inCapacity];
+    for (int index = 0; index < inCapacity; ++index) {
+      this.spans[index] = new Span(this, index);
+    }
+  }
+
+  long generation()
+  {
+    return this.generation;
+  }
+
+  /**
+   * Discard all records, and mark the buffer as belonging to the given
+   * tracing generation.
+   *
+   * @param newGeneration The generation
+   */
+
+  void reset(
+    final long newGeneration)
+  {
+    this.generation = newGeneration;
+    this.depth = 0;
+    this.dropped = 0L;
+    this.count = 0;
+  }
+
+  CLPSpanType begin(
+    final String name,
+    final long time)
+  {
+    final var index = this.count;
+    if (index >= this.capacity || this.depth >= MAXIMUM_DEPTH) {
+      ++this.dropped;
+      return CLPTraceNoopSpan.NOOP;
+    }
+
+    this.names[index] = name;
+    this.starts[index] = time;
+    this.ends[index] = -1L;
+    this.attributeCounts[index] = 0;
+
+    final var span = this.spans[index];
+    span.bind(this.generation, this.depth);
+    this.stack[this.depth] = index;
+    ++this.depth;
+    this.count = index + 1;
+    return span;
+  }
+
+  void attribute(
+    final Span span,
+    final String name,
+    final String text,
+    final long number)
+  {
+    if (!this.isOpen(span)) {
+      return;
+    }
+
+    final var index = span.index();
+    final var attributes = this.attributeCounts[index];
+    if (attributes >= ATTRIBUTES_PER_SPAN) {
+      return;
+    }
+
+    final var slot = index * ATTRIBUTES_PER_SPAN + attributes;
+    this.attributeNames[slot] = name;
+    this.attributeStrings[slot] = text;
+    this.attributeNumbers[slot] = number;
+    this.attributeCounts[index] = attributes + 1;
+  }
+
+  /**
+   * Close a span. Any spans nested within it that are still open are closed
+   * at the same time.
+   *
+   * @param span The span
+   */
+
+  void end(
+    final Span span)
+  {
+    if (!this.isOpen(span)) {
+      return;
+    }
+
+    final var time = System.nanoTime();
+    while (this.depth > span.depth()) {
+      --this.depth;
+      this.ends[this.stack[this.depth]] = time;
+    }
+  }
+
+  /*
+   * A handle refers to an open span only if it was bound in the current
+   * generation and its record has not been closed. Handles kept after the
+   * span was closed, or after the buffer was reset, are ignored.
+   */
+
+  private boolean isOpen(
+    final Span span)
+  {
+    final var index = span.index();
+    return index < this.count
+      && span.generation() == this.generation
+      && this.ends[index] == -1L;
+  }
+
+  long threadId()
+  {
+    return this.threadId;
+  }
+
+  String threadName()
+  {
+    return this.threadName;
+  }
+
+  long dropped()
+  {
+    return this.dropped;
+  }
+
+  int count()
+  {
+    return this.count;
+  }
+
+  String name(
+    final int index)
+  {
+    return this.names[index];
+  }
+
+  long start(
+    final int index)
+  {
+    return this.starts[index];
+  }
+
+  long end(
+    final int index)
+  {
+    return this.ends[index];
+  }
+
+  int attributeCount(
+    final int index)
+  {
+    return this.attributeCounts[index];
+  }
+
+  String attributeName(
+    final int index,
+    final int attribute)
+  {
+    return this.attributeNames[index * ATTRIBUTES_PER_SPAN + attribute];
+  }
+
+  String attributeString(
+    final int index,
+    final int attribute)
+  {
+    return this.attributeStrings[index * ATTRIBUTES_PER_SPAN + attribute];
+  }
+
+  long attributeNumber(
+    final int index,
+    final int attribute)
+  {
+    return this.attributeNumbers[index * ATTRIBUTES_PER_SPAN + attribute];
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPTraceBuffer 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+
+  /**
+   * A span handle. One handle is preallocated per record, and is rebound
+   * to the current generation each time its record is reused.
+   */
+
+  private static final class Span implements CLPSpanType
+  {
+    private final CLPTraceBuffer buffer;
+    private final int index;
+    private long generation;
+    private int depth;
+
+    Span(
+      final CLPTraceBuffer inBuffer,
+      final int inIndex)
+    {
+      this.buffer = inBuffer;
+      this.index = inIndex;
+      this.generation = -1L;
+    }
+
+    int depth()
+    {
+      return this.depth;
+    }
+
+    int index()
+    {
+      return this.index;
+    }
+
+    long generation()
+    {
+      return this.generation;
+    }
+
+    void bind(
+      final long inGeneration,
+      final int inDepth)
+    {
+      this.generation = inGeneration;
+      this.depth = inDepth;
+    }
+
+    @Override
+    public CLPSpanType attribute(
+      final String name,
+      final String value)
+    {
+      Objects.requireNonNull(name, "name");
+      Objects.requireNonNull(value, "value");
+      this.buffer.attribute(this, name, value, 0L);
+      return this;
+    }
+
+    @Override
+    public CLPSpanType attribute(
+      final String name,
+      final long value)
+    {
+      Objects.requireNonNull(name, "name");
+      this.buffer.attribute(this, name, null, value);
+      return this;
+    }
+
+    @Override
+    public void close()
+    {
+      this.buffer.end(this);
+    }
+
+    @Override
+    public String toString()
+    {
+      return String.format(
+        "[CLPTraceBuffer.Span 0x%s]",
+        Long.toUnsignedString(System.identityHashCode(this), 16)
+      );
+    }
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.io7m.claypot.core.CLPSpanType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The span tracer. Tracing is disabled until {@link #enable()} is called;
+ * while disabled, opening a span returns a shared span that records nothing.
+ * While enabled, each thread that opens a span records it into its own
+ * preallocated {@link CLPTraceBuffer}, and the buffers are exported as a
+ * Chrome trace event file by {@link #writeTo(Path)}.
+ */
+
+public final class CLPTracer
+{
+  /**
+   * The default number of spans each thread can record.
+   */
+
+  public static final int DEFAULT_CAPACITY = 4096;
+
+  private final int capacity;
+  private final ThreadLocal<CLPTraceBuffer> buffers;
+  private final ConcurrentLinkedQueue<CLPTraceBuffer> active;
+  private final AtomicLong generation;
+  private volatile boolean enabled;
+  private long timeBase;
+
+  /**
+   * Construct a tracer.
+   *
+   * @param inCapacity The number of spans each thread can record
+   */
+
+  public CLPTracer(
+    final int inCapacity)
+  {
+    if (inCapacity <= 0) {
+      throw new IllegalArgumentException(
+        String.format("Capacity %d must be positive", inCapacity));
+    }
+
+    this.capacity = inCapacity;
+    this.buffers = new ThreadLocal<>();
+    this.active = new ConcurrentLinkedQueue<>();
+    this.generation = new AtomicLong();
+  }
+
+  /**
+   * Discard any previously recorded spans and start recording.
+   */
+
+  public void enable()
+  {
+    this.active.clear();
+    this.timeBase = System.nanoTime();
+    this.generation.incrementAndGet();
+    this.enabled = true;
+  }
+
+  /**
+   * Stop recording spans.
+   */
+
+  public void disable()
+  {
+    this.enabled = false;
+  }
+
+  /**
+   * Open a span on the current thread.
+   *
+   * @param name The span name
+   *
+   * @return The span
+   */
+
+  public CLPSpanType span(
+    final String name)
+  {
+    Objects.requireNonNull(name, "name");
+
+    if (!this.enabled) {
+      return CLPTraceNoopSpan.NOOP;
+    }
+    return this.buffer().begin(name, System.nanoTime());
+  }
+
+  private CLPTraceBuffer buffer()
+  {
+    final var current = this.generation.get();
+    var buffer = this.buffers.get();
+    if (buffer == null) {
+      buffer = new CLPTraceBuffer(Thread.currentThread(), this.capacity, current);
+      this.buffers.set(buffer);
+      this.active.add(buffer);
+    } else if (buffer.generation() != current) {
+      buffer.reset(current);
+      this.active.add(buffer);
+    }
+    return buffer;
+  }
+
+  /**
+   * Write all recorded spans to the given file in the Chrome trace event
+   * format. Spans that are still open are written as ending at the time of
+   * export.
+   *
+   * @param file The output file
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void writeTo(
+    final Path file)
+    throws IOException
+  {
+    Objects.requireNonNull(file, "file");
+
+    final var timeNow = System.nanoTime();
+    final var pid = ProcessHandle.current().pid();
+    final var encoder = new CLPJSONEncoder();
+    long dropped = 0L;
+
+    encoder.beginObject();
+    encoder.name("traceEvents");
+    encoder.beginArray();
+    for (final var buffer : this.active) {
+      this.writeBuffer(encoder, buffer, pid, timeNow);
+      dropped += buffer.dropped();
+    }
+    encoder.endArray();
+    encoder.name("displayTimeUnit").string("ms");
+    encoder.name("otherData");
+    encoder.beginObject();
+    encoder.name("droppedSpans").number(dropped);
+    encoder.endObject();
+    encoder.endObject();
+
+    Files.writeString(file, encoder.text() + "\n", UTF_8);
+  }
+
+  private void writeBuffer(
+    final CLPJSONEncoder encoder,
+    final CLPTraceBuffer buffer,
+    final long pid,
+    final long timeNow)
+  {
+    encoder.beginObject();
+    encoder.name("name").string("thread_name");
+    encoder.name("ph").string("M");
+    encoder.name("pid").number(pid);
+    encoder.name("tid").number(buffer.threadId());
+    encoder.name("args");
+    encoder.beginObject();
+    encoder.name("name").string(buffer.threadName());
+    encoder.endObject();
+    encoder.endObject();
+
+    final var count = buffer.count();
+    for (int index = 0; index < count; ++index) {
+      final var start = buffer.start(index);
+      var end = buffer.end(index);
+      if (end < 0L) {
+        end = timeNow;
+      }
+
+      encoder.beginObject();
+      encoder.name("name").string(buffer.name(index));
+      encoder.name("cat").string("claypot");
+      encoder.name("ph").string("X");
+      encoder.name("ts").number((start - this.timeBase) / 1000L);
+      encoder.name("dur").number((end - start) / 1000L);
+      encoder.name("pid").number(pid);
+      encoder.name("tid").number(buffer.threadId());
+      encoder.name("args");
+      writeAttributes(encoder, buffer, index);
+      encoder.endObject();
+    }
+  }
+
+  private static void writeAttributes(
+    final CLPJSONEncoder encoder,
+    final CLPTraceBuffer buffer,
+    final int index)
+  {
+    encoder.beginObject();
+    final var attributes = buffer.attributeCount(index);
+    for (int attribute = 0; attribute < attributes; ++attribute) {
+      encoder.name(buffer.attributeName(index, attribute));
+      final var text = buffer.attributeString(index, attribute);
+      if (text != null) {
+        encoder.string(text);
+      } else {
+        encoder.number(buffer.attributeNumber(index, attribute));
+      }
+    }
+    encoder.endObject();
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPTracer 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
@@ -0,0 +1,555 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import com.beust.jcommander.DefaultUsageFormatter;
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterDescription;
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.CLPCommandType;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A cache of rendered usage text. Usage text is rendered at most once for
+ * a given set of registered commands; the cache is discarded if the set of
+ * commands registered with the <tt>jcommander</tt> instance changes.
+ *
+ * If pre-rendered usage text is available and was rendered from the same
+ * commands, parameters, descriptions, and Claypot version, it is served
+ * instead of rendering anything. The pre-rendered usage text is not loaded
+ * until usage text is first requested, and the parameters and extended help
+ * of a command are only compared when the usage text of that command, or of
+ * every command, is requested.
+ */
+
+public final class CLPUsageCache
+{
+  private final CLPApplicationConfiguration configuration;
+  private final JCommander commander;
+  private final HashMap<String, List<String>> commandUsages;
+  private final HashMap<String, List<String>> groupUsages;
+  private final Supplier<Optional<CLPHelpResourceFile>> preRenderedSource;
+  private final HashMap<String, Boolean> commandsCurrent;
+  private Optional<CLPHelpResourceFile> preRendered;
+  private Optional<CLPHelpResourceFile> matching;
+  private Map<String, JCommander> registered;
+  private List<String> briefUsage;
+  private List<String> longUsage;
+  private CLPHelpIndex searchIndex;
+  private CLPCompletionIndex completionIndex;
+
+  /**
+   * A cache of rendered usage text.
+   *
+   * @param inConfiguration The application configuration
+   * @param inCommander     The <tt>jcommander</tt> instance
+   * @param inPreRendered   A source of pre-rendered usage text, evaluated
+   *                        when usage text is first requested, and
+   *                        again only if it yielded nothing and the
+   *                        registered commands have changed
+   */
+
+  public CLPUsageCache(
+    final CLPApplicationConfiguration inConfiguration,
+    final JCommander inCommander,
+    final Supplier<Optional<CLPHelpResourceFile>> inPreRendered)
+  {
+    this.configuration =
+      Objects.requireNonNull(inConfiguration, "configuration");
+    this.commander =
+      Objects.requireNonNull(inCommander, "commander");
+    this.commandUsages =
+      new HashMap<>();
+    this.groupUsages =
+      new HashMap<>();
+    this.commandsCurrent =
+      new HashMap<>();
+    this.registered =
+      Map.of();
+    this.preRenderedSource =
+      Objects.requireNonNull(inPreRendered, "preRendered");
+    this.preRendered =
+      Optional.empty();
+    this.matching =
+      Optional.empty();
+  }
+
+  /*
+   * The fingerprint covers the Claypot version, the program name, the
+   * documentation URI, the global parameters, and the name, class, and
+   * description of each command. This is everything that is rendered in
+   * the brief usage text. The parameters and extended help of each command
+   * are covered by a separate fingerprint per command, so that serving the
+   * usage of one command does not require examining every other command.
+   * The contents of groups are not covered, as computing them would require
+   * instantiating every command in every group; the usage of groups is
+   * therefore never pre-rendered.
+   */
+
+  private static String fingerprint(
+    final CLPApplicationConfiguration configuration,
+    final JCommander commander,
+    final Map<String, JCommander> commands)
+  {
+    final var text = new StringBuilder(1024);
+    appendField(text, claypotVersion());
+    appendField(text, configuration.programName());
+    appendField(
+      text,
+      configuration.documentationURI().map(Object::toString).orElse(""));
+    appendParameters(text, commander);
+
+    final var formatter = new DefaultUsageFormatter(commander);
+    for (final var entry : new TreeMap<>(commands).entrySet()) {
+      final var name = entry.getKey();
+      final var command = entry.getValue().getObjects().get(0);
+      appendField(text, name);
+      appendField(text, command.getClass().getName());
+      if (command instanceof final CLPCommandGroup group) {
+        appendField(text, group.description());
+      } else {
+        appendField(
+          text,
+          Objects.requireNonNullElse(formatter.getCommandDescription(name), ""));
+      }
+    }
+    return digest(text);
+  }
+
+  private static String commandFingerprint(
+    final JCommander subCommander)
+  {
+    final var command =
+      (CLPCommandType) subCommander.getObjects().get(0);
+
+    final var text = new StringBuilder(256);
+    appendField(text, command.extendedHelp());
+    appendParameters(text, subCommander);
+    return digest(text);
+  }
+
+  private static String digest(
+    final StringBuilder text)
+  {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+
+    return HexFormat.of()
+      .formatHex(digest.digest(text.toString().getBytes(UTF_8)));
+  }
+
+  private static void appendParameters(
+    final StringBuilder text,
+    final JCommander commander)
+  {
+    if (commander.getDescriptions() == null) {
+      commander.createDescriptions();
+    }
+
+    if (commander.getMainParameter() != null) {
+      appendParameter(text, commander.getMainParameterValue());
+    }
+
+    final var parameters =
+      commander.getParameters()
+        .stream()
+        .sorted(Comparator.comparing(ParameterDescription::getNames))
+        .toList();
+
+    for (final var parameter : parameters) {
+      appendParameter(text, parameter);
+    }
+  }
+
+  private static void appendParameter(
+    final StringBuilder text,
+    final ParameterDescription parameter)
+  {
+    final var wrapped = parameter.getParameter();
+    appendField(text, parameter.getNames());
+    appendField(text, parameter.getDescription());
+    appendField(text, String.valueOf(parameter.getDefault()));
+    appendField(text, String.valueOf(wrapped.hidden()));
+    appendField(text, String.valueOf(wrapped.required()));
+  }
+
+  private static void appendField(
+    final StringBuilder text,
+    final String field)
+  {
+    text.append(field);
+    text.append('\0');
+  }
+
+  private static String claypotVersion()
+  {
+    final var descriptor = CLPUsageCache.class.getModule().getDescriptor();
+    if (descriptor != null) {
+      final var version = descriptor.rawVersion();
+      if (version.isPresent()) {
+        return version.get();
+      }
+    }
+    return Objects.requireNonNullElse(
+      CLPUsageCache.class.getPackage().getImplementationVersion(), "");
+  }
+
+  private static String indentLine(
+    final String text)
+  {
+    if (text.trim().isEmpty()) {
+      return "";
+    }
+    return "  " + text;
+  }
+
+  private static List<String> renderCommandUsage(
+    final JCommander subCommander)
+  {
+    final var chunks = new CLPUsageChunks();
+    subCommander.setUsageFormatter(
+      new CLPLongUsageFormatter(subCommander, chunks));
+    subCommander.setConsole(new CLPUsageConsole(chunks));
+    subCommander.usage();
+
+    final var commandObject =
+      (CLPCommandType) subCommander.getObjects().get(0);
+    final var help =
+      commandObject.extendedHelp().trim();
+
+    if (!help.isBlank()) {
+      help.lines()
+        .map(CLPUsageCache::indentLine)
+        .forEach(line -> {
+          chunks.write(line);
+          chunks.write("\n");
+        });
+    }
+    return chunks.finish();
+  }
+
+  private static void commitUsageEvent(
+    final CLPUsageEvent event,
+    final String commandName,
+    final String kind)
+  {
+    if (event.shouldCommit()) {
+      event.setCommandName(commandName);
+      event.setKind(kind);
+      event.commit();
+    }
+  }
+
+  private void checkRegistration()
+  {
+    final var current = this.commander.getCommands();
+    if (!current.equals(this.registered)) {
+      this.registered = current;
+      this.briefUsage = null;
+      this.longUsage = null;
+      this.searchIndex = null;
+      this.completionIndex = null;
+      this.commandUsages.clear();
+      this.groupUsages.clear();
+      this.commandsCurrent.clear();
+
+      if (this.preRendered.isEmpty()) {
+        this.preRendered = this.preRenderedSource.get();
+      }
+
+      this.matching =
+        this.preRendered.filter(file -> file.fingerprint().equals(
+          fingerprint(this.configuration, this.commander, current)));
+      this.matching.ifPresent(file -> this.briefUsage = file.briefUsage());
+    }
+  }
+
+  /*
+   * Determine whether the pre-rendered usage of the given top-level command
+   * was rendered from the command as it is now. Commands that do not appear
+   * in the pre-rendered usage, including groups, are never current.
+   */
+
+  private boolean isCommandCurrent(
+    final String name,
+    final JCommander subCommander)
+  {
+    if (this.matching.isEmpty()) {
+      return false;
+    }
+
+    final var expected =
+      this.matching.get().commandFingerprints().get(name);
+    if (expected == null) {
+      return false;
+    }
+
+    return this.commandsCurrent.computeIfAbsent(
+      name, k -> expected.equals(commandFingerprint(subCommander)));
+  }
+
+  /*
+   * The long usage and the indices cover every command, and so can only be
+   * served from the pre-rendered usage if every command is current.
+   */
+
+  private Optional<CLPHelpResourceFile> matchingAll()
+  {
+    for (final var entry : this.registered.entrySet()) {
+      if (CLPCommandGroup.isGroup(entry.getValue())) {
+        continue;
+      }
+      if (!this.isCommandCurrent(entry.getKey(), entry.getValue())) {
+        return Optional.empty();
+      }
+    }
+    return this.matching;
+  }
+
+  /**
+   * Render all usage text.
+   *
+   * @return The usage text for every command
+   */
+
+  public synchronized CLPHelpResourceFile renderAll()
+  {
+    final var brief = this.briefUsage();
+    final var full = this.longUsage();
+    final var commands = new TreeMap<String, List<String>>();
+    final var fingerprints = new TreeMap<String, String>();
+    for (final var entry : this.registered.entrySet()) {
+      if (CLPCommandGroup.isGroup(entry.getValue())) {
+        continue;
+      }
+      final var name = entry.getKey();
+      commands.put(name, this.commandUsage(name).orElseThrow());
+      fingerprints.put(name, commandFingerprint(entry.getValue()));
+    }
+
+    return new CLPHelpResourceFile(
+      fingerprint(this.configuration, this.commander, this.registered),
+      fingerprints,
+      brief,
+      full,
+      commands,
+      this.searchIndex(),
+      this.completionIndex()
+    );
+  }
+
+  /**
+   * @return The search index
+   */
+
+  public synchronized CLPHelpIndex searchIndex()
+  {
+    this.checkRegistration();
+    if (this.searchIndex == null) {
+      this.searchIndex =
+        this.matchingAll()
+          .map(CLPHelpResourceFile::searchIndex)
+          .orElseGet(() -> CLPHelpIndex.build(this.commander));
+    }
+    return this.searchIndex;
+  }
+
+  /**
+   * @return The completion index
+   */
+
+  public synchronized CLPCompletionIndex completionIndex()
+  {
+    this.checkRegistration();
+    if (this.completionIndex == null) {
+      this.completionIndex =
+        this.matchingAll()
+          .map(CLPHelpResourceFile::completionIndex)
+          .orElseGet(() -> CLPCompletionIndex.build(this.commander));
+    }
+    return this.completionIndex;
+  }
+
+  /**
+   * @return The brief usage text, in chunks of bounded size
+   */
+
+  public synchronized List<String> briefUsage()
+  {
+    this.checkRegistration();
+    if (this.briefUsage == null) {
+      final var event = new CLPUsageEvent();
+      event.begin();
+      this.briefUsage =
+        CLPBriefUsageFormatter.briefUsage(this.configuration, this.commander);
+      commitUsageEvent(event, "", "brief");
+    }
+    return this.briefUsage;
+  }
+
+  /**
+   * @return The long usage text, in chunks of bounded size
+   */
+
+  public synchronized List<String> longUsage()
+  {
+    this.checkRegistration();
+    if (this.longUsage == null) {
+      final var file = this.matchingAll();
+      if (file.isPresent()) {
+        this.longUsage = file.get().longUsage();
+        return this.longUsage;
+      }
+
+      final var event = new CLPUsageEvent();
+      event.begin();
+      final var chunks = new CLPUsageChunks();
+      this.commander.setUsageFormatter(
+        new CLPLongUsageFormatter(this.commander, chunks));
+      this.commander.setConsole(new CLPUsageConsole(chunks));
+      this.commander.usage();
+      this.longUsage = chunks.finish();
+      commitUsageEvent(event, "", "long");
+    }
+    return this.longUsage;
+  }
+
+  /**
+   * @param path The path of a command group, such as {@code [storage]}
+   *
+   * @return The brief usage text for the given group in chunks of bounded
+   * size, if the group exists
+   */
+
+  public synchronized Optional<List<String>> briefUsage(
+    final List<String> path)
+  {
+    Objects.requireNonNull(path, "path");
+
+    if (path.isEmpty()) {
+      return Optional.of(this.briefUsage());
+    }
+
+    this.checkRegistration();
+    final var key = String.join(" ", path);
+    final var existing = this.groupUsages.get(key);
+    if (existing != null) {
+      return Optional.of(existing);
+    }
+
+    final var groupCommander =
+      CLPCommandGroup.resolve(this.commander, path)
+        .filter(CLPCommandGroup::isGroup);
+    if (groupCommander.isEmpty()) {
+      return Optional.empty();
+    }
+
+    final var event = new CLPUsageEvent();
+    event.begin();
+    final var usage =
+      CLPBriefUsageFormatter.briefUsage(
+        this.configuration, groupCommander.get(), path);
+    commitUsageEvent(event, key, "group");
+    this.groupUsages.put(key, usage);
+    return Optional.of(usage);
+  }
+
+  /**
+   * @param name The command name
+   *
+   * @return The usage text for the given command in chunks of bounded size,
+   * if the command exists
+   */
+
+  public Optional<List<String>> commandUsage(
+    final String name)
+  {
+    Objects.requireNonNull(name, "name");
+    return this.commandUsage(List.of(name));
+  }
+
+  /**
+   * @param path The command path, such as {@code [storage, compact]}
+   *
+   * @return The usage text for the given command in chunks of bounded size,
+   * if the command exists
+   */
+
+  public synchronized Optional<List<String>> commandUsage(
+    final List<String> path)
+  {
+    Objects.requireNonNull(path, "path");
+
+    this.checkRegistration();
+    if (path.isEmpty()) {
+      return Optional.empty();
+    }
+
+    final var key = String.join(" ", path);
+    final var existing = this.commandUsages.get(key);
+    if (existing != null) {
+      return Optional.of(existing);
+    }
+
+    final var subCommander =
+      CLPCommandGroup.resolve(this.commander, path);
+    if (subCommander.isEmpty()) {
+      return Optional.empty();
+    }
+
+    if (this.isCommandCurrent(key, subCommander.get())) {
+      final var served = this.matching.get().commandUsages().get(key);
+      if (served != null) {
+        this.commandUsages.put(key, served);
+        return Optional.of(served);
+      }
+    }
+
+    final var event = new CLPUsageEvent();
+    event.begin();
+    final var usage = renderCommandUsage(subCommander.get());
+    commitUsageEvent(event, key, "command");
+    this.commandUsages.put(key, usage);
+    return Optional.of(usage);
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPUsageCache 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
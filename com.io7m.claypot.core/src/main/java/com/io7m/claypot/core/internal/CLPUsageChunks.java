@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A usage sink that coalesces the text written to it into chunks of a
+ * bounded size.
+ */
+
+public final class CLPUsageChunks implements CLPUsageSinkType
+{
+  /**
+   * The size at which a chunk is considered complete.
+   */
+
+  public static final int CHUNK_SIZE = 8192;
+
+  private final ArrayList<String> chunks;
+  private final StringBuilder buffer;
+
+  /**
+   * A usage sink that coalesces the text written to it into chunks.
+   */
+
+  public CLPUsageChunks()
+  {
+    this.chunks = new ArrayList<>();
+    this.buffer = new StringBuilder(256);
+  }
+
+  /**
+   * Pass the contents of the given builder to the given sink and clear the
+   * builder, if the builder holds at least a chunk of text. Usage formatters
+   * call this at points where the text is complete (such as after each
+   * command), so that usage text is never accumulated in its entirety.
+   *
+   * @param out  The builder
+   * @param sink The sink
+   */
+
+  public static void flushIfFull(
+    final StringBuilder out,
+    final CLPUsageSinkType sink)
+  {
+    if (out.length() >= CHUNK_SIZE) {
+      sink.write(out);
+      out.setLength(0);
+    }
+  }
+
+  private void emit()
+  {
+    this.chunks.add(this.buffer.toString());
+    this.buffer.setLength(0);
+  }
+
+  @Override
+  public void write(
+    final CharSequence text)
+  {
+    this.buffer.append(text);
+    if (this.buffer.length() >= CHUNK_SIZE) {
+      this.emit();
+    }
+  }
+
+  /**
+   * Complete the final chunk.
+   *
+   * @return The chunks written so far
+   */
+
+  public List<String> finish()
+  {
+    if (!this.buffer.isEmpty()) {
+      this.emit();
+    }
+    return List.copyOf(this.chunks);
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPUsageChunks 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
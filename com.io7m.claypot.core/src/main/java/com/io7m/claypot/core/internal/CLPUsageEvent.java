@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Usage text was rendered.
+ */
+
+@Name("com.io7m.claypot.Usage")
+@Label("Render Usage")
+@Description("Usage text was rendered.")
+public final class CLPUsageEvent extends CLPAbstractEvent
+{
+  /**
+   * The full name of the command, or the empty string for the application.
+   */
+
+  @Label("Command Name")
+  private String commandName;
+
+  /**
+   * The kind of usage text: brief, long, group, or command.
+   */
+
+  @Label("Kind")
+  private String kind;
+
+  /**
+   * Construct an event.
+   */
+
+  public CLPUsageEvent()
+  {
+
+  }
+
+  /**
+   * Set the full name of the command, or the empty string for the application.
+   *
+   * @param value The value
+   */
+
+  public void setCommandName(
+    final String value)
+  {
+    this.commandName = value;
+  }
+
+  /**
+   * Set the kind of usage text: brief, long, group, or command.
+   *
+   * @param value The value
+   */
+
+  public void setKind(
+    final String value)
+  {
+    this.kind = value;
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.core.internal;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The destination of usage text for the current execution. The destination
+ * is chosen when execution begins, and depends on the selected output format
+ * and the application configuration.
+ */
+
+public final class CLPUsageOutput
+{
+  private volatile CLPUsageSinkType sink;
+
+  /**
+   * The destination of usage text.
+   *
+   * @param inSink The initial sink
+   */
+
+  public CLPUsageOutput(
+    final CLPUsageSinkType inSink)
+  {
+    this.sink = Objects.requireNonNull(inSink, "sink");
+  }
+
+  /**
+   * Set the sink to which usage text will be written.
+   *
+   * @param inSink The sink
+   */
+
+  public void setSink(
+    final CLPUsageSinkType inSink)
+  {
+    this.sink = Objects.requireNonNull(inSink, "sink");
+  }
+
+  /**
+   * Write the given chunks of usage text.
+   *
+   * @param chunks The chunks
+   */
+
+  public void write(
+    final List<String> chunks)
+  {
+    final var current = this.sink;
+    for (final var chunk : chunks) {
+      current.write(chunk);
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+      "[CLPUsageOutput 0x%s]",
+      Long.toUnsignedString(System.identityHashCode(this), 16)
+    );
+  }
+}
@@ -26,7 +26,11 @@ module com.io7m.claypot.core
   requires static org.osgi.annotation.versioning;
 
   requires ch.qos.logback.classic;
+  requires ch.qos.logback.core;
+  requires java.management;
   requires jcommander;
+  requires jdk.jfr;
+  requires jdk.management;
   requires org.slf4j;
 
   opens com.io7m.claypot.core to jcommander;
@@ -37,6 +37,22 @@ public final class CEXOthersMain
 
   }
 
+  /**
+   * @return The application configuration
+   */
+
+  public static CLPApplicationConfiguration configuration()
+  {
+    return CLPApplicationConfiguration.builder()
+      .setProgramName("cex")
+      .addCommands(CEXBlue::new)
+      .addCommands(CEXGreen::new)
+      .addCommands(CEXRed::new)
+      .setLogger(LOG)
+      .setDocumentationURI(URI.create("https://www.example.com/"))
+      .build();
+  }
+
   /**
    * Main entry point.
    *
@@ -46,18 +62,6 @@ public final class CEXOthersMain
   public static void main(
     final String[] args)
   {
-    final var applicationConfiguration =
-      CLPApplicationConfiguration.builder()
-        .setProgramName("cex")
-        .addCommands(CEXBlue::new)
-        .addCommands(CEXGreen::new)
-        .addCommands(CEXRed::new)
-        .setLogger(LOG)
-        .setDocumentationURI(URI.create("https://www.example.com/"))
-        .build();
-
-    final var claypot = Claypot.create(applicationConfiguration);
-    claypot.execute(args);
-    System.exit(claypot.exitCode());
+    System.exit(Claypot.run(configuration(), args));
   }
 }
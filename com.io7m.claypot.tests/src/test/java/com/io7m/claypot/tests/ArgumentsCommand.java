@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParametersDelegate;
+import com.io7m.claypot.core.CLPAbstractCommand;
+import com.io7m.claypot.core.CLPArgumentStreamParameters;
+import com.io7m.claypot.core.CLPCommandContextType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static com.io7m.claypot.core.CLPCommandType.Status.SUCCESS;
+
+public final class ArgumentsCommand extends CLPAbstractCommand
+{
+  private final List<String> received;
+
+  @Parameter(description = "<argument> ...")
+  private List<String> positional = new ArrayList<>();
+
+  @ParametersDelegate
+  private final CLPArgumentStreamParameters argumentStream =
+    new CLPArgumentStreamParameters();
+
+  /**
+   * Construct a command.
+   *
+   * @param inContext  The command context
+   * @param inReceived The list that receives arguments
+   */
+
+  public ArgumentsCommand(
+    final CLPCommandContextType inContext,
+    final List<String> inReceived)
+  {
+    super(inContext);
+    this.received = Objects.requireNonNull(inReceived, "received");
+  }
+
+  @Override
+  protected Status executeActual()
+  {
+    for (final var argument : this.arguments(this.argumentStream, this.positional)) {
+      this.received.add(argument);
+    }
+    return SUCCESS;
+  }
+
+  @Override
+  public String name()
+  {
+    return "arguments";
+  }
+}
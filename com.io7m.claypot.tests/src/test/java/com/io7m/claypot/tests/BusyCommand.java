@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.io7m.claypot.core.CLPAbstractCommand;
+import com.io7m.claypot.core.CLPCommandContextType;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.io7m.claypot.core.CLPCommandType.Status.SUCCESS;
+
+public final class BusyCommand extends CLPAbstractCommand
+{
+  private long sink;
+
+  /**
+   * Construct a command that keeps its thread busy for a short time.
+   *
+   * @param inContext The command context
+   */
+
+  public BusyCommand(
+    final CLPCommandContextType inContext)
+  {
+    super(inContext);
+  }
+
+  private void spin()
+  {
+    for (int index = 0; index < 10_000; ++index) {
+      this.sink = this.sink * 31L + index;
+    }
+  }
+
+  @Override
+  protected Status executeActual()
+  {
+    final var timeEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300L);
+    while (System.nanoTime() < timeEnd) {
+      this.spin();
+    }
+    return SUCCESS;
+  }
+
+  @Override
+  public String name()
+  {
+    return "busy";
+  }
+}
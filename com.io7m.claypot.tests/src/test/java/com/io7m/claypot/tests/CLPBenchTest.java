@@ -0,0 +1,234 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.io7m.claypot.core.CLPAbstractCommand;
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.CLPCommandContextType;
+import com.io7m.claypot.core.CLPCommandGroups;
+import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.ClaypotType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public final class CLPBenchTest
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CLPBenchTest.class);
+
+  private Logger spyLog;
+  private List<String> received;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.spyLog = mock(Logger.class, delegatesTo(LOG));
+    this.received = new ArrayList<>();
+  }
+
+  private ClaypotType claypot()
+  {
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(this.spyLog)
+        .addCommands(context -> new ArgumentsCommand(context, this.received))
+        .addCommands(CrashCommand::new)
+        .addCommands(context -> new CommanderCommand(context, this.received))
+        .addCommands(CLPCommandGroups.group(
+          "storage",
+          "Storage commands.",
+          List.of(EmptyCommand::new)
+        ))
+        .build();
+
+    return Claypot.create(configuration);
+  }
+
+  private List<String> infoMessages()
+  {
+    final var captor = ArgumentCaptor.forClass(Object.class);
+    verify(this.spyLog, atLeastOnce()).info(eq("{}"), captor.capture());
+    final var messages = new ArrayList<String>();
+    for (final var value : captor.getAllValues()) {
+      messages.add(String.valueOf(value));
+    }
+    return messages;
+  }
+
+  @Test
+  public void parametersResetBetweenIterations()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{
+      "bench",
+      "--warmup-iterations",
+      "2",
+      "--iterations",
+      "5",
+      "--",
+      "arguments",
+      "x",
+      "y"
+    });
+
+    assertEquals(0, claypot.exitCode());
+
+    final var expected = new ArrayList<String>();
+    for (int index = 0; index < 7; ++index) {
+      expected.addAll(List.of("x", "y"));
+    }
+    assertEquals(expected, this.received);
+
+    final var result = this.infoMessages().stream()
+      .filter(message -> message.startsWith("arguments: 5 iterations, mean "))
+      .findFirst()
+      .orElseThrow();
+    assertTrue(result.contains(" p50 "), result);
+    assertTrue(result.contains(" p99 "), result);
+    assertTrue(result.endsWith(" bytes allocated per iteration"), result);
+  }
+
+  @Test
+  public void groupCommand()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{
+      "bench",
+      "--warmup-iterations",
+      "0",
+      "--iterations",
+      "1",
+      "storage",
+      "empty"
+    });
+
+    assertEquals(0, claypot.exitCode());
+    assertTrue(
+      this.infoMessages().stream()
+        .anyMatch(message -> message.startsWith("storage empty: 1 iterations")));
+  }
+
+  @Test
+  public void prefixesResolved()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{
+      "bench",
+      "--warmup-iterations",
+      "0",
+      "--iterations",
+      "2",
+      "--",
+      "arg",
+      "x",
+    });
+
+    assertEquals(0, claypot.exitCode());
+    assertEquals(List.of("x", "x"), this.received);
+  }
+
+  @Test
+  public void iterationCommander()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{
+      "bench",
+      "--warmup-iterations",
+      "0",
+      "--iterations",
+      "2",
+      "commander",
+    });
+
+    assertEquals(0, claypot.exitCode());
+    assertEquals(List.of("commander", "commander"), this.received);
+  }
+
+  @Test
+  public void unknownCommand()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{"bench", "nonexistent"});
+    assertEquals(1, claypot.exitCode());
+    verify(this.spyLog).error("{}", "Unknown command: nonexistent");
+
+    claypot.execute(new String[]{"bench", "storage"});
+    assertEquals(1, claypot.exitCode());
+  }
+
+  @Test
+  public void invalidIterations()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{"bench", "--iterations", "0", "arguments"});
+    assertEquals(1, claypot.exitCode());
+    assertEquals(Collections.emptyList(), this.received);
+  }
+
+  @Test
+  public void failingCommand()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{"bench", "crash"});
+    assertEquals(1, claypot.exitCode());
+    assertInstanceOf(IOException.class, claypot.exitCause().orElseThrow());
+  }
+
+  private static final class CommanderCommand extends CLPAbstractCommand
+  {
+    private final List<String> received;
+
+    CommanderCommand(
+      final CLPCommandContextType inContext,
+      final List<String> inReceived)
+    {
+      super(inContext);
+      this.received = inReceived;
+    }
+
+    @Override
+    protected Status executeActual()
+    {
+      this.received.add(this.commander().getParsedCommand());
+      return Status.SUCCESS;
+    }
+
+    @Override
+    public String name()
+    {
+      return "commander";
+    }
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.CLPCommandConstructorType;
+import com.io7m.claypot.core.CLPCommandGroupType;
+import com.io7m.claypot.core.CLPCommandGroups;
+import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.ClaypotType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public final class CLPCommandGroupTest
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CLPCommandGroupTest.class);
+
+  private Logger spyLog;
+  private AtomicInteger created;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.spyLog = mock(Logger.class, delegatesTo(LOG));
+    this.created = new AtomicInteger();
+  }
+
+  private CLPCommandConstructorType counting(
+    final CLPCommandConstructorType constructor)
+  {
+    return context -> {
+      this.created.incrementAndGet();
+      return constructor.create(context);
+    };
+  }
+
+  private ClaypotType claypot()
+  {
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(this.spyLog)
+        .addCommands(CLPCommandGroups.group(
+          "storage",
+          "Storage commands.",
+          List.of(
+            this.counting(EmptyCommand::new),
+            CLPCommandGroups.group(
+              "deep",
+              "Deeper commands.",
+              List.of(this.counting(CrashCommand::new))
+            )
+          )))
+        .addCommands(CLPCommandGroups.group(
+          "other",
+          "Other commands.",
+          List.of(this.counting(FloodCommand::new))
+        ))
+        .build();
+
+    return Claypot.create(configuration);
+  }
+
+  private String usageText()
+  {
+    final var captor = ArgumentCaptor.forClass(String.class);
+    verify(this.spyLog).info(eq("{}"), captor.capture());
+    return captor.getValue();
+  }
+
+  @Test
+  public void groupsAreNotInstantiatedEagerly()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[0]);
+
+    assertEquals(1, claypot.exitCode());
+    assertEquals(0, this.created.get());
+
+    final var text = this.usageText();
+    assertTrue(text.contains("Usage: cex"));
+    assertTrue(text.matches("(?s).*\\n    storage +Storage commands\\..*"));
+    assertTrue(text.matches("(?s).*\\n    other +Other commands\\..*"));
+  }
+
+  @Test
+  public void groupCommandExecutes()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{"storage", "empty", "--verbose", "debug"});
+
+    assertEquals(0, claypot.exitCode());
+    assertEquals(1, this.created.get());
+  }
+
+  @Test
+  public void nestedGroupCommandExecutes()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{"--verbose", "info", "storage", "deep", "crash"});
+
+    assertEquals(1, claypot.exitCode());
+    assertInstanceOf(IOException.class, claypot.exitCause().orElseThrow());
+    assertEquals(2, this.created.get());
+  }
+
+  @Test
+  public void groupWithoutCommandShowsUsage()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{"storage"});
+
+    assertEquals(1, claypot.exitCode());
+
+    final var text = this.usageText();
+    assertTrue(text.contains("Usage: cex storage [command] [command options]"));
+    assertTrue(text.matches("(?s).*\\n    deep +Deeper commands\\..*"));
+    assertTrue(text.matches("(?s).*\\n    empty +.*"));
+    assertTrue(!text.contains("crash"));
+  }
+
+  @Test
+  public void helpNested()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{"help", "storage", "deep", "crash"});
+
+    assertEquals(0, claypot.exitCode());
+    assertEquals(2, this.created.get());
+    assertTrue(this.usageText().contains("Usage: crash"));
+  }
+
+  @Test
+  public void helpNestedUnknown()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{"help", "storage", "nonexistent"});
+
+    assertEquals(1, claypot.exitCode());
+    verify(this.spyLog)
+      .error("Unknown command: {}", "storage nonexistent");
+  }
+
+  @Test
+  public void commandsHierarchy()
+  {
+    final var claypot = this.claypot();
+    final var commands = claypot.commands();
+    assertEquals(Set.of("bench", "help", "other", "storage"), commands.keySet());
+    assertEquals(0, this.created.get());
+
+    final var storage =
+      assertInstanceOf(CLPCommandGroupType.class, commands.get("storage"));
+    assertEquals("Storage commands.", storage.description());
+    assertEquals(Set.of("deep", "empty"), storage.commands().keySet());
+    assertEquals(1, this.created.get());
+  }
+
+  @Test
+  public void groupConflict()
+  {
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(this.spyLog)
+        .addCommands(CLPCommandGroups.group(
+          "storage",
+          "Storage commands.",
+          List.of(EmptyCommand::new, EmptyCommand::new)
+        ))
+        .build();
+
+    final var claypot = Claypot.create(configuration);
+    claypot.execute(new String[]{"storage", "empty"});
+
+    assertEquals(1, claypot.exitCode());
+    assertInstanceOf(
+      IllegalStateException.class,
+      claypot.exitCause().orElseThrow());
+  }
+}
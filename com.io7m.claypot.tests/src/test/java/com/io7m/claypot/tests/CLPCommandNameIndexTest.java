@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.io7m.claypot.core.internal.CLPCommandNameIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class CLPCommandNameIndexTest
+{
+  private static final CLPCommandNameIndex INDEX =
+    CLPCommandNameIndex.of(
+      List.of("blue", "green", "grey", "help", "red", "version"));
+
+  @Test
+  public void distance()
+  {
+    assertEquals(0, CLPCommandNameIndex.distance("green", "green"));
+    assertEquals(1, CLPCommandNameIndex.distance("gren", "green"));
+    assertEquals(3, CLPCommandNameIndex.distance("kitten", "sitting"));
+    assertEquals(5, CLPCommandNameIndex.distance("a", "abcdef"));
+    assertEquals(3, CLPCommandNameIndex.distance("", "abc"));
+    assertEquals(1, CLPCommandNameIndex.distance("emtpy", "empty"));
+  }
+
+  @Test
+  public void uniquePrefix()
+  {
+    assertEquals(Optional.of("green"), INDEX.uniquePrefix("gree"));
+    assertEquals(Optional.of("version"), INDEX.uniquePrefix("v"));
+    assertEquals(Optional.of("red"), INDEX.uniquePrefix("red"));
+    assertEquals(Optional.empty(), INDEX.uniquePrefix("gr"));
+    assertEquals(Optional.empty(), INDEX.uniquePrefix("x"));
+    assertEquals(Optional.empty(), INDEX.uniquePrefix("reds"));
+  }
+
+  @Test
+  public void withPrefix()
+  {
+    assertEquals(List.of("green", "grey"), INDEX.withPrefix("gr"));
+    assertEquals(List.of(), INDEX.withPrefix("z"));
+  }
+
+  @Test
+  public void suggestions()
+  {
+    assertEquals(List.of("green", "grey"), INDEX.suggestions("gren"));
+    assertEquals(List.of("blue"), INDEX.suggestions("bleu"));
+    assertEquals(List.of("grey"), INDEX.suggestions("grye"));
+    assertEquals(List.of("version"), INDEX.suggestions("verison"));
+    assertEquals(List.of(), INDEX.suggestions("purple"));
+    assertEquals(List.of(), CLPCommandNameIndex.of(List.of()).suggestions("x"));
+  }
+
+  @Test
+  public void suggestionsMany()
+  {
+    final var names = new ArrayList<String>();
+    for (int index = 0; index < 10000; index += 1) {
+      names.add(String.format("command-%05d", Integer.valueOf(index)));
+    }
+
+    final var index = CLPCommandNameIndex.of(names);
+    assertEquals(10000, index.size());
+    assertEquals(
+      List.of("command-01234"),
+      index.suggestions("commadn-01234").subList(0, 1));
+    assertEquals(10, index.withPrefix("command-0999").size());
+    assertEquals(Optional.empty(), index.uniquePrefix("command-0999"));
+  }
+}
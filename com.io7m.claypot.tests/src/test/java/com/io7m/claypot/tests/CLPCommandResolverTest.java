@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.beust.jcommander.ParameterException;
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.CLPCommandGroups;
+import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.ClaypotType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public final class CLPCommandResolverTest
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CLPCommandResolverTest.class);
+
+  private Logger spyLog;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.spyLog = mock(Logger.class, delegatesTo(LOG));
+  }
+
+  private ClaypotType claypot()
+  {
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(this.spyLog)
+        .addCommands(CrashCommand::new)
+        .addCommands(EmptyCommand::new)
+        .addCommands(CLPCommandGroups.group(
+          "storage",
+          "Storage commands.",
+          List.of(
+            EmptyCommand::new,
+            FloodCommand::new,
+            CLPCommandGroups.group(
+              "entries",
+              "Entry commands.",
+              List.of(CrashCommand::new))
+          )
+        ))
+        .build();
+
+    return Claypot.create(configuration);
+  }
+
+  @Test
+  public void exactName()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{"empty"});
+    assertEquals(0, claypot.exitCode());
+  }
+
+  @Test
+  public void uniquePrefix()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{"cr"});
+    assertEquals(1, claypot.exitCode());
+    assertInstanceOf(IOException.class, claypot.exitCause().orElseThrow());
+  }
+
+  @Test
+  public void uniquePrefixAfterOptions()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{"--verbose", "debug", "em", "--verbose", "info"});
+    assertEquals(0, claypot.exitCode());
+  }
+
+  @Test
+  public void uniquePrefixNested()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{"st", "em"});
+    assertEquals(0, claypot.exitCode());
+  }
+
+  @Test
+  public void ambiguousPrefix()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{"storage", "e"});
+    assertEquals(1, claypot.exitCode());
+    assertInstanceOf(
+      ParameterException.class,
+      claypot.exitCause().orElseThrow());
+    verify(this.spyLog)
+      .error("{}", "Ambiguous command: e (could be any of: empty, entries)");
+  }
+
+  @Test
+  public void unknown()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{"--verbose", "info", "storage", "xyz"});
+    assertEquals(1, claypot.exitCode());
+    verify(this.spyLog).error("{}", "Unknown command: xyz");
+  }
+
+  @Test
+  public void unknownWithSuggestion()
+  {
+    final var claypot = this.claypot();
+    claypot.execute(new String[]{"emtpy"});
+    assertEquals(1, claypot.exitCode());
+    verify(this.spyLog)
+      .error("{}", "Unknown command: emtpy (did you mean: empty?)");
+  }
+}
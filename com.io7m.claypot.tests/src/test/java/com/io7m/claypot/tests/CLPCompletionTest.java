@@ -0,0 +1,212 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.beust.jcommander.JCommander;
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.CLPCommandContextType;
+import com.io7m.claypot.core.CLPCommandGroups;
+import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.internal.CLPCommandRoot;
+import com.io7m.claypot.core.internal.CLPCompletionIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public final class CLPCompletionTest
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CLPCompletionTest.class);
+
+  private Logger spyLog;
+  private StringWriter writer;
+  private CLPApplicationConfiguration configuration;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.spyLog = mock(Logger.class, delegatesTo(LOG));
+    this.writer = new StringWriter();
+    this.configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(this.spyLog)
+        .setUsageWriter(this.writer)
+        .addCommands(CrashCommand::new)
+        .addCommands(EmptyCommand::new)
+        .addCommands(CLPCommandGroups.group(
+          "storage",
+          "Storage commands.",
+          List.of(EmptyCommand::new, FloodCommand::new)
+        ))
+        .build();
+  }
+
+  private List<String> complete(
+    final String... words)
+  {
+    final var args = new String[words.length + 1];
+    args[0] = "__complete";
+    System.arraycopy(words, 0, args, 1, words.length);
+    this.writer.getBuffer().setLength(0);
+    assertEquals(0, Claypot.run(this.configuration, args));
+    return this.writer.toString().lines().toList();
+  }
+
+  @Test
+  public void completeCommands()
+  {
+    assertEquals(
+      List.of("bench", "crash", "empty", "help", "storage"),
+      this.complete(""));
+  }
+
+  @Test
+  public void completeCommandPrefix()
+  {
+    assertEquals(List.of("storage"), this.complete("s"));
+  }
+
+  @Test
+  public void completeGroupCommands()
+  {
+    assertEquals(List.of("empty", "flood"), this.complete("storage", ""));
+  }
+
+  @Test
+  public void completeOptions()
+  {
+    assertEquals(
+      List.of("--output-format", "--verbose"),
+      this.complete("--"));
+    assertEquals(List.of("--verbose"), this.complete("empty", "--v"));
+    assertEquals(
+      List.of("--search", "--verbose"),
+      this.complete("help", "-"));
+  }
+
+  @Test
+  public void completeLogLevels()
+  {
+    assertEquals(
+      List.of("trace", "debug", "info", "warn", "error"),
+      this.complete("empty", "--verbose", ""));
+    assertEquals(List.of("debug"), this.complete("--verbose", "d"));
+  }
+
+  @Test
+  public void completeEnumValues()
+  {
+    assertEquals(List.of("jsonl"), this.complete("--output-format", "j"));
+  }
+
+  @Test
+  public void completeAfterOptionValue()
+  {
+    assertEquals(
+      List.of("empty"),
+      this.complete("--verbose", "debug", "storage", "e"));
+  }
+
+  @Test
+  public void completeInstance()
+  {
+    final var claypot = Claypot.create(this.configuration);
+    claypot.execute(new String[]{"__complete", "storage", "f"});
+    assertEquals(0, claypot.exitCode());
+    assertEquals("flood\n", this.writer.toString());
+  }
+
+  @Test
+  public void scriptBash()
+  {
+    assertEquals(
+      0,
+      Claypot.run(
+        this.configuration, new String[]{"__completion-script", "bash"}));
+
+    final var text = this.writer.toString();
+    assertTrue(text.contains("_cex_complete()"));
+    assertTrue(text.contains("\"cex\" __complete"));
+    assertTrue(text.contains("complete -o default -F _cex_complete \"cex\""));
+  }
+
+  @Test
+  public void scriptZsh()
+  {
+    assertEquals(
+      0,
+      Claypot.run(
+        this.configuration, new String[]{"__completion-script", "zsh"}));
+
+    final var text = this.writer.toString();
+    assertTrue(text.startsWith("#compdef cex\n"));
+    assertTrue(text.contains("compdef _cex_complete \"cex\""));
+  }
+
+  @Test
+  public void scriptUnknown()
+  {
+    assertEquals(
+      1,
+      Claypot.run(
+        this.configuration, new String[]{"__completion-script", "fish"}));
+    verify(this.spyLog)
+      .error("{}", "Unrecognized shell: fish (must be one of: bash, zsh)");
+  }
+
+  @Test
+  public void writeRead()
+    throws IOException
+  {
+    final var commander = new JCommander();
+    final var context = Mockito.mock(CLPCommandContextType.class);
+    Mockito.when(context.commander()).thenReturn(commander);
+    commander.addObject(new CLPCommandRoot(context));
+    commander.addCommand("crash", new CrashCommand(context));
+    commander.addCommand("flood", new FloodCommand(context));
+
+    final var index = CLPCompletionIndex.build(commander);
+    assertEquals(List.of("crash", "flood"), index.complete(List.of("")));
+
+    final var bytes = new ByteArrayOutputStream();
+    try (var output = new DataOutputStream(bytes)) {
+      index.write(output);
+    }
+
+    final var read =
+      CLPCompletionIndex.read(
+        new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(index, read);
+  }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.beust.jcommander.IStringConverter;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.io7m.claypot.core.CLPAbstractCommand;
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.CLPByteSize;
+import com.io7m.claypot.core.CLPCommandContextType;
+import com.io7m.claypot.core.CLPLogLevel;
+import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.internal.CLPConverterRegistry;
+import com.io7m.claypot.core.internal.CLPLogLevelConverter;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.io7m.claypot.core.CLPCommandType.Status.SUCCESS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CLPConverterRegistryTest
+{
+  private static final CLPConverterRegistry REGISTRY =
+    CLPConverterRegistry.shared();
+
+  private static Object convert(
+    final Class<?> type,
+    final String value)
+  {
+    final IStringConverter<?> converter =
+      REGISTRY.getConverterInstance(null, type, null);
+    return converter.convert(value);
+  }
+
+  @Test
+  public void convertersShared()
+  {
+    for (final var type : List.of(
+      CLPLogLevel.class,
+      Path.class,
+      URI.class,
+      Duration.class,
+      CLPByteSize.class,
+      PathMatcher.class,
+      ChronoUnit.class)) {
+      assertSame(
+        REGISTRY.getConverterInstance(null, type, null),
+        REGISTRY.getConverterInstance(null, type, null)
+      );
+    }
+    assertNull(REGISTRY.getConverterInstance(null, String.class, null));
+  }
+
+  @Test
+  public void logLevels()
+  {
+    assertEquals(CLPLogLevel.LOG_DEBUG, convert(CLPLogLevel.class, "debug"));
+    assertThrows(RuntimeException.class, () -> {
+      convert(CLPLogLevel.class, "loud");
+    });
+  }
+
+  @Test
+  public void enums()
+  {
+    assertEquals(ChronoUnit.DAYS, convert(ChronoUnit.class, "DAYS"));
+    assertEquals(ChronoUnit.DAYS, convert(ChronoUnit.class, "Days"));
+    assertEquals(ChronoUnit.DAYS, convert(ChronoUnit.class, "days"));
+
+    final var ex =
+      assertThrows(ParameterException.class, () -> {
+        convert(ChronoUnit.class, "fortnights");
+      });
+    assertTrue(ex.getMessage().contains("Unrecognized value: fortnights"));
+  }
+
+  @Test
+  public void durations()
+  {
+    assertEquals(Duration.ofMillis(250L), convert(Duration.class, "250ms"));
+    assertEquals(Duration.ofSeconds(5L), convert(Duration.class, "5s"));
+    assertEquals(Duration.ofMinutes(2L), convert(Duration.class, "2m"));
+    assertEquals(Duration.ofHours(1L), convert(Duration.class, "1h"));
+    assertEquals(Duration.ofDays(3L), convert(Duration.class, "3d"));
+    assertEquals(Duration.ofSeconds(90L), convert(Duration.class, "PT1M30S"));
+
+    final var ex =
+      assertThrows(ParameterException.class, () -> {
+        convert(Duration.class, "5 fortnights");
+      });
+    assertEquals("Invalid duration: 5 fortnights", ex.getMessage());
+  }
+
+  @Test
+  public void byteSizes()
+  {
+    assertEquals(new CLPByteSize(512L), convert(CLPByteSize.class, "512"));
+    assertEquals(new CLPByteSize(65536L), convert(CLPByteSize.class, "64k"));
+    assertEquals(new CLPByteSize(65536L), convert(CLPByteSize.class, "64KiB"));
+    assertEquals(new CLPByteSize(10_000_000L), convert(CLPByteSize.class, "10MB"));
+    assertEquals(new CLPByteSize(1L << 30), convert(CLPByteSize.class, "1g"));
+
+    assertEquals(Optional.empty(), CLPByteSize.parse("k"));
+    assertEquals(Optional.empty(), CLPByteSize.parse("10 parsecs"));
+    assertEquals(Optional.empty(), CLPByteSize.parse("99999999999999t"));
+    assertThrows(ParameterException.class, () -> {
+      convert(CLPByteSize.class, "lots");
+    });
+  }
+
+  @Test
+  public void pathsAndURIs()
+  {
+    assertEquals(Path.of("a/b"), convert(Path.class, "a/b"));
+    assertEquals(
+      URI.create("https://www.io7m.com"),
+      convert(URI.class, "https://www.io7m.com"));
+    assertThrows(ParameterException.class, () -> {
+      convert(URI.class, "not a uri");
+    });
+  }
+
+  @Test
+  public void pathMatchers()
+  {
+    final var matcher = (PathMatcher) convert(PathMatcher.class, "*.txt");
+    assertTrue(matcher.matches(Path.of("x.txt")));
+    assertFalse(matcher.matches(Path.of("x.png")));
+
+    final var regex = (PathMatcher) convert(PathMatcher.class, "regex:x+");
+    assertTrue(regex.matches(Path.of("xxx")));
+
+    assertThrows(ParameterException.class, () -> {
+      convert(PathMatcher.class, "[");
+    });
+  }
+
+  @Test
+  public void commandsUseRegistry()
+  {
+    final var received = new ArrayList<Object>();
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(LoggerFactory.getLogger(CLPConverterRegistryTest.class))
+        .addCommands(context -> new TypedCommand(context, received))
+        .build();
+
+    final var claypot = Claypot.create(configuration);
+    claypot.execute(new String[]{
+      "typed",
+      "--timeout", "10s",
+      "--size", "4k",
+      "--unit", "hours",
+      "--include", "*.txt",
+      "--include", "*.png",
+    });
+
+    assertEquals(0, claypot.exitCode());
+    assertEquals(Duration.ofSeconds(10L), received.get(0));
+    assertEquals(new CLPByteSize(4096L), received.get(1));
+    assertEquals(ChronoUnit.HOURS, received.get(2));
+    assertEquals(2, received.get(3));
+  }
+
+  @Test
+  public void errorsNameTheOption()
+  {
+    final var converter =
+      REGISTRY.getConverterInstance(null, Duration.class, "--timeout");
+    assertSame(
+      converter,
+      REGISTRY.getConverterInstance(null, Duration.class, "--timeout"));
+
+    final var ex =
+      assertThrows(ParameterException.class, () -> {
+        converter.convert("5 fortnights");
+      });
+    assertEquals(
+      "Invalid duration for --timeout: 5 fortnights",
+      ex.getMessage());
+  }
+
+  @Test
+  public void explicitConvertersInstantiable()
+  {
+    final var received = new ArrayList<Object>();
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(LoggerFactory.getLogger(CLPConverterRegistryTest.class))
+        .addCommands(context -> new ExplicitCommand(context, received))
+        .build();
+
+    final var claypot = Claypot.create(configuration);
+    claypot.execute(new String[]{"explicit", "--level", "debug"});
+
+    assertEquals(0, claypot.exitCode());
+    assertEquals(List.of(CLPLogLevel.LOG_DEBUG), received);
+  }
+
+  private static final class ExplicitCommand extends CLPAbstractCommand
+  {
+    private final List<Object> received;
+
+    @Parameter(names = "--level", converter = CLPLogLevelConverter.class)
+    private CLPLogLevel level;
+
+    ExplicitCommand(
+      final CLPCommandContextType inContext,
+      final List<Object> inReceived)
+    {
+      super(inContext);
+      this.received = inReceived;
+    }
+
+    @Override
+    protected Status executeActual()
+    {
+      this.received.add(this.level);
+      return SUCCESS;
+    }
+
+    @Override
+    public String name()
+    {
+      return "explicit";
+    }
+  }
+
+  private static final class TypedCommand extends CLPAbstractCommand
+  {
+    private final List<Object> received;
+
+    @Parameter(names = "--timeout")
+    private Duration timeout;
+
+    @Parameter(names = "--size")
+    private CLPByteSize size;
+
+    @Parameter(names = "--unit")
+    private ChronoUnit unit;
+
+    @Parameter(names = "--include")
+    private List<PathMatcher> includes = new ArrayList<>();
+
+    TypedCommand(
+      final CLPCommandContextType inContext,
+      final List<Object> inReceived)
+    {
+      super(inContext);
+      this.received = inReceived;
+    }
+
+    @Override
+    protected Status executeActual()
+    {
+      this.received.add(this.timeout);
+      this.received.add(this.size);
+      this.received.add(this.unit);
+      this.received.add(Integer.valueOf(this.includes.size()));
+      return SUCCESS;
+    }
+
+    @Override
+    public String name()
+    {
+      return "typed";
+    }
+  }
+}
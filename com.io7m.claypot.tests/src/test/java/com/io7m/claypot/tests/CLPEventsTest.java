@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.Claypot;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CLPEventsTest
+{
+  private static final List<String> EVENTS = List.of(
+    "com.io7m.claypot.Create",
+    "com.io7m.claypot.Parse",
+    "com.io7m.claypot.Execute",
+    "com.io7m.claypot.Usage",
+    "com.io7m.claypot.ExceptionReport"
+  );
+
+  private static List<RecordedEvent> named(
+    final List<RecordedEvent> events,
+    final String name)
+  {
+    return events.stream()
+      .filter(e -> e.getEventType().getName().equals(name))
+      .toList();
+  }
+
+  @Test
+  public void eventsRecorded(
+    final @TempDir Path directory)
+    throws IOException
+  {
+    final var file = directory.resolve("claypot.jfr");
+
+    try (var recording = new Recording()) {
+      for (final var name : EVENTS) {
+        recording.enable(name).withThreshold(Duration.ZERO);
+      }
+      recording.start();
+
+      final var configuration =
+        CLPApplicationConfiguration.builder()
+          .setProgramName("cex")
+          .setLogger(LoggerFactory.getLogger(CLPEventsTest.class))
+          .setUsageWriter(new StringWriter())
+          .addCommands(EmptyCommand::new)
+          .addCommands(CrashCommand::new)
+          .build();
+
+      final var claypot = Claypot.create(configuration);
+      claypot.execute(new String[]{"empty", "--verbose", "info"});
+      claypot.execute(new String[]{"crash"});
+      claypot.execute(new String[]{"help"});
+
+      recording.stop();
+      recording.dump(file);
+    }
+
+    final var events = RecordingFile.readAllEvents(file);
+
+    final var created = named(events, "com.io7m.claypot.Create");
+    assertEquals(1, created.size());
+    assertEquals(4, created.get(0).getInt("commandCount"));
+
+    final var parsed = named(events, "com.io7m.claypot.Parse");
+    assertEquals(3, parsed.size());
+    assertEquals("empty", parsed.get(0).getString("commandName"));
+    assertEquals(3, parsed.get(0).getInt("argumentCount"));
+
+    final var executed = named(events, "com.io7m.claypot.Execute");
+    assertEquals(3, executed.size());
+    assertEquals("empty", executed.get(0).getString("commandName"));
+    assertEquals(0, executed.get(0).getInt("exitCode"));
+    assertEquals("crash", executed.get(1).getString("commandName"));
+    assertEquals(1, executed.get(1).getInt("exitCode"));
+    assertEquals("help", executed.get(2).getString("commandName"));
+
+    final var reported = named(events, "com.io7m.claypot.ExceptionReport");
+    assertEquals(1, reported.size());
+    assertEquals("crash", reported.get(0).getString("commandName"));
+    assertEquals(1, reported.get(0).getInt("exitCode"));
+    assertTrue(reported.get(0).getString("exceptionClass").contains("IOException"));
+
+    final var usage = named(events, "com.io7m.claypot.Usage");
+    assertEquals(1, usage.size());
+    assertEquals("long", usage.get(0).getString("kind"));
+  }
+}
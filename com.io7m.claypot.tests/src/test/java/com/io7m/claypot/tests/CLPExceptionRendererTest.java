@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.io7m.claypot.core.internal.CLPExceptionRenderer;
+import com.io7m.claypot.core.internal.CLPExceptionReportSinkType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CLPExceptionRendererTest
+{
+  private static Exception nest(
+    final int depth)
+  {
+    if (depth == 0) {
+      return new IOException("Bottom");
+    }
+    return new IllegalStateException("Level " + depth, nest(depth - 1));
+  }
+
+  @Test
+  public void circularCausesTerminate()
+  {
+    final var a = new IOException("A");
+    final var b = new IllegalStateException("B");
+    a.initCause(b);
+    b.initCause(a);
+    b.addSuppressed(a);
+
+    final var sink = new RecordingSink(false);
+    new CLPExceptionRenderer().render(a, sink);
+
+    assertEquals(
+      List.of(
+        "ROOT java.io.IOException",
+        "CAUSE java.lang.IllegalStateException",
+        "CIRCULAR SUPPRESSED java.io.IOException",
+        "CIRCULAR CAUSE java.io.IOException",
+        "FINISHED"
+      ),
+      sink.events
+    );
+  }
+
+  @Test
+  public void sharedFramesAreCollapsed()
+  {
+    final var exception = nest(3);
+
+    final var sink = new RecordingSink(true);
+    new CLPExceptionRenderer().render(exception, sink);
+
+    final var common =
+      sink.events.stream()
+        .filter(e -> e.startsWith("COMMON"))
+        .count();
+
+    assertEquals(8, sink.events.size());
+    assertEquals(3L, common);
+    assertTrue(sink.frames > 0);
+  }
+
+  @Test
+  public void stackTracesOnlyWhenWanted()
+  {
+    final var sink = new RecordingSink(false);
+    new CLPExceptionRenderer().render(nest(3), sink);
+    assertEquals(0, sink.frames);
+    assertEquals(5, sink.events.size());
+  }
+
+  @Test
+  public void depthIsLimited()
+  {
+    final var sink = new RecordingSink(false);
+    new CLPExceptionRenderer(4, 65536L).render(nest(100), sink);
+    assertEquals(7, sink.events.size());
+    assertEquals("TRUNCATED", sink.events.get(5));
+  }
+
+  @Test
+  public void sizeIsLimited()
+  {
+    final var sink = new RecordingSink(true);
+    new CLPExceptionRenderer(1000, 1024L).render(nest(100), sink);
+    assertEquals("TRUNCATED", sink.events.get(sink.events.size() - 2));
+    assertTrue(sink.events.size() < 100);
+  }
+
+  private static final class RecordingSink
+    implements CLPExceptionReportSinkType
+  {
+    private final boolean traces;
+    private final List<String> events;
+    private int frames;
+
+    RecordingSink(
+      final boolean inTraces)
+    {
+      this.traces = inTraces;
+      this.events = new ArrayList<>();
+    }
+
+    @Override
+    public boolean wantsStackTraces()
+    {
+      return this.traces;
+    }
+
+    @Override
+    public void onException(
+      final Throwable exception,
+      final Relation relation,
+      final int depth)
+    {
+      this.events.add(relation + " " + exception.getClass().getName());
+    }
+
+    @Override
+    public void onStackTraceStart(
+      final Throwable exception)
+    {
+
+    }
+
+    @Override
+    public void onStackFrame(
+      final StackTraceElement element)
+    {
+      ++this.frames;
+    }
+
+    @Override
+    public void onStackFramesInCommon(
+      final int count)
+    {
+      this.events.add("COMMON " + count);
+    }
+
+    @Override
+    public void onCircularReference(
+      final Throwable exception,
+      final Relation relation)
+    {
+      this.events.add(
+        "CIRCULAR " + relation + " " + exception.getClass().getName());
+    }
+
+    @Override
+    public void onTruncated()
+    {
+      this.events.add("TRUNCATED");
+    }
+
+    @Override
+    public void onReportFinished()
+    {
+      this.events.add("FINISHED");
+    }
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.CLPFlightRecorderConfiguration;
+import com.io7m.claypot.core.CLPFlightRecorderFile;
+import com.io7m.claypot.core.CLPLogLevel;
+import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.internal.CLPFlightRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CLPFlightRecorderTest
+{
+  private Path directory;
+  private Path file;
+
+  @BeforeEach
+  public void setup(
+    final @TempDir Path inDirectory)
+  {
+    this.directory = inDirectory;
+    this.file = inDirectory.resolve("recorder.bin");
+  }
+
+  private List<Path> files()
+    throws IOException
+  {
+    try (var stream = Files.list(this.directory)) {
+      return stream.sorted().toList();
+    }
+  }
+
+  @Test
+  public void recordsSuppressedEvents()
+    throws IOException
+  {
+    final var logger = (Logger) LoggerFactory.getLogger("recorder");
+    logger.setLevel(Level.INFO);
+
+    final var recorder =
+      CLPFlightRecorder.open(
+        CLPFlightRecorderConfiguration.builder()
+          .setFile(this.file)
+          .setEventCount(4)
+          .build()
+      );
+
+    for (int index = 0; index < 6; ++index) {
+      recorder.decide(
+        null,
+        logger,
+        Level.DEBUG,
+        "Event {} of {}",
+        new Object[]{Integer.valueOf(index), "six"},
+        null
+      );
+    }
+    recorder.close(true);
+
+    final var events = CLPFlightRecorderFile.read(recorder.file());
+    assertEquals(4, events.size());
+    for (int index = 0; index < 4; ++index) {
+      final var event = events.get(index);
+      assertEquals(index + 3L, event.sequence());
+      assertEquals(CLPLogLevel.LOG_DEBUG, event.level());
+      assertEquals("recorder", event.loggerName());
+      assertEquals("Event %d of six".formatted(index + 2), event.message());
+      assertFalse(event.truncated());
+    }
+  }
+
+  @Test
+  public void truncatesLongEvents()
+    throws IOException
+  {
+    final var logger = (Logger) LoggerFactory.getLogger("recorder");
+    final var recorder =
+      CLPFlightRecorder.open(
+        CLPFlightRecorderConfiguration.builder()
+          .setFile(this.file)
+          .setEventCount(1)
+          .setEventSize(64)
+          .build()
+      );
+
+    recorder.decide(
+      null, logger, Level.INFO, "{}", new Object[]{"x".repeat(1000)}, null);
+    recorder.close(true);
+
+    final var events = CLPFlightRecorderFile.read(recorder.file());
+    assertEquals(1, events.size());
+    assertTrue(events.get(0).truncated());
+  }
+
+  @Test
+  public void argumentsRecordedWhenLogged()
+    throws IOException
+  {
+    final var logger = (Logger) LoggerFactory.getLogger("recorder");
+    final var argument = new StringBuilder("before");
+
+    final var recorder =
+      CLPFlightRecorder.open(
+        CLPFlightRecorderConfiguration.builder()
+          .setFile(this.file)
+          .build()
+      );
+    recorder.decide(
+      null, logger, Level.DEBUG, "{}", new Object[]{argument}, null);
+    argument.setLength(0);
+    argument.append("after");
+
+    /*
+     * The file is readable before it is closed, as it would be after a
+     * crash.
+     */
+
+    final var events = CLPFlightRecorderFile.read(recorder.file());
+    assertEquals("before", events.get(0).message());
+    recorder.close(true);
+  }
+
+  @Test
+  public void eventsAfterCloseIgnored()
+    throws IOException
+  {
+    final var logger = (Logger) LoggerFactory.getLogger("recorder");
+    final var recorder =
+      CLPFlightRecorder.open(
+        CLPFlightRecorderConfiguration.builder()
+          .setFile(this.file)
+          .build()
+      );
+    recorder.close(false);
+    recorder.decide(null, logger, Level.INFO, "After", null, null);
+    assertEquals(List.of(), this.files());
+  }
+
+  @Test
+  public void notRecorderFile()
+    throws IOException
+  {
+    Files.writeString(this.file, "Not a recorder file.");
+    assertThrows(IOException.class, () -> CLPFlightRecorderFile.read(this.file));
+  }
+
+  @Test
+  public void keptOnFailure()
+    throws IOException
+  {
+    final var claypot = Claypot.create(this.configuration());
+    claypot.execute(new String[]{"crash"});
+    assertEquals(1, claypot.exitCode());
+
+    final var files = this.files();
+    assertEquals(1, files.size());
+    final var name = files.get(0).getFileName().toString();
+    assertTrue(name.startsWith("recorder-"), name);
+    assertTrue(name.endsWith(".bin"), name);
+
+    final var events = CLPFlightRecorderFile.read(files.get(0));
+    assertTrue(
+      events.stream()
+        .anyMatch(e -> e.message().contains("java.io.IOException"))
+    );
+  }
+
+  @Test
+  public void keptFilesNotOverwritten()
+    throws IOException
+  {
+    final var claypot = Claypot.create(this.configuration());
+    claypot.execute(new String[]{"crash"});
+    final var first = this.files();
+    assertEquals(1, first.size());
+    final var firstEvents = CLPFlightRecorderFile.read(first.get(0));
+
+    claypot.execute(new String[]{"crash"});
+    claypot.execute(new String[]{"empty"});
+    assertEquals(2, this.files().size());
+    assertEquals(firstEvents, CLPFlightRecorderFile.read(first.get(0)));
+  }
+
+  @Test
+  public void deletedOnSuccess()
+    throws IOException
+  {
+    final var claypot = Claypot.create(this.configuration());
+    claypot.execute(new String[]{"empty"});
+    assertEquals(0, claypot.exitCode());
+    assertEquals(List.of(), this.files());
+  }
+
+  private CLPApplicationConfiguration configuration()
+  {
+    return CLPApplicationConfiguration.builder()
+      .setProgramName("cex")
+      .setLogger(LoggerFactory.getLogger(Claypot.class))
+      .addCommands(CrashCommand::new)
+      .addCommands(EmptyCommand::new)
+      .setFlightRecorder(
+        CLPFlightRecorderConfiguration.builder()
+          .setFile(this.file)
+          .build())
+      .build();
+  }
+}
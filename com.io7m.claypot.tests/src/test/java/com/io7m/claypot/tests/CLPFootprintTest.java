@@ -0,0 +1,209 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.ClaypotType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Heap footprint regression tests. Each test builds many instances with a
+ * varying number of synthetic commands, measures the heap retained after
+ * forcing garbage collection, and fails if the cost exceeds the budget in
+ * {@code footprint.properties}. Costs are derived from the difference
+ * between instances with and without commands, so that the fixed cost of
+ * an instance does not distort the cost per command.
+ */
+
+public final class CLPFootprintTest
+{
+  private static final int INSTANCES = 16;
+  private static final int COMMANDS = 64;
+
+  private static Properties budget;
+
+  @BeforeAll
+  public static void loadBudget()
+    throws IOException
+  {
+    budget = new Properties();
+    try (var stream =
+           CLPFootprintTest.class.getResourceAsStream("footprint.properties")) {
+      budget.load(stream);
+    }
+  }
+
+  private static long budgetOf(
+    final String name)
+  {
+    return Long.parseLong(budget.getProperty(name));
+  }
+
+  private static long collectionCount()
+  {
+    long count = 0L;
+    for (final GarbageCollectorMXBean bean :
+      ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(0L, bean.getCollectionCount());
+    }
+    return count;
+  }
+
+  private static long settledHeap()
+  {
+    final var countThen = collectionCount();
+    for (int index = 0; index < 4; ++index) {
+      System.gc();
+    }
+    assumeTrue(
+      collectionCount() > countThen,
+      "Explicit garbage collection appears to be disabled");
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private static ClaypotType instance(
+    final int commands)
+  {
+    final var builder =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(LoggerFactory.getLogger(CLPFootprintTest.class))
+        .setUsageWriter(Writer.nullWriter());
+
+    for (int index = 0; index < commands; ++index) {
+      final var name = "synthetic-" + index;
+      builder.addCommands(context -> new SyntheticCommand(context, name));
+    }
+    return Claypot.create(builder.build());
+  }
+
+  private static long retained(
+    final int commands,
+    final Consumer<ClaypotType> prepare)
+  {
+    final var before = settledHeap();
+    final var instances = new ArrayList<ClaypotType>(INSTANCES);
+    for (int index = 0; index < INSTANCES; ++index) {
+      final var instance = instance(commands);
+      prepare.accept(instance);
+      instances.add(instance);
+    }
+    final var after = settledHeap();
+    Reference.reachabilityFence(instances);
+    return after - before;
+  }
+
+  /**
+   * Take the smallest of several measurements, as unrelated allocations can
+   * only ever inflate a measurement.
+   */
+
+  private static long minimumRetained(
+    final int commands,
+    final Consumer<ClaypotType> prepare)
+  {
+    long minimum = Long.MAX_VALUE;
+    for (int attempt = 0; attempt < 3; ++attempt) {
+      minimum = Math.min(minimum, retained(commands, prepare));
+    }
+    return minimum;
+  }
+
+  private static void checkBudget(
+    final String prefix,
+    final Consumer<ClaypotType> prepare)
+  {
+    final var empty =
+      minimumRetained(0, prepare);
+    final var full =
+      minimumRetained(COMMANDS, prepare);
+
+    final var perInstance =
+      empty / INSTANCES;
+    final var perCommand =
+      (full - empty) / ((long) INSTANCES * COMMANDS);
+
+    final var instanceBudget = budgetOf(prefix + ".bytesPerInstance");
+    final var commandBudget = budgetOf(prefix + ".bytesPerCommand");
+
+    LoggerFactory.getLogger(CLPFootprintTest.class)
+      .info(
+        "{}: {} bytes per instance (budget {}), {} bytes per command (budget {})",
+        prefix,
+        Long.valueOf(perInstance),
+        Long.valueOf(instanceBudget),
+        Long.valueOf(perCommand),
+        Long.valueOf(commandBudget));
+
+    assertTrue(
+      perInstance <= instanceBudget,
+      String.format(
+        "%s: %d bytes per instance exceeds the budget of %d",
+        prefix,
+        Long.valueOf(perInstance),
+        Long.valueOf(instanceBudget)));
+    assertTrue(
+      perCommand <= commandBudget,
+      String.format(
+        "%s: %d bytes per command exceeds the budget of %d",
+        prefix,
+        Long.valueOf(perCommand),
+        Long.valueOf(commandBudget)));
+  }
+
+  @Test
+  public void footprintCreated()
+  {
+    checkBudget("created", instance -> {
+
+    });
+  }
+
+  @Test
+  public void footprintAfterUsage()
+  {
+    checkBudget("usage", instance -> instance.execute(new String[]{"help"}));
+  }
+
+  @Test
+  public void budgetsPresent()
+  {
+    for (final var name : List.of(
+      "created.bytesPerInstance",
+      "created.bytesPerCommand",
+      "usage.bytesPerInstance",
+      "usage.bytesPerCommand")) {
+      assertTrue(budgetOf(name) > 0L, name);
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.beust.jcommander.JCommander;
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.CLPCommandContextType;
+import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.internal.CLPCommandRoot;
+import com.io7m.claypot.core.internal.CLPHelpIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public final class CLPHelpIndexTest
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CLPHelpIndexTest.class);
+
+  private CLPHelpIndex index;
+
+  private static List<String> names(
+    final List<CLPHelpIndex.Result> results)
+  {
+    return results.stream()
+      .map(r -> r.command().name())
+      .toList();
+  }
+
+  @BeforeEach
+  public void setup()
+  {
+    final var commander = new JCommander();
+    final var context = Mockito.mock(CLPCommandContextType.class);
+    Mockito.when(context.commander()).thenReturn(commander);
+    commander.addObject(new CLPCommandRoot(context));
+    commander.addCommand("crash", new CrashCommand(context));
+    commander.addCommand("empty", new EmptyCommand(context));
+    commander.addCommand("flood", new FloodCommand(context));
+    commander.addCommand(
+      "synthetic", new SyntheticCommand(context, "synthetic"));
+    this.index = CLPHelpIndex.build(commander);
+  }
+
+  @Test
+  public void tokenize()
+  {
+    assertEquals(
+      List.of("log", "level", "x2"),
+      CLPHelpIndex.tokenize("--log-level, LOG a x2"));
+  }
+
+  @Test
+  public void searchByName()
+  {
+    assertEquals(List.of("crash"), names(this.index.search("crash")));
+  }
+
+  @Test
+  public void searchByPrefix()
+  {
+    assertEquals(List.of("flood"), names(this.index.search("FLO")));
+  }
+
+  @Test
+  public void searchByParameter()
+  {
+    assertEquals(
+      List.of("synthetic"),
+      names(this.index.search("dry run")));
+  }
+
+  @Test
+  public void searchExcludesCommonOptions()
+  {
+    assertEquals(List.of(), this.index.search("verbose"));
+    assertEquals(List.of(), this.index.search("logging verbosity level"));
+  }
+
+  @Test
+  public void searchRanksByTermsMatched()
+  {
+    final var results = names(this.index.search("synthetic output flood"));
+    assertEquals(List.of("synthetic", "flood"), results);
+  }
+
+  @Test
+  public void searchNothing()
+  {
+    assertEquals(List.of(), this.index.search("zzzzz"));
+    assertEquals(List.of(), this.index.search(""));
+  }
+
+  @Test
+  public void writeRead()
+    throws IOException
+  {
+    final var bytes = new ByteArrayOutputStream();
+    try (var output = new DataOutputStream(bytes)) {
+      this.index.write(output);
+    }
+
+    final var read =
+      CLPHelpIndex.read(
+        new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    assertEquals(this.index.commands(), read.commands());
+    assertEquals(
+      this.index.search("synthetic output flood"),
+      read.search("synthetic output flood"));
+  }
+
+  @Test
+  public void helpSearch()
+  {
+    final var spyLog = mock(Logger.class, delegatesTo(LOG));
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(spyLog)
+        .addCommands(CrashCommand::new)
+        .build();
+
+    final var claypot = Claypot.create(configuration);
+    claypot.execute(new String[]{"help", "--search", "detailed help"});
+    assertEquals(0, claypot.exitCode());
+
+    final var captor = ArgumentCaptor.forClass(String.class);
+    verify(spyLog).info(eq("{}"), captor.capture());
+
+    final var text = captor.getValue();
+    assertTrue(text.startsWith("Commands matching \"detailed help\":\n"));
+    assertTrue(text.matches("(?s).*\\n    help +Show detailed help messages.*"));
+  }
+
+  @Test
+  public void helpSearchDoesNotPersist()
+  {
+    final var spyLog = mock(Logger.class, delegatesTo(LOG));
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(spyLog)
+        .addCommands(CrashCommand::new)
+        .build();
+
+    final var claypot = Claypot.create(configuration);
+    claypot.execute(new String[]{"help", "--search", "zzzzz"});
+    assertEquals(0, claypot.exitCode());
+    claypot.execute(new String[]{"help"});
+    assertEquals(0, claypot.exitCode());
+
+    final var captor = ArgumentCaptor.forClass(String.class);
+    verify(spyLog, times(2)).info(eq("{}"), captor.capture());
+
+    final var texts = captor.getAllValues();
+    assertTrue(texts.get(0).startsWith("No commands match"), texts.get(0));
+    assertFalse(texts.get(1).contains("zzzzz"), texts.get(1));
+    assertFalse(texts.get(1).contains("Optional"), texts.get(1));
+  }
+}
@@ -0,0 +1,510 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.io7m.claypot.core.CLPAbstractCommand;
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.CLPCommandConstructorType;
+import com.io7m.claypot.core.CLPCommandContextType;
+import com.io7m.claypot.core.CLPHelpResources;
+import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.internal.CLPHelpResourceFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.io7m.claypot.core.CLPCommandType.Status.SUCCESS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public final class CLPHelpResourcesTest
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CLPHelpResourcesTest.class);
+
+  private Path directory;
+  private Logger spyLog;
+
+  @BeforeEach
+  public void setup(
+    final @TempDir Path inDirectory)
+  {
+    this.directory = inDirectory;
+    this.spyLog = mock(Logger.class, delegatesTo(LOG));
+  }
+
+  private CLPApplicationConfiguration configuration()
+  {
+    return CLPApplicationConfiguration.builder()
+      .setProgramName("cex")
+      .setLogger(this.spyLog)
+      .addCommands(CrashCommand::new)
+      .build();
+  }
+
+  private CLPApplicationConfiguration configurationWithHelp(
+    final String extendedHelp)
+  {
+    return CLPApplicationConfiguration.builder()
+      .setProgramName("cex")
+      .setLogger(this.spyLog)
+      .addCommands(context -> new HelpTextCommand(context, extendedHelp))
+      .build();
+  }
+
+  private static CLPHelpResourceFile readFile(
+    final Path file)
+    throws IOException
+  {
+    try (var stream = Files.newInputStream(file)) {
+      return CLPHelpResourceFile.read(stream).orElseThrow();
+    }
+  }
+
+  private String executeWithResources(
+    final CLPApplicationConfiguration configuration,
+    final String... args)
+    throws IOException
+  {
+    final var thread = Thread.currentThread();
+    final var saved = thread.getContextClassLoader();
+    try (var loader = new URLClassLoader(
+      new URL[]{this.directory.toUri().toURL()}, saved)) {
+      thread.setContextClassLoader(loader);
+      Claypot.create(configuration).execute(args);
+    } finally {
+      thread.setContextClassLoader(saved);
+    }
+
+    final var captor = ArgumentCaptor.forClass(String.class);
+    verify(this.spyLog).info(eq("{}"), captor.capture());
+    return captor.getValue();
+  }
+
+  private int completeWithResources(
+    final CLPApplicationConfiguration configuration,
+    final String... args)
+    throws IOException
+  {
+    final var thread = Thread.currentThread();
+    final var saved = thread.getContextClassLoader();
+    try (var loader = new URLClassLoader(
+      new URL[]{this.directory.toUri().toURL()}, saved)) {
+      thread.setContextClassLoader(loader);
+      return Claypot.run(configuration, args);
+    } finally {
+      thread.setContextClassLoader(saved);
+    }
+  }
+
+  private CLPApplicationConfiguration completionConfiguration(
+    final StringWriter writer,
+    final CLPCommandConstructorType constructor)
+  {
+    return CLPApplicationConfiguration.builder()
+      .setProgramName("cex")
+      .setLogger(this.spyLog)
+      .setUsageWriter(writer)
+      .addCommands(constructor)
+      .build();
+  }
+
+  @Test
+  public void completionFromResourceIsServed()
+    throws IOException
+  {
+    final var file =
+      CLPHelpResources.write(this.configuration(), this.directory);
+    final var help = readFile(file);
+
+    /*
+     * Replace the completion index with one built from a different set of
+     * commands so that it is possible to tell whether the resource was
+     * served.
+     */
+
+    final var other =
+      readFile(CLPHelpResources.write(
+        CLPApplicationConfiguration.builder()
+          .setProgramName("other")
+          .setLogger(this.spyLog)
+          .addCommands(EmptyCommand::new)
+          .build(),
+        this.directory));
+
+    final var replaced =
+      new CLPHelpResourceFile(
+        help.fingerprint(),
+        help.commandFingerprints(),
+        help.briefUsage(),
+        help.longUsage(),
+        help.commandUsages(),
+        help.searchIndex(),
+        other.completionIndex()
+      );
+    try (var output = Files.newOutputStream(file)) {
+      replaced.write(output);
+    }
+
+    final var writer = new StringWriter();
+    final var exitCode =
+      this.completeWithResources(
+        this.completionConfiguration(writer, CrashCommand::new),
+        "__complete", "");
+
+    assertEquals(0, exitCode);
+    assertTrue(writer.toString().contains("empty\n"), writer.toString());
+  }
+
+  @Test
+  public void staleCompletionResourceIsIgnored()
+    throws IOException
+  {
+    CLPHelpResources.write(
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(this.spyLog)
+        .addCommands(EmptyCommand::new)
+        .build(),
+      this.directory);
+
+    final var writer = new StringWriter();
+    final var exitCode =
+      this.completeWithResources(
+        this.completionConfiguration(writer, CrashCommand::new),
+        "__complete", "c");
+
+    assertEquals(0, exitCode);
+    assertEquals("crash\n", writer.toString());
+  }
+
+  @Test
+  public void completionScriptInstantiatesNothing()
+    throws IOException
+  {
+    final var created = new AtomicInteger();
+    final var writer = new StringWriter();
+    final var exitCode =
+      this.completeWithResources(
+        this.completionConfiguration(writer, context -> {
+          created.incrementAndGet();
+          return new CrashCommand(context);
+        }),
+        "__completion-script", "bash");
+
+    assertEquals(0, exitCode);
+    assertEquals(0, created.get());
+    assertTrue(writer.toString().contains("cex"));
+  }
+
+  @Test
+  public void writeRendersEverything()
+    throws IOException
+  {
+    final var file =
+      CLPHelpResources.write(this.configuration(), this.directory);
+    final var help = readFile(file);
+
+    assertTrue(String.join("", help.briefUsage()).contains("Usage: cex"));
+    assertTrue(String.join("", help.longUsage()).contains("crash"));
+    assertEquals(
+      List.of("bench", "crash", "help"),
+      List.copyOf(new TreeSet<>(help.commandUsages().keySet()))
+    );
+  }
+
+  @Test
+  public void preRenderedUsageIsServed()
+    throws IOException
+  {
+    final var file =
+      CLPHelpResources.write(this.configuration(), this.directory);
+    final var help = readFile(file);
+
+    /*
+     * Replace the rendered text so that it is possible to tell whether the
+     * resource was served.
+     */
+
+    final var replaced =
+      new CLPHelpResourceFile(
+        help.fingerprint(),
+        help.commandFingerprints(),
+        List.of("PRE-RENDERED BRIEF"),
+        help.longUsage(),
+        Map.of("crash", List.of("PRE-RENDERED CRASH")),
+        help.searchIndex(),
+        help.completionIndex()
+      );
+    try (var output = Files.newOutputStream(file)) {
+      replaced.write(output);
+    }
+
+    assertEquals(
+      "PRE-RENDERED BRIEF",
+      this.executeWithResources(this.configuration()));
+  }
+
+  @Test
+  public void staleResourcesAreIgnored()
+    throws IOException
+  {
+    final var file =
+      CLPHelpResources.write(this.configuration(), this.directory);
+    final var help = readFile(file);
+
+    final var replaced =
+      new CLPHelpResourceFile(
+        "stale",
+        help.commandFingerprints(),
+        List.of("PRE-RENDERED BRIEF"),
+        help.longUsage(),
+        help.commandUsages(),
+        help.searchIndex(),
+        help.completionIndex()
+      );
+    try (var output = Files.newOutputStream(file)) {
+      replaced.write(output);
+    }
+
+    final var text = this.executeWithResources(this.configuration());
+    assertFalse(text.contains("PRE-RENDERED"));
+    assertTrue(text.contains("Usage: cex"));
+  }
+
+  @Test
+  public void changedHelpTextIsStale()
+    throws IOException
+  {
+    final var file =
+      CLPHelpResources.write(
+        this.configurationWithHelp("Old help."), this.directory);
+    final var help = readFile(file);
+
+    final var replaced =
+      new CLPHelpResourceFile(
+        help.fingerprint(),
+        help.commandFingerprints(),
+        List.of("PRE-RENDERED BRIEF"),
+        help.longUsage(),
+        Map.of("text", List.of("PRE-RENDERED TEXT")),
+        help.searchIndex(),
+        help.completionIndex()
+      );
+    try (var output = Files.newOutputStream(file)) {
+      replaced.write(output);
+    }
+
+    assertEquals(
+      "PRE-RENDERED TEXT",
+      this.executeWithResources(
+        this.configurationWithHelp("Old help."), "help", "text"));
+
+    /*
+     * The extended help does not appear in the brief usage, so only the
+     * usage of the changed command is stale.
+     */
+
+    this.spyLog = mock(Logger.class, delegatesTo(LOG));
+    final var text =
+      this.executeWithResources(
+        this.configurationWithHelp("New help."), "help", "text");
+    assertFalse(text.contains("PRE-RENDERED"));
+    assertTrue(text.contains("New help."));
+
+    this.spyLog = mock(Logger.class, delegatesTo(LOG));
+    assertEquals(
+      "PRE-RENDERED BRIEF",
+      this.executeWithResources(this.configurationWithHelp("New help.")));
+  }
+
+  @Test
+  public void onlyRenderedCommandIsExamined()
+    throws IOException
+  {
+    final var examined = new AtomicInteger();
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(this.spyLog)
+        .addCommands(context -> new HelpTextCommand(context, "Text help."))
+        .addCommands(context -> new CountingCommand(context, examined))
+        .build();
+
+    CLPHelpResources.write(configuration, this.directory);
+    examined.set(0);
+
+    final var text =
+      this.executeWithResources(configuration, "help", "text");
+    assertTrue(text.contains("Text help."));
+    assertEquals(0, examined.get());
+  }
+
+  @Test
+  public void resourcesAreLoadedLazily()
+    throws IOException
+  {
+    CLPHelpResources.write(this.configuration(), this.directory);
+
+    final var reads = new AtomicInteger();
+    final var thread = Thread.currentThread();
+    final var saved = thread.getContextClassLoader();
+    try (var loader = new URLClassLoader(
+      new URL[]{this.directory.toUri().toURL()}, saved) {
+      @Override
+      public InputStream getResourceAsStream(
+        final String name)
+      {
+        reads.incrementAndGet();
+        return super.getResourceAsStream(name);
+      }
+    }) {
+      thread.setContextClassLoader(loader);
+      final var claypot = Claypot.create(
+        CLPApplicationConfiguration.builder()
+          .setProgramName("cex")
+          .setLogger(this.spyLog)
+          .addCommands(EmptyCommand::new)
+          .build()
+      );
+      claypot.execute(new String[]{"empty"});
+      assertEquals(0, claypot.exitCode());
+      assertEquals(0, reads.get());
+
+      claypot.execute(new String[]{"help"});
+      assertEquals(1, reads.get());
+    } finally {
+      thread.setContextClassLoader(saved);
+    }
+  }
+
+  @Test
+  public void oversizedChunksAreRejected()
+  {
+    final var bytes = new ByteArrayOutputStream();
+    try (var output = new DataOutputStream(bytes)) {
+      output.writeInt(0x434C5048);
+      output.writeInt(4);
+      output.writeUTF("fingerprint");
+      output.writeInt(0);
+      output.writeInt(1);
+      output.writeInt(Integer.MAX_VALUE);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    assertThrows(IOException.class, () -> {
+      CLPHelpResourceFile.read(new ByteArrayInputStream(bytes.toByteArray()));
+    });
+  }
+
+  @Test
+  public void missingResourcesAreIgnored()
+    throws IOException
+  {
+    final var text = this.executeWithResources(this.configuration());
+    assertTrue(text.contains("Usage: cex"));
+  }
+
+  private static final class CountingCommand extends CLPAbstractCommand
+  {
+    private final AtomicInteger examined;
+
+    CountingCommand(
+      final CLPCommandContextType inContext,
+      final AtomicInteger inExamined)
+    {
+      super(inContext);
+      this.examined = inExamined;
+    }
+
+    @Override
+    public String extendedHelp()
+    {
+      this.examined.incrementAndGet();
+      return "";
+    }
+
+    @Override
+    protected Status executeActual()
+    {
+      return SUCCESS;
+    }
+
+    @Override
+    public String name()
+    {
+      return "counting";
+    }
+  }
+
+  private static final class HelpTextCommand extends CLPAbstractCommand
+  {
+    private final String extendedHelp;
+
+    HelpTextCommand(
+      final CLPCommandContextType inContext,
+      final String inExtendedHelp)
+    {
+      super(inContext);
+      this.extendedHelp = inExtendedHelp;
+    }
+
+    @Override
+    public String extendedHelp()
+    {
+      return this.extendedHelp;
+    }
+
+    @Override
+    protected Status executeActual()
+    {
+      return SUCCESS;
+    }
+
+    @Override
+    public String name()
+    {
+      return "text";
+    }
+  }
+}
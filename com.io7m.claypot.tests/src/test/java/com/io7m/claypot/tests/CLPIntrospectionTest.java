@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.internal.CLPIntrospectionServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public final class CLPIntrospectionTest
+{
+  @Test
+  public void serverServesSnapshots(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var socket = directory.resolve("introspect.sock");
+    final var calls = new AtomicInteger();
+
+    try (var ignored = CLPIntrospectionServer.start(
+      socket, () -> "snapshot " + calls.incrementAndGet() + "\n")) {
+      assertEquals("snapshot 1\n", IntrospectedCommand.query(socket));
+      assertEquals("snapshot 2\n", IntrospectedCommand.query(socket));
+    }
+    assertFalse(Files.exists(socket));
+  }
+
+  @Test
+  public void serverRefusesRegularFiles(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var file = directory.resolve("introspect.sock");
+    Files.writeString(file, "data");
+
+    assertThrows(
+      FileAlreadyExistsException.class,
+      () -> CLPIntrospectionServer.start(file, () -> ""));
+    assertEquals("data", Files.readString(file));
+  }
+
+  @Test
+  public void serverRefusesLiveSockets(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var socket = directory.resolve("introspect.sock");
+
+    try (var ignored = CLPIntrospectionServer.start(socket, () -> "first\n")) {
+      assertThrows(
+        FileAlreadyExistsException.class,
+        () -> CLPIntrospectionServer.start(socket, () -> "second\n"));
+      assertEquals("first\n", IntrospectedCommand.query(socket));
+    }
+  }
+
+  @Test
+  public void serverReplacesStaleSockets(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var socket = directory.resolve("introspect.sock");
+
+    /*
+     * Closing a channel does not remove its socket file.
+     */
+
+    try (var channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+      channel.bind(UnixDomainSocketAddress.of(socket));
+    }
+    assertTrue(Files.exists(socket));
+
+    try (var ignored = CLPIntrospectionServer.start(socket, () -> "new\n")) {
+      assertEquals("new\n", IntrospectedCommand.query(socket));
+    }
+  }
+
+  @Test
+  public void serverSocketIsPrivate(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    assumeTrue(
+      Files.getFileAttributeView(directory, PosixFileAttributeView.class)
+        != null);
+
+    final var socket = directory.resolve("introspect.sock");
+    try (var ignored = CLPIntrospectionServer.start(socket, () -> "")) {
+      assertEquals(
+        PosixFilePermissions.fromString("rw-------"),
+        Files.getPosixFilePermissions(socket));
+    }
+    try (var files = Files.list(directory)) {
+      assertEquals(0L, files.count());
+    }
+  }
+
+  @Test
+  public void commandSnapshot(
+    final @TempDir Path directory)
+  {
+    final var socket = directory.resolve("introspect.sock");
+    final var received = new ArrayList<String>();
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(LoggerFactory.getLogger(CLPIntrospectionTest.class))
+        .addCommands(context -> new IntrospectedCommand(context, received))
+        .build();
+
+    final var claypot = Claypot.create(configuration);
+    claypot.execute(new String[]{
+      "--introspection-socket",
+      socket.toString(),
+      "introspected",
+      "--socket",
+      socket.toString(),
+    });
+
+    assertEquals(0, claypot.exitCode());
+    assertEquals(1, received.size());
+
+    final var text = received.get(0);
+    assertTrue(text.startsWith("{\"command\":\"introspected\",\"elapsedNanos\":"), text);
+    assertTrue(text.endsWith("}\n"), text);
+    assertTrue(text.contains("\"progress\":[{\"label\":\"Copying\",\"count\":3,\"total\":10}]"), text);
+    assertTrue(text.contains("\"state\":\"RUNNABLE\""), text);
+    assertTrue(text.contains("\"threadStates\":{"), text);
+    assertTrue(text.contains("\"heap\":{\"used\":"), text);
+    assertFalse(Files.exists(socket));
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.internal.CLPJSONEncoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CLPJSONLinesTest
+{
+  private PrintStream savedOut;
+  private ByteArrayOutputStream output;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.savedOut = System.out;
+    this.output = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(this.output, true, UTF_8));
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    System.setOut(this.savedOut);
+  }
+
+  private List<String> lines()
+  {
+    return this.output.toString(UTF_8).lines().toList();
+  }
+
+  private static CLPApplicationConfiguration configuration()
+  {
+    return CLPApplicationConfiguration.builder()
+      .setProgramName("cex")
+      .setLogger(LoggerFactory.getLogger(CLPJSONLinesTest.class))
+      .addCommands(CrashCommand::new)
+      .build();
+  }
+
+  @Test
+  public void encoderEscapes()
+  {
+    final var encoder = new CLPJSONEncoder();
+    encoder.beginObject()
+      .name("a").string("x\"y\\z\n\u0001\u2028")
+      .name("b").number(23L)
+      .name("c").beginArray().bool(true).string(null).endArray()
+      .endObject();
+
+    assertEquals(
+      "{\"a\":\"x\\\"y\\\\z\\n\\u0001\\u2028\",\"b\":23,\"c\":[true,null]}",
+      encoder.text().toString()
+    );
+  }
+
+  @Test
+  public void noArgumentsShowsUsage()
+  {
+    final var claypot = Claypot.create(configuration());
+    claypot.execute(new String[]{"--output-format", "jsonl"});
+
+    final var lines = this.lines();
+    assertEquals(2, lines.size());
+    assertTrue(lines.get(0).startsWith("{\"type\":\"usage\",\"text\":\""));
+    assertTrue(lines.get(0).contains("Usage: cex"));
+    assertEquals(
+      "{\"type\":\"exit\",\"code\":1,\"failed\":false}",
+      lines.get(1));
+  }
+
+  @Test
+  public void crashIsReported()
+  {
+    final var claypot = Claypot.create(configuration());
+    claypot.execute(new String[]{"--output-format=jsonl", "crash"});
+
+    final var lines = this.lines();
+    assertEquals(3, lines.size());
+    assertTrue(lines.get(0).startsWith(
+      "{\"type\":\"exception\",\"relation\":\"ROOT\","));
+    assertTrue(lines.get(1).startsWith(
+      "{\"type\":\"exception\",\"relation\":\"CAUSE\","));
+    assertEquals(
+      "{\"type\":\"exit\",\"code\":1,\"failed\":true}",
+      lines.get(2));
+  }
+
+  @Test
+  public void logEventsAreEncoded()
+  {
+    final var claypot = Claypot.create(configuration());
+    claypot.execute(new String[]{"--output-format", "jsonl", "nonexistent"});
+
+    final var lines = this.lines();
+    assertEquals(2, lines.size());
+    assertTrue(lines.get(0).startsWith("{\"type\":\"log\",\"time\":"));
+    assertTrue(lines.get(0).contains("\"level\":\"ERROR\""));
+    assertTrue(lines.get(1).startsWith("{\"type\":\"exit\""));
+  }
+
+  @Test
+  public void textIsTheDefault()
+  {
+    final var claypot = Claypot.create(configuration());
+    claypot.execute(new String[]{"--output-format", "text"});
+
+    assertEquals(List.of(), this.lines());
+    assertEquals(1, claypot.exitCode());
+  }
+
+  @Test
+  public void unrecognizedFormat()
+  {
+    final var claypot = Claypot.create(configuration());
+    claypot.execute(new String[]{"--output-format", "yaml"});
+
+    assertEquals(List.of(), this.lines());
+    assertEquals(1, claypot.exitCode());
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.CLPJournalEntry;
+import com.io7m.claypot.core.CLPJournalReplay;
+import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.internal.CLPJournalWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CLPJournalTest
+{
+  private static CLPApplicationConfiguration configuration(
+    final Optional<Path> journal)
+  {
+    return CLPApplicationConfiguration.builder()
+      .setProgramName("cex")
+      .setLogger(LoggerFactory.getLogger(CLPJournalTest.class))
+      .addCommands(EmptyCommand::new)
+      .addCommands(CrashCommand::new)
+      .setJournalFile(journal)
+      .build();
+  }
+
+  @Test
+  public void roundTrip(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var file = directory.resolve("journal.bin");
+    final var writer = new CLPJournalWriter(file);
+    final var entries = List.of(
+      new CLPJournalEntry(
+        Instant.ofEpochMilli(1_600_000_000_000L),
+        "storage compact",
+        List.of("storage", "compact", "--name", "été 😀"),
+        -2,
+        Optional.of(IOException.class.getName()),
+        1L,
+        Long.MAX_VALUE,
+        300L),
+      new CLPJournalEntry(
+        Instant.ofEpochMilli(0L),
+        "",
+        List.of(),
+        0,
+        Optional.empty(),
+        0L,
+        0L,
+        0L)
+    );
+    for (final var entry : entries) {
+      writer.append(entry);
+    }
+    assertEquals(entries, CLPJournalReplay.read(file));
+
+    Files.write(file, new byte[]{(byte) 0x40, 1, 2}, APPEND);
+    assertEquals(entries, CLPJournalReplay.read(file));
+  }
+
+  @Test
+  public void invalidHeader(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var file = directory.resolve("journal.bin");
+    Files.writeString(file, "CLPX\u0001", UTF_8);
+    assertThrows(IOException.class, () -> CLPJournalReplay.read(file));
+  }
+
+  @Test
+  public void recordAndReplay(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var file = directory.resolve("journal.bin");
+    final var recording = Claypot.create(configuration(Optional.of(file)));
+    recording.execute(new String[]{"empty"});
+    recording.execute(new String[]{"crash"});
+    recording.execute(new String[]{"empty", "--verbose", "debug"});
+
+    final var entries = CLPJournalReplay.read(file);
+    assertEquals(3, entries.size());
+
+    final var timings = recording.timings().orElseThrow();
+    assertEquals(entries.get(2).parseNanos(), timings.parseNanos());
+    assertEquals(entries.get(2).executeNanos(), timings.executeNanos());
+    assertEquals(entries.get(2).totalNanos(), timings.totalNanos());
+
+    final var crash = entries.get(1);
+    assertEquals("crash", crash.command());
+    assertEquals(List.of("crash"), crash.arguments());
+    assertEquals(1, crash.exitCode());
+    assertEquals(Optional.of(IOException.class.getName()), crash.exceptionClass());
+    assertTrue(crash.executeNanos() > 0L);
+    assertTrue(crash.totalNanos() >= crash.executeNanos() + crash.parseNanos());
+
+    final var empty = entries.get(2);
+    assertEquals("empty", empty.command());
+    assertEquals(List.of("empty", "--verbose", "debug"), empty.arguments());
+    assertEquals(0, empty.exitCode());
+    assertEquals(Optional.empty(), empty.exceptionClass());
+
+    final var created = new AtomicInteger();
+    final var report = CLPJournalReplay.replay(entries, () -> {
+      created.incrementAndGet();
+      return Claypot.create(configuration(Optional.empty()));
+    });
+    assertEquals(3, created.get());
+    final var commands = report.commands();
+    assertEquals(2, commands.size());
+    assertEquals("crash", commands.get(0).command());
+    assertEquals("empty", commands.get(1).command());
+    assertEquals(2L, commands.get(1).invocations());
+    for (final var command : commands) {
+      assertEquals(0L, command.exitCodeMismatches());
+      assertTrue(command.execute().replayedMedian().toNanos() > 0L);
+      assertTrue(
+        command.total().replayedMedian()
+          .compareTo(command.execute().replayedMedian()) >= 0);
+    }
+
+    final var text = new StringWriter();
+    report.writeTo(text);
+    assertTrue(text.toString().startsWith("Command"), text.toString());
+    assertTrue(text.toString().contains("\nempty "), text.toString());
+  }
+}
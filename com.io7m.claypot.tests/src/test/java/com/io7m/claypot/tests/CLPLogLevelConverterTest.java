@@ -17,6 +17,7 @@
 package com.io7m.claypot.tests;
 
 import ch.qos.logback.classic.Level;
+import com.io7m.claypot.core.CLPStrings;
 import com.io7m.claypot.core.internal.CLPLogLevelConverter;
 import org.junit.jupiter.api.Test;
 
@@ -27,7 +28,7 @@ public final class CLPLogLevelConverterTest
   @Test
   public void conversionsOK()
   {
-    final var converter = new CLPLogLevelConverter();
+    final var converter = new CLPLogLevelConverter(CLPStrings.create());
     assertEquals("debug", converter.convert("debug").getName());
     assertEquals("error", converter.convert("error").getName());
     assertEquals("info", converter.convert("info").getName());
@@ -38,7 +39,7 @@ public final class CLPLogLevelConverterTest
   @Test
   public void conversionsOKTyped()
   {
-    final var converter = new CLPLogLevelConverter();
+    final var converter = new CLPLogLevelConverter(CLPStrings.create());
     assertEquals(Level.DEBUG, converter.convert("debug").toLevel());
     assertEquals(Level.ERROR, converter.convert("error").toLevel());
     assertEquals(Level.INFO, converter.convert("info").toLevel());
@@ -47,9 +48,17 @@ public final class CLPLogLevelConverterTest
   }
 
   @Test
-  public void toStringOK()
+  public void conversionsOKDefault()
   {
     final var converter = new CLPLogLevelConverter();
+    assertEquals("debug", converter.convert("debug").getName());
+    assertThrows(RuntimeException.class, () -> converter.convert("loud"));
+  }
+
+  @Test
+  public void toStringOK()
+  {
+    final var converter = new CLPLogLevelConverter(CLPStrings.create());
     assertTrue(converter.toString().contains("CLPLogLevelConverter"));
   }
 }
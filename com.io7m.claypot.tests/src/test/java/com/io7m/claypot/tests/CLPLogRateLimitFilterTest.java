@@ -0,0 +1,217 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.spi.FilterReply;
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.CLPLogRateLimit;
+import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.internal.CLPLogRateLimitFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CLPLogRateLimitFilterTest
+{
+  private Logger logger;
+  private ListAppender<ILoggingEvent> appender;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.logger = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+    this.logger.setLevel(Level.INFO);
+    this.appender = new ListAppender<>();
+    this.appender.start();
+    this.logger.addAppender(this.appender);
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    this.logger.detachAppender(this.appender);
+  }
+
+  @Test
+  public void limitedPerWindow()
+  {
+    final var time = new AtomicLong();
+    final var filter =
+      new CLPLogRateLimitFilter(
+        CLPLogRateLimit.builder()
+          .setWindow(Duration.ofNanos(100L))
+          .setMaximumPerWindow(2)
+          .build(),
+        time::get
+      );
+
+    assertEquals(FilterReply.NEUTRAL, this.decide(filter, "x {}"));
+    assertEquals(FilterReply.NEUTRAL, this.decide(filter, "x {}"));
+    assertEquals(FilterReply.DENY, this.decide(filter, "x {}"));
+    assertEquals(FilterReply.NEUTRAL, this.decide(filter, "y {}"));
+
+    time.set(100L);
+    assertEquals(FilterReply.NEUTRAL, this.decide(filter, "x {}"));
+
+    final var suppressed = filter.suppressed();
+    assertEquals(1, suppressed.size());
+    assertEquals("x {}", suppressed.get(0).format());
+    assertEquals(1L, suppressed.get(0).count());
+  }
+
+  @Test
+  public void placeholdersLimitedByArgument()
+  {
+    final var filter =
+      new CLPLogRateLimitFilter(
+        CLPLogRateLimit.builder()
+          .setWindow(Duration.ofHours(1L))
+          .setMaximumPerWindow(2)
+          .build(),
+        () -> 0L
+      );
+
+    assertEquals(FilterReply.NEUTRAL, this.decide(filter, "{}", "Disk full"));
+    assertEquals(FilterReply.NEUTRAL, this.decide(filter, "{}", "Disk full"));
+    assertEquals(FilterReply.DENY, this.decide(filter, "{}", "Disk full"));
+    assertEquals(FilterReply.DENY, this.decide(filter, "{}", "Disk full"));
+    assertEquals(FilterReply.NEUTRAL, this.decide(filter, "{}", "Disk ok"));
+    assertEquals(FilterReply.NEUTRAL, this.decide(filter, "{}", "Disk ok"));
+
+    final var longText = "x".repeat(
+      CLPLogRateLimitFilter.MAXIMUM_ARGUMENT_LENGTH + 1);
+    for (int index = 0; index < 10; ++index) {
+      assertEquals(FilterReply.NEUTRAL, this.decide(filter, "{}", longText));
+    }
+
+    final var suppressed = filter.suppressed();
+    assertEquals(1, suppressed.size());
+    assertEquals("Disk full", suppressed.get(0).format());
+    assertEquals(2L, suppressed.get(0).count());
+  }
+
+  @Test
+  public void unlimitedAndNonStringArgumentsIgnored()
+  {
+    final var filter =
+      new CLPLogRateLimitFilter(
+        CLPLogRateLimit.builder()
+          .setMaximumPerWindow(1)
+          .build(),
+        () -> 0L
+      );
+
+    final var frame = new Object[]{"com.io7m.Example.run(Example.java:23)"};
+    final var number = new Object[]{Integer.valueOf(23)};
+    for (int index = 0; index < 10; ++index) {
+      assertEquals(
+        FilterReply.NEUTRAL,
+        filter.decide(
+          CLPLogRateLimitFilter.UNLIMITED,
+          this.logger,
+          Level.INFO,
+          "  at {}",
+          frame,
+          null)
+      );
+      assertEquals(
+        FilterReply.NEUTRAL,
+        filter.decide(null, this.logger, Level.INFO, "{}", number, null)
+      );
+    }
+    assertTrue(filter.suppressed().isEmpty());
+  }
+
+  @Test
+  public void placeholdersAndDisabledLevelsIgnored()
+  {
+    final var filter =
+      new CLPLogRateLimitFilter(
+        CLPLogRateLimit.builder()
+          .setMaximumPerWindow(1)
+          .build(),
+        () -> 0L
+      );
+
+    for (int index = 0; index < 10; ++index) {
+      assertEquals(FilterReply.NEUTRAL, this.decide(filter, "{}"));
+      assertEquals(
+        FilterReply.NEUTRAL,
+        filter.decide(null, this.logger, Level.DEBUG, "z", null, null)
+      );
+    }
+    assertTrue(filter.suppressed().isEmpty());
+  }
+
+  @Test
+  public void floodSummarized()
+  {
+    final var applicationConfiguration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(LoggerFactory.getLogger(Claypot.class))
+        .addCommands(FloodCommand::new)
+        .setLogRateLimit(
+          CLPLogRateLimit.builder()
+            .setWindow(Duration.ofHours(1L))
+            .setMaximumPerWindow(5)
+            .build())
+        .build();
+
+    final var claypot = Claypot.create(applicationConfiguration);
+    claypot.execute(new String[]{"flood"});
+    assertEquals(0, claypot.exitCode());
+
+    final var messages =
+      this.appender.list.stream()
+        .map(ILoggingEvent::getFormattedMessage)
+        .toList();
+
+    assertEquals(6, messages.size());
+    assertEquals(
+      "Message \"Item {} is suspicious\" repeated 995 more times (suppressed)",
+      messages.get(5)
+    );
+  }
+
+  private FilterReply decide(
+    final CLPLogRateLimitFilter filter,
+    final String format)
+  {
+    return filter.decide(null, this.logger, Level.INFO, format, null, null);
+  }
+
+  private FilterReply decide(
+    final CLPLogRateLimitFilter filter,
+    final String format,
+    final String argument)
+  {
+    return filter.decide(
+      null, this.logger, Level.INFO, format, new Object[]{argument}, null);
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.internal.CLPMappedArguments;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class CLPMappedArgumentsTest
+{
+  private static List<String> collect(
+    final Iterable<String> arguments)
+  {
+    final var results = new ArrayList<String>();
+    arguments.forEach(results::add);
+    return results;
+  }
+
+  @Test
+  public void lines(
+    final @TempDir Path directory)
+    throws IOException
+  {
+    final var file = directory.resolve("args.txt");
+    Files.writeString(file, "a\nbb\r\n\nccc\nété", UTF_8);
+
+    final var arguments = new CLPMappedArguments(file, (byte) '\n', 1024);
+    assertEquals(List.of("a", "bb", "ccc", "été"), collect(arguments));
+    assertEquals(List.of("a", "bb", "ccc", "été"), collect(arguments));
+  }
+
+  @Test
+  public void empty(
+    final @TempDir Path directory)
+    throws IOException
+  {
+    final var file = directory.resolve("args.txt");
+    Files.writeString(file, "", UTF_8);
+
+    final var arguments = new CLPMappedArguments(file, (byte) '\n', 1024);
+    assertEquals(List.of(), collect(arguments));
+  }
+
+  @Test
+  public void smallWindows(
+    final @TempDir Path directory)
+    throws IOException
+  {
+    final var expected = new ArrayList<String>();
+    final var text = new StringBuilder();
+    for (int index = 0; index < 1000; index += 1) {
+      final var argument = String.format("argument-%d", Integer.valueOf(index));
+      expected.add(argument);
+      text.append(argument);
+      text.append('\n');
+    }
+
+    final var file = directory.resolve("args.txt");
+    Files.writeString(file, text, UTF_8);
+
+    final var arguments = new CLPMappedArguments(file, (byte) '\n', 16);
+    assertEquals(expected, collect(arguments));
+  }
+
+  @Test
+  public void tooLong(
+    final @TempDir Path directory)
+    throws IOException
+  {
+    final var file = directory.resolve("args.txt");
+    Files.writeString(file, "a\n0123456789012345678901234567890\nb", UTF_8);
+
+    final var arguments = new CLPMappedArguments(file, (byte) '\n', 16);
+    assertThrows(UncheckedIOException.class, () -> collect(arguments));
+  }
+
+  @Test
+  public void malformed(
+    final @TempDir Path directory)
+    throws IOException
+  {
+    final var file = directory.resolve("args.txt");
+    Files.write(file, new byte[]{'a', '\n', (byte) 0xff, '\n'});
+
+    final var arguments = new CLPMappedArguments(file, (byte) '\n', 1024);
+    assertThrows(UncheckedIOException.class, () -> collect(arguments));
+  }
+
+  @Test
+  public void command(
+    final @TempDir Path directory)
+    throws IOException
+  {
+    final var file = directory.resolve("args.txt");
+    Files.writeString(file, "x\ny\nz\n", UTF_8);
+
+    final var received = new ArrayList<String>();
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(LoggerFactory.getLogger(CLPMappedArgumentsTest.class))
+        .addCommands(context -> new ArgumentsCommand(context, received))
+        .build();
+
+    final var claypot = Claypot.create(configuration);
+    claypot.execute(new String[]{
+      "arguments", "--args-from", file.toString(), "a", "b",
+    });
+
+    assertEquals(0, claypot.exitCode());
+    assertEquals(List.of("a", "b", "x", "y", "z"), received);
+  }
+
+  @Test
+  public void commandWithoutStreamRejectsOption(
+    final @TempDir Path directory)
+    throws IOException
+  {
+    final var file = directory.resolve("args.txt");
+    Files.writeString(file, "x\n", UTF_8);
+
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(LoggerFactory.getLogger(CLPMappedArgumentsTest.class))
+        .addCommands(EmptyCommand::new)
+        .build();
+
+    final var claypot = Claypot.create(configuration);
+    claypot.execute(new String[]{
+      "empty", "--args-from", file.toString(),
+    });
+
+    assertEquals(1, claypot.exitCode());
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.CLPLatencyHistogram;
+import com.io7m.claypot.core.CLPResourceUsage;
+import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.internal.CLPHistogram;
+import com.io7m.claypot.core.internal.CLPMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CLPMetricsTest
+{
+  @Test
+  public void histogramEmpty()
+  {
+    final var snapshot = new CLPHistogram().snapshot();
+    assertEquals(0L, snapshot.count());
+    assertEquals(List.of(), snapshot.buckets());
+    assertEquals(Duration.ZERO, snapshot.percentile(99.0));
+  }
+
+  @Test
+  public void histogramPrecision()
+  {
+    final var histogram = new CLPHistogram();
+    for (long value = 1L; value <= 1_000_000L; value += 1L) {
+      histogram.record(value);
+    }
+
+    final var snapshot = histogram.snapshot();
+    assertEquals(1_000_000L, snapshot.count());
+    assertEquals(1L, snapshot.minimumNanos());
+    assertEquals(1_000_000L, snapshot.maximumNanos());
+
+    for (final var percentile : List.of(1.0, 50.0, 90.0, 99.0, 99.9)) {
+      final var exact = (double) percentile * 10_000.0;
+      final var estimate = (double) snapshot.percentile(percentile).toNanos();
+      assertTrue(
+        Math.abs(estimate - exact) / exact <= 0.0625,
+        String.format("p%s: %s vs %s", percentile, estimate, exact)
+      );
+    }
+    assertEquals(
+      Duration.ofNanos(1_000_000L),
+      snapshot.percentile(100.0));
+  }
+
+  @Test
+  public void histogramBucketsContiguous()
+  {
+    final var histogram = new CLPHistogram();
+    for (int shift = 0; shift < 63; ++shift) {
+      histogram.record(1L << shift);
+      histogram.record((1L << shift) - 1L);
+    }
+    histogram.record(Long.MAX_VALUE);
+
+    final var buckets = histogram.snapshot().buckets();
+    for (final var bucket : buckets) {
+      assertTrue(bucket.lowerNanos() < bucket.upperNanos(), bucket::toString);
+    }
+    final var last = buckets.get(buckets.size() - 1);
+    assertEquals(Long.MAX_VALUE, last.upperNanos());
+  }
+
+  @Test
+  public void metricsConcurrent()
+    throws Exception
+  {
+    final var metrics = new CLPMetrics();
+    final var executor = Executors.newFixedThreadPool(4);
+    try {
+      for (int thread = 0; thread < 4; ++thread) {
+        executor.execute(() -> {
+          for (int index = 0; index < 10_000; ++index) {
+            metrics.record("a", index, index % 10 == 0, null, CLPResourceUsage.ZERO);
+          }
+        });
+      }
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(30L, TimeUnit.SECONDS));
+    }
+
+    final var a = metrics.snapshot().get("a");
+    assertEquals(40_000L, a.invocations());
+    assertEquals(4_000L, a.failures());
+    assertEquals(40_000L, a.latency().count());
+  }
+
+  @Test
+  public void commandsRecorded(
+    final @TempDir Path directory)
+    throws IOException
+  {
+    final var file = directory.resolve("metrics.json");
+    final var usage = new StringWriter();
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(LoggerFactory.getLogger(CLPMetricsTest.class))
+        .setUsageWriter(usage)
+        .addCommands(EmptyCommand::new)
+        .addCommands(CrashCommand::new)
+        .build();
+
+    final var claypot = Claypot.create(configuration);
+    claypot.execute(new String[]{"empty"});
+    claypot.execute(new String[]{"empty"});
+    claypot.execute(new String[]{"crash"});
+    claypot.execute(new String[]{"--metrics-file", file.toString(), "help"});
+
+    final var snapshot = claypot.metrics().snapshot();
+    assertEquals(List.of("crash", "empty", "help"), new ArrayList<>(snapshot.keySet()));
+
+    final var empty = snapshot.get("empty");
+    assertEquals(2L, empty.invocations());
+    assertEquals(0L, empty.failures());
+    assertEquals(2L, empty.latency().count());
+
+    final var crash = snapshot.get("crash");
+    assertEquals(1L, crash.invocations());
+    assertEquals(1L, crash.failures());
+    assertEquals(
+      Map.of(IOException.class.getName(), Long.valueOf(1L)),
+      crash.failuresByException());
+
+    final var text = Files.readString(file, UTF_8);
+    assertTrue(text.startsWith("{\"commands\":[{\"name\":\"crash\""), text);
+    assertTrue(text.contains("\"java.io.IOException\":1"), text);
+    assertTrue(text.contains("{\"name\":\"empty\",\"invocations\":2"), text);
+    assertFalse(usage.toString().contains("--metrics-file"));
+  }
+
+  @Test
+  public void rootOptionsDoNotPersist(
+    final @TempDir Path directory)
+    throws IOException
+  {
+    final var metricsFile = directory.resolve("metrics.json");
+    final var traceFile = directory.resolve("trace.json");
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(LoggerFactory.getLogger(CLPMetricsTest.class))
+        .setUsageWriter(new StringWriter())
+        .addCommands(EmptyCommand::new)
+        .build();
+
+    final var claypot = Claypot.create(configuration);
+    claypot.execute(new String[]{
+      "--metrics-file", metricsFile.toString(),
+      "--trace-file", traceFile.toString(),
+      "empty"
+    });
+    assertTrue(Files.isRegularFile(metricsFile));
+    assertTrue(Files.isRegularFile(traceFile));
+
+    Files.delete(metricsFile);
+    Files.delete(traceFile);
+    claypot.execute(new String[]{"empty"});
+    assertEquals(0, claypot.exitCode());
+    assertFalse(Files.exists(metricsFile));
+    assertFalse(Files.exists(traceFile));
+  }
+
+  @Test
+  public void percentileRange()
+  {
+    final var histogram =
+      new CLPLatencyHistogram(0L, 0L, 0L, List.of());
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> histogram.percentile(101.0));
+  }
+}
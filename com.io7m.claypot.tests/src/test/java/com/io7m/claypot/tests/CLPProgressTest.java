@@ -0,0 +1,193 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.beust.jcommander.JCommander;
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.CLPCommandContextType;
+import com.io7m.claypot.core.CLPStrings;
+import com.io7m.claypot.core.CLPStringsType;
+import com.io7m.claypot.core.internal.CLPProgressSinkType;
+import com.io7m.claypot.core.internal.CLPProgressTicker;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class CLPProgressTest
+{
+  private static final class RecordingSink implements CLPProgressSinkType
+  {
+    private final List<String> updates = new ArrayList<>();
+    private final List<String> finished = new ArrayList<>();
+
+    @Override
+    public synchronized void update(
+      final String text)
+    {
+      this.updates.add(text);
+    }
+
+    @Override
+    public synchronized void finish(
+      final String text)
+    {
+      this.finished.add(text);
+    }
+  }
+
+  private static CLPProgressTicker ticker(
+    final RecordingSink sink,
+    final AtomicLong clock)
+  {
+    return new CLPProgressTicker(
+      CLPStrings.create(),
+      Duration.ofHours(1L),
+      sink,
+      clock::get
+    );
+  }
+
+  @Test
+  public void defaultContextCounts()
+  {
+    final var context = new CLPCommandContextType()
+    {
+      @Override
+      public CLPStringsType strings()
+      {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public CLPApplicationConfiguration configuration()
+      {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public JCommander commander()
+      {
+        throw new UnsupportedOperationException();
+      }
+    };
+
+    try (var progress = context.progress("Copying", 10L)) {
+      progress.add(3L);
+      progress.increment();
+      assertEquals(4L, progress.count());
+    }
+    try (var span = context.span("Copy")) {
+      span.attribute("files", 4L);
+    }
+  }
+
+  @Test
+  public void knownTotal()
+  {
+    final var sink = new RecordingSink();
+    final var clock = new AtomicLong();
+    final var ticker = ticker(sink, clock);
+
+    try (var progress = ticker.open("Copying", 100L)) {
+      progress.add(10L);
+      clock.set(TimeUnit.SECONDS.toNanos(1L));
+      ticker.tick();
+      progress.add(10L);
+      clock.set(TimeUnit.SECONDS.toNanos(2L));
+      ticker.tick();
+    }
+
+    assertEquals(
+      List.of(
+        "Copying: 10/100 (10.0%), 10.0/s, ETA 0:00:09",
+        "Copying: 20/100 (20.0%), 10.0/s, ETA 0:00:08"
+      ),
+      sink.updates
+    );
+    assertEquals(
+      List.of("Copying: 20 done in 0:00:02, 10.0/s"),
+      sink.finished
+    );
+  }
+
+  @Test
+  public void unknownTotal()
+  {
+    final var sink = new RecordingSink();
+    final var clock = new AtomicLong();
+    final var ticker = ticker(sink, clock);
+
+    final var progress = ticker.open("Scanning", 0L);
+    progress.add(50L);
+    clock.set(TimeUnit.SECONDS.toNanos(2L));
+    ticker.tick();
+    progress.close();
+    progress.close();
+
+    assertEquals(List.of("Scanning: 50, 25.0/s"), sink.updates);
+    assertEquals(1, sink.finished.size());
+  }
+
+  @Test
+  public void stalledEta()
+  {
+    final var sink = new RecordingSink();
+    final var clock = new AtomicLong();
+    final var ticker = ticker(sink, clock);
+
+    try (var progress = ticker.open("Waiting", 10L)) {
+      clock.set(TimeUnit.SECONDS.toNanos(1L));
+      ticker.tick();
+      assertEquals(0L, progress.count());
+    }
+
+    assertEquals(
+      List.of("Waiting: 0/10 (0.0%), 0.0/s, ETA ?"),
+      sink.updates
+    );
+  }
+
+  @Test
+  public void concurrentIncrements()
+    throws Exception
+  {
+    final var sink = new RecordingSink();
+    final var clock = new AtomicLong();
+    final var ticker = ticker(sink, clock);
+    final var executor = Executors.newFixedThreadPool(4);
+
+    try (var progress = ticker.open("Parallel", 40000L)) {
+      for (int index = 0; index < 4; ++index) {
+        executor.execute(() -> {
+          for (int count = 0; count < 10000; ++count) {
+            progress.increment();
+          }
+        });
+      }
+      executor.shutdown();
+      executor.awaitTermination(30L, TimeUnit.SECONDS);
+      assertEquals(40000L, progress.count());
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.io7m.claypot.core.CLPAbstractCommand;
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.CLPCommandContextType;
+import com.io7m.claypot.core.CLPResourceAccountingConfiguration;
+import com.io7m.claypot.core.CLPResourceUsage;
+import com.io7m.claypot.core.Claypot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+
+import static com.io7m.claypot.core.CLPCommandType.Status.SUCCESS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public final class CLPResourceAccountingTest
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CLPResourceAccountingTest.class);
+
+  private static final int ALLOCATION_SIZE = 16 * 1024 * 1024;
+
+  private Logger spyLog;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.spyLog = mock(Logger.class, delegatesTo(LOG));
+  }
+
+  @Test
+  public void accountingDisabled()
+  {
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(this.spyLog)
+        .addCommands(AllocatingCommand::new)
+        .build();
+
+    final var claypot = Claypot.create(configuration);
+    claypot.execute(new String[]{"allocate"});
+
+    assertEquals(0, claypot.exitCode());
+    assertEquals(Optional.empty(), claypot.resourceUsage());
+    assertEquals(
+      CLPResourceUsage.ZERO,
+      claypot.metrics().snapshot().get("allocate").resources());
+  }
+
+  @Test
+  public void accountingEnabled()
+  {
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(this.spyLog)
+        .setResourceAccounting(
+          CLPResourceAccountingConfiguration.builder()
+            .setSummary(true)
+            .build())
+        .addCommands(AllocatingCommand::new)
+        .build();
+
+    final var claypot = Claypot.create(configuration);
+    claypot.execute(new String[]{"allocate"});
+    assertEquals(0, claypot.exitCode());
+
+    final var usage = claypot.resourceUsage().orElseThrow();
+    assertTrue(usage.cpuNanos() != 0L, usage::toString);
+    assertTrue(usage.gcCount() >= 0L, usage::toString);
+    assertTrue(usage.gcNanos() >= 0L, usage::toString);
+    if (usage.allocatedBytes() >= 0L) {
+      assertTrue(usage.allocatedBytes() >= ALLOCATION_SIZE, usage::toString);
+    }
+
+    claypot.execute(new String[]{"allocate"});
+    final var total =
+      claypot.metrics().snapshot().get("allocate").resources();
+    assertTrue(total.allocatedBytes() >= usage.allocatedBytes());
+
+    final var captor = ArgumentCaptor.forClass(String.class);
+    verify(this.spyLog, atLeastOnce()).info(eq("{}"), captor.capture());
+    assertTrue(
+      captor.getAllValues()
+        .stream()
+        .anyMatch(text -> text.startsWith("allocate: ")
+          && text.contains("bytes allocated")),
+      captor.getAllValues()::toString
+    );
+  }
+
+  private static final class AllocatingCommand extends CLPAbstractCommand
+  {
+    private volatile byte[] sink;
+
+    AllocatingCommand(
+      final CLPCommandContextType inContext)
+    {
+      super(inContext);
+    }
+
+    @Override
+    protected Status executeActual()
+    {
+      this.sink = new byte[ALLOCATION_SIZE];
+      this.sink[0] = 1;
+      return SUCCESS;
+    }
+
+    @Override
+    public String name()
+    {
+      return "allocate";
+    }
+  }
+}
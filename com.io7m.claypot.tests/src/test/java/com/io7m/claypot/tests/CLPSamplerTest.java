@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.internal.CLPSampler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CLPSamplerTest
+{
+  @Test
+  public void intervalMustBePositive()
+  {
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> new CLPSampler(Thread.currentThread(), Duration.ZERO));
+  }
+
+  @Test
+  public void stopsAndRendersStacks()
+    throws Exception
+  {
+    final var sampler =
+      new CLPSampler(Thread.currentThread(), Duration.ofMillis(1L));
+    sampler.start();
+    Thread.sleep(50L);
+    assertTrue(sampler.stop());
+
+    for (final var stack : sampler.stacks().keySet()) {
+      assertTrue(stack.contains("java.lang.Thread.sleep"), stack);
+    }
+  }
+
+  @Test
+  public void commandProfiled(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var usage = new StringWriter();
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(LoggerFactory.getLogger(CLPSamplerTest.class))
+        .addCommands(BusyCommand::new)
+        .setUsageWriter(usage)
+        .build();
+
+    final var file = directory.resolve("profile.txt");
+    final var claypot = Claypot.create(configuration);
+    claypot.execute(new String[]{
+      "--profile-file",
+      file.toString(),
+      "--profile-interval",
+      "5ms",
+      "busy"
+    });
+    assertEquals(0, claypot.exitCode());
+
+    final var lines = Files.readAllLines(file, UTF_8);
+    assertFalse(lines.isEmpty());
+
+    long total = 0L;
+    boolean sawSpin = false;
+    for (final var line : lines) {
+      assertTrue(line.matches("\\S+ [0-9]+"), line);
+      total += Long.parseLong(line.substring(line.lastIndexOf(' ') + 1));
+      sawSpin |= line.contains(
+        "com.io7m.claypot.tests.BusyCommand.executeActual;"
+          + "com.io7m.claypot.tests.BusyCommand.spin");
+    }
+    assertTrue(total > 0L);
+    assertTrue(sawSpin, String.join("\n", lines));
+
+    claypot.execute(new String[]{"help"});
+    assertFalse(usage.toString().contains("--profile-file"));
+  }
+}
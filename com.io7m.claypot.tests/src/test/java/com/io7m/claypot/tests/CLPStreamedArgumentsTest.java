@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.internal.CLPStreamedArguments;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class CLPStreamedArgumentsTest
+{
+  private static List<String> collect(
+    final CLPStreamedArguments arguments)
+  {
+    final var results = new ArrayList<String>();
+    arguments.forEachRemaining(results::add);
+    return results;
+  }
+
+  private static CLPStreamedArguments streamed(
+    final byte[] data,
+    final byte delimiter,
+    final int bufferSize)
+  {
+    return new CLPStreamedArguments(
+      Channels.newChannel(new ByteArrayInputStream(data)),
+      delimiter,
+      bufferSize
+    );
+  }
+
+  @Test
+  public void lines()
+  {
+    final var arguments =
+      streamed("a\nbb\r\n\nccc\nété".getBytes(UTF_8), (byte) '\n', 1024);
+    assertEquals(List.of("a", "bb", "ccc", "été"), collect(arguments));
+  }
+
+  @Test
+  public void nulls()
+  {
+    final var arguments =
+      streamed("a\nb\0\0c d\0".getBytes(UTF_8), (byte) 0, 1024);
+    assertEquals(List.of("a\nb", "c d"), collect(arguments));
+  }
+
+  @Test
+  public void smallBuffer()
+  {
+    final var expected = new ArrayList<String>();
+    final var text = new StringBuilder();
+    for (int index = 0; index < 100; index += 1) {
+      final var argument =
+        String.format("ärgümënt-%d-€-😀", Integer.valueOf(index));
+      expected.add(argument);
+      text.append(argument);
+      text.append('\0');
+    }
+
+    final var arguments =
+      streamed(text.toString().getBytes(UTF_8), (byte) 0, 5);
+    assertEquals(expected, collect(arguments));
+  }
+
+  @Test
+  public void malformed()
+  {
+    final var arguments =
+      streamed(new byte[]{'a', 0, (byte) 0xff, 0}, (byte) 0, 1024);
+    assertEquals("a", arguments.next());
+    assertThrows(UncheckedIOException.class, arguments::hasNext);
+  }
+
+  @Test
+  public void truncated()
+  {
+    final var arguments =
+      streamed(new byte[]{'a', 0, (byte) 0xe2, (byte) 0x82}, (byte) 0, 1024);
+    assertEquals("a", arguments.next());
+    assertThrows(UncheckedIOException.class, arguments::hasNext);
+  }
+
+  @Test
+  public void argumentsArriveIncrementally()
+  {
+    final var channel = new ChunkedChannel(List.of(
+      "first\0sec",
+      "ond\0",
+      "third\0"
+    ));
+
+    final var arguments = new CLPStreamedArguments(channel, (byte) 0, 64);
+    assertEquals("first", arguments.next());
+    assertEquals(1, channel.reads);
+    assertEquals("second", arguments.next());
+    assertEquals(2, channel.reads);
+    assertEquals("third", arguments.next());
+    assertEquals(3, channel.reads);
+    assertFalse(arguments.hasNext());
+  }
+
+  @Test
+  public void command()
+  {
+    final var received = new ArrayList<String>();
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(LoggerFactory.getLogger(CLPStreamedArgumentsTest.class))
+        .setStandardInput(
+          new ByteArrayInputStream("x\ny\0z\0".getBytes(UTF_8)))
+        .addCommands(context -> new ArgumentsCommand(context, received))
+        .build();
+
+    final var claypot = Claypot.create(configuration);
+    claypot.execute(new String[]{
+      "arguments", "--args-from", "-", "--null", "a",
+    });
+
+    assertEquals(0, claypot.exitCode());
+    assertEquals(List.of("a", "x\ny", "z"), received);
+  }
+
+  private static final class ChunkedChannel implements ReadableByteChannel
+  {
+    private final Deque<byte[]> chunks;
+    private int reads;
+
+    ChunkedChannel(
+      final List<String> inChunks)
+    {
+      this.chunks = new ArrayDeque<>();
+      for (final var chunk : inChunks) {
+        this.chunks.add(chunk.getBytes(UTF_8));
+      }
+    }
+
+    @Override
+    public int read(
+      final ByteBuffer target)
+    {
+      final var chunk = this.chunks.poll();
+      if (chunk == null) {
+        return -1;
+      }
+      this.reads += 1;
+      target.put(chunk);
+      return chunk.length;
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+      return true;
+    }
+
+    @Override
+    public void close()
+    {
+
+    }
+  }
+}
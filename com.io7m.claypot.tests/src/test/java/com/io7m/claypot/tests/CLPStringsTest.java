@@ -17,8 +17,13 @@
 package com.io7m.claypot.tests;
 
 import com.io7m.claypot.core.CLPAbstractStrings;
+import com.io7m.claypot.core.CLPLogLevel;
 import com.io7m.claypot.core.CLPStrings;
+import com.io7m.claypot.core.CLPStringsType;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -29,6 +34,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public final class CLPStringsTest
 {
@@ -47,6 +55,37 @@ public final class CLPStringsTest
     assertEquals("Commands", strings.format("com.io7m.claypot.commands"));
   }
 
+  @Test
+  public void logDisabledDoesNotFormat()
+  {
+    final var strings = Mockito.mock(CLPStringsType.class);
+    Mockito.doCallRealMethod()
+      .when(strings)
+      .log(Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.any());
+
+    final var logger = Mockito.mock(Logger.class);
+    when(logger.isEnabledForLevel(Level.DEBUG)).thenReturn(false);
+
+    strings.log(logger, CLPLogLevel.LOG_DEBUG, "com.io7m.claypot.commands", "x");
+    verify(strings, never()).format(Mockito.anyString(), Mockito.any());
+    verify(logger, never()).debug(Mockito.anyString(), Mockito.any(Object.class));
+  }
+
+  @Test
+  public void logEnabledFormats()
+  {
+    final var strings = CLPStrings.create();
+    final var logger = Mockito.mock(Logger.class);
+    when(logger.isEnabledForLevel(Level.WARN)).thenReturn(true);
+
+    strings.log(
+      logger,
+      CLPLogLevel.LOG_WARN,
+      "com.io7m.claypot.logLevelUnrecognized",
+      "x");
+    verify(logger).warn("{}", "Unrecognized log level: x");
+  }
+
   final static class Wrong extends CLPAbstractStrings
   {
     Wrong(
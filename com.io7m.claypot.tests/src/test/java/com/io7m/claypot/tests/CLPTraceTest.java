@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.internal.CLPTraceNoopSpan;
+import com.io7m.claypot.core.internal.CLPTracer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CLPTraceTest
+{
+  @Test
+  public void disabledRecordsNothing()
+  {
+    final var tracer = new CLPTracer(8);
+    assertSame(CLPTraceNoopSpan.NOOP, tracer.span("x"));
+  }
+
+  @Test
+  public void overflowIsDropped(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var tracer = new CLPTracer(2);
+    tracer.enable();
+    for (int index = 0; index < 5; ++index) {
+      try (var span = tracer.span("s" + index)) {
+        span.attribute("index", (long) index);
+      }
+    }
+
+    final var file = directory.resolve("trace.json");
+    tracer.writeTo(file);
+    final var text = Files.readString(file, UTF_8);
+    assertTrue(text.contains("\"name\":\"s1\""), text);
+    assertFalse(text.contains("\"name\":\"s2\""), text);
+    assertTrue(text.contains("\"droppedSpans\":3"), text);
+  }
+
+  @Test
+  public void nestingClosesInnerSpans(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var tracer = new CLPTracer(8);
+    tracer.enable();
+    final var outer = tracer.span("outer");
+    final var inner = tracer.span("inner");
+    outer.close();
+    inner.attribute("ignored", 1L);
+    inner.close();
+
+    final var file = directory.resolve("trace.json");
+    tracer.writeTo(file);
+    final var text = Files.readString(file, UTF_8);
+    assertFalse(text.contains("ignored"), text);
+
+    tracer.enable();
+    tracer.writeTo(file);
+    assertFalse(Files.readString(file, UTF_8).contains("outer"));
+  }
+
+  @Test
+  public void staleSpansIgnored(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var tracer = new CLPTracer(8);
+    tracer.enable();
+    final var first = tracer.span("first");
+    first.close();
+
+    try (var second = tracer.span("second")) {
+      first.attribute("stale", 1L);
+      first.close();
+      try (var inner = tracer.span("inner")) {
+        inner.attribute("live", 2L);
+      }
+      second.attribute("after", 3L);
+    }
+
+    final var file = directory.resolve("trace.json");
+    tracer.writeTo(file);
+    final var text = Files.readString(file, UTF_8);
+    assertFalse(text.contains("stale"), text);
+    assertTrue(text.contains("\"live\":2"), text);
+    assertTrue(text.contains("\"after\":3"), text);
+  }
+
+  @Test
+  public void commandTraceExported(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var usage = new StringWriter();
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(LoggerFactory.getLogger(CLPTraceTest.class))
+        .addCommands(TracedCommand::new)
+        .setUsageWriter(usage)
+        .build();
+
+    final var file = directory.resolve("trace.json");
+    final var claypot = Claypot.create(configuration);
+    claypot.execute(new String[]{"--trace-file", file.toString(), "traced"});
+    assertEquals(0, claypot.exitCode());
+
+    final var text = Files.readString(file, UTF_8);
+    assertTrue(text.startsWith("{\"traceEvents\":["), text);
+    assertTrue(text.contains("\"name\":\"traced\",\"cat\":\"claypot\",\"ph\":\"X\""), text);
+    assertTrue(text.contains("\"args\":{\"exitCode\":0}"), text);
+    assertTrue(text.contains("\"args\":{\"file\":\"input.txt\"}"), text);
+    assertTrue(text.contains("\"args\":{\"lines\":23}"), text);
+    assertTrue(text.contains("\"args\":{\"name\":\"traced-worker\"}"), text);
+    assertTrue(text.contains("\"args\":{\"items\":100}"), text);
+    assertTrue(text.contains("\"droppedSpans\":0"), text);
+
+    claypot.execute(new String[]{"help"});
+    assertFalse(usage.toString().contains("--trace-file"));
+  }
+}
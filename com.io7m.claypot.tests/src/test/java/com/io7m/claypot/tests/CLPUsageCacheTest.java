@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.beust.jcommander.JCommander;
+import com.io7m.claypot.core.CLPApplicationConfiguration;
+import com.io7m.claypot.core.CLPCommandContextType;
+import com.io7m.claypot.core.internal.CLPCommandRoot;
+import com.io7m.claypot.core.internal.CLPUsageChunks;
+import com.io7m.claypot.core.internal.CLPUsageCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CLPUsageCacheTest
+{
+  private JCommander commander;
+  private CLPCommandContextType context;
+  private CLPUsageCache cache;
+
+  @BeforeEach
+  public void setup()
+  {
+    final var configuration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(LoggerFactory.getLogger(CLPUsageCacheTest.class))
+        .build();
+
+    this.commander = new JCommander();
+    this.commander.setProgramName("cex");
+    this.context = Mockito.mock(CLPCommandContextType.class);
+    Mockito.when(this.context.commander()).thenReturn(this.commander);
+    this.commander.addObject(new CLPCommandRoot(this.context));
+    this.commander.addCommand("crash", new CrashCommand(this.context));
+    this.cache =
+      new CLPUsageCache(configuration, this.commander, Optional::empty);
+  }
+
+  @Test
+  public void usageIsRenderedOnce()
+  {
+    final var brief0 = this.cache.briefUsage();
+    final var brief1 = this.cache.briefUsage();
+    assertSame(brief0, brief1);
+    assertTrue(String.join("", brief0).contains("crash"));
+
+    final var long0 = this.cache.longUsage();
+    final var long1 = this.cache.longUsage();
+    assertSame(long0, long1);
+
+    final var command0 = this.cache.commandUsage("crash").orElseThrow();
+    final var command1 = this.cache.commandUsage("crash").orElseThrow();
+    assertSame(command0, command1);
+  }
+
+  @Test
+  public void usageIsChunked()
+  {
+    for (int index = 0; index < 1000; ++index) {
+      this.commander.addCommand(
+        "command" + index, new EmptyCommand(this.context));
+    }
+
+    final var brief = this.cache.briefUsage();
+    final var full = this.cache.longUsage();
+    assertTrue(brief.size() > 1);
+    assertTrue(full.size() > 1);
+
+    for (final var chunk : brief) {
+      assertTrue(chunk.length() < CLPUsageChunks.CHUNK_SIZE * 2);
+    }
+    for (final var chunk : full) {
+      assertTrue(chunk.length() < CLPUsageChunks.CHUNK_SIZE * 2);
+    }
+
+    final var text = String.join("", full);
+    assertTrue(text.contains("command0"));
+    assertTrue(text.contains("command999"));
+    assertTrue(text.indexOf("command0 ") < text.indexOf("command999 "));
+  }
+
+  @Test
+  public void unknownCommand()
+  {
+    assertFalse(this.cache.commandUsage("nonexistent").isPresent());
+  }
+
+  @Test
+  public void registrationInvalidates()
+  {
+    final var brief0 = this.cache.briefUsage();
+    assertFalse(String.join("", brief0).contains("empty"));
+
+    this.commander.addCommand("empty", new EmptyCommand(this.context));
+
+    final var brief1 = this.cache.briefUsage();
+    assertNotSame(brief0, brief1);
+    assertTrue(String.join("", brief1).contains("empty"));
+    assertTrue(this.cache.commandUsage("empty").isPresent());
+  }
+}
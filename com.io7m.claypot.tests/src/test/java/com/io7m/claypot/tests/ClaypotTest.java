@@ -19,6 +19,7 @@ package com.io7m.claypot.tests;
 import com.io7m.claypot.core.CLPApplicationConfiguration;
 import com.io7m.claypot.core.CLPCommandType;
 import com.io7m.claypot.core.Claypot;
+import com.io7m.claypot.core.internal.CLPLogRateLimitFilter;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -28,6 +29,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -36,6 +38,7 @@ import static org.mockito.AdditionalAnswers.delegatesTo;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 public final class ClaypotTest
@@ -70,6 +73,28 @@ public final class ClaypotTest
     assertTrue(argument.contains("Commands:"));
   }
 
+  @Test
+  public void noArgumentsShowsUsageWriter()
+  {
+    final var writer = new StringWriter();
+    final var applicationConfiguration =
+      CLPApplicationConfiguration.builder()
+        .setProgramName("cex")
+        .setLogger(this.spyLog)
+        .setUsageWriter(writer)
+        .build();
+
+    final var claypot = Claypot.create(applicationConfiguration);
+    claypot.execute(new String[]{});
+
+    assertEquals(1, claypot.exitCode());
+    verify(this.spyLog, never()).info(eq("{}"), any(Object.class));
+
+    final var text = writer.toString();
+    assertTrue(text.contains("Usage: cex"));
+    assertTrue(text.contains("Commands:"));
+  }
+
   @Test
   public void noArgumentsUnrecognizedLogLevel()
   {
@@ -132,11 +157,11 @@ public final class ClaypotTest
     claypot.execute(new String[]{"help", "help"});
 
     assertEquals(0, claypot.exitCode());
-    final var captor = ArgumentCaptor.forClass(StringBuilder.class);
+    final var captor = ArgumentCaptor.forClass(String.class);
     verify(this.spyLog).info(eq("{}"), captor.capture());
 
     final var argument = captor.getValue();
-    assertTrue(argument.toString().contains("The \"help\" command, executed without arguments, shows"));
+    assertTrue(argument.contains("The \"help\" command, executed without arguments, shows"));
   }
 
   @Test
@@ -211,7 +236,10 @@ public final class ClaypotTest
         captor2.capture());
 
     verify(this.spyLog, new Times(2))
-      .debug(eq("{}"), captor2.capture());
+      .debug(
+        eq(CLPLogRateLimitFilter.UNLIMITED),
+        eq("{}"),
+        captor2.capture());
 
     final var arg0 = captor1.getValue();
     assertTrue(arg0.contains("java.io.IOException"));
@@ -269,7 +297,7 @@ public final class ClaypotTest
     final var claypot = Claypot.create(applicationConfiguration);
 
     final Map<String, CLPCommandType> commands = claypot.commands();
-    assertEquals(3, commands.size());
+    assertEquals(4, commands.size());
     assertEquals(CrashCommand.class, commands.get("crash").getClass());
     assertEquals(EmptyCommand.class, commands.get("empty").getClass());
   }
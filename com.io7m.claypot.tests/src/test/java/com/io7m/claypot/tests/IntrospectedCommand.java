@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.beust.jcommander.Parameter;
+import com.io7m.claypot.core.CLPAbstractCommand;
+import com.io7m.claypot.core.CLPCommandContextType;
+
+import java.io.ByteArrayOutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+
+import static com.io7m.claypot.core.CLPCommandType.Status.SUCCESS;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public final class IntrospectedCommand extends CLPAbstractCommand
+{
+  private final List<String> received;
+
+  @Parameter(names = "--socket", required = true)
+  private Path socket;
+
+  /**
+   * Construct a command that queries its own introspection socket.
+   *
+   * @param inContext  The command context
+   * @param inReceived The list that receives snapshots
+   */
+
+  public IntrospectedCommand(
+    final CLPCommandContextType inContext,
+    final List<String> inReceived)
+  {
+    super(inContext);
+    this.received = Objects.requireNonNull(inReceived, "received");
+  }
+
+  static String query(
+    final Path path)
+    throws Exception
+  {
+    try (var channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+      channel.connect(UnixDomainSocketAddress.of(path));
+      final var output = new ByteArrayOutputStream();
+      final var buffer = ByteBuffer.allocate(4096);
+      while (channel.read(buffer) != -1) {
+        output.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+      }
+      return output.toString(UTF_8);
+    }
+  }
+
+  @Override
+  protected Status executeActual()
+    throws Exception
+  {
+    try (var progress = this.context().progress("Copying", 10L)) {
+      progress.add(3L);
+      this.received.add(query(this.socket));
+    }
+    return SUCCESS;
+  }
+
+  @Override
+  public String name()
+  {
+    return "introspected";
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import com.io7m.claypot.core.CLPAbstractCommand;
+import com.io7m.claypot.core.CLPCommandContextType;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static com.io7m.claypot.core.CLPCommandType.Status.SUCCESS;
+
+@Parameters(commandDescription = "A synthetic command with typical parameters.")
+public final class SyntheticCommand extends CLPAbstractCommand
+{
+  private final String name;
+
+  @Parameter(description = "<file> ...")
+  private List<String> files = new ArrayList<>();
+
+  @Parameter(
+    names = "--output",
+    description = "The output file."
+  )
+  private Path output;
+
+  @Parameter(
+    names = "--count",
+    description = "The number of items to process."
+  )
+  private int count = 10;
+
+  @Parameter(
+    names = "--label",
+    description = "A label attached to the output."
+  )
+  private String label = "default";
+
+  @Parameter(
+    names = "--dry-run",
+    description = "Do not write any output."
+  )
+  private boolean dryRun;
+
+  /**
+   * Construct a command.
+   *
+   * @param inContext The command context
+   * @param inName    The command name
+   */
+
+  public SyntheticCommand(
+    final CLPCommandContextType inContext,
+    final String inName)
+  {
+    super(inContext);
+    this.name = Objects.requireNonNull(inName, "name");
+  }
+
+  @Override
+  public String extendedHelp()
+  {
+    return "The synthetic command reads each file and writes a summary.";
+  }
+
+  @Override
+  protected Status executeActual()
+  {
+    return SUCCESS;
+  }
+
+  @Override
+  public String name()
+  {
+    return this.name;
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.claypot.tests;
+
+import com.io7m.claypot.core.CLPAbstractCommand;
+import com.io7m.claypot.core.CLPCommandContextType;
+
+import static com.io7m.claypot.core.CLPCommandType.Status.SUCCESS;
+
+public final class TracedCommand extends CLPAbstractCommand
+{
+  /**
+   * Construct a command.
+   *
+   * @param inContext The command context
+   */
+
+  public TracedCommand(
+    final CLPCommandContextType inContext)
+  {
+    super(inContext);
+  }
+
+  @Override
+  protected Status executeActual()
+    throws Exception
+  {
+    final var context = this.context();
+    try (var load = context.span("load")) {
+      load.attribute("file", "input.txt");
+      try (var parse = context.span("parse")) {
+        parse.attribute("lines", 23L);
+      }
+    }
+
+    final var worker = new Thread(() -> {
+      try (var span = context.span("work")) {
+        span.attribute("items", 100L);
+      }
+    }, "traced-worker");
+    worker.start();
+    worker.join();
+    return SUCCESS;
+  }
+
+  @Override
+  public String name()
+  {
+    return "traced";
+  }
+}